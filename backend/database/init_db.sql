@@ -81,25 +81,33 @@ CREATE TABLE IF NOT EXISTS personalized_plans (
     FOREIGN KEY (report_id) REFERENCES health_reports(report_id) ON DELETE CASCADE
 );
 
--- 4. 每日任务表
-CREATE TABLE IF NOT EXISTS daily_tasks (
-    task_id INTEGER PRIMARY KEY AUTOINCREMENT,
-    plan_id INTEGER NOT NULL,
-    user_id INTEGER NOT NULL,
-    task_date TEXT NOT NULL,
-    -- 任务详情
+-- 4. 计划日模板表（餐食、运动、注意事项内容按摘要去重，多个任务共用）
+CREATE TABLE IF NOT EXISTS plan_day_templates (
+    template_id INTEGER PRIMARY KEY AUTOINCREMENT,
+    content_hash TEXT NOT NULL UNIQUE,
+    -- 餐食
     meal_breakfast TEXT,
     meal_lunch TEXT,
     meal_dinner TEXT,
     meal_snacks TEXT,
     daily_calorie_goal INTEGER,
-    -- 运动任务
+    -- 运动
     exercise_type TEXT,
     exercise_description TEXT,
     exercise_duration INTEGER,
     exercise_intensity TEXT CHECK(exercise_intensity IN ('low', 'medium', 'high')),
     -- 提醒事项
-   注意事项 TEXT,
+    注意事项 TEXT,
+    created_at TEXT DEFAULT (datetime('now', 'localtime'))
+);
+
+-- 每日任务表（任务内容引用计划日模板，只保存执行状态）
+CREATE TABLE IF NOT EXISTS daily_tasks (
+    task_id INTEGER PRIMARY KEY AUTOINCREMENT,
+    plan_id INTEGER NOT NULL,
+    user_id INTEGER NOT NULL,
+    task_date TEXT NOT NULL,
+    template_id INTEGER,
     -- 执行状态
     is_completed INTEGER DEFAULT 0,
     completion_rate REAL DEFAULT 0.0,
@@ -109,7 +117,8 @@ CREATE TABLE IF NOT EXISTS daily_tasks (
     created_at TEXT DEFAULT (datetime('now', 'localtime')),
     updated_at TEXT DEFAULT (datetime('now', 'localtime')),
     FOREIGN KEY (plan_id) REFERENCES personalized_plans(plan_id) ON DELETE CASCADE,
-    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE,
+    FOREIGN KEY (template_id) REFERENCES plan_day_templates(template_id)
 );
 
 -- 5. 饮食记录表
@@ -202,6 +211,32 @@ CREATE TABLE IF NOT EXISTS system_logs (
     FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE SET NULL
 );
 
+-- 创建计划结果缓存表（按规范化报告指纹 + 引擎版本寻址）
+CREATE TABLE IF NOT EXISTS plan_result_cache (
+    cache_key TEXT PRIMARY KEY,
+    engine_version TEXT NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TEXT DEFAULT (datetime('now', 'localtime')),
+    last_hit_at TEXT,
+    hit_count INTEGER DEFAULT 0
+);
+
+-- 创建月度滚动生成任务表（记录进度与断点）
+CREATE TABLE IF NOT EXISTS plan_rollover_jobs (
+    job_id INTEGER PRIMARY KEY AUTOINCREMENT,
+    target_month TEXT NOT NULL UNIQUE,
+    status TEXT CHECK(status IN ('running', 'completed', 'failed')),
+    total_users INTEGER DEFAULT 0,
+    processed_users INTEGER DEFAULT 0,
+    succeeded INTEGER DEFAULT 0,
+    failed INTEGER DEFAULT 0,
+    last_user_id INTEGER DEFAULT 0,
+    message TEXT,
+    started_at TEXT DEFAULT (datetime('now', 'localtime')),
+    updated_at TEXT DEFAULT (datetime('now', 'localtime')),
+    finished_at TEXT
+);
+
 -- 创建索引以提高查询性能
 CREATE INDEX IF NOT EXISTS idx_users_username ON users(username);
 CREATE INDEX IF NOT EXISTS idx_health_reports_user_id ON health_reports(user_id);
@@ -1,20 +1,46 @@
 package com.healthsmart;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
+import com.healthsmart.dao.DailyTaskDAO;
+import com.healthsmart.dao.FieldSet;
+import com.healthsmart.dao.HealthReportDAO;
 import com.healthsmart.model.*;
+import com.healthsmart.router.JsonBodyParams;
+import com.healthsmart.router.RouteMatch;
+import com.healthsmart.router.Router;
 import com.healthsmart.service.*;
+import com.healthsmart.util.AppConfig;
+import com.healthsmart.web.CompressionFilter;
+import com.healthsmart.web.ConditionalGet;
+import com.healthsmart.web.CorsFilter;
+import com.healthsmart.web.StaticAssetHandler;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * REST API 服务器 - 前端后端对接核心组件
@@ -25,89 +51,384 @@ public class ApiServer {
     public static int PORT = 8080;
     private static final Gson gson = new Gson();
     private static HttpServer server;
+    private static volatile boolean ready;
+    // 请求线程池，批量接口在其上并发执行子请求（进程内测试未启动监听时为 null，子请求顺序执行）
+    private static volatile Executor requestExecutor;
+    private static final ConditionalGet conditionalGet = new ConditionalGet();
     private static UserService userService;
     private static HealthReportService healthReportService;
     private static PlanGenerationService planService;
     private static AnalyticsService analyticsService;
     
     public static void start() throws IOException {
-        // 初始化服务
-        userService = new UserService();
-        healthReportService = new HealthReportService();
-        planService = new PlanGenerationService();
-        analyticsService = new AnalyticsService();
-        
+        initServices();
+        startListener();
+        markReady();
+    }
+
+    /**
+     * 打开监听端口并注册路由；在 markReady() 之前除存活、就绪检查外一律返回503
+     */
+    public static void startListener() throws IOException {
+        ready = false;
         server = HttpServer.create(new InetSocketAddress(PORT), 0);
+        Filter gate = new ReadinessGate();
+        // 跨域过滤器排在门控之前：预检请求在启动期间也直接应答
+        Filter cors = CorsFilter.fromConfig("GET, POST, PUT, DELETE, OPTIONS");
+        // 响应压缩按路由模板统计压缩率
+        CompressionFilter compression = CompressionFilter.fromConfig(ApiServer::routeTemplate);
         
-        // API 路由
-        server.createContext("/api/user", new UserHandler());
-        server.createContext("/api/health-report", new HealthReportHandler());
-        server.createContext("/api/plan", new PlanHandler());
-        server.createContext("/api/analytics", new AnalyticsHandler());
-        server.createContext("/api/reminder", new ReminderHandler());
+        // API 路由（旧式 ?action= 与 REST 路径均由预编译路由表分发）
+        ApiHandler api = new ApiHandler();
+        server.createContext("/api/", api).getFilters().addAll(List.of(cors, gate, compression));
+        // 上下文按字符串前缀匹配，/api/health-report 需单独注册以免落入 /api/health
+        server.createContext("/api/health-report", api).getFilters().addAll(List.of(cors, gate, compression));
         
-        // 健康检查
-        server.createContext("/api/health", exchange -> {
-            sendJsonResponse(exchange, 200, "{\"status\":\"ok\",\"message\":\"服务器运行正常\",\"port\":" + PORT + "}");
-        });
+        // 健康检查（存活、就绪检查不受启动门控影响；就绪检查在启动期间自行返回503和依赖详情）
+        server.createContext("/api/health", new HealthHandler()).getFilters().addAll(List.of(cors, gate));
+        server.createContext("/api/health/live", new LivenessHandler()).getFilters().add(cors);
+        server.createContext("/api/health/ready", new ReadinessHandler())
+                .getFilters().addAll(List.of(cors, compression));
+
+        // Web 界面静态资源（不依赖服务，不受启动门控影响）
+        StaticAssetHandler assets = loadStaticAssets();
+        if (assets != null) {
+            server.createContext("/", assets);
+        }
         
-        server.setExecutor(Executors.newFixedThreadPool(10));
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(10);
+        server.setExecutor(executor);
+        requestExecutor = executor;
         server.start();
+
+        HealthProbeService.getInstance().registerExecutor("http", executor);
+        HealthProbeService.getInstance().registerMetrics("conditionalGet", conditionalGet::stats);
+        HealthProbeService.getInstance().registerMetrics("compression", compression::stats);
         
         System.out.println("========================================");
         System.out.println("   API 服务器已启动");
         System.out.println("   地址: http://localhost:" + PORT);
         System.out.println("========================================");
     }
+
+    /**
+     * 加载 Web 界面资源；目录不存在或读取失败时只提供 API
+     */
+    private static StaticAssetHandler loadStaticAssets() {
+        Path root = Paths.get(AppConfig.getString("healthsmart.web.root",
+                System.getProperty("user.dir") + File.separator + "frontend" + File.separator + "web"));
+        if (!Files.isDirectory(root)) {
+            System.out.println("未找到Web资源目录，仅提供API: " + root);
+            return null;
+        }
+        try {
+            long begin = System.nanoTime();
+            StaticAssetHandler assets = StaticAssetHandler.load(root,
+                    AppConfig.getLong("healthsmart.web.inline-max-bytes", 256 * 1024));
+            long[] stats = assets.stats();
+            System.out.println("Web资源已载入内存: " + stats[0] + " 个文件, " + stats[1] / 1024 + " KB (gzip "
+                    + stats[2] / 1024 + " KB, br " + stats[3] / 1024 + " KB), 耗时 "
+                    + (System.nanoTime() - begin) / 1_000_000 + " ms");
+            return assets;
+        } catch (IOException e) {
+            System.err.println("加载Web资源失败，仅提供API: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 依赖全部就绪后开放流量，并启动后台健康探测、月度计划滚动生成和计划窗口补齐
+     */
+    public static void markReady() {
+        HealthProbeService.getInstance().start();
+        PlanRolloverService.getInstance().start();
+        PlanWindowRoller.getInstance().start();
+        ready = true;
+    }
+
+    public static boolean isReady() {
+        return ready;
+    }
     
+    /**
+     * JSON 路径预热：用与请求路径相同的 Gson 实例和转换方法反复序列化/反序列化，
+     * 让 JIT 在接入流量前完成编译
+     */
+    static void warmUpJson(int iterations) {
+        HealthReport report = new HealthReport();
+        report.setReportId(1);
+        report.setUserId(1);
+        report.setReportMonth("2024-01");
+        report.setHeight(170.0);
+        report.setWeight(65.0);
+        PersonalizedPlan plan = new PersonalizedPlan();
+        plan.setPlanId(1);
+        plan.setUserId(1);
+        plan.setPlanMonth("2024-01");
+        plan.setPlanStatus("active");
+        DailyTask task = new DailyTask();
+        task.setTaskId(1);
+        task.setPlanId(1);
+        task.setTaskDate("2024-01-01");
+        task.setMealBreakfast("燕麦粥、鸡蛋、圣女果");
+        task.setExerciseType("有氧运动");
+
+        String body = "{\"userId\":1,\"planId\":1,\"taskDate\":\"2024-01-01\",\"completed\":true}";
+        for (int i = 0; i < iterations; i++) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("report", healthReportToMap(report));
+            response.put("plan", planToMap(plan));
+            response.put("task", dailyTaskToMap(task));
+            gson.fromJson(gson.toJson(response), Map.class);
+            gson.fromJson(body, Map.class);
+        }
+    }
+
+    /**
+     * 初始化服务（不绑定端口，供进程内测试直接驱动处理器）
+     */
+    static void initServices() {
+        userService = new UserService();
+        healthReportService = new HealthReportService();
+        planService = new PlanGenerationService();
+        analyticsService = new AnalyticsService();
+    }
+
     public static void stop() {
         if (server != null) {
             server.stop(0);
+            HealthProbeService.getInstance().stop();
+            PlanRolloverService.getInstance().stop();
+            PlanWindowRoller.getInstance().stop();
+            PythonEngineExecutor.getInstance().cancelAll();
             System.out.println("API 服务器已停止");
         }
     }
     
     /**
-     * 用户API处理器
+     * API 端点：接收请求体（REST 路由的路径参数与声明的查询参数已并入）并返回响应内容
+     */
+    @FunctionalInterface
+    interface Endpoint {
+        Map<String, Object> handle(String body) throws Exception;
+
+        /**
+         * 资源版本，用作强 ETag；返回 null 表示不支持条件请求
+         */
+        default String version(String body) throws Exception {
+            return null;
+        }
+    }
+
+    /**
+     * 资源版本查询：只做聚合，不读取也不序列化完整内容
+     */
+    @FunctionalInterface
+    interface Version {
+        String of(String body) throws Exception;
+    }
+
+    /**
+     * 为端点附加资源版本，GET 请求据此支持 If-None-Match
      */
-    static class UserHandler implements HttpHandler {
+    private static Endpoint versioned(String kind, Endpoint endpoint, Version resourceVersion) {
+        return new Endpoint() {
+            @Override
+            public Map<String, Object> handle(String body) throws Exception {
+                return endpoint.handle(body);
+            }
+
+            @Override
+            public String version(String body) throws Exception {
+                String value = resourceVersion.of(body);
+                return value != null ? ConditionalGet.strongTag(kind, value) : null;
+            }
+        };
+    }
+
+    // 支持条件请求的端点（旧式操作与 REST 路径共用）
+    private static final Endpoint REPORT_LIST =
+            versioned("reports", ApiServer::handleGetReportList, ApiServer::reportListVersion);
+    private static final Endpoint PLAN_TASKS =
+            versioned("tasks", ApiServer::handleGetAllTasks, ApiServer::planTasksVersion);
+    private static final Endpoint DASHBOARD =
+            versioned("dashboard", ApiServer::handleDashboard, ApiServer::dashboardVersion);
+
+    /**
+     * 路由表：旧式 ?action= 操作与前端 api.js 使用的 REST 路径指向同一组处理方法
+     */
+    static final Router<Endpoint> ROUTES = Router.<Endpoint>builder()
+            .action("/api/user", "login", ApiServer::handleLogin)
+            .action("/api/user", "register", ApiServer::handleRegister)
+            .action("/api/user", "profile", ApiServer::handleProfile)
+            .action("/api/user", "update", ApiServer::handleUpdate)
+            .action("/api/user", "auth", ApiServer::handleAuth)
+            .action("/api/health-report", "submit", ApiServer::handleSubmitReport)
+            .action("/api/health-report", "getLatest", ApiServer::handleGetLatestReport)
+            .action("/api/health-report", "list", REPORT_LIST)
+            .action("/api/health-report", "getById", ApiServer::handleGetReportById)
+            .action("/api/plan", "generate", ApiServer::handleGeneratePlan)
+            .action("/api/plan", "getToday", ApiServer::handleGetToday)
+            .action("/api/plan", "getTasks", PLAN_TASKS)
+            .action("/api/plan", "getByDate", ApiServer::handleGetTaskByDate)
+            .action("/api/plan", "complete", ApiServer::handleCompleteTask)
+            .action("/api/analytics", "dashboard", DASHBOARD)
+            .action("/api/analytics", "weekly", ApiServer::handleWeekly)
+            .action("/api/analytics", "streak", ApiServer::handleStreak)
+            .action("/api/analytics", "planStats", ApiServer::handlePlanStats)
+            .action("/api/reminder", "list", ApiServer::handleReminderList)
+            .action("/api/reminder", "create", ApiServer::handleReminderCreate)
+            .post("/api/user/auth", ApiServer::handleAuth)
+            .post("/api/user/login", ApiServer::handleLogin)
+            .post("/api/user/register", ApiServer::handleRegister)
+            .get("/api/user/{userId:int}", ApiServer::handleProfile)
+            .put("/api/user/{userId:int}", ApiServer::handleUpdate)
+            .post("/api/health-report", ApiServer::handleSubmitReport)
+            .get("/api/health-report/user/{userId:int}?{fields}", REPORT_LIST)
+            .post("/api/plan/generate", ApiServer::handleGeneratePlan)
+            .get("/api/plan/{planId:int}/tasks?{fields}", PLAN_TASKS)
+            .get("/api/plan/daily?{userId:int}&{date}", ApiServer::handleGetDaily)
+            .get("/api/analytics/dashboard?{userId:int}", DASHBOARD)
+            .get("/api/analytics/statistics?{userId:int}&{period}", ApiServer::handleWeekly)
+            .get("/api/reminders?{userId:int}&{filter}", ApiServer::handleReminderList)
+            .post("/api/task/{taskId:int}/complete", ApiServer::handleCompleteTask)
+            .post("/api/batch", ApiServer::handleBatch)
+            .build();
+
+    // 每个工作线程复用一个匹配结果，匹配过程不分配对象
+    private static final ThreadLocal<RouteMatch<Endpoint>> MATCH = ThreadLocal.withInitial(RouteMatch::new);
+
+    /**
+     * API 分发处理器
+     */
+    static class ApiHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
+            URI uri = exchange.getRequestURI();
+            RouteMatch<Endpoint> match = MATCH.get();
             String body = readRequestBody(exchange);
-            String action = getAction(exchange.getRequestURI().getQuery());
-            
-            Map<String, Object> response = new HashMap<>();
-            
+
+            if (!ROUTES.match(exchange.getRequestMethod(), uri.getRawPath(), uri.getRawQuery(), match)) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", false);
+                int status = 200;
+                if (match.isUnknownAction()) {
+                    // 旧式接口对未知操作一直返回200；同一路径有 REST 路由时返回404，避免误以为请求已处理
+                    status = match.isRestPath() ? 404 : 200;
+                    String action = match.queryParam("action");
+                    response.put("message", "未知的操作类型: " + (action != null ? action : ""));
+                } else if (match.isMethodNotAllowed()) {
+                    status = 405;
+                    response.put("message", "不支持的请求方法: " + exchange.getRequestMethod());
+                } else {
+                    status = 404;
+                    response.put("message", "未找到接口: " + uri.getRawPath());
+                }
+                sendJsonResponse(exchange, status, gson.toJson(response));
+                return;
+            }
+
+            Endpoint endpoint = match.target();
+            String params;
             try {
-                switch (action) {
-                    case "login":
-                        response = handleLogin(body);
-                        break;
-                    case "register":
-                        response = handleRegister(body);
-                        break;
-                    case "profile":
-                        response = handleProfile(body);
-                        break;
-                    case "update":
-                        response = handleUpdate(body);
-                        break;
-                    case "auth":
-                        response = handleAuth(body);
-                        break;
-                    default:
-                        response.put("success", false);
-                        response.put("message", "未知的操作类型: " + action);
+                params = JsonBodyParams.merge(body, match);
+            } catch (IllegalArgumentException e) {
+                sendJsonResponse(exchange, 400, gson.toJson(badRequest(e)));
+                return;
+            }
+            // 版本在完整查询之前取得，见 ConditionalGet
+            String etag = "GET".equals(exchange.getRequestMethod()) ? versionOf(endpoint, params) : null;
+            Headers headers = exchange.getResponseHeaders();
+            if (etag != null) {
+                headers.set("ETag", etag);
+                headers.set("Cache-Control", "no-cache");
+                if (conditionalGet.evaluate(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+                    // 请求体已读完，无正文的304不影响连接复用
+                    exchange.sendResponseHeaders(304, -1);
+                    exchange.close();
+                    return;
                 }
+            }
+
+            Map<String, Object> response;
+            try {
+                response = endpoint.handle(params);
             } catch (Exception e) {
+                response = new HashMap<>();
                 response.put("success", false);
                 response.put("message", e.getMessage());
                 e.printStackTrace();
             }
-            
+            if (etag != null && !Boolean.TRUE.equals(response.get("success"))) {
+                // 失败响应不可被缓存后再以304复用
+                headers.remove("ETag");
+                headers.remove("Cache-Control");
+            }
+
             sendJsonResponse(exchange, 200, gson.toJson(response));
         }
     }
+
+    /**
+     * 健康检查处理器
+     */
+    static class HealthHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            sendJsonResponse(exchange, 200, "{\"status\":\"ok\",\"message\":\"服务器运行正常\",\"port\":" + PORT + "}");
+        }
+    }
+    
+    /**
+     * 启动门控：服务未就绪时直接返回503
+     */
+    static class ReadinessGate extends Filter {
+        @Override
+        public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+            if (ready) {
+                chain.doFilter(exchange);
+            } else {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                sendJsonResponse(exchange, 503, "{\"success\":false,\"message\":\"服务启动中，请稍后重试\"}");
+            }
+        }
+
+        @Override
+        public String description() {
+            return "startup readiness gate";
+        }
+    }
+    
+    /**
+     * 存活检查处理器：不依赖任何外部资源
+     */
+    static class LivenessHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            sendJsonResponse(exchange, 200, gson.toJson(HealthProbeService.getInstance().liveness()));
+        }
+    }
+    
+    /**
+     * 就绪检查处理器：返回后台探测缓存的依赖状态，未就绪时返回503；
+     * 不经过启动门控，启动完成前同样返回依赖详情，status 为 starting
+     */
+    static class ReadinessHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            Map<String, Object> readiness = HealthProbeService.getInstance().readiness();
+            boolean started = ready;
+            if (!started) {
+                readiness.put("status", "starting");
+                readiness.put("ready", false);
+                exchange.getResponseHeaders().set("Retry-After", "1");
+            }
+            readiness.put("started", started);
+            boolean dependenciesReady = Boolean.TRUE.equals(readiness.get("ready"));
+            sendJsonResponse(exchange, started && dependenciesReady ? 200 : 503, gson.toJson(readiness));
+        }
+    }
     
     private static Map<String, Object> handleAuth(String body) {
         Map<String, Object> data = gson.fromJson(body, Map.class);
@@ -218,7 +539,7 @@ public class ApiServer {
         
         try {
             Integer userId = ((Number) data.get("userId")).intValue();
-            User user = userService.getUserById(userId);
+            User user = findUser(userId);
             
             response.put("success", true);
             Map<String, Object> userData = new HashMap<>();
@@ -263,45 +584,6 @@ public class ApiServer {
         return response;
     }
     
-    /**
-     * 健康报告API处理器
-     */
-    static class HealthReportHandler implements HttpHandler {
-        @Override
-        public void handle(HttpExchange exchange) throws IOException {
-            String body = readRequestBody(exchange);
-            String action = getAction(exchange.getRequestURI().getQuery());
-            
-            Map<String, Object> response = new HashMap<>();
-            
-            try {
-                switch (action) {
-                    case "submit":
-                        response = handleSubmitReport(body);
-                        break;
-                    case "getLatest":
-                        response = handleGetLatestReport(body);
-                        break;
-                    case "list":
-                        response = handleGetReportList(body);
-                        break;
-                    case "getById":
-                        response = handleGetReportById(body);
-                        break;
-                    default:
-                        response.put("success", false);
-                        response.put("message", "未知的操作类型: " + action);
-                }
-            } catch (Exception e) {
-                response.put("success", false);
-                response.put("message", e.getMessage());
-                e.printStackTrace();
-            }
-            
-            sendJsonResponse(exchange, 200, gson.toJson(response));
-        }
-    }
-    
     private static Map<String, Object> handleSubmitReport(String body) {
         Map<String, Object> data = gson.fromJson(body, Map.class);
         Map<String, Object> response = new HashMap<>();
@@ -332,7 +614,7 @@ public class ApiServer {
         
         try {
             Integer userId = ((Number) data.get("userId")).intValue();
-            HealthReport report = healthReportService.getLatestReportByUserId(userId);
+            HealthReport report = findLatestReport(userId);
             
             response.put("success", true);
             response.put("data", healthReportToMap(report));
@@ -350,12 +632,16 @@ public class ApiServer {
         
         try {
             Integer userId = ((Number) data.get("userId")).intValue();
-            List<HealthReport> reports = healthReportService.getReportsByUserId(userId);
+            // fields=reportMonth,weight 只查询并返回所选字段
+            FieldSet fields = FieldSet.parse((String) data.get("fields"), HealthReportDAO.REPORT_FIELDS);
+            List<HealthReport> reports = fields == null
+                    ? healthReportService.getReportsByUserId(userId)
+                    : healthReportService.getReportsByUserId(userId, fields);
             
             response.put("success", true);
             List<Map<String, Object>> reportList = new ArrayList<>();
             for (HealthReport report : reports) {
-                reportList.add(healthReportToMap(report));
+                reportList.add(healthReportToMap(report, fields));
             }
             response.put("data", reportList);
         } catch (Exception e) {
@@ -444,75 +730,40 @@ public class ApiServer {
     }
     
     private static Map<String, Object> healthReportToMap(HealthReport report) {
+        return healthReportToMap(report, null);
+    }
+
+    /**
+     * 报告转为响应字段；fields 为 null 时返回全部字段
+     */
+    private static Map<String, Object> healthReportToMap(HealthReport report, FieldSet fields) {
         Map<String, Object> map = new HashMap<>();
         if (report == null) return map;
         
-        map.put("reportId", report.getReportId());
-        map.put("userId", report.getUserId());
-        map.put("reportMonth", report.getReportMonth());
-        map.put("height", report.getHeight());
-        map.put("weight", report.getWeight());
-        map.put("bmi", report.getBmi());
-        map.put("bodyFatRate", report.getBodyFatRate());
-        map.put("muscleMass", report.getMuscleMass());
-        map.put("systolicPressure", report.getSystolicPressure());
-        map.put("diastolicPressure", report.getDiastolicPressure());
-        map.put("sleepHoursAvg", report.getSleepHoursAvg());
-        map.put("sleepQuality", report.getSleepQuality());
-        map.put("exerciseFrequency", report.getExerciseFrequency());
-        map.put("dietaryPreferences", report.getDietaryPreferences());
-        map.put("healthGoal", report.getHealthGoal());
-        map.put("targetWeight", report.getTargetWeight());
-        map.put("stressLevel", report.getStressLevel());
-        map.put("energyLevel", report.getEnergyLevel());
-        map.put("smoking", report.getSmoking());
-        map.put("drinking", report.getDrinking());
+        putField(map, fields, "reportId", report.getReportId());
+        putField(map, fields, "userId", report.getUserId());
+        putField(map, fields, "reportMonth", report.getReportMonth());
+        putField(map, fields, "height", report.getHeight());
+        putField(map, fields, "weight", report.getWeight());
+        putField(map, fields, "bmi", report.getBmi());
+        putField(map, fields, "bodyFatRate", report.getBodyFatRate());
+        putField(map, fields, "muscleMass", report.getMuscleMass());
+        putField(map, fields, "systolicPressure", report.getSystolicPressure());
+        putField(map, fields, "diastolicPressure", report.getDiastolicPressure());
+        putField(map, fields, "sleepHoursAvg", report.getSleepHoursAvg());
+        putField(map, fields, "sleepQuality", report.getSleepQuality());
+        putField(map, fields, "exerciseFrequency", report.getExerciseFrequency());
+        putField(map, fields, "dietaryPreferences", report.getDietaryPreferences());
+        putField(map, fields, "healthGoal", report.getHealthGoal());
+        putField(map, fields, "targetWeight", report.getTargetWeight());
+        putField(map, fields, "stressLevel", report.getStressLevel());
+        putField(map, fields, "energyLevel", report.getEnergyLevel());
+        putField(map, fields, "smoking", report.getSmoking());
+        putField(map, fields, "drinking", report.getDrinking());
         
         return map;
     }
     
-    /**
-     * 计划API处理器
-     */
-    static class PlanHandler implements HttpHandler {
-        @Override
-        public void handle(HttpExchange exchange) throws IOException {
-            String body = readRequestBody(exchange);
-            String action = getAction(exchange.getRequestURI().getQuery());
-            
-            Map<String, Object> response = new HashMap<>();
-            
-            try {
-                switch (action) {
-                    case "generate":
-                        response = handleGeneratePlan(body);
-                        break;
-                    case "getToday":
-                        response = handleGetToday(body);
-                        break;
-                    case "getTasks":
-                        response = handleGetAllTasks(body);
-                        break;
-                    case "getByDate":
-                        response = handleGetTaskByDate(body);
-                        break;
-                    case "complete":
-                        response = handleCompleteTask(body);
-                        break;
-                    default:
-                        response.put("success", false);
-                        response.put("message", "未知的操作类型: " + action);
-                }
-            } catch (Exception e) {
-                response.put("success", false);
-                response.put("message", e.getMessage());
-                e.printStackTrace();
-            }
-            
-            sendJsonResponse(exchange, 200, gson.toJson(response));
-        }
-    }
-    
     private static Map<String, Object> handleGeneratePlan(String body) {
         Map<String, Object> data = gson.fromJson(body, Map.class);
         Map<String, Object> response = new HashMap<>();
@@ -532,6 +783,11 @@ public class ApiServer {
             response.put("success", true);
             response.put("message", "计划生成成功");
             response.put("data", planToMap(plan));
+        } catch (EngineUnavailableException e) {
+            // 引擎暂不可用：与计划内容错误区分，前端可提示稍后重试
+            response.put("success", false);
+            response.put("engineUnavailable", true);
+            response.put("message", e.getMessage());
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", e.getMessage());
@@ -547,7 +803,7 @@ public class ApiServer {
         try {
             Integer userId = ((Number) data.get("userId")).intValue();
             Integer planId = ((Number) data.get("planId")).intValue();
-            List<DailyTask> tasks = planService.getPlanTasks(planId);
+            List<DailyTask> tasks = findPlanTasks(planId);
             
             String today = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
             DailyTask todayTask = tasks.stream()
@@ -576,12 +832,14 @@ public class ApiServer {
         
         try {
             Integer planId = ((Number) data.get("planId")).intValue();
-            List<DailyTask> tasks = planService.getPlanTasks(planId);
+            // fields=taskDate,isCompleted（如日历视图）只查询并返回所选字段
+            FieldSet fields = FieldSet.parse((String) data.get("fields"), DailyTaskDAO.TASK_FIELDS);
+            List<DailyTask> tasks = fields == null ? findPlanTasks(planId) : planService.getPlanTasks(planId, fields);
             
             response.put("success", true);
             List<Map<String, Object>> taskList = new ArrayList<>();
             for (DailyTask task : tasks) {
-                taskList.add(dailyTaskToMap(task));
+                taskList.add(dailyTaskToMap(task, fields));
             }
             response.put("data", taskList);
         } catch (Exception e) {
@@ -600,7 +858,7 @@ public class ApiServer {
             Integer planId = ((Number) data.get("planId")).intValue();
             String taskDate = (String) data.get("taskDate");
             
-            List<DailyTask> tasks = planService.getPlanTasks(planId);
+            List<DailyTask> tasks = findPlanTasks(planId);
             DailyTask task = tasks.stream()
                 .filter(t -> t.getTaskDate() != null && t.getTaskDate().equals(taskDate))
                 .findFirst()
@@ -612,10 +870,40 @@ public class ApiServer {
             response.put("success", false);
             response.put("message", e.getMessage());
         }
-        
+
         return response;
     }
-    
+
+    /**
+     * 按用户与日期查询当日任务（未指定日期时为今天）
+     */
+    private static Map<String, Object> handleGetDaily(String body) {
+        Map<String, Object> data = gson.fromJson(body, Map.class);
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            Integer userId = ((Number) data.get("userId")).intValue();
+            String date = (String) data.get("date");
+            if (date == null || date.isEmpty()) {
+                date = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+            }
+
+            DailyTask task = findTask(userId, date);
+            response.put("success", true);
+            if (task != null) {
+                response.put("data", dailyTaskToMap(task));
+            } else {
+                response.put("data", null);
+                response.put("message", "当日暂无计划");
+            }
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+        }
+
+        return response;
+    }
+
     private static Map<String, Object> handleCompleteTask(String body) {
         Map<String, Object> data = gson.fromJson(body, Map.class);
         Map<String, Object> response = new HashMap<>();
@@ -626,7 +914,9 @@ public class ApiServer {
             
             // 使用DAO完成任务
             com.healthsmart.dao.DailyTaskDAO taskDAO = new com.healthsmart.dao.DailyTaskDAO();
-            boolean success = taskDAO.updateCompletion(taskId, completed, 0, 0, completed ? 100.0 : 0.0);
+            Integer ownerId = taskDAO.updateCompletionReturningUser(taskId, completed, 0, 0, completed ? 100.0 : 0.0);
+            boolean success = ownerId != null;
+            DashboardService.invalidate(ownerId);
             
             response.put("success", success);
             response.put("message", success ? "操作成功" : "操作失败");
@@ -658,70 +948,44 @@ public class ApiServer {
     }
     
     private static Map<String, Object> dailyTaskToMap(DailyTask task) {
+        return dailyTaskToMap(task, null);
+    }
+
+    /**
+     * 任务转为响应字段；fields 为 null 时返回全部字段
+     */
+    private static Map<String, Object> dailyTaskToMap(DailyTask task, FieldSet fields) {
         Map<String, Object> map = new HashMap<>();
         if (task == null) return map;
         
-        map.put("taskId", task.getTaskId());
-        map.put("planId", task.getPlanId());
-        map.put("userId", task.getUserId());
-        map.put("taskDate", task.getTaskDate());
+        putField(map, fields, "taskId", task.getTaskId());
+        putField(map, fields, "planId", task.getPlanId());
+        putField(map, fields, "userId", task.getUserId());
+        putField(map, fields, "taskDate", task.getTaskDate());
         
         // 饮食
-        map.put("mealBreakfast", task.getMealBreakfast());
-        map.put("mealLunch", task.getMealLunch());
-        map.put("mealDinner", task.getMealDinner());
-        map.put("mealSnacks", task.getMealSnacks());
-        map.put("dailyCalorieGoal", task.getDailyCalorieGoal());
+        putField(map, fields, "mealBreakfast", task.getMealBreakfast());
+        putField(map, fields, "mealLunch", task.getMealLunch());
+        putField(map, fields, "mealDinner", task.getMealDinner());
+        putField(map, fields, "mealSnacks", task.getMealSnacks());
+        putField(map, fields, "dailyCalorieGoal", task.getDailyCalorieGoal());
         
         // 运动
-        map.put("exerciseType", task.getExerciseType());
-        map.put("exerciseDescription", task.getExerciseDescription());
-        map.put("exerciseDuration", task.getExerciseDuration());
-        map.put("exerciseIntensity", task.getExerciseIntensity());
+        putField(map, fields, "exerciseType", task.getExerciseType());
+        putField(map, fields, "exerciseDescription", task.getExerciseDescription());
+        putField(map, fields, "exerciseDuration", task.getExerciseDuration());
+        putField(map, fields, "exerciseIntensity", task.getExerciseIntensity());
         
         // 完成状态
-        map.put("isCompleted", task.getIsCompleted());
-        map.put("completionRate", task.getCompletionRate());
+        putField(map, fields, "isCompleted", task.getIsCompleted());
+        putField(map, fields, "completionRate", task.getCompletionRate());
         
         return map;
     }
     
-    /**
-     * 数据分析API处理器
-     */
-    static class AnalyticsHandler implements HttpHandler {
-        @Override
-        public void handle(HttpExchange exchange) throws IOException {
-            String body = readRequestBody(exchange);
-            String action = getAction(exchange.getRequestURI().getQuery());
-            
-            Map<String, Object> response = new HashMap<>();
-            
-            try {
-                switch (action) {
-                    case "dashboard":
-                        response = handleDashboard(body);
-                        break;
-                    case "weekly":
-                        response = handleWeekly(body);
-                        break;
-                    case "streak":
-                        response = handleStreak(body);
-                        break;
-                    case "planStats":
-                        response = handlePlanStats(body);
-                        break;
-                    default:
-                        response.put("success", false);
-                        response.put("message", "未知的操作类型: " + action);
-                }
-            } catch (Exception e) {
-                response.put("success", false);
-                response.put("message", e.getMessage());
-                e.printStackTrace();
-            }
-            
-            sendJsonResponse(exchange, 200, gson.toJson(response));
+    private static void putField(Map<String, Object> map, FieldSet fields, String field, Object value) {
+        if (fields == null || fields.contains(field)) {
+            map.put(field, value);
         }
     }
     
@@ -734,18 +998,15 @@ public class ApiServer {
             
             Map<String, Object> dashboard = new HashMap<>();
             
-            // 今日任务 - 需要先获取用户的计划
+            // 今日任务 - 取当月活跃计划的任务
             String today = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-            HealthReport report = healthReportService.getLatestReportByUserId(userId);
+            Integer planId = findActivePlanId(userId, today.substring(0, 7));
             
-            if (report != null) {
-                List<DailyTask> tasks = planService.getPlanTasks(report.getReportId());
-                DailyTask todayTask = tasks.stream()
-                    .filter(t -> t.getTaskDate() != null && t.getTaskDate().equals(today))
-                    .findFirst()
-                    .orElse(null);
+            if (planId != null) {
+                // 只读取今天一天的任务，不加载整月任务
+                DailyTask todayTask = findTask(userId, today);
                 
-                if (todayTask != null) {
+                if (todayTask != null && planId.equals(todayTask.getPlanId())) {
                     dashboard.put("todayTask", dailyTaskToMap(todayTask));
                 }
             }
@@ -840,38 +1101,6 @@ public class ApiServer {
         return response;
     }
     
-    /**
-     * 提醒API处理器
-     */
-    static class ReminderHandler implements HttpHandler {
-        @Override
-        public void handle(HttpExchange exchange) throws IOException {
-            String body = readRequestBody(exchange);
-            String action = getAction(exchange.getRequestURI().getQuery());
-            
-            Map<String, Object> response = new HashMap<>();
-            
-            try {
-                switch (action) {
-                    case "list":
-                        response = handleReminderList(body);
-                        break;
-                    case "create":
-                        response = handleReminderCreate(body);
-                        break;
-                    default:
-                        response.put("success", false);
-                        response.put("message", "未知的操作类型");
-                }
-            } catch (Exception e) {
-                response.put("success", false);
-                response.put("message", e.getMessage());
-            }
-            
-            sendJsonResponse(exchange, 200, gson.toJson(response));
-        }
-    }
-    
     private static Map<String, Object> handleReminderList(String body) {
         Map<String, Object> response = new HashMap<>();
         
@@ -901,6 +1130,311 @@ public class ApiServer {
         return response;
     }
     
+    // ============ 批量接口 ============
+
+    private static final int BATCH_MAX_ITEMS = AppConfig.getInt("healthsmart.batch.max-items", 20);
+    // 只读的旧式操作，可与批次中相邻的只读子请求并发执行
+    private static final Set<String> BATCH_READ_ACTIONS = Set.of(
+            "profile", "getLatest", "list", "getById", "getToday", "getTasks", "getByDate",
+            "dashboard", "weekly", "streak", "planStats");
+
+    /**
+     * 批量接口：请求体为子请求数组（或 {"requests": [...]}），每项为 {id, route, action, method, body}。
+     * 相邻的只读子请求在请求线程池上并发执行并共享批次上下文中的查询结果；写操作按顺序单独执行，
+     * 执行前清空上下文。响应按请求顺序返回每项的 id、status 和 body
+     */
+    private static Map<String, Object> handleBatch(String body) throws Exception {
+        Map<String, Object> response = new HashMap<>();
+        JsonElement parsed = gson.fromJson(body, JsonElement.class);
+        if (parsed != null && parsed.isJsonObject()) {
+            parsed = parsed.getAsJsonObject().get("requests");
+        }
+        if (parsed == null || !parsed.isJsonArray() || parsed.getAsJsonArray().size() == 0) {
+            response.put("success", false);
+            response.put("message", "批量请求需要非空的子请求数组");
+            return response;
+        }
+        JsonArray array = parsed.getAsJsonArray();
+        if (array.size() > BATCH_MAX_ITEMS) {
+            response.put("success", false);
+            response.put("message", "批量请求最多包含 " + BATCH_MAX_ITEMS + " 个子请求");
+            return response;
+        }
+
+        List<BatchItem> items = new ArrayList<>(array.size());
+        for (JsonElement element : array) {
+            items.add(BatchItem.parse(element));
+        }
+        List<Map<String, Object>> results = new ArrayList<>(Collections.nCopies(items.size(), null));
+        BatchContext context = new BatchContext();
+        int start = 0;
+        while (start < items.size()) {
+            if (!items.get(start).readOnly) {
+                context.clear();
+                results.set(start, items.get(start).run());
+                start++;
+                continue;
+            }
+            int end = start + 1;
+            while (end < items.size() && items.get(end).readOnly) {
+                end++;
+            }
+            runConcurrently(items, start, end, context, results);
+            start = end;
+        }
+
+        response.put("success", true);
+        response.put("data", results);
+        return response;
+    }
+
+    /**
+     * 把 [start, end) 中除第一项外的子请求提交到请求线程池，当前线程依次执行尚未被取走的子请求后
+     * 等待其余完成；线程池繁忙时子请求全部由当前线程执行，不会因等待排队任务而死锁
+     */
+    private static void runConcurrently(List<BatchItem> items, int start, int end, BatchContext context,
+                                        List<Map<String, Object>> results) throws Exception {
+        List<FutureTask<Map<String, Object>>> tasks = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            BatchItem item = items.get(i);
+            tasks.add(new FutureTask<>(() -> context.run(item::run)));
+        }
+        Executor executor = requestExecutor;
+        if (executor != null) {
+            for (int i = 1; i < tasks.size(); i++) {
+                try {
+                    executor.execute(tasks.get(i));
+                } catch (RejectedExecutionException e) {
+                    // 由当前线程执行
+                }
+            }
+        }
+        for (FutureTask<Map<String, Object>> task : tasks) {
+            // 已被线程池取走的任务 run() 直接返回
+            task.run();
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            results.set(start + i, tasks.get(i).get());
+        }
+    }
+
+    /**
+     * 批量接口中的单个子请求
+     */
+    static final class BatchItem {
+        final JsonElement id;
+        final String method;
+        final String path;
+        final String query;
+        final String body;
+        final boolean readOnly;
+        final String error;
+
+        private BatchItem(JsonElement id, String method, String path, String query, String body,
+                          boolean readOnly, String error) {
+            this.id = id;
+            this.method = method;
+            this.path = path;
+            this.query = query;
+            this.body = body;
+            this.readOnly = readOnly;
+            this.error = error;
+        }
+
+        static BatchItem parse(JsonElement element) {
+            if (element == null || !element.isJsonObject()) {
+                return invalid(null, "子请求必须是对象");
+            }
+            JsonObject item = element.getAsJsonObject();
+            JsonElement id = item.get("id");
+            try {
+                return parse(id, item);
+            } catch (IllegalArgumentException e) {
+                // 字段类型错误只影响该子请求
+                return invalid(id, e.getMessage());
+            }
+        }
+
+        private static BatchItem parse(JsonElement id, JsonObject item) {
+            String route = memberString(item, "route");
+            if (route == null || route.isEmpty()) {
+                return invalid(id, "子请求缺少 route");
+            }
+            // 与 api.js 一致，route 可省略 /api 前缀
+            if (!route.startsWith("/api/")) {
+                route = "/api" + (route.startsWith("/") ? route : "/" + route);
+            }
+            int q = route.indexOf('?');
+            String path = q >= 0 ? route.substring(0, q) : route;
+            String query = q >= 0 ? route.substring(q + 1) : null;
+            if (path.equals("/api/batch")) {
+                return invalid(id, "批量请求不能嵌套");
+            }
+            String action = memberString(item, "action");
+            if (action != null) {
+                query = (query == null || query.isEmpty() ? "" : query + "&") + "action=" + action;
+            }
+            JsonElement body = item.get("body");
+            boolean hasBody = body != null && !body.isJsonNull();
+            String method = memberString(item, "method");
+            if (method == null) {
+                method = action != null || hasBody ? "POST" : "GET";
+            }
+            method = method.toUpperCase(Locale.ROOT);
+            String json = !hasBody ? "{}" : body.isJsonPrimitive() ? body.getAsString() : body.toString();
+            // 只读与否由命中的路由决定，不信任声明的 method：旧式操作匹配任意方法，action 也可能写在 route 的查询串中
+            RouteMatch<Endpoint> match = new RouteMatch<>();
+            boolean readOnly = !ROUTES.match(method, path, query, match)
+                    || (match.isAction() ? BATCH_READ_ACTIONS.contains(match.queryParam("action")) : "GET".equals(method));
+            return new BatchItem(id, method, path, query, json, readOnly, null);
+        }
+
+        private static BatchItem invalid(JsonElement id, String error) {
+            // 无效子请求不访问任何服务，可与相邻只读子请求一起处理
+            return new BatchItem(id, null, null, null, null, true, error);
+        }
+
+        /**
+         * 读取字符串字段；字段是对象或数组时抛出 IllegalArgumentException
+         */
+        private static String memberString(JsonObject item, String name) {
+            JsonElement value = item.get(name);
+            if (value == null || value.isJsonNull()) {
+                return null;
+            }
+            if (!value.isJsonPrimitive()) {
+                throw new IllegalArgumentException("子请求的 " + name + " 必须是字符串");
+            }
+            return value.getAsString();
+        }
+
+        /**
+         * 按与 ApiHandler 相同的路由和状态码规则执行；异常转为该项的500，不影响其他子请求
+         */
+        Map<String, Object> run() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            if (id != null) {
+                result.put("id", id);
+            }
+            Map<String, Object> responseBody = new HashMap<>();
+            int status = 200;
+            if (error != null) {
+                status = 400;
+                responseBody.put("success", false);
+                responseBody.put("message", error);
+            } else {
+                RouteMatch<Endpoint> match = new RouteMatch<>();
+                if (!ROUTES.match(method, path, query, match)) {
+                    responseBody.put("success", false);
+                    if (match.isUnknownAction()) {
+                        status = match.isRestPath() ? 404 : 200;
+                        String action = match.queryParam("action");
+                        responseBody.put("message", "未知的操作类型: " + (action != null ? action : ""));
+                    } else if (match.isMethodNotAllowed()) {
+                        status = 405;
+                        responseBody.put("message", "不支持的请求方法: " + method);
+                    } else {
+                        status = 404;
+                        responseBody.put("message", "未找到接口: " + path);
+                    }
+                } else {
+                    String params = null;
+                    try {
+                        params = JsonBodyParams.merge(body, match);
+                    } catch (IllegalArgumentException e) {
+                        status = 400;
+                        responseBody = badRequest(e);
+                    }
+                    if (params != null) {
+                        try {
+                            responseBody = match.target().handle(params);
+                        } catch (Exception e) {
+                            status = 500;
+                            responseBody.put("success", false);
+                            responseBody.put("message", e.getMessage());
+                            e.printStackTrace();
+                        }
+                    }
+                }
+            }
+            result.put("status", status);
+            result.put("body", responseBody);
+            return result;
+        }
+    }
+
+    /**
+     * 请求体或路由参数格式错误时的400响应
+     */
+    private static Map<String, Object> badRequest(IllegalArgumentException e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", "请求参数错误: " + e.getMessage());
+        return response;
+    }
+
+    /**
+     * 请求命中的路由模板（用于按路由统计），未命中时返回 null
+     */
+    private static String routeTemplate(HttpExchange exchange) {
+        URI uri = exchange.getRequestURI();
+        RouteMatch<Endpoint> match = MATCH.get();
+        return ROUTES.match(exchange.getRequestMethod(), uri.getRawPath(), uri.getRawQuery(), match)
+                ? match.template() : null;
+    }
+
+    /**
+     * 端点的 ETag；不支持条件请求或版本查询失败时返回 null，按普通请求处理
+     */
+    private static String versionOf(Endpoint endpoint, String params) {
+        try {
+            return endpoint.version(params);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static String reportListVersion(String body) throws SQLException {
+        Map<String, Object> data = gson.fromJson(body, Map.class);
+        return healthReportService.getReportsVersion(((Number) data.get("userId")).intValue());
+    }
+
+    private static String planTasksVersion(String body) throws SQLException {
+        Map<String, Object> data = gson.fromJson(body, Map.class);
+        return planService.getPlanTasksVersion(((Number) data.get("planId")).intValue());
+    }
+
+    /**
+     * 仪表盘只依赖当月活跃计划的任务，周统计和打卡统计为固定值；今日任务随日期变化，版本带上日期
+     */
+    private static String dashboardVersion(String body) throws SQLException {
+        Map<String, Object> data = gson.fromJson(body, Map.class);
+        String today = LocalDate.now().toString();
+        Integer planId = findActivePlanId(((Number) data.get("userId")).intValue(), today.substring(0, 7));
+        return planId == null ? today : today + "." + planId + "." + planService.getPlanTasksVersion(planId);
+    }
+
+    // 批次内共享的只读查询（不在批次中时直接查询）
+    private static User findUser(Integer userId) throws SQLException {
+        return BatchContext.lookup("user:" + userId, () -> userService.getUserById(userId));
+    }
+
+    private static HealthReport findLatestReport(Integer userId) throws SQLException {
+        return BatchContext.lookup("report:latest:" + userId, () -> healthReportService.getLatestReportByUserId(userId));
+    }
+
+    private static Integer findActivePlanId(Integer userId, String month) throws SQLException {
+        return BatchContext.lookup("plan:active:" + userId + ":" + month, () -> planService.getActivePlanId(userId, month));
+    }
+
+    private static List<DailyTask> findPlanTasks(Integer planId) throws SQLException {
+        return BatchContext.lookup("plan:tasks:" + planId, () -> planService.getPlanTasks(planId));
+    }
+
+    private static DailyTask findTask(Integer userId, String date) throws SQLException {
+        return BatchContext.lookup("task:" + userId + ":" + date, () -> planService.getTaskByUserAndDate(userId, date));
+    }
+
     /**
      * 工具方法
      */
@@ -910,24 +1444,10 @@ public class ApiServer {
         return new String(inputStream.readAllBytes(), "UTF-8");
     }
     
-    private static String getAction(String query) {
-        if (query == null || query.isEmpty()) return "";
-        String[] params = query.split("&");
-        for (String param : params) {
-            String[] keyValue = param.split("=");
-            if (keyValue.length == 2 && keyValue[0].equals("action")) {
-                return keyValue[1];
-            }
-        }
-        return "";
-    }
-    
     private static void sendJsonResponse(HttpExchange exchange, int statusCode, String json) throws IOException {
         byte[] responseBytes = json.getBytes("UTF-8");
+        // 跨域响应头由 CorsFilter 设置
         exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
-        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
-        exchange.getResponseHeaders().set("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
-        exchange.getResponseHeaders().set("Access-Control-Allow-Headers", "Content-Type");
         
         exchange.sendResponseHeaders(statusCode, responseBytes.length);
         try (OutputStream os = exchange.getResponseBody()) {
@@ -0,0 +1,92 @@
+package com.healthsmart;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * 批量请求上下文
+ * Per-batch Lookup Cache
+ *
+ * 一次 /api/batch 请求内的只读子请求共享同一个上下文：用户、最新报告、计划任务等查询按键缓存，
+ * 并发执行的子请求查询同一个键时只有一个访问数据库，其余等待同一结果。上下文只在子请求执行期间
+ * 绑定到执行线程，批次中遇到写操作时清空，批次结束即丢弃，不跨请求共享。
+ */
+final class BatchContext {
+
+    private static final ThreadLocal<BatchContext> CURRENT = new ThreadLocal<>();
+
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> values = new ConcurrentHashMap<>();
+
+    @FunctionalInterface
+    interface Loader<T> {
+        T load() throws SQLException;
+    }
+
+    /**
+     * 当前线程处于批次中时从上下文取值，否则直接查询
+     */
+    static <T> T lookup(String key, Loader<T> loader) throws SQLException {
+        BatchContext context = CURRENT.get();
+        return context == null ? loader.load() : context.get(key, loader);
+    }
+
+    /**
+     * 在当前线程上绑定本上下文执行子请求
+     */
+    <T> T run(Supplier<T> work) {
+        BatchContext previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 写操作之后之前的查询结果可能已过期
+     */
+    void clear() {
+        values.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(String key, Loader<T> loader) throws SQLException {
+        CompletableFuture<Object> created = new CompletableFuture<>();
+        CompletableFuture<Object> existing = values.putIfAbsent(key, created);
+        if (existing == null) {
+            try {
+                T value = loader.load();
+                created.complete(value);
+                return value;
+            } catch (SQLException | RuntimeException e) {
+                // 失败的查询不缓存，后续子请求重新查询
+                values.remove(key, created);
+                created.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return (T) existing.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("等待批次查询结果时被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SQLException(cause);
+        }
+    }
+}
@@ -4,10 +4,13 @@ import com.healthsmart.model.HealthReport;
 import com.healthsmart.model.User;
 import com.healthsmart.service.*;
 import com.healthsmart.util.DatabaseConnection;
+import com.healthsmart.util.SyntheticDataGenerator;
 
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 
 /**
  * 健康智护系统 - 主入口类
@@ -22,21 +25,26 @@ public class Main {
         System.out.println("========================================\n");
         
         try {
-            // 初始化数据库
-            DatabaseConnection.initializeDatabase();
+            // 合成数据模式：只生成夹具文件，不启动服务
+            if (args.length > 0 && args[0].equals("--generate-data")) {
+                SyntheticDataGenerator.main(Arrays.copyOfRange(args, 1, args.length));
+                return;
+            }
+
+            // 滚动生成模式：为目标月份（默认下月）生成计划后退出，可从断点继续
+            if (args.length > 0 && args[0].equals("--rollover")) {
+                DatabaseConnection.initializeDatabase();
+                String targetMonth = args.length > 1 ? args[1] : YearMonth.now().plusMonths(1).toString();
+                System.out.println("滚动生成结果: " + PlanRolloverService.getInstance().runRollover(targetMonth));
+                return;
+            }
+
+            // 并行启动：先打开监听端口（就绪前返回503），数据库迁移与各项预热并行执行
+            new StartupSequence().run(Main::startApiServer);
             System.out.println("[系统初始化] 数据库初始化完成\n");
             
-            // 启动API服务器
-            startApiServer();
-            
-            // 测试Python引擎连接
-            PythonEngineExecutor pythonEngine = PythonEngineExecutor.getInstance();
-            boolean isEngineHealthy = pythonEngine.checkEngineHealth();
-            if (isEngineHealthy) {
-                System.out.println("[系统初始化] Python智能引擎连接成功\n");
-            } else {
-                System.out.println("[警告] Python智能引擎无法连接，部分功能将不可用\n");
-            }
+            // Python引擎状态由后台健康探测检查并记录日志，不阻塞启动
+            // 就绪状态见 /api/health/ready
             
             // 运行模式判断
             if (args.length > 0) {
@@ -50,7 +58,9 @@ public class Main {
             } else {
                 System.out.println("系统准备就绪！");
                 System.out.println("API服务器运行中: http://localhost:8080");
-                System.out.println("提示：使用 --demo 参数运行演示模式\n");
+                System.out.println("提示：使用 --demo 参数运行演示模式");
+                System.out.println("提示：使用 --generate-data <db文件> [用户数] [月数] [种子] 生成压测数据");
+                System.out.println("提示：使用 --rollover [yyyy-MM] 立即为目标月份滚动生成计划\n");
             }
             
         } catch (Exception e) {
@@ -71,8 +81,8 @@ public class Main {
                 ApiServer.PORT = 8081;
             }
             
-            ApiServer.start();
-            System.out.println("[系统初始化] REST API服务器启动成功\n");
+            ApiServer.startListener();
+            System.out.println("[系统初始化] REST API服务器监听已打开\n");
         } catch (Exception e) {
             System.out.println("[警告] API服务器启动失败: " + e.getMessage());
             System.out.println("前端将使用模拟数据模式运行\n");
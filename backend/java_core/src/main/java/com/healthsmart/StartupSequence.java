@@ -0,0 +1,146 @@
+package com.healthsmart;
+
+import com.healthsmart.service.PythonEngineExecutor;
+import com.healthsmart.util.AppConfig;
+import com.healthsmart.util.DatabaseConnection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 并行启动编排
+ * Parallel Startup Sequence
+ *
+ * 监听端口最先打开（未就绪前返回503），数据库迁移、连接池预热、JSON 路径预热
+ * 和 Python 引擎预热并行执行，全部必需阶段完成后才开放流量，并输出各阶段耗时。
+ */
+class StartupSequence {
+
+    private final int prewarmConnections = AppConfig.getInt("healthsmart.startup.prewarm-connections", 4);
+    private final int jsonWarmupIterations = AppConfig.getInt("healthsmart.startup.json-warmup-iterations", 2000);
+    private final boolean engineRequired = AppConfig.getBoolean("healthsmart.health.require-engine", false);
+
+    private final List<PhaseTiming> timings = new ArrayList<>();
+    private final long startNanos = System.nanoTime();
+    private ExecutorService workers;
+
+    /**
+     * 阶段任务
+     */
+    interface Phase {
+        void run() throws Exception;
+    }
+
+    /**
+     * 执行启动流程，返回时服务已就绪
+     *
+     * @param listener 打开监听端口的动作（失败时不影响其它阶段）
+     */
+    void run(Phase listener) throws Exception {
+        AtomicInteger threadIndex = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(4, r -> {
+            Thread thread = new Thread(r, "startup-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        CompletableFuture<Void> engine;
+        try {
+            timed("listener", listener);
+
+            CompletableFuture<Void> database = phase("database", DatabaseConnection::initializeDatabase);
+            CompletableFuture<Void> services = database.thenCompose(v -> phase("services", ApiServer::initServices));
+            CompletableFuture<Void> pool = database.thenCompose(v -> phase("pool-prewarm",
+                    () -> DatabaseConnection.prewarm(prewarmConnections)));
+            CompletableFuture<Void> json = phase("json-warmup", () -> ApiServer.warmUpJson(jsonWarmupIterations));
+            engine = phase("engine-warmup", () -> {
+                if (!PythonEngineExecutor.getInstance().checkEngineHealth()) {
+                    throw new IllegalStateException("Python智能引擎无法连接");
+                }
+            });
+
+            // 引擎默认不是必需依赖：未就绪时部分功能不可用，但不阻塞开放流量
+            List<CompletableFuture<Void>> required = new ArrayList<>(List.of(database, services, pool, json));
+            if (engineRequired) {
+                required.add(engine);
+            }
+            CompletableFuture.allOf(required.toArray(new CompletableFuture[0])).join();
+
+            ApiServer.markReady();
+            printTimings();
+        } catch (RuntimeException e) {
+            printTimings();
+            workers.shutdownNow();
+            throw e;
+        }
+
+        if (engineRequired) {
+            workers.shutdown();
+        } else {
+            engine.whenComplete((v, e) -> workers.shutdown());
+        }
+    }
+
+    private CompletableFuture<Void> phase(String name, Phase task) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                timed(name, task);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(name + " 阶段失败: " + e.getMessage(), e);
+            }
+        }, workers);
+    }
+
+    private void timed(String name, Phase task) throws Exception {
+        long begin = System.nanoTime();
+        boolean ok = false;
+        try {
+            task.run();
+            ok = true;
+        } finally {
+            long end = System.nanoTime();
+            synchronized (timings) {
+                timings.add(new PhaseTiming(name, (begin - startNanos) / 1_000_000, (end - begin) / 1_000_000, ok));
+            }
+            if (!ok) {
+                System.out.println("[启动] 阶段 " + name + " 失败");
+            } else if (name.equals("engine-warmup") && !engineRequired && ApiServer.isReady()) {
+                System.out.println("[启动] Python智能引擎预热完成，耗时 " + (end - begin) / 1_000_000 + " ms");
+            }
+        }
+    }
+
+    private void printTimings() {
+        long total = (System.nanoTime() - startNanos) / 1_000_000;
+        synchronized (timings) {
+            System.out.println("[启动] 各阶段耗时 (开始偏移 / 耗时):");
+            long serial = 0;
+            for (PhaseTiming timing : timings) {
+                System.out.printf("[启动]   %-14s +%5d ms  %6d ms  %s%n", timing.name, timing.offsetMillis,
+                        timing.durationMillis, timing.ok ? "完成" : "失败");
+                serial += timing.durationMillis;
+            }
+            System.out.printf("[启动] 就绪总耗时 %d ms（串行执行约需 %d ms）%n", total, serial);
+        }
+    }
+
+    private static class PhaseTiming {
+        final String name;
+        final long offsetMillis;
+        final long durationMillis;
+        final boolean ok;
+
+        PhaseTiming(String name, long offsetMillis, long durationMillis, boolean ok) {
+            this.name = name;
+            this.offsetMillis = offsetMillis;
+            this.durationMillis = durationMillis;
+            this.ok = ok;
+        }
+    }
+}
@@ -7,7 +7,10 @@ import java.sql.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 每日任务数据访问对象
@@ -16,44 +19,50 @@ import java.util.List;
 public class DailyTaskDAO {
     
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /** 可投影的API字段 -> daily_tasks 列；餐食、运动等内容字段由模板补全，对应 template_id */
+    public static final Map<String, String> TASK_FIELDS = Map.ofEntries(
+            Map.entry("taskId", "task_id"),
+            Map.entry("planId", "plan_id"),
+            Map.entry("userId", "user_id"),
+            Map.entry("taskDate", "task_date"),
+            Map.entry("isCompleted", "is_completed"),
+            Map.entry("completionRate", "completion_rate"),
+            Map.entry("mealBreakfast", "template_id"),
+            Map.entry("mealLunch", "template_id"),
+            Map.entry("mealDinner", "template_id"),
+            Map.entry("mealSnacks", "template_id"),
+            Map.entry("dailyCalorieGoal", "template_id"),
+            Map.entry("exerciseType", "template_id"),
+            Map.entry("exerciseDescription", "template_id"),
+            Map.entry("exerciseDuration", "template_id"),
+            Map.entry("exerciseIntensity", "template_id"));
+
+    // 餐食、运动等内容存放在共享模板中，任务只保存模板ID
+    private final PlanDayTemplateDAO templateDAO = new PlanDayTemplateDAO();
     
     /**
      * 插入每日任务
      */
     public int insert(DailyTask task) throws SQLException {
-        String sql = "INSERT INTO daily_tasks (plan_id, user_id, task_date, meal_breakfast, " +
-                     "meal_lunch, meal_dinner, meal_snacks, daily_calorie_goal, " +
-                     "exercise_type, exercise_description, exercise_duration, exercise_intensity, 注意事项, " +
-                     "is_completed, completion_rate) " +
-                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        String sql = "INSERT INTO daily_tasks (plan_id, user_id, task_date, template_id, " +
+                     "is_completed, completion_rate) VALUES (?, ?, ?, ?, ?, ?)";
         
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
+            task.setTemplateId(templateDAO.resolveId(conn, task));
             pstmt.setInt(1, task.getPlanId());
             pstmt.setInt(2, task.getUserId());
             pstmt.setString(3, task.getTaskDate());
-            pstmt.setString(4, task.getMealBreakfast());
-            pstmt.setString(5, task.getMealLunch());
-            pstmt.setString(6, task.getMealDinner());
-            pstmt.setString(7, task.getMealSnacks());
-            pstmt.setInt(8, task.getDailyCalorieGoal() != null ? task.getDailyCalorieGoal() : 0);
-            pstmt.setString(9, task.getExerciseType());
-            pstmt.setString(10, task.getExerciseDescription());
-            pstmt.setInt(11, task.getExerciseDuration() != null ? task.getExerciseDuration() : 0);
-            pstmt.setString(12, task.getExerciseIntensity());
-            pstmt.setString(13, task.get注意事项());
-            pstmt.setInt(14, task.getIsCompleted() ? 1 : 0);
-            pstmt.setDouble(15, task.getCompletionRate() != null ? task.getCompletionRate() : 0.0);
+            pstmt.setInt(4, task.getTemplateId());
+            pstmt.setInt(5, task.getIsCompleted() ? 1 : 0);
+            pstmt.setDouble(6, task.getCompletionRate() != null ? task.getCompletionRate() : 0.0);
             
             int affectedRows = pstmt.executeUpdate();
             
             if (affectedRows > 0) {
-                try (ResultSet rs = pstmt.getGeneratedKeys()) {
-                    if (rs.next()) {
-                        return rs.getInt(1);
-                    }
-                }
+                return DatabaseConnection.lastInsertId(conn);
             }
             return -1;
         }
@@ -63,36 +72,133 @@ public class DailyTaskDAO {
      * 批量插入每日任务
      */
     public void batchInsert(List<DailyTask> tasks) throws SQLException {
-        String sql = "INSERT INTO daily_tasks (plan_id, user_id, task_date, meal_breakfast, " +
-                     "meal_lunch, meal_dinner, meal_snacks, daily_calorie_goal, " +
-                     "exercise_type, exercise_description, exercise_duration, exercise_intensity, 注意事项, " +
-                     "is_completed, completion_rate) " +
-                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        String sql = "INSERT INTO daily_tasks (plan_id, user_id, task_date, template_id, " +
+                     "is_completed, completion_rate) VALUES (?, ?, ?, ?, ?, ?)";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
+            // 模板先在事务外落库，回滚时不会留下指向未提交模板的缓存
             for (DailyTask task : tasks) {
-                pstmt.setInt(1, task.getPlanId());
-                pstmt.setInt(2, task.getUserId());
-                pstmt.setString(3, task.getTaskDate());
-                pstmt.setString(4, task.getMealBreakfast());
-                pstmt.setString(5, task.getMealLunch());
-                pstmt.setString(6, task.getMealDinner());
-                pstmt.setString(7, task.getMealSnacks());
-                pstmt.setInt(8, task.getDailyCalorieGoal() != null ? task.getDailyCalorieGoal() : 0);
-                pstmt.setString(9, task.getExerciseType());
-                pstmt.setString(10, task.getExerciseDescription());
-                pstmt.setInt(11, task.getExerciseDuration() != null ? task.getExerciseDuration() : 0);
-                pstmt.setString(12, task.getExerciseIntensity());
-                pstmt.setString(13, task.get注意事项());
-                pstmt.setInt(14, task.getIsCompleted() ? 1 : 0);
-                pstmt.setDouble(15, task.getCompletionRate() != null ? task.getCompletionRate() : 0.0);
+                task.setTemplateId(templateDAO.resolveId(conn, task));
+            }
+            
+            // 整批任务一个事务提交，避免逐行提交的同步开销
+            conn.setAutoCommit(false);
+            try {
+                for (DailyTask task : tasks) {
+                    pstmt.setInt(1, task.getPlanId());
+                    pstmt.setInt(2, task.getUserId());
+                    pstmt.setString(3, task.getTaskDate());
+                    pstmt.setInt(4, task.getTemplateId());
+                    pstmt.setInt(5, task.getIsCompleted() ? 1 : 0);
+                    pstmt.setDouble(6, task.getCompletionRate() != null ? task.getCompletionRate() : 0.0);
+                    
+                    pstmt.addBatch();
+                }
                 
+                pstmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+    
+    /**
+     * 在调用方的事务中逐条写入任务，每累积 flushRows 行执行一次批量插入
+     * （计划结果流式入库使用，任务对象可复用）
+     */
+    public TaskBatchWriter openBatchWriter(Connection conn, int flushRows) throws SQLException {
+        return new TaskBatchWriter(conn, flushRows, false);
+    }
+
+    /**
+     * 在调用方的事务中按计划ID和日期原地替换未完成任务的内容
+     * （计划部分重新生成使用；已完成的任务和执行状态不受影响）
+     */
+    public TaskBatchWriter openReplaceWriter(Connection conn, int flushRows) throws SQLException {
+        return new TaskBatchWriter(conn, flushRows, true);
+    }
+
+    /**
+     * 任务批量写入器
+     */
+    public class TaskBatchWriter implements AutoCloseable {
+        private final Connection conn;
+        private final PreparedStatement pstmt;
+        private final int flushRows;
+        private final boolean replace;
+        private int pending;
+        private int written;
+
+        private TaskBatchWriter(Connection conn, int flushRows, boolean replace) throws SQLException {
+            this.conn = conn;
+            this.flushRows = Math.max(1, flushRows);
+            this.replace = replace;
+            this.pstmt = conn.prepareStatement(replace
+                    ? "UPDATE daily_tasks SET template_id = ?, updated_at = datetime('now', 'localtime') " +
+                      "WHERE plan_id = ? AND task_date = ? AND is_completed = 0"
+                    : "INSERT INTO daily_tasks (plan_id, user_id, task_date, " +
+                      "template_id, is_completed, completion_rate) VALUES (?, ?, ?, ?, ?, ?)");
+        }
+
+        /**
+         * 写入一条任务（立即绑定参数，调用后可复用任务对象）
+         */
+        public void add(DailyTask task) throws SQLException {
+            task.setTemplateId(templateDAO.resolveId(conn, task));
+            if (replace) {
+                pstmt.setInt(1, task.getTemplateId());
+                pstmt.setInt(2, task.getPlanId());
+                pstmt.setString(3, task.getTaskDate());
                 pstmt.addBatch();
+                if (++pending >= flushRows) {
+                    flush();
+                }
+                return;
             }
-            
-            pstmt.executeBatch();
+            pstmt.setInt(1, task.getPlanId());
+            pstmt.setInt(2, task.getUserId());
+            pstmt.setString(3, task.getTaskDate());
+            pstmt.setInt(4, task.getTemplateId());
+            pstmt.setInt(5, task.getIsCompleted() ? 1 : 0);
+            pstmt.setDouble(6, task.getCompletionRate() != null ? task.getCompletionRate() : 0.0);
+            pstmt.addBatch();
+            if (++pending >= flushRows) {
+                flush();
+            }
+        }
+
+        /**
+         * 执行尚未提交的批次
+         */
+        public void flush() throws SQLException {
+            if (pending > 0) {
+                int[] counts = pstmt.executeBatch();
+                if (replace) {
+                    // 替换期间被标记完成的任务不会更新，只统计实际替换的行
+                    for (int count : counts) {
+                        written += count > 0 ? 1 : 0;
+                    }
+                } else {
+                    written += pending;
+                }
+                pending = 0;
+            }
+        }
+
+        /**
+         * 已写入的任务数（含未执行的批次）
+         */
+        public int count() {
+            return written + pending;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            pstmt.close();
         }
     }
     
@@ -109,7 +215,9 @@ public class DailyTaskDAO {
             ResultSet rs = pstmt.executeQuery();
             
             if (rs.next()) {
-                return mapResultSetToTask(rs);
+                DailyTask task = mapResultSetToTask(rs);
+                templateDAO.hydrate(conn, List.of(task));
+                return task;
             }
         }
         return null;
@@ -131,10 +239,53 @@ public class DailyTaskDAO {
             while (rs.next()) {
                 tasks.add(mapResultSetToTask(rs));
             }
+            templateDAO.hydrate(conn, tasks);
         }
         return tasks;
     }
-    
+
+    /**
+     * 根据计划ID查找所有任务，只查询所选字段对应的列；未选择内容字段时不读取模板
+     */
+    public List<DailyTask> findByPlanId(Integer planId, FieldSet fields) throws SQLException {
+        String sql = "SELECT " + fields.selectList() + " FROM daily_tasks WHERE plan_id = ? ORDER BY task_date";
+        List<DailyTask> tasks = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, planId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    tasks.add(mapProjectedTask(rs, fields));
+                }
+            }
+            if (fields.includesColumn("template_id")) {
+                templateDAO.hydrate(conn, tasks);
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * 计划任务的版本：任务数、最大任务ID、最后更新时间（秒）与完成状态、完成率、模板ID的合计，
+     * 只做一次聚合，不读取模板内容。模板按内容摘要去重，模板ID相同即内容相同
+     */
+    public String findVersionByPlanId(Integer planId) throws SQLException {
+        String sql = "SELECT COUNT(*) || '-' || COALESCE(MAX(task_id), 0) || '-' || " +
+                     "COALESCE(strftime('%s', MAX(updated_at)), 0) || '-' || TOTAL(is_completed) || '-' || " +
+                     "TOTAL(completion_rate) || '-' || TOTAL(template_id) FROM daily_tasks WHERE plan_id = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, planId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
     /**
      * 根据用户ID和日期查找任务
      */
@@ -149,12 +300,49 @@ public class DailyTaskDAO {
             ResultSet rs = pstmt.executeQuery();
             
             if (rs.next()) {
-                return mapResultSetToTask(rs);
+                DailyTask task = mapResultSetToTask(rs);
+                templateDAO.hydrate(conn, List.of(task));
+                return task;
             }
         }
         return null;
     }
     
+    /**
+     * 查询计划在日期范围内已生成任务的日期
+     */
+    public Set<String> findTaskDates(Integer planId, String startDate, String endDate) throws SQLException {
+        return findTaskDates(planId, startDate, endDate, false);
+    }
+
+    /**
+     * 查询计划在日期范围内尚未完成的任务日期
+     */
+    public Set<String> findOpenTaskDates(Integer planId, String startDate, String endDate) throws SQLException {
+        return findTaskDates(planId, startDate, endDate, true);
+    }
+
+    private Set<String> findTaskDates(Integer planId, String startDate, String endDate, boolean openOnly)
+            throws SQLException {
+        String sql = "SELECT task_date FROM daily_tasks WHERE plan_id = ? AND task_date BETWEEN ? AND ?" +
+                     (openOnly ? " AND is_completed = 0" : "");
+        Set<String> dates = new HashSet<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, planId);
+            pstmt.setString(2, startDate);
+            pstmt.setString(3, endDate);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    dates.add(rs.getString("task_date"));
+                }
+            }
+        }
+        return dates;
+    }
+
     /**
      * 根据用户ID查找指定期日期范围内的任务
      */
@@ -173,6 +361,7 @@ public class DailyTaskDAO {
             while (rs.next()) {
                 tasks.add(mapResultSetToTask(rs));
             }
+            templateDAO.hydrate(conn, tasks);
         }
         return tasks;
     }
@@ -182,9 +371,18 @@ public class DailyTaskDAO {
      */
     public boolean updateCompletion(Integer taskId, boolean isCompleted, Integer actualCalorie, 
                                     Integer actualExerciseDuration, Double completionRate) throws SQLException {
+        return updateCompletionReturningUser(taskId, isCompleted, actualCalorie, actualExerciseDuration,
+                completionRate) != null;
+    }
+    
+    /**
+     * 更新任务完成状态并返回任务所属的用户ID（任务不存在时返回 null），调用方据此清除该用户的缓存，无需再查一次任务
+     */
+    public Integer updateCompletionReturningUser(Integer taskId, boolean isCompleted, Integer actualCalorie,
+                                                 Integer actualExerciseDuration, Double completionRate) throws SQLException {
         String sql = "UPDATE daily_tasks SET is_completed = ?, actual_calorie_intake = ?, " +
                      "actual_exercise_duration = ?, completion_rate = ?, completed_at = ?, updated_at = ? " +
-                     "WHERE task_id = ?";
+                     "WHERE task_id = ? RETURNING user_id";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -197,7 +395,9 @@ public class DailyTaskDAO {
             pstmt.setString(6, LocalDateTime.now().format(DATE_FORMATTER));
             pstmt.setInt(7, taskId);
             
-            return pstmt.executeUpdate() > 0;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
         }
     }
     
@@ -249,7 +449,7 @@ public class DailyTaskDAO {
     }
     
     /**
-     * 映射ResultSet到DailyTask对象
+     * 映射ResultSet到DailyTask对象（只含任务状态，内容由模板补全）
      */
     private DailyTask mapResultSetToTask(ResultSet rs) throws SQLException {
         DailyTask task = new DailyTask();
@@ -257,22 +457,9 @@ public class DailyTaskDAO {
         task.setPlanId(rs.getInt("plan_id"));
         task.setUserId(rs.getInt("user_id"));
         task.setTaskDate(rs.getString("task_date"));
-        task.setMealBreakfast(rs.getString("meal_breakfast"));
-        task.setMealLunch(rs.getString("meal_lunch"));
-        task.setMealDinner(rs.getString("meal_dinner"));
-        task.setMealSnacks(rs.getString("meal_snacks"));
-        
-        int calorieGoal = rs.getInt("daily_calorie_goal");
-        if (calorieGoal > 0) task.setDailyCalorieGoal(calorieGoal);
-        
-        task.setExerciseType(rs.getString("exercise_type"));
-        task.setExerciseDescription(rs.getString("exercise_description"));
-        
-        int exerciseDuration = rs.getInt("exercise_duration");
-        if (exerciseDuration > 0) task.setExerciseDuration(exerciseDuration);
-        
-        task.setExerciseIntensity(rs.getString("exercise_intensity"));
-        task.set注意事项(rs.getString("注意事项"));
+
+        int templateId = rs.getInt("template_id");
+        if (!rs.wasNull()) task.setTemplateId(templateId);
         
         task.setIsCompleted(rs.getInt("is_completed") == 1);
         task.setCompletionRate(rs.getDouble("completion_rate"));
@@ -300,4 +487,29 @@ public class DailyTaskDAO {
         
         return task;
     }
+
+    /**
+     * 轻量映射：按列序号只读取投影中的列，不解析时间列
+     */
+    private static DailyTask mapProjectedTask(ResultSet rs, FieldSet fields) throws SQLException {
+        DailyTask task = new DailyTask();
+        List<String> columns = fields.columns();
+        for (int i = 0; i < columns.size(); i++) {
+            int index = i + 1;
+            switch (columns.get(i)) {
+                case "task_id" -> task.setTaskId(rs.getInt(index));
+                case "plan_id" -> task.setPlanId(rs.getInt(index));
+                case "user_id" -> task.setUserId(rs.getInt(index));
+                case "task_date" -> task.setTaskDate(rs.getString(index));
+                case "is_completed" -> task.setIsCompleted(rs.getInt(index) == 1);
+                case "completion_rate" -> task.setCompletionRate(rs.getDouble(index));
+                case "template_id" -> {
+                    int templateId = rs.getInt(index);
+                    if (!rs.wasNull()) task.setTemplateId(templateId);
+                }
+                default -> throw new IllegalStateException("未映射的列: " + columns.get(i));
+            }
+        }
+        return task;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.healthsmart.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 字段投影
+ * Sparse Fieldset Projection
+ *
+ * 把请求中的 fields=taskDate,isCompleted 解析为所选API字段及其对应的数据库列，DAO 据此生成
+ * 只包含这些列的 SELECT，并用只读取这些列的轻量映射方法构造对象。列名只来自各 DAO 的字段表，
+ * 不直接拼接请求内容；未知字段抛出 IllegalArgumentException。
+ */
+public final class FieldSet {
+
+    private final Set<String> fields;
+    private final List<String> columns;
+
+    private FieldSet(Set<String> fields, List<String> columns) {
+        this.fields = fields;
+        this.columns = columns;
+    }
+
+    /**
+     * 解析逗号分隔的字段列表；为空时返回 null，表示返回全部字段
+     *
+     * @param spec           请求中的 fields 参数
+     * @param columnsByField API字段 -> 数据库列（多个字段可对应同一列）
+     */
+    public static FieldSet parse(String spec, Map<String, String> columnsByField) {
+        if (spec == null || spec.isBlank()) {
+            return null;
+        }
+        Set<String> fields = new LinkedHashSet<>();
+        Set<String> columns = new LinkedHashSet<>();
+        for (String token : spec.split(",")) {
+            String field = token.trim();
+            if (field.isEmpty()) {
+                continue;
+            }
+            String column = columnsByField.get(field);
+            if (column == null) {
+                throw new IllegalArgumentException("未知字段: " + field);
+            }
+            fields.add(field);
+            columns.add(column);
+        }
+        if (fields.isEmpty()) {
+            return null;
+        }
+        return new FieldSet(Collections.unmodifiableSet(fields),
+                Collections.unmodifiableList(new ArrayList<>(columns)));
+    }
+
+    /**
+     * 是否选择了该API字段
+     */
+    public boolean contains(String field) {
+        return fields.contains(field);
+    }
+
+    /**
+     * 需要查询的列，按首次出现的顺序去重
+     */
+    public List<String> columns() {
+        return columns;
+    }
+
+    /**
+     * 是否需要查询该列
+     */
+    public boolean includesColumn(String column) {
+        return columns.contains(column);
+    }
+
+    /**
+     * SELECT 列清单
+     */
+    String selectList() {
+        return String.join(", ", columns);
+    }
+}
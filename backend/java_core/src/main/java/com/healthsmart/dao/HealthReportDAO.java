@@ -8,6 +8,7 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 健康报告数据访问对象
@@ -16,6 +17,29 @@ import java.util.List;
 public class HealthReportDAO {
     
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /** 可投影的API字段 -> health_reports 列 */
+    public static final Map<String, String> REPORT_FIELDS = Map.ofEntries(
+            Map.entry("reportId", "report_id"),
+            Map.entry("userId", "user_id"),
+            Map.entry("reportMonth", "report_month"),
+            Map.entry("height", "height"),
+            Map.entry("weight", "weight"),
+            Map.entry("bmi", "bmi"),
+            Map.entry("bodyFatRate", "body_fat_rate"),
+            Map.entry("muscleMass", "muscle_mass"),
+            Map.entry("systolicPressure", "systolic_pressure"),
+            Map.entry("diastolicPressure", "diastolic_pressure"),
+            Map.entry("sleepHoursAvg", "sleep_hours_avg"),
+            Map.entry("sleepQuality", "sleep_quality"),
+            Map.entry("exerciseFrequency", "exercise_frequency"),
+            Map.entry("dietaryPreferences", "dietary_preferences"),
+            Map.entry("healthGoal", "health_goal"),
+            Map.entry("targetWeight", "target_weight"),
+            Map.entry("stressLevel", "stress_level"),
+            Map.entry("energyLevel", "energy_level"),
+            Map.entry("smoking", "smoking"),
+            Map.entry("drinking", "drinking"));
     
     /**
      * 插入健康报告
@@ -31,7 +55,7 @@ public class HealthReportDAO {
                      "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
         
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setInt(1, report.getUserId());
             pstmt.setString(2, report.getReportMonth());
@@ -60,11 +84,7 @@ public class HealthReportDAO {
             int affectedRows = pstmt.executeUpdate();
             
             if (affectedRows > 0) {
-                try (ResultSet rs = pstmt.getGeneratedKeys()) {
-                    if (rs.next()) {
-                        return rs.getInt(1);
-                    }
-                }
+                return DatabaseConnection.lastInsertId(conn);
             }
             return -1;
         }
@@ -109,6 +129,42 @@ public class HealthReportDAO {
         return reports;
     }
     
+    /**
+     * 根据用户ID查找所有健康报告，只查询所选字段对应的列
+     */
+    public List<HealthReport> findByUserId(Integer userId, FieldSet fields) throws SQLException {
+        String sql = "SELECT " + fields.selectList() + " FROM health_reports WHERE user_id = ? ORDER BY submitted_at DESC";
+        List<HealthReport> reports = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, userId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    reports.add(mapProjectedReport(rs, fields));
+                }
+            }
+        }
+        return reports;
+    }
+
+    /**
+     * 用户报告列表的版本：报告只新增不修改，报告数与最大报告ID即可标识列表内容
+     */
+    public String findVersionByUserId(Integer userId) throws SQLException {
+        String sql = "SELECT COUNT(*) || '-' || COALESCE(MAX(report_id), 0) FROM health_reports WHERE user_id = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, userId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
     /**
      * 根据用户ID和月份查找健康报告
      */
@@ -149,6 +205,51 @@ public class HealthReportDAO {
         return null;
     }
     
+    /**
+     * 轻量映射：按列序号只读取投影中的列，不解析提交时间；取值规则与完整映射相同
+     */
+    private static HealthReport mapProjectedReport(ResultSet rs, FieldSet fields) throws SQLException {
+        HealthReport report = new HealthReport();
+        List<String> columns = fields.columns();
+        for (int i = 0; i < columns.size(); i++) {
+            int index = i + 1;
+            switch (columns.get(i)) {
+                case "report_id" -> report.setReportId(rs.getInt(index));
+                case "user_id" -> report.setUserId(rs.getInt(index));
+                case "report_month" -> report.setReportMonth(rs.getString(index));
+                case "height" -> report.setHeight(rs.getDouble(index));
+                case "weight" -> report.setWeight(rs.getDouble(index));
+                case "bmi" -> report.setBmi(rs.getDouble(index));
+                case "body_fat_rate" -> report.setBodyFatRate(rs.getDouble(index));
+                case "muscle_mass" -> report.setMuscleMass(rs.getDouble(index));
+                case "systolic_pressure" -> report.setSystolicPressure(positive(rs.getInt(index)));
+                case "diastolic_pressure" -> report.setDiastolicPressure(positive(rs.getInt(index)));
+                case "sleep_hours_avg" -> {
+                    double sleepHours = rs.getDouble(index);
+                    if (sleepHours > 0) report.setSleepHoursAvg(sleepHours);
+                }
+                case "sleep_quality" -> report.setSleepQuality(positive(rs.getInt(index)));
+                case "exercise_frequency" -> report.setExerciseFrequency(positive(rs.getInt(index)));
+                case "dietary_preferences" -> report.setDietaryPreferences(rs.getString(index));
+                case "health_goal" -> report.setHealthGoal(rs.getString(index));
+                case "target_weight" -> {
+                    double targetWeight = rs.getDouble(index);
+                    if (targetWeight > 0) report.setTargetWeight(targetWeight);
+                }
+                case "stress_level" -> report.setStressLevel(positive(rs.getInt(index)));
+                case "energy_level" -> report.setEnergyLevel(positive(rs.getInt(index)));
+                case "smoking" -> report.setSmoking(rs.getInt(index) == 1);
+                case "drinking" -> report.setDrinking(rs.getInt(index) == 1);
+                default -> throw new IllegalStateException("未映射的列: " + columns.get(i));
+            }
+        }
+        return report;
+    }
+
+    private static Integer positive(int value) {
+        return value > 0 ? value : null;
+    }
+
     /**
      * 映射ResultSet到HealthReport对象
      */
@@ -21,13 +21,21 @@ public class PersonalizedPlanDAO {
      * 插入个性化计划
      */
     public int insert(PersonalizedPlan plan) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return insert(conn, plan);
+        }
+    }
+
+    /**
+     * 在给定连接（可处于事务中）上插入个性化计划
+     */
+    public int insert(Connection conn, PersonalizedPlan plan) throws SQLException {
         String sql = "INSERT INTO personalized_plans (user_id, report_id, plan_month, total_days, " +
                      "plan_type, calorie_target, protein_target, carbs_target, fat_target, " +
                      "exercise_sessions_per_week, generation_method, plan_status) " +
                      "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setInt(1, plan.getUserId());
             pstmt.setInt(2, plan.getReportId());
@@ -45,16 +53,45 @@ public class PersonalizedPlanDAO {
             int affectedRows = pstmt.executeUpdate();
             
             if (affectedRows > 0) {
-                try (ResultSet rs = pstmt.getGeneratedKeys()) {
-                    if (rs.next()) {
-                        return rs.getInt(1);
-                    }
-                }
+                return DatabaseConnection.lastInsertId(conn);
             }
             return -1;
         }
     }
+
+    /**
+     * 更新计划的天数与营养、运动目标
+     */
+    public boolean updateTargets(Connection conn, PersonalizedPlan plan) throws SQLException {
+        String sql = "UPDATE personalized_plans SET total_days = ?, calorie_target = ?, protein_target = ?, " +
+                     "carbs_target = ?, fat_target = ?, exercise_sessions_per_week = ? WHERE plan_id = ?";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, plan.getTotalDays());
+            pstmt.setInt(2, plan.getCalorieTarget() != null ? plan.getCalorieTarget() : 0);
+            pstmt.setDouble(3, plan.getProteinTarget() != null ? plan.getProteinTarget() : 0);
+            pstmt.setDouble(4, plan.getCarbsTarget() != null ? plan.getCarbsTarget() : 0);
+            pstmt.setDouble(5, plan.getFatTarget() != null ? plan.getFatTarget() : 0);
+            pstmt.setInt(6, plan.getExerciseSessionsPerWeek() != null ? plan.getExerciseSessionsPerWeek() : 0);
+            pstmt.setInt(7, plan.getPlanId());
+            return pstmt.executeUpdate() > 0;
+        }
+    }
     
+    /**
+     * 在调用方的事务中更新计划对应的报告和生成方式（部分重新生成后使用）
+     */
+    public boolean updateSource(Connection conn, PersonalizedPlan plan) throws SQLException {
+        String sql = "UPDATE personalized_plans SET report_id = ?, generation_method = ? WHERE plan_id = ?";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, plan.getReportId());
+            pstmt.setString(2, plan.getGenerationMethod());
+            pstmt.setInt(3, plan.getPlanId());
+            return pstmt.executeUpdate() > 0;
+        }
+    }
+
     /**
      * 根据ID查找计划
      */
@@ -114,6 +151,24 @@ public class PersonalizedPlanDAO {
         return null;
     }
     
+    /**
+     * 获取用户指定月份活跃计划的ID（不读取计划内容），没有活跃计划时返回 null
+     */
+    public Integer findActiveIdByUserIdAndMonth(Integer userId, String month) throws SQLException {
+        String sql = "SELECT plan_id FROM personalized_plans WHERE user_id = ? AND plan_month = ? " +
+                     "AND plan_status = 'active'";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setInt(1, userId);
+            pstmt.setString(2, month);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+    
     /**
      * 根据报告ID查找计划
      */
@@ -149,6 +204,87 @@ public class PersonalizedPlanDAO {
         }
     }
     
+    /**
+     * 查找指定月份中日期范围内任务不足 expectedDays 天的活跃计划（滚动窗口补齐使用）
+     */
+    public List<PersonalizedPlan> findPlansMissingDays(String month, String startDate, String endDate,
+                                                       int expectedDays, int afterPlanId, int limit) throws SQLException {
+        String sql = "SELECT * FROM personalized_plans p " +
+                     "WHERE p.plan_status = 'active' AND p.plan_month = ? AND p.plan_id > ? " +
+                     "AND (SELECT COUNT(*) FROM daily_tasks t WHERE t.plan_id = p.plan_id " +
+                     "AND t.task_date BETWEEN ? AND ?) < ? " +
+                     "ORDER BY p.plan_id LIMIT ?";
+        List<PersonalizedPlan> plans = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, month);
+            pstmt.setInt(2, afterPlanId);
+            pstmt.setString(3, startDate);
+            pstmt.setString(4, endDate);
+            pstmt.setInt(5, expectedDays);
+            pstmt.setInt(6, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    plans.add(mapResultSetToPlan(rs));
+                }
+            }
+        }
+        return plans;
+    }
+
+    /**
+     * 查找需要滚动生成目标月份计划的用户（有更早月份的活跃计划、目标月份尚无计划）
+     * 按用户ID升序分页，afterUserId 为上一页最后一个用户ID
+     */
+    public List<Integer> findRolloverCandidates(String targetMonth, int afterUserId, int limit) throws SQLException {
+        String sql = "SELECT DISTINCT p.user_id FROM personalized_plans p " +
+                     "WHERE p.plan_status = 'active' AND p.plan_month < ? AND p.user_id > ? " +
+                     "AND NOT EXISTS (SELECT 1 FROM personalized_plans n " +
+                     "WHERE n.user_id = p.user_id AND n.plan_month = ?) " +
+                     "ORDER BY p.user_id LIMIT ?";
+        List<Integer> userIds = new ArrayList<>();
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setString(1, targetMonth);
+            pstmt.setInt(2, afterUserId);
+            pstmt.setString(3, targetMonth);
+            pstmt.setInt(4, limit);
+            ResultSet rs = pstmt.executeQuery();
+            
+            while (rs.next()) {
+                userIds.add(rs.getInt(1));
+            }
+        }
+        return userIds;
+    }
+    
+    /**
+     * 统计需要滚动生成目标月份计划的用户数
+     */
+    public int countRolloverCandidates(String targetMonth) throws SQLException {
+        String sql = "SELECT COUNT(DISTINCT p.user_id) FROM personalized_plans p " +
+                     "WHERE p.plan_status = 'active' AND p.plan_month < ? " +
+                     "AND NOT EXISTS (SELECT 1 FROM personalized_plans n " +
+                     "WHERE n.user_id = p.user_id AND n.plan_month = ?)";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setString(1, targetMonth);
+            pstmt.setString(2, targetMonth);
+            ResultSet rs = pstmt.executeQuery();
+            
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+        }
+        return 0;
+    }
+    
     /**
      * 删除计划
      */
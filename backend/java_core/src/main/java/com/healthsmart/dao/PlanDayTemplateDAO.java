@@ -0,0 +1,263 @@
+package com.healthsmart.dao;
+
+import com.healthsmart.model.DailyTask;
+import com.healthsmart.util.DatabaseConnection;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 计划日模板数据访问对象
+ * Plan Day Template Data Access Object
+ *
+ * 餐食、运动和注意事项内容按内容摘要去重存放在 plan_day_templates 中，
+ * daily_tasks 只保存模板ID和完成状态。模板写入后不再修改，
+ * 因此读取结果缓存在内存中，任务查询只需按ID补全内容。
+ * 事务中新建的模板先暂存在该连接名下，通过 commit(conn) 提交成功后才放入共享缓存；
+ * rollback(conn) 只丢弃本事务暂存的模板，不影响其他线程已缓存的内容。
+ */
+public class PlanDayTemplateDAO {
+
+    // 模板不可变，缓存无需失效；切换数据库地址时整体清空
+    private static final Map<Integer, Template> TEMPLATES_BY_ID = new ConcurrentHashMap<>();
+    private static final Map<String, Integer> IDS_BY_HASH = new ConcurrentHashMap<>();
+    // 进行中的事务新建的模板：连接 -> 内容摘要 -> 模板，提交后发布到共享缓存
+    private static final Map<Connection, Map<String, Template>> STAGED = new ConcurrentHashMap<>();
+    private static volatile String cachedUrl;
+
+    /**
+     * 获取任务内容对应的模板ID，不存在时创建
+     */
+    public int resolveId(Connection conn, DailyTask task) throws SQLException {
+        checkDatabase();
+        String hash = task.templateHash();
+        Integer cached = IDS_BY_HASH.get(hash);
+        if (cached != null) {
+            return cached;
+        }
+        Map<String, Template> staged = conn.getAutoCommit() ? null : STAGED.computeIfAbsent(conn, c -> new HashMap<>());
+        if (staged != null) {
+            Template template = staged.get(hash);
+            if (template != null) {
+                return template.templateId;
+            }
+        }
+
+        String sql = "INSERT OR IGNORE INTO plan_day_templates (content_hash, meal_breakfast, meal_lunch, " +
+                     "meal_dinner, meal_snacks, daily_calorie_goal, exercise_type, exercise_description, " +
+                     "exercise_duration, exercise_intensity, 注意事项) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, hash);
+            pstmt.setString(2, task.getMealBreakfast());
+            pstmt.setString(3, task.getMealLunch());
+            pstmt.setString(4, task.getMealDinner());
+            pstmt.setString(5, task.getMealSnacks());
+            setPositiveInt(pstmt, 6, task.getDailyCalorieGoal());
+            pstmt.setString(7, task.getExerciseType());
+            pstmt.setString(8, task.getExerciseDescription());
+            setPositiveInt(pstmt, 9, task.getExerciseDuration());
+            pstmt.setString(10, task.getExerciseIntensity());
+            pstmt.setString(11, task.get注意事项());
+            pstmt.executeUpdate();
+        }
+
+        // 并发插入同一内容时 INSERT OR IGNORE 只保留一行，统一按摘要回查
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT * FROM plan_day_templates WHERE content_hash = ?")) {
+            pstmt.setString(1, hash);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("计划日模板写入失败");
+                }
+                Template template = mapResultSetToTemplate(rs);
+                if (staged != null) {
+                    // 事务尚未提交，其他线程不能看到这个ID
+                    staged.put(hash, template);
+                    return template.templateId;
+                }
+                return cache(template);
+            }
+        }
+    }
+
+    /**
+     * 用模板内容补全任务（缺失的模板一次性批量加载）
+     */
+    public void hydrate(Connection conn, List<DailyTask> tasks) throws SQLException {
+        checkDatabase();
+        Set<Integer> missing = new LinkedHashSet<>();
+        for (DailyTask task : tasks) {
+            if (task.getTemplateId() != null && !TEMPLATES_BY_ID.containsKey(task.getTemplateId())) {
+                missing.add(task.getTemplateId());
+            }
+        }
+        Map<Integer, Template> loaded = missing.isEmpty() ? Map.of() : load(conn, missing);
+        if (conn.getAutoCommit()) {
+            loaded.values().forEach(PlanDayTemplateDAO::cache);
+        }
+        for (DailyTask task : tasks) {
+            Template template = null;
+            if (task.getTemplateId() != null) {
+                template = TEMPLATES_BY_ID.get(task.getTemplateId());
+                if (template == null) {
+                    // 事务中读到的行可能尚未提交，只用于本次补全
+                    template = loaded.get(task.getTemplateId());
+                }
+            }
+            if (template != null) {
+                template.applyTo(task);
+            }
+        }
+    }
+
+    /**
+     * 统计模板数量
+     */
+    public int count() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM plan_day_templates")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * 提交事务，成功后把本事务新建的模板放入共享缓存
+     */
+    public static void commit(Connection conn) throws SQLException {
+        conn.commit();
+        Map<String, Template> staged = STAGED.remove(conn);
+        if (staged != null) {
+            staged.values().forEach(PlanDayTemplateDAO::cache);
+        }
+    }
+
+    /**
+     * 回滚事务并丢弃本事务暂存的模板
+     */
+    public static void rollback(Connection conn) throws SQLException {
+        STAGED.remove(conn);
+        conn.rollback();
+    }
+
+    /**
+     * 内存中缓存的模板数量
+     */
+    public static int cachedCount() {
+        return TEMPLATES_BY_ID.size();
+    }
+
+    private Map<Integer, Template> load(Connection conn, Set<Integer> ids) throws SQLException {
+        Map<Integer, Template> loaded = new HashMap<>();
+        List<Integer> pending = new ArrayList<>(ids);
+        // 分批拼接 IN 列表，避免超过 SQLite 参数个数上限
+        for (int from = 0; from < pending.size(); from += 500) {
+            List<Integer> chunk = pending.subList(from, Math.min(pending.size(), from + 500));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "SELECT * FROM plan_day_templates WHERE template_id IN (" + placeholders + ")")) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstmt.setInt(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        Template template = mapResultSetToTemplate(rs);
+                        loaded.put(template.templateId, template);
+                    }
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private static int cache(Template template) {
+        TEMPLATES_BY_ID.put(template.templateId, template);
+        IDS_BY_HASH.put(template.contentHash, template.templateId);
+        return template.templateId;
+    }
+
+    private static void checkDatabase() {
+        String url = DatabaseConnection.getDatabaseUrl();
+        if (!url.equals(cachedUrl)) {
+            synchronized (PlanDayTemplateDAO.class) {
+                if (!url.equals(cachedUrl)) {
+                    TEMPLATES_BY_ID.clear();
+                    IDS_BY_HASH.clear();
+                    cachedUrl = url;
+                }
+            }
+        }
+    }
+
+    private static void setPositiveInt(PreparedStatement pstmt, int index, Integer value) throws SQLException {
+        if (value != null && value > 0) {
+            pstmt.setInt(index, value);
+        } else {
+            pstmt.setNull(index, Types.INTEGER);
+        }
+    }
+
+    /**
+     * 映射ResultSet到模板对象
+     */
+    private Template mapResultSetToTemplate(ResultSet rs) throws SQLException {
+        Template template = new Template();
+        template.templateId = rs.getInt("template_id");
+        template.contentHash = rs.getString("content_hash");
+        template.mealBreakfast = rs.getString("meal_breakfast");
+        template.mealLunch = rs.getString("meal_lunch");
+        template.mealDinner = rs.getString("meal_dinner");
+        template.mealSnacks = rs.getString("meal_snacks");
+
+        int calorieGoal = rs.getInt("daily_calorie_goal");
+        if (calorieGoal > 0) template.dailyCalorieGoal = calorieGoal;
+
+        template.exerciseType = rs.getString("exercise_type");
+        template.exerciseDescription = rs.getString("exercise_description");
+
+        int exerciseDuration = rs.getInt("exercise_duration");
+        if (exerciseDuration > 0) template.exerciseDuration = exerciseDuration;
+
+        template.exerciseIntensity = rs.getString("exercise_intensity");
+        template.notice = rs.getString("注意事项");
+        return template;
+    }
+
+    /**
+     * 计划日模板内容
+     */
+    private static class Template {
+        int templateId;
+        String contentHash;
+        String mealBreakfast;
+        String mealLunch;
+        String mealDinner;
+        String mealSnacks;
+        Integer dailyCalorieGoal;
+        String exerciseType;
+        String exerciseDescription;
+        Integer exerciseDuration;
+        String exerciseIntensity;
+        String notice;
+
+        void applyTo(DailyTask task) {
+            task.setMealBreakfast(mealBreakfast);
+            task.setMealLunch(mealLunch);
+            task.setMealDinner(mealDinner);
+            task.setMealSnacks(mealSnacks);
+            task.setDailyCalorieGoal(dailyCalorieGoal);
+            task.setExerciseType(exerciseType);
+            task.setExerciseDescription(exerciseDescription);
+            task.setExerciseDuration(exerciseDuration);
+            task.setExerciseIntensity(exerciseIntensity);
+            task.set注意事项(notice);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.healthsmart.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 延迟记录器
+ * Latency Recorder
+ *
+ * 以微秒记录全部样本，结束时排序求百分位。压测规模（数万到数十万请求）下
+ * 直接保存原始样本比分桶直方图更简单，也不损失精度。
+ */
+class LatencyRecorder {
+
+    private long[] samples = new long[1024];
+    private int count;
+    private long errors;
+
+    synchronized void record(long micros) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = micros;
+    }
+
+    synchronized void recordError() {
+        errors++;
+    }
+
+    synchronized Snapshot snapshot() {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        return new Snapshot(sorted, errors);
+    }
+
+    /**
+     * 某一时刻的统计快照
+     */
+    static class Snapshot {
+        private final long[] sorted;
+        private final long errors;
+
+        Snapshot(long[] sorted, long errors) {
+            this.sorted = sorted;
+            this.errors = errors;
+        }
+
+        long getCount() {
+            return sorted.length;
+        }
+
+        long getErrors() {
+            return errors;
+        }
+
+        /**
+         * 取百分位（毫秒），p 取值 0-100
+         */
+        double percentileMillis(double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1000.0;
+        }
+
+        double meanMillis() {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            long sum = 0;
+            for (long v : sorted) {
+                sum += v;
+            }
+            return sum / 1000.0 / sorted.length;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("count", getCount());
+            map.put("errors", errors);
+            map.put("meanMs", round(meanMillis()));
+            map.put("p50Ms", round(percentileMillis(50)));
+            map.put("p90Ms", round(percentileMillis(90)));
+            map.put("p99Ms", round(percentileMillis(99)));
+            map.put("p999Ms", round(percentileMillis(99.9)));
+            map.put("maxMs", round(percentileMillis(100)));
+            return map;
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 100) / 100.0;
+        }
+    }
+}
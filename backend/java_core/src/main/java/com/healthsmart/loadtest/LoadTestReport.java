@@ -0,0 +1,101 @@
+package com.healthsmart.loadtest;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * 压测报告输出
+ * Load Test Report Writer
+ *
+ * 输出 report.json（供CI比对）和 report.html（供人查看）。
+ */
+class LoadTestReport {
+
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private static final String[] COLUMNS = {"count", "errors", "throughputPerSec", "meanMs", "p50Ms", "p90Ms", "p99Ms", "p999Ms", "maxMs"};
+
+    private LoadTestReport() {
+    }
+
+    static void write(Path outDir, Map<String, Object> report) throws IOException {
+        Files.createDirectories(outDir);
+        Files.writeString(outDir.resolve("report.json"), gson.toJson(report), StandardCharsets.UTF_8);
+        Files.writeString(outDir.resolve("report.html"), toHtml(report), StandardCharsets.UTF_8);
+        System.out.println("[压测] 报告已写入 " + outDir.toAbsolutePath());
+    }
+
+    @SuppressWarnings("unchecked")
+    static void printSummary(Map<String, Object> report) {
+        Map<String, Map<String, Object>> rows = (Map<String, Map<String, Object>>) report.get("responseTime");
+        System.out.printf("%-32s %8s %7s %9s %9s %9s %9s%n", "label", "count", "errors", "p50(ms)", "p99(ms)", "p99.9(ms)", "max(ms)");
+        for (Map.Entry<String, Map<String, Object>> row : rows.entrySet()) {
+            Map<String, Object> s = row.getValue();
+            System.out.printf("%-32s %8s %7s %9s %9s %9s %9s%n", row.getKey(), s.get("count"), s.get("errors"),
+                    s.get("p50Ms"), s.get("p99Ms"), s.get("p999Ms"), s.get("maxMs"));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String toHtml(Map<String, Object> report) {
+        StringBuilder html = new StringBuilder();
+        html.append("<!DOCTYPE html>\n<html lang=\"zh-CN\">\n<head>\n<meta charset=\"UTF-8\">\n")
+            .append("<title>HealthSmart 压测报告</title>\n<style>\n")
+            .append("body{font-family:-apple-system,\"Microsoft YaHei\",sans-serif;margin:24px;color:#333}\n")
+            .append("table{border-collapse:collapse;margin-bottom:24px}\n")
+            .append("th,td{border:1px solid #ddd;padding:6px 10px;text-align:right}\n")
+            .append("th{background:#f5f7fa}td:first-child,th:first-child{text-align:left}\n")
+            .append(".bar{background:#4caf50;height:10px;display:inline-block}\n")
+            .append("</style>\n</head>\n<body>\n<h1>HealthSmart 压测报告</h1>\n<table>\n");
+
+        for (Map.Entry<String, Object> entry : report.entrySet()) {
+            if (!(entry.getValue() instanceof Map) || "mix".equals(entry.getKey())) {
+                html.append("<tr><th>").append(escape(entry.getKey())).append("</th><td>")
+                    .append(escape(String.valueOf(entry.getValue()))).append("</td></tr>\n");
+            }
+        }
+        html.append("</table>\n");
+
+        section(html, "响应时间（自计划发起时刻，已校正协调遗漏）",
+                (Map<String, Map<String, Object>>) report.get("responseTime"));
+        section(html, "服务时间（自实际发送时刻，未校正，仅供对比）",
+                (Map<String, Map<String, Object>>) report.get("serviceTime"));
+
+        html.append("</body>\n</html>\n");
+        return html.toString();
+    }
+
+    private static void section(StringBuilder html, String title, Map<String, Map<String, Object>> rows) {
+        double maxP99 = 0;
+        for (Map<String, Object> row : rows.values()) {
+            maxP99 = Math.max(maxP99, ((Number) row.get("p99Ms")).doubleValue());
+        }
+
+        html.append("<h2>").append(escape(title)).append("</h2>\n<table>\n<tr><th>label</th>");
+        for (String column : COLUMNS) {
+            html.append("<th>").append(column).append("</th>");
+        }
+        html.append("<th>p99</th></tr>\n");
+
+        for (Map.Entry<String, Map<String, Object>> row : rows.entrySet()) {
+            html.append("<tr><td>").append(escape(row.getKey())).append("</td>");
+            for (String column : COLUMNS) {
+                html.append("<td>").append(row.getValue().get(column)).append("</td>");
+            }
+            double p99 = ((Number) row.getValue().get("p99Ms")).doubleValue();
+            int width = maxP99 > 0 ? (int) Math.round(p99 / maxP99 * 200) : 0;
+            html.append("<td style=\"text-align:left\"><span class=\"bar\" style=\"width:")
+                .append(width).append("px\"></span></td></tr>\n");
+        }
+        html.append("</table>\n");
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
@@ -0,0 +1,326 @@
+package com.healthsmart.loadtest;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.healthsmart.ApiServer;
+import com.healthsmart.util.DatabaseConnection;
+import com.healthsmart.util.SyntheticDataGenerator;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 端到端HTTP压测工具
+ * End-to-End HTTP Load Test Runner
+ *
+ * 开放模型：按泊松过程以固定到达率发起场景，不等待前一个请求返回，
+ * 因此服务端变慢时排队会真实地体现在延迟中。响应时间从“计划发起时刻”
+ * 开始计算（校正协调遗漏），同时单独记录从实际发送开始的服务时间以便对比。
+ *
+ * 默认先用 SyntheticDataGenerator 构建夹具，并在进程内启动 ApiServer，
+ * Python 引擎使用可配置延迟的桩实现，保证离线可重复。
+ *
+ * 用法: java com.healthsmart.loadtest.LoadTestRunner [--key=value ...]
+ *   --profile=mixed|morning|month-start|evening   流量配比预置
+ *   --mix=login-storm=60,dashboard-poll=40         自定义配比（覆盖 profile）
+ *   --rate=50 --duration=30 --warmup=5             到达率（场景/秒）、持续与预热秒数
+ *   --users=500 --months=2 --seed=42 --fixture=target/loadtest/fixture.db
+ *   --reference-date=2026-10-19                     夹具参考日期（默认当天）
+ *   --engine-latency-ms=200                         桩引擎延迟
+ *   --base-url=http://host:port                     压测外部服务（需使用同一夹具）
+ *   --port=18080 --out=target/loadtest
+ */
+public class LoadTestRunner {
+
+    // 步骤链中的哨兵值：失败后不再继续；前置数据缺失（如今日无任务）时跳过
+    private static final long FAILED = -1L;
+    private static final long SKIPPED = -2L;
+
+    private final Map<String, String> config;
+    private final Gson gson = new Gson();
+    private final Map<String, LatencyRecorder> responseTimes = new ConcurrentHashMap<>();
+    private final Map<String, LatencyRecorder> serviceTimes = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    public LoadTestRunner(Map<String, String> config) {
+        this.config = config;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> config = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                config.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        new LoadTestRunner(config).run();
+        System.exit(0);
+    }
+
+    /**
+     * 执行压测并输出报告
+     */
+    public void run() throws Exception {
+        int users = intOption("users", 500);
+        int months = intOption("months", 2);
+        long seed = Long.parseLong(option("seed", "42"));
+        double rate = Double.parseDouble(option("rate", "50"));
+        int durationSeconds = intOption("duration", 30);
+        int warmupSeconds = intOption("warmup", 5);
+        Path outDir = Path.of(option("out", "target/loadtest"));
+
+        Map<String, Integer> mix = config.containsKey("mix")
+                ? Scenarios.parseMix(config.get("mix"))
+                : Scenarios.profile(option("profile", "mixed"));
+        Map<String, Scenario> scenarios = Scenarios.all();
+        for (String name : mix.keySet()) {
+            if (!scenarios.containsKey(name)) {
+                throw new IllegalArgumentException("未知的场景: " + name + "，可选: " + scenarios.keySet());
+            }
+        }
+
+        // 夹具与被测服务
+        if (System.getProperty("healthsmart.engine.mode") == null) {
+            System.setProperty("healthsmart.engine.mode", "stub");
+        }
+        System.setProperty("healthsmart.engine.stub-latency-ms", option("engine-latency-ms", "200"));
+        // 月末滚动生成会在夹具上批量写入，压测期间关闭
+        System.setProperty("healthsmart.rollover.enabled", "false");
+        SyntheticDataGenerator.Options options = new SyntheticDataGenerator.Options()
+                .setUsers(users).setMonths(months).setSeed(seed);
+        if (config.containsKey("reference-date")) {
+            options.setReferenceDate(LocalDate.parse(config.get("reference-date")));
+        }
+        SyntheticDataGenerator.Summary summary = SyntheticDataGenerator.buildFixture(
+                Path.of(option("fixture", outDir.resolve("fixture.db").toString())), options);
+        System.out.println("[压测] 夹具: " + summary);
+        List<Scenario.VirtualUser> virtualUsers = loadUsers();
+
+        String baseUrl = config.get("base-url");
+        boolean embedded = baseUrl == null;
+        if (embedded) {
+            ApiServer.PORT = intOption("port", 18080);
+            ApiServer.start();
+            baseUrl = "http://localhost:" + ApiServer.PORT;
+        }
+
+        ExecutorService callbackPool = Executors.newFixedThreadPool(4);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(callbackPool)
+                .build();
+
+        System.out.printf("[压测] %s 到达率 %.1f/秒, 持续 %d 秒 (预热 %d 秒), 配比 %s%n",
+                baseUrl, rate, durationSeconds, warmupSeconds, mix);
+
+        // 按到达时间表发起场景；计划时刻由随机数决定，与服务端快慢无关
+        SplittableRandom rnd = new SplittableRandom(seed);
+        List<String> names = new ArrayList<>(mix.keySet());
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        long start = System.nanoTime();
+        long warmupEnd = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long intended = start;
+        long arrivals = 0;
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+
+        while (true) {
+            intended += (long) (-Math.log(1 - rnd.nextDouble()) / rate * 1_000_000_000L);
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Scenario scenario = scenarios.get(pick(names, mix, totalWeight, rnd));
+            Scenario.VirtualUser user = virtualUsers.get(rnd.nextInt(virtualUsers.size()));
+            boolean measured = intended >= warmupEnd;
+            pending.add(runSession(client, baseUrl, scenario, new Scenario.Session(user), intended, measured));
+            arrivals++;
+            pending.removeIf(CompletableFuture::isDone);
+        }
+
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).get(60, TimeUnit.SECONDS);
+        double elapsedSeconds = (System.nanoTime() - warmupEnd) / 1e9;
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("baseUrl", baseUrl);
+        report.put("mix", mix);
+        report.put("targetRate", rate);
+        report.put("durationSeconds", durationSeconds);
+        report.put("warmupSeconds", warmupSeconds);
+        report.put("engineMode", System.getProperty("healthsmart.engine.mode"));
+        report.put("engineLatencyMs", Long.parseLong(option("engine-latency-ms", "200")));
+        report.put("fixture", "users=" + users + ", months=" + months + ", seed=" + seed);
+        report.put("users", virtualUsers.size());
+        report.put("arrivals", arrivals);
+        report.put("maxInFlight", maxInFlight.get());
+        report.put("responseTime", snapshots(responseTimes, elapsedSeconds));
+        report.put("serviceTime", snapshots(serviceTimes, elapsedSeconds));
+
+        LoadTestReport.write(outDir, report);
+        LoadTestReport.printSummary(report);
+
+        callbackPool.shutdownNow();
+        if (embedded) {
+            ApiServer.stop();
+        }
+    }
+
+    /**
+     * 异步执行一个场景的全部步骤
+     */
+    private CompletableFuture<Void> runSession(HttpClient client, String baseUrl, Scenario scenario,
+                                               Scenario.Session session, long intendedStart, boolean measured) {
+        trackInFlight(1);
+        CompletableFuture<Long> chain = CompletableFuture.completedFuture(intendedStart);
+        for (Scenario.Step step : scenario.getSteps()) {
+            chain = chain.thenCompose(stepIntended -> {
+                if (stepIntended < 0) {
+                    return CompletableFuture.completedFuture(stepIntended);
+                }
+                String body = step.body.apply(session);
+                if (body == null) {
+                    return CompletableFuture.completedFuture(SKIPPED);
+                }
+                HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + step.path))
+                        .timeout(Duration.ofSeconds(30))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build();
+                long sent = System.nanoTime();
+                return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                        .handle((response, error) -> {
+                            long done = System.nanoTime();
+                            JsonObject json = null;
+                            boolean ok = false;
+                            if (error == null && response.statusCode() == 200) {
+                                try {
+                                    json = gson.fromJson(response.body(), JsonObject.class);
+                                    ok = Scenarios.isSuccess(json);
+                                } catch (RuntimeException e) {
+                                    ok = false;
+                                }
+                            }
+                            if (measured) {
+                                record(step.label, stepIntended, sent, done, ok);
+                            }
+                            if (!ok) {
+                                return FAILED;
+                            }
+                            if (step.extract != null) {
+                                step.extract.accept(session, json);
+                            }
+                            // 下一步在本步完成后立即发起，其计划时刻即本步完成时刻
+                            return done;
+                        });
+            });
+        }
+        return chain.handle((last, error) -> {
+            if (measured) {
+                LatencyRecorder recorder = responseTimes.computeIfAbsent("scenario:" + scenario.getName(),
+                        k -> new LatencyRecorder());
+                if (error != null || last == null || last == FAILED) {
+                    recorder.recordError();
+                } else {
+                    recorder.record((System.nanoTime() - intendedStart) / 1000);
+                }
+            }
+            trackInFlight(-1);
+            return null;
+        });
+    }
+
+    private void record(String label, long intended, long sent, long done, boolean ok) {
+        LatencyRecorder response = responseTimes.computeIfAbsent(label, k -> new LatencyRecorder());
+        LatencyRecorder service = serviceTimes.computeIfAbsent(label, k -> new LatencyRecorder());
+        if (ok) {
+            response.record((done - intended) / 1000);
+            service.record((done - sent) / 1000);
+        } else {
+            response.recordError();
+            service.recordError();
+        }
+    }
+
+    private void trackInFlight(int delta) {
+        int current = inFlight.addAndGet(delta);
+        maxInFlight.accumulateAndGet(current, Math::max);
+    }
+
+    private static Map<String, Object> snapshots(Map<String, LatencyRecorder> recorders, double elapsedSeconds) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        recorders.keySet().stream().sorted().forEach(label -> {
+            Map<String, Object> stats = recorders.get(label).snapshot().toMap();
+            stats.put("throughputPerSec", Math.round((Long) stats.get("count") / elapsedSeconds * 100) / 100.0);
+            result.put(label, stats);
+        });
+        return result;
+    }
+
+    private static String pick(List<String> names, Map<String, Integer> mix, int totalWeight, SplittableRandom rnd) {
+        int r = rnd.nextInt(totalWeight);
+        for (String name : names) {
+            r -= mix.get(name);
+            if (r < 0) {
+                return name;
+            }
+        }
+        return names.get(names.size() - 1);
+    }
+
+    /**
+     * 从夹具数据库读取虚拟用户及其活跃计划
+     */
+    private static List<Scenario.VirtualUser> loadUsers() throws Exception {
+        List<Scenario.VirtualUser> users = new ArrayList<>();
+        String sql = "SELECT u.user_id, u.username, u.password, " +
+                "(SELECT MAX(p.plan_id) FROM personalized_plans p WHERE p.user_id = u.user_id " +
+                "AND p.plan_status = 'active') AS plan_id FROM users u ORDER BY u.user_id";
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                int planId = rs.getInt("plan_id");
+                users.add(new Scenario.VirtualUser(rs.getInt("user_id"), rs.getString("username"),
+                        rs.getString("password"), rs.wasNull() ? null : planId));
+            }
+        }
+        if (users.isEmpty()) {
+            throw new IllegalStateException("夹具中没有用户");
+        }
+        return users;
+    }
+
+    private String option(String key, String defaultValue) {
+        return config.getOrDefault(key, defaultValue);
+    }
+
+    private int intOption(String key, int defaultValue) {
+        return Integer.parseInt(option(key, String.valueOf(defaultValue)));
+    }
+}
@@ -0,0 +1,190 @@
+package com.healthsmart.loadtest;
+
+import com.healthsmart.router.RouteMatch;
+import com.healthsmart.router.Router;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * 路由匹配基准测试
+ * Router Matching Benchmark
+ *
+ * 生成一张合成路由表（每个资源含旧式 ?action= 操作、带整数路径参数的 REST 路由和带查询参数的搜索路由），
+ * 按固定种子生成请求序列，比较预编译路由表与原先“按上下文前缀查找 + split 解析 action + switch”
+ * 的每次匹配耗时（ns/op）与分配字节数（bytes/op）。旧方式只能分发 ?action= 请求，REST 请求只统计路由表。
+ *
+ * 用法: java com.healthsmart.loadtest.RouterBenchmark [--resources=50] [--iterations=2000000] [--seed=42]
+ */
+public class RouterBenchmark {
+
+    private static final String[] ACTIONS = {"list", "get", "create", "update", "delete"};
+
+    private static volatile long sink;
+
+    public static void main(String[] args) {
+        Map<String, String> config = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                config.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        int resources = Integer.parseInt(config.getOrDefault("resources", "50"));
+        int iterations = Integer.parseInt(config.getOrDefault("iterations", "2000000"));
+        long seed = Long.parseLong(config.getOrDefault("seed", "42"));
+
+        Router<Integer> router = generateRoutes(resources);
+        LegacyDispatcher legacy = new LegacyDispatcher(resources);
+        List<String[]> actionRequests = generateRequests(resources, 1024, seed, true);
+        List<String[]> restRequests = generateRequests(resources, 1024, seed, false);
+
+        System.out.println("路由数: " + router.routes().size() + "，资源数: " + resources + "，迭代: " + iterations);
+        System.out.printf("%-24s %10s %12s%n", "case", "ns/op", "bytes/op");
+        RouteMatch<Integer> match = new RouteMatch<>();
+        for (int round = 0; round < 2; round++) {
+            // 第一轮用于预热
+            boolean print = round == 1;
+            report(print, "legacy split+switch", iterations, actionRequests,
+                    request -> legacy.dispatch(request[1], request[2]));
+            report(print, "router ?action=", iterations, actionRequests,
+                    request -> router.match(request[0], request[1], request[2], match) ? match.target() : -1);
+            report(print, "router REST", iterations, restRequests, request -> {
+                if (!router.match(request[0], request[1], request[2], match)) {
+                    return -1;
+                }
+                int value = match.target();
+                for (int i = 0; i < match.pathParamCount(); i++) {
+                    value += match.isIntPathParam(i) ? match.pathInt(i) : 0;
+                }
+                return value;
+            });
+        }
+    }
+
+    /**
+     * 生成合成路由表，目标为路由序号
+     */
+    static Router<Integer> generateRoutes(int resources) {
+        Router.Builder<Integer> builder = Router.builder();
+        int id = 0;
+        for (int r = 0; r < resources; r++) {
+            String base = "/api/res" + r;
+            for (String action : ACTIONS) {
+                builder.action(base, action, id++);
+            }
+            builder.get(base + "/{id:int}", id++)
+                    .put(base + "/{id:int}", id++)
+                    .delete(base + "/{id:int}", id++)
+                    .post(base + "/{id:int}/items", id++)
+                    .get(base + "/{id:int}/items/{itemId:int}", id++)
+                    .get(base + "/search?{q}&{page:int}", id++);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 按固定种子生成请求（方法、路径、查询串）
+     */
+    static List<String[]> generateRequests(int resources, int count, long seed, boolean legacyStyle) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<String[]> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String base = "/api/res" + random.nextInt(resources);
+            int id = 1 + random.nextInt(100000);
+            if (legacyStyle) {
+                requests.add(new String[]{"POST", base, "action=" + ACTIONS[random.nextInt(ACTIONS.length)]});
+                continue;
+            }
+            switch (random.nextInt(4)) {
+                case 0:
+                    requests.add(new String[]{"GET", base + "/" + id, null});
+                    break;
+                case 1:
+                    requests.add(new String[]{"PUT", base + "/" + id, null});
+                    break;
+                case 2:
+                    requests.add(new String[]{"GET", base + "/" + id + "/items/" + random.nextInt(50), null});
+                    break;
+                default:
+                    requests.add(new String[]{"GET", base + "/search", "q=walk&page=" + random.nextInt(10)});
+            }
+        }
+        return requests;
+    }
+
+    private interface Dispatch {
+        int apply(String[] request);
+    }
+
+    private static void report(boolean print, String name, int iterations, List<String[]> requests, Dispatch dispatch) {
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        int size = requests.size();
+        long checksum = 0;
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            checksum += dispatch.apply(requests.get(i % size));
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        sink += checksum;
+        if (print) {
+            System.out.printf("%-24s %10.1f %12.1f%n", name, (double) elapsed / iterations, (double) allocated / iterations);
+        }
+    }
+
+    /**
+     * 原先的分发方式：按最长前缀找到上下文处理器，split 解析 action，再按 action 分支
+     */
+    private static class LegacyDispatcher {
+        private final String[] contexts;
+        private final List<Map<String, Integer>> actionTables = new ArrayList<>();
+
+        LegacyDispatcher(int resources) {
+            contexts = new String[resources];
+            int id = 0;
+            for (int r = 0; r < resources; r++) {
+                contexts[r] = "/api/res" + r;
+                Map<String, Integer> actions = new HashMap<>();
+                for (String action : ACTIONS) {
+                    actions.put(action, id++);
+                }
+                // 每个资源另有 6 条 REST 路由，保持目标序号与路由表一致
+                id += 6;
+                actionTables.add(actions);
+            }
+        }
+
+        int dispatch(String path, String query) {
+            int best = -1;
+            for (int i = 0; i < contexts.length; i++) {
+                if (path.startsWith(contexts[i]) && (best < 0 || contexts[i].length() > contexts[best].length())) {
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                return -1;
+            }
+            Integer target = actionTables.get(best).get(getAction(query));
+            return target != null ? target : -1;
+        }
+
+        private static String getAction(String query) {
+            if (query == null || query.isEmpty()) return "";
+            String[] params = query.split("&");
+            for (String param : params) {
+                String[] keyValue = param.split("=");
+                if (keyValue.length == 2 && keyValue[0].equals("action")) {
+                    return keyValue[1];
+                }
+            }
+            return "";
+        }
+    }
+}
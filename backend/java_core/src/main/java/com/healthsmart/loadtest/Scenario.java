@@ -0,0 +1,95 @@
+package com.healthsmart.loadtest;
+
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 压测场景
+ * Load Test Scenario
+ *
+ * 一个场景是按顺序执行的若干请求步骤，后续步骤可以使用前面步骤响应中提取的值。
+ */
+class Scenario {
+
+    private final String name;
+    private final List<Step> steps = new ArrayList<>();
+
+    Scenario(String name) {
+        this.name = name;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    List<Step> getSteps() {
+        return Collections.unmodifiableList(steps);
+    }
+
+    /**
+     * 追加一个步骤
+     *
+     * @param label   统计标签，如 plan.generate
+     * @param path    请求路径（含 action 查询参数）
+     * @param body    根据会话生成请求体；返回 null 表示跳过该步骤及其后续步骤
+     * @param extract 从响应 JSON 中提取后续步骤需要的值，可为 null
+     */
+    Scenario step(String label, String path, Function<Session, String> body,
+                  BiConsumer<Session, JsonObject> extract) {
+        steps.add(new Step(label, path, body, extract));
+        return this;
+    }
+
+    /**
+     * 单个请求步骤
+     */
+    static class Step {
+        final String label;
+        final String path;
+        final Function<Session, String> body;
+        final BiConsumer<Session, JsonObject> extract;
+
+        Step(String label, String path, Function<Session, String> body, BiConsumer<Session, JsonObject> extract) {
+            this.label = label;
+            this.path = path;
+            this.body = body;
+            this.extract = extract;
+        }
+    }
+
+    /**
+     * 一次场景执行的上下文
+     */
+    static class Session {
+        final VirtualUser user;
+        final Map<String, Object> vars = new HashMap<>();
+
+        Session(VirtualUser user) {
+            this.user = user;
+        }
+    }
+
+    /**
+     * 压测使用的虚拟用户（来自夹具数据库）
+     */
+    static class VirtualUser {
+        final int userId;
+        final String username;
+        final String password;
+        final Integer activePlanId;
+
+        VirtualUser(int userId, String username, String password, Integer activePlanId) {
+            this.userId = userId;
+            this.username = username;
+            this.password = password;
+            this.activePlanId = activePlanId;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.healthsmart.loadtest;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 内置压测场景与流量配比
+ * Built-in Load Test Scenarios and Traffic Mixes
+ */
+class Scenarios {
+
+    static final String LOGIN_STORM = "login-storm";
+    static final String DASHBOARD_POLL = "dashboard-poll";
+    static final String MONTH_START_GENERATE = "month-start-generate";
+    static final String EVENING_COMPLETION = "evening-completion";
+
+    private Scenarios() {
+    }
+
+    /**
+     * 所有内置场景
+     */
+    static Map<String, Scenario> all() {
+        Map<String, Scenario> scenarios = new LinkedHashMap<>();
+
+        // 早8点集中登录：前端启动时走 auth 自动登录/注册
+        scenarios.put(LOGIN_STORM, new Scenario(LOGIN_STORM)
+                .step("user.auth", "/api/user?action=auth",
+                        s -> "{\"username\":\"" + s.user.username + "\",\"password\":\"" + s.user.password + "\"}",
+                        null));
+
+        // 首页仪表盘轮询
+        scenarios.put(DASHBOARD_POLL, new Scenario(DASHBOARD_POLL)
+                .step("analytics.dashboard", "/api/analytics?action=dashboard", Scenarios::userBody, null)
+                .step("analytics.weekly", "/api/analytics?action=weekly", Scenarios::userBody, null)
+                .step("analytics.streak", "/api/analytics?action=streak", Scenarios::userBody, null));
+
+        // 月初集中生成新计划
+        scenarios.put(MONTH_START_GENERATE, new Scenario(MONTH_START_GENERATE)
+                .step("health-report.getLatest", "/api/health-report?action=getLatest", Scenarios::userBody, null)
+                .step("plan.generate", "/api/plan?action=generate", Scenarios::userBody, null));
+
+        // 晚间打卡完成当日任务
+        scenarios.put(EVENING_COMPLETION, new Scenario(EVENING_COMPLETION)
+                .step("plan.getToday", "/api/plan?action=getToday",
+                        s -> s.user.activePlanId == null ? null
+                                : "{\"userId\":" + s.user.userId + ",\"planId\":" + s.user.activePlanId + "}",
+                        (s, json) -> {
+                            JsonElement data = json.get("data");
+                            if (data != null && data.isJsonObject() && data.getAsJsonObject().has("taskId")) {
+                                s.vars.put("taskId", data.getAsJsonObject().get("taskId").getAsInt());
+                            }
+                        })
+                .step("plan.complete", "/api/plan?action=complete",
+                        s -> s.vars.containsKey("taskId")
+                                ? "{\"taskId\":" + s.vars.get("taskId") + ",\"completed\":true}" : null,
+                        null));
+
+        return scenarios;
+    }
+
+    /**
+     * 预置流量配比（场景名 -> 权重）
+     */
+    static Map<String, Integer> profile(String name) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        switch (name) {
+            case "morning":
+                mix.put(LOGIN_STORM, 70);
+                mix.put(DASHBOARD_POLL, 30);
+                break;
+            case "month-start":
+                mix.put(MONTH_START_GENERATE, 60);
+                mix.put(DASHBOARD_POLL, 40);
+                break;
+            case "evening":
+                mix.put(EVENING_COMPLETION, 60);
+                mix.put(DASHBOARD_POLL, 40);
+                break;
+            case "mixed":
+                mix.put(LOGIN_STORM, 25);
+                mix.put(DASHBOARD_POLL, 40);
+                mix.put(MONTH_START_GENERATE, 5);
+                mix.put(EVENING_COMPLETION, 30);
+                break;
+            default:
+                throw new IllegalArgumentException("未知的流量配比: " + name);
+        }
+        return mix;
+    }
+
+    /**
+     * 解析 "login-storm=60,dashboard-poll=40" 形式的自定义配比
+     */
+    static Map<String, Integer> parseMix(String spec) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split("=");
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("无效的配比项: " + part);
+            }
+            mix.put(kv[0].trim(), Integer.parseInt(kv[1].trim()));
+        }
+        return mix;
+    }
+
+    private static String userBody(Scenario.Session s) {
+        return "{\"userId\":" + s.user.userId + "}";
+    }
+
+    static boolean isSuccess(JsonObject json) {
+        return json != null && json.has("success") && json.get("success").getAsBoolean();
+    }
+}
@@ -1,5 +1,7 @@
 package com.healthsmart.model;
 
+import com.healthsmart.util.HashUtil;
+
 import java.time.LocalDateTime;
 
 /**
@@ -12,6 +14,9 @@ public class DailyTask {
     private Integer userId;
     private String taskDate;
 
+    // 共享的计划日模板（餐食、运动、注意事项内容存放在 plan_day_templates 中）
+    private Integer templateId;
+
     // 餐食计划
     private String mealBreakfast;
     private String mealLunch;
@@ -77,6 +82,40 @@ public class DailyTask {
         this.taskDate = taskDate;
     }
 
+    public Integer getTemplateId() {
+        return templateId;
+    }
+
+    public void setTemplateId(Integer templateId) {
+        this.templateId = templateId;
+    }
+
+    /**
+     * 计划日模板内容摘要：内容相同的任务共用一个模板
+     */
+    public String templateHash() {
+        return templateHash(mealBreakfast, mealLunch, mealDinner, mealSnacks, dailyCalorieGoal,
+                exerciseType, exerciseDescription, exerciseDuration, exerciseIntensity, 注意事项);
+    }
+
+    /**
+     * 计算模板内容摘要（数值 0 与空值等价，与读取时的处理一致）
+     */
+    public static String templateHash(String mealBreakfast, String mealLunch, String mealDinner, String mealSnacks,
+                                      Integer dailyCalorieGoal, String exerciseType, String exerciseDescription,
+                                      Integer exerciseDuration, String exerciseIntensity, String notice) {
+        StringBuilder content = new StringBuilder(256);
+        for (Object field : new Object[] {mealBreakfast, mealLunch, mealDinner, mealSnacks,
+                dailyCalorieGoal != null && dailyCalorieGoal > 0 ? dailyCalorieGoal : null,
+                exerciseType, exerciseDescription,
+                exerciseDuration != null && exerciseDuration > 0 ? exerciseDuration : null,
+                exerciseIntensity, notice}) {
+            // 字段间用单元分隔符，空值用 NUL 标记，避免与空字符串混淆
+            content.append(field == null ? "\0" : field.toString()).append((char) 0x1f);
+        }
+        return HashUtil.sha256Hex(content.toString());
+    }
+
     public String getMealBreakfast() {
         return mealBreakfast;
     }
@@ -0,0 +1,62 @@
+package com.healthsmart.router;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+
+/**
+ * 路由参数并入请求体
+ * Route params to JSON body
+ *
+ * 现有处理方法都从JSON请求体读取参数，REST 路由命中后把路径参数与模板声明的查询参数
+ * 按类型写入请求体（路径参数覆盖请求体中的同名字段），处理方法无需区分两种调用方式。
+ */
+public final class JsonBodyParams {
+
+    private static final Gson gson = new Gson();
+
+    private JsonBodyParams() {
+    }
+
+    /**
+     * 旧式操作与无参数路由原样返回请求体
+     *
+     * @throws IllegalArgumentException 请求体不是JSON对象，或整数参数不是整数
+     */
+    public static String merge(String body, RouteMatch<?> match) {
+        int pathParams = match.pathParamCount();
+        int queryParams = match.queryParamCount();
+        if (pathParams == 0 && queryParams == 0) {
+            return body;
+        }
+        JsonObject json;
+        try {
+            json = body == null || body.isBlank() ? null : gson.fromJson(body, JsonObject.class);
+        } catch (JsonParseException e) {
+            throw new IllegalArgumentException("请求体不是有效的JSON对象", e);
+        }
+        if (json == null) {
+            json = new JsonObject();
+        }
+        for (int i = 0; i < queryParams; i++) {
+            String name = match.queryParamName(i);
+            String value = match.queryParam(name);
+            if (value == null || value.isEmpty()) {
+                continue;
+            }
+            if (match.isIntQueryParam(i)) {
+                json.addProperty(name, match.queryInt(name, 0));
+            } else {
+                json.addProperty(name, value);
+            }
+        }
+        for (int i = 0; i < pathParams; i++) {
+            if (match.isIntPathParam(i)) {
+                json.addProperty(match.pathParamName(i), match.pathInt(i));
+            } else {
+                json.addProperty(match.pathParamName(i), match.pathParam(i));
+            }
+        }
+        return gson.toJson(json);
+    }
+}
@@ -0,0 +1,227 @@
+package com.healthsmart.router;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 路由匹配结果
+ * Route Match
+ *
+ * 由调用方创建并在同一线程内反复传给 {@link Router#match}，参数只记录在原始路径/查询串中的区间，
+ * 按需取值：整数参数直接从区间解析，字符串参数取值时才截取（并解码）。不可跨线程共享。
+ *
+ * @param <H> 路由目标类型
+ */
+public final class RouteMatch<H> {
+
+    static final int MAX_PARAMS = 8;
+
+    final int[] starts = new int[MAX_PARAMS];
+    final int[] ends = new int[MAX_PARAMS];
+    boolean methodNotAllowed;
+    boolean unknownAction;
+    boolean restPath;
+    private Router.Route route;
+    private int count;
+    private String path;
+    private String rawQuery;
+
+    void reset(String path, String rawQuery) {
+        this.path = path;
+        this.rawQuery = rawQuery;
+        this.route = null;
+        this.count = 0;
+        this.methodNotAllowed = false;
+        this.unknownAction = false;
+        this.restPath = false;
+    }
+
+    void select(Router.Route route, int count) {
+        this.route = route;
+        this.count = count;
+        this.methodNotAllowed = false;
+        this.unknownAction = false;
+    }
+
+    /**
+     * 命中的路由目标
+     */
+    @SuppressWarnings("unchecked")
+    public H target() {
+        return route != null ? (H) route.target : null;
+    }
+
+    /**
+     * 命中的路由模板（旧式操作为 path?action=name）
+     */
+    public String template() {
+        return route != null ? route.template : null;
+    }
+
+    /**
+     * 是否通过旧式 ?action= 命中
+     */
+    public boolean isAction() {
+        return route != null && route.action != null;
+    }
+
+    /**
+     * 路径存在但没有该方法的路由（405）
+     */
+    public boolean isMethodNotAllowed() {
+        return methodNotAllowed;
+    }
+
+    /**
+     * 旧式操作路径存在但 action 缺失或未注册
+     */
+    public boolean isUnknownAction() {
+        return unknownAction;
+    }
+
+    /**
+     * 未知操作所在路径同时注册了 REST 路由（按404处理，纯旧式路径沿用200）
+     */
+    public boolean isRestPath() {
+        return restPath;
+    }
+
+    public String path() {
+        return path;
+    }
+
+    public String rawQuery() {
+        return rawQuery;
+    }
+
+    // ---------- 路径参数 ----------
+
+    public int pathParamCount() {
+        return count;
+    }
+
+    public String pathParamName(int index) {
+        return route.pathNames[index];
+    }
+
+    public boolean isIntPathParam(int index) {
+        return route.pathInts[index];
+    }
+
+    public String pathParam(int index) {
+        return URLDecoder.decode(path.substring(starts[index], ends[index]), StandardCharsets.UTF_8);
+    }
+
+    public String pathParam(String name) {
+        int index = pathIndex(name);
+        return index >= 0 ? pathParam(index) : null;
+    }
+
+    /**
+     * 整数路径参数（匹配时已校验格式）
+     */
+    public int pathInt(int index) {
+        return parseInt(path, starts[index], ends[index]);
+    }
+
+    public int pathInt(String name) {
+        int index = pathIndex(name);
+        if (index < 0) {
+            throw new IllegalArgumentException("路由没有路径参数: " + name);
+        }
+        return pathInt(index);
+    }
+
+    private int pathIndex(String name) {
+        for (int i = 0; i < count; i++) {
+            if (route.pathNames[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // ---------- 查询参数 ----------
+
+    /**
+     * 路由模板声明的查询参数个数
+     */
+    public int queryParamCount() {
+        return route != null ? route.queryNames.length : 0;
+    }
+
+    public String queryParamName(int index) {
+        return route.queryNames[index];
+    }
+
+    public boolean isIntQueryParam(int index) {
+        return route.queryInts[index];
+    }
+
+    /**
+     * 查询参数（解码后），不存在时返回 null
+     */
+    public String queryParam(String name) {
+        int start = valueStart(rawQuery, name);
+        if (start < 0) {
+            return null;
+        }
+        return URLDecoder.decode(rawQuery.substring(start, valueEnd(rawQuery, start)), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 整数查询参数，不存在或为空时返回默认值
+     *
+     * @throws NumberFormatException 参数不是整数
+     */
+    public int queryInt(String name, int defaultValue) {
+        int start = valueStart(rawQuery, name);
+        if (start < 0) {
+            return defaultValue;
+        }
+        int end = valueEnd(rawQuery, start);
+        if (start == end) {
+            return defaultValue;
+        }
+        if (!Router.isInt(rawQuery, start, end)) {
+            throw new NumberFormatException("参数 " + name + " 不是整数: " + rawQuery.substring(start, end));
+        }
+        return parseInt(rawQuery, start, end);
+    }
+
+    /**
+     * 查询串中 name= 之后值的起始下标，不存在时返回 -1
+     */
+    static int valueStart(String query, String name) {
+        if (query == null) {
+            return -1;
+        }
+        int length = name.length();
+        int pos = 0;
+        while (pos < query.length()) {
+            int end = query.indexOf('&', pos);
+            if (end < 0) {
+                end = query.length();
+            }
+            if (end - pos > length && query.charAt(pos + length) == '='
+                    && query.regionMatches(pos, name, 0, length)) {
+                return pos + length + 1;
+            }
+            pos = end + 1;
+        }
+        return -1;
+    }
+
+    static int valueEnd(String query, int start) {
+        int end = query.indexOf('&', start);
+        return end < 0 ? query.length() : end;
+    }
+
+    private static int parseInt(String s, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + (s.charAt(i) - '0');
+        }
+        return value;
+    }
+}
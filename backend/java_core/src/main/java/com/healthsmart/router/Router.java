@@ -0,0 +1,395 @@
+package com.healthsmart.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 预编译路由表
+ * Precompiled Router
+ *
+ * 按“方法 + 路径模板”构建前缀树：路径按 '/' 分段，静态段优先于参数段，静态段在有序数组上二分查找。
+ * 路径参数写作 {name}（任意非空段）或 {name:int}（仅整数）；模板末尾可用 ?{name}&{name:int}
+ * 声明查询参数。同一路径还可以挂旧式 ?action= 操作表，请求带 action 时只在操作表中查找（优先于 REST 路由），
+ * 未登记的操作按未知操作处理，不会落到同一路径的 REST 路由。
+ *
+ * 匹配只比较原始字符串的区间，参数以下标形式记录到调用方复用的 {@link RouteMatch}，
+ * 匹配过程不分配任何对象。构建后路由表只读，可被多个线程共享。
+ *
+ * @param <H> 路由目标类型
+ */
+public final class Router<H> {
+
+    public static final String ANY_METHOD = "*";
+
+    private static final String[] METHODS = {"GET", "POST", "PUT", "DELETE", "PATCH", "HEAD", "OPTIONS"};
+    private static final int ANY_INDEX = METHODS.length;
+
+    private final Node root;
+    private final List<String> table;
+
+    private Router(Node root, List<String> table) {
+        this.root = root;
+        this.table = Collections.unmodifiableList(table);
+    }
+
+    public static <H> Builder<H> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * 匹配请求
+     *
+     * @param method HTTP方法
+     * @param path   请求路径（不含查询串）
+     * @param rawQuery 未解码的查询串，可为 null
+     * @param match  调用方复用的匹配结果
+     * @return 是否命中路由；未命中时可通过 match 区分 404、405 与未知的旧式操作
+     */
+    public boolean match(String method, String path, String rawQuery, RouteMatch<H> match) {
+        match.reset(path, rawQuery);
+        int end = path.length();
+        while (end > 1 && path.charAt(end - 1) == '/') {
+            end--;
+        }
+        int start = end > 0 && path.charAt(0) == '/' ? 1 : 0;
+        return match(root, path, start, end, 0, methodIndex(method), match);
+    }
+
+    /**
+     * 已注册的路由（每行“方法 模板”），用于启动日志与基准测试
+     */
+    public List<String> routes() {
+        return table;
+    }
+
+    private boolean match(Node node, String path, int pos, int end, int depth, int method, RouteMatch<H> match) {
+        if (pos >= end) {
+            return resolve(node, method, depth, match);
+        }
+        int slash = path.indexOf('/', pos);
+        int segmentEnd = slash < 0 || slash > end ? end : slash;
+        int length = segmentEnd - pos;
+
+        int index = find(node.literals, path, pos, length);
+        if (index >= 0 && match(node.children[index], path, segmentEnd + 1, end, depth, method, match)) {
+            return true;
+        }
+        Node param = node.param;
+        if (param != null && length > 0 && depth < RouteMatch.MAX_PARAMS
+                && (!param.intParam || isInt(path, pos, segmentEnd))) {
+            match.starts[depth] = pos;
+            match.ends[depth] = segmentEnd;
+            return match(param, path, segmentEnd + 1, end, depth + 1, method, match);
+        }
+        return false;
+    }
+
+    /**
+     * 路径走完后选出目标：带 action 参数时只查旧式操作表，否则按方法选 REST 路由
+     */
+    private boolean resolve(Node node, int method, int depth, RouteMatch<H> match) {
+        if (node.actions.length > 0) {
+            String query = match.rawQuery();
+            int start = RouteMatch.valueStart(query, "action");
+            if (start >= 0) {
+                int index = find(node.actions, query, start, RouteMatch.valueEnd(query, start) - start);
+                if (index >= 0) {
+                    match.select(node.actionRoutes[index], depth);
+                    return true;
+                }
+                // 拼错的操作名不能落到 REST 路由，例如 POST /api/health-report?action=typo 不应提交报告
+                match.unknownAction = true;
+                match.restPath = node.hasRoutes;
+                return false;
+            }
+        }
+        Route route = method >= 0 ? node.routes[method] : null;
+        if (route == null) {
+            route = node.routes[ANY_INDEX];
+        }
+        if (route != null) {
+            match.select(route, depth);
+            return true;
+        }
+        if (node.actions.length > 0) {
+            match.unknownAction = true;
+        } else if (node.hasRoutes) {
+            match.methodNotAllowed = true;
+        }
+        return false;
+    }
+
+    /**
+     * 在有序数组中查找与 s[pos, pos+length) 相同的字符串
+     */
+    private static int find(String[] sorted, String s, int pos, int length) {
+        int low = 0;
+        int high = sorted.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(sorted[mid], s, pos, length);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private static int compare(String literal, String s, int pos, int length) {
+        int n = Math.min(literal.length(), length);
+        for (int i = 0; i < n; i++) {
+            int diff = literal.charAt(i) - s.charAt(pos + i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return literal.length() - length;
+    }
+
+    /**
+     * 是否为 int 范围内的非负整数
+     */
+    static boolean isInt(String s, int start, int end) {
+        int length = end - start;
+        if (length <= 0 || length > 10) {
+            return false;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value <= Integer.MAX_VALUE;
+    }
+
+    private static int methodIndex(String method) {
+        for (int i = 0; i < METHODS.length; i++) {
+            if (METHODS[i].equals(method)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 一条已编译的路由
+     */
+    static final class Route {
+        final String method;
+        final String template;
+        final Object target;
+        final String[] pathNames;
+        final boolean[] pathInts;
+        final String[] queryNames;
+        final boolean[] queryInts;
+        final String action;
+
+        Route(String method, String template, Object target, String[] pathNames, boolean[] pathInts,
+              String[] queryNames, boolean[] queryInts, String action) {
+            this.method = method;
+            this.template = template;
+            this.target = target;
+            this.pathNames = pathNames;
+            this.pathInts = pathInts;
+            this.queryNames = queryNames;
+            this.queryInts = queryInts;
+            this.action = action;
+        }
+    }
+
+    /**
+     * 前缀树节点；静态子节点按字面量排序存放
+     */
+    private static final class Node {
+        String[] literals = new String[0];
+        Node[] children = new Node[0];
+        Node param;
+        boolean intParam;
+        final Route[] routes = new Route[METHODS.length + 1];
+        boolean hasRoutes;
+        String[] actions = new String[0];
+        Route[] actionRoutes = new Route[0];
+
+        Node literal(String segment) {
+            int index = Arrays.binarySearch(literals, segment);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insert = -index - 1;
+            Node child = new Node();
+            literals = insert(literals, insert, segment, new String[literals.length + 1]);
+            children = insert(children, insert, child, new Node[children.length + 1]);
+            return child;
+        }
+
+        Node param(boolean isInt, String template) {
+            if (param == null) {
+                param = new Node();
+                param.intParam = isInt;
+            } else if (param.intParam != isInt) {
+                throw new IllegalArgumentException("同一位置的路径参数类型不一致: " + template);
+            }
+            return param;
+        }
+
+        void action(String action, Route route, String template) {
+            int index = Arrays.binarySearch(actions, action);
+            if (index >= 0) {
+                throw new IllegalArgumentException("路由重复: " + template);
+            }
+            int insert = -index - 1;
+            actions = insert(actions, insert, action, new String[actions.length + 1]);
+            actionRoutes = insert(actionRoutes, insert, route, new Route[actionRoutes.length + 1]);
+        }
+
+        private static <T> T[] insert(T[] array, int index, T value, T[] grown) {
+            System.arraycopy(array, 0, grown, 0, index);
+            grown[index] = value;
+            System.arraycopy(array, index, grown, index + 1, array.length - index);
+            return grown;
+        }
+    }
+
+    /**
+     * 路由表构建器（非线程安全，构建完成后不再使用）
+     */
+    public static final class Builder<H> {
+
+        private final Node root = new Node();
+        private final List<String> table = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        public Builder<H> get(String template, H target) {
+            return route("GET", template, target);
+        }
+
+        public Builder<H> post(String template, H target) {
+            return route("POST", template, target);
+        }
+
+        public Builder<H> put(String template, H target) {
+            return route("PUT", template, target);
+        }
+
+        public Builder<H> delete(String template, H target) {
+            return route("DELETE", template, target);
+        }
+
+        /**
+         * 注册 REST 路由；method 为 {@link #ANY_METHOD} 时匹配任意方法
+         */
+        public Builder<H> route(String method, String template, H target) {
+            int methodIndex = ANY_METHOD.equals(method) ? ANY_INDEX : methodIndex(method);
+            if (methodIndex < 0) {
+                throw new IllegalArgumentException("不支持的HTTP方法: " + method);
+            }
+            List<String> names = new ArrayList<>();
+            List<Boolean> ints = new ArrayList<>();
+            Node node = walk(pathPart(template), template, names, ints);
+
+            List<String> queryNames = new ArrayList<>();
+            List<Boolean> queryInts = new ArrayList<>();
+            int q = template.indexOf('?');
+            if (q >= 0) {
+                for (String param : template.substring(q + 1).split("&")) {
+                    parseParam(param, template, queryNames, queryInts);
+                }
+            }
+
+            if (node.routes[methodIndex] != null) {
+                throw new IllegalArgumentException("路由重复: " + method + " " + template);
+            }
+            node.routes[methodIndex] = new Route(method, template, target, toArray(names), toBooleans(ints),
+                    toArray(queryNames), toBooleans(queryInts), null);
+            node.hasRoutes = true;
+            table.add(method + " " + template);
+            return this;
+        }
+
+        /**
+         * 注册旧式操作：path?action=name，任意方法均可
+         */
+        public Builder<H> action(String path, String action, H target) {
+            List<String> names = new ArrayList<>();
+            List<Boolean> ints = new ArrayList<>();
+            Node node = walk(path, path, names, ints);
+            String template = path + "?action=" + action;
+            node.action(action, new Route(ANY_METHOD, template, target, toArray(names), toBooleans(ints),
+                    new String[0], new boolean[0], action), template);
+            table.add(ANY_METHOD + " " + template);
+            return this;
+        }
+
+        public Router<H> build() {
+            return new Router<>(root, new ArrayList<>(table));
+        }
+
+        private Node walk(String path, String template, List<String> names, List<Boolean> ints) {
+            Node node = root;
+            for (String segment : path.split("/")) {
+                if (segment.isEmpty()) {
+                    continue;
+                }
+                if (segment.startsWith("{")) {
+                    parseParam(segment, template, names, ints);
+                    node = node.param(ints.get(ints.size() - 1), template);
+                } else {
+                    node = node.literal(segment);
+                }
+            }
+            if (names.size() > RouteMatch.MAX_PARAMS) {
+                throw new IllegalArgumentException("路径参数超过 " + RouteMatch.MAX_PARAMS + " 个: " + template);
+            }
+            return node;
+        }
+
+        private static String pathPart(String template) {
+            int q = template.indexOf('?');
+            return q >= 0 ? template.substring(0, q) : template;
+        }
+
+        /**
+         * 解析 {name} 或 {name:int}
+         */
+        private static void parseParam(String param, String template, List<String> names, List<Boolean> ints) {
+            if (!param.startsWith("{") || !param.endsWith("}") || param.length() < 3) {
+                throw new IllegalArgumentException("无效的参数声明 " + param + ": " + template);
+            }
+            String body = param.substring(1, param.length() - 1);
+            int colon = body.indexOf(':');
+            String name = colon >= 0 ? body.substring(0, colon) : body;
+            String type = colon >= 0 ? body.substring(colon + 1) : "string";
+            if (!"int".equals(type) && !"string".equals(type)) {
+                throw new IllegalArgumentException("未知的参数类型 " + type + ": " + template);
+            }
+            if (name.isEmpty() || names.contains(name)) {
+                throw new IllegalArgumentException("参数名为空或重复 " + param + ": " + template);
+            }
+            names.add(name);
+            ints.add("int".equals(type));
+        }
+
+        private static String[] toArray(List<String> values) {
+            return values.toArray(new String[0]);
+        }
+
+        private static boolean[] toBooleans(List<Boolean> values) {
+            boolean[] result = new boolean[values.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = values.get(i);
+            }
+            return result;
+        }
+    }
+}
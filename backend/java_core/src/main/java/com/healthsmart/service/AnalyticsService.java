@@ -169,19 +169,22 @@ public class AnalyticsService {
     }
     
     /**
-     * 获取周度统计数据（根据用户ID）
+     * 获取用户最新的活跃计划，没有时返回 null
      */
-    public Map<Integer, WeeklyStatistics> getWeeklyStatisticsByUserId(Integer userId) throws SQLException {
-        // 获取用户最新的活跃计划
-        PersonalizedPlanDAO planDAO = new PersonalizedPlanDAO();
-        List<PersonalizedPlan> plans = planDAO.findByUserId(userId);
-        PersonalizedPlan activePlan = null;
-        for (PersonalizedPlan plan : plans) {
+    public PersonalizedPlan getActivePlan(Integer userId) throws SQLException {
+        for (PersonalizedPlan plan : planDAO.findByUserId(userId)) {
             if ("active".equals(plan.getPlanStatus())) {
-                activePlan = plan;
-                break;
+                return plan;
             }
         }
+        return null;
+    }
+    
+    /**
+     * 获取周度统计数据（根据用户ID）
+     */
+    public Map<Integer, WeeklyStatistics> getWeeklyStatisticsByUserId(Integer userId) throws SQLException {
+        PersonalizedPlan activePlan = getActivePlan(userId);
         
         if (activePlan == null) {
             return new HashMap<>();
@@ -194,16 +197,7 @@ public class AnalyticsService {
      * 获取营养摄入趋势（根据用户ID）
      */
     public NutritionTrendAnalysis getNutritionTrendByUserId(Integer userId) throws SQLException {
-        // 获取用户最新的活跃计划
-        PersonalizedPlanDAO planDAO = new PersonalizedPlanDAO();
-        List<PersonalizedPlan> plans = planDAO.findByUserId(userId);
-        PersonalizedPlan activePlan = null;
-        for (PersonalizedPlan plan : plans) {
-            if ("active".equals(plan.getPlanStatus())) {
-                activePlan = plan;
-                break;
-            }
-        }
+        PersonalizedPlan activePlan = getActivePlan(userId);
         
         if (activePlan == null) {
             return new NutritionTrendAnalysis();
@@ -432,13 +426,13 @@ public class AnalyticsService {
     
     public static class WeeklyStatistics {
         private Integer weekNumber;
-        private Integer totalDays;
-        private Integer completedDays;
+        private Integer totalDays = 0;
+        private Integer completedDays = 0;
         private Double completionRate;
-        private Integer totalPlannedCalories;
-        private Integer totalCaloriesConsumed;
-        private Integer totalPlannedExerciseMinutes;
-        private Integer totalExerciseMinutes;
+        private Integer totalPlannedCalories = 0;
+        private Integer totalCaloriesConsumed = 0;
+        private Integer totalPlannedExerciseMinutes = 0;
+        private Integer totalExerciseMinutes = 0;
         
         // Getters and Setters
         public Integer getWeekNumber() { return weekNumber; }
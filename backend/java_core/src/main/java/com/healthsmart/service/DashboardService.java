@@ -0,0 +1,222 @@
+package com.healthsmart.service;
+
+import com.healthsmart.model.DailyTask;
+import com.healthsmart.model.PersonalizedPlan;
+import com.healthsmart.util.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 仪表盘聚合服务
+ * Dashboard Aggregation Service
+ *
+ * 仪表盘由今日任务、周统计和打卡统计三部分组成。三部分在一个作用域内并发加载：活跃计划只查询一次，
+ * 周统计直接使用它；任一部分失败时取消其余部分，方法返回时不留下仍在运行的子任务。
+ * 组装好的仪表盘按用户缓存，任务完成、提交报告和计划生成/补齐时由相应服务调用 invalidate 清除；
+ * 缓存条目跨天或超过 healthsmart.dashboard.cache-ttl-ms 后重新加载，重复轮询只需一次映射查找；
+ * 超过 healthsmart.dashboard.cache-max-users 个用户时淘汰最久未访问的条目。
+ */
+public class DashboardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardService.class);
+
+    private static volatile DashboardService instance;
+
+    private final AnalyticsService analyticsService;
+    private final ExecutorService loader;
+    private final long loadTimeoutMs = AppConfig.getLong("healthsmart.dashboard.load-timeout-ms", 10_000);
+    private final long ttlNanos = TimeUnit.MILLISECONDS.toNanos(
+            AppConfig.getLong("healthsmart.dashboard.cache-ttl-ms", 300_000));
+    private final int maxEntries = AppConfig.getInt("healthsmart.dashboard.cache-max-users", 10_000);
+
+    // 按访问顺序排列，超出上限时淘汰最久未访问的用户；所有读写都在 cache 上同步
+    private final Map<Integer, Entry> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+    // 加载期间发生过失效时结果不入缓存，避免旧数据覆盖失效（检查与写入和失效在同一把锁内）
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private DashboardService() {
+        this.analyticsService = new AnalyticsService();
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.loader = Executors.newFixedThreadPool(AppConfig.getInt("healthsmart.dashboard.threads", 4), r -> {
+            Thread thread = new Thread(r, "dashboard-loader-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 获取单例实例
+     */
+    public static DashboardService getInstance() {
+        if (instance == null) {
+            synchronized (DashboardService.class) {
+                if (instance == null) {
+                    instance = new DashboardService();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 用户的数据发生变化，清除其缓存的仪表盘（服务未创建时无操作）
+     */
+    public static void invalidate(Integer userId) {
+        DashboardService service = instance;
+        if (service != null && userId != null) {
+            synchronized (service.cache) {
+                service.invalidations.incrementAndGet();
+                service.cache.remove(userId);
+            }
+        }
+    }
+
+    /**
+     * 获取用户仪表盘：todayCompleted、todayTasks、weeklyStats、streakStats
+     */
+    public Map<String, Object> getDashboard(Integer userId) throws SQLException {
+        LocalDate today = LocalDate.now();
+        Entry entry;
+        synchronized (cache) {
+            entry = cache.get(userId);
+        }
+        if (entry != null && entry.day.equals(today) && System.nanoTime() - entry.loadedAt < ttlNanos) {
+            return entry.dashboard;
+        }
+
+        long stamp = invalidations.get();
+        Map<String, Object> dashboard = load(userId);
+        synchronized (cache) {
+            if (invalidations.get() == stamp) {
+                cache.put(userId, new Entry(today, System.nanoTime(), dashboard));
+            }
+        }
+        return dashboard;
+    }
+
+    /**
+     * 关闭加载线程池（应用关闭时）
+     */
+    public void shutdown() {
+        loader.shutdownNow();
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    private Map<String, Object> load(Integer userId) throws SQLException {
+        try (Scope scope = new Scope(loader)) {
+            Future<Map<Integer, AnalyticsService.WeeklyStatistics>> weekly = scope.fork(() -> {
+                PersonalizedPlan activePlan = analyticsService.getActivePlan(userId);
+                return activePlan != null
+                        ? analyticsService.getWeeklyStatistics(activePlan.getPlanId())
+                        : new HashMap<>();
+            });
+            Future<DailyTask> todayTask = scope.fork(() -> analyticsService.getTodayTask(userId));
+            Future<AnalyticsService.StreakStatistics> streak =
+                    scope.fork(() -> analyticsService.getStreakStatistics(userId));
+            scope.join(loadTimeoutMs);
+
+            Map<String, Object> dashboard = new HashMap<>();
+            DailyTask task = todayTask.get();
+            if (task != null) {
+                dashboard.put("todayCompleted", task.getIsCompleted());
+                dashboard.put("todayTasks", task);
+            }
+            dashboard.put("weeklyStats", weekly.get());
+            dashboard.put("streakStats", streak.get());
+            return Collections.unmodifiableMap(dashboard);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("加载仪表盘时被中断", e);
+        } catch (ExecutionException e) {
+            // join 之后各子任务均已成功，不会到达这里
+            throw new SQLException(e.getCause());
+        }
+    }
+
+    private static final class Entry {
+        final LocalDate day;
+        final long loadedAt;
+        final Map<String, Object> dashboard;
+
+        Entry(LocalDate day, long loadedAt, Map<String, Object> dashboard) {
+            this.day = day;
+            this.loadedAt = loadedAt;
+            this.dashboard = dashboard;
+        }
+    }
+
+    /**
+     * 结构化并发作用域（JDK 17 没有 StructuredTaskScope）：子任务只在作用域内派生和汇合，
+     * 按完成顺序检查结果，第一个失败或超时即取消其余子任务；关闭作用域时取消所有未完成的子任务
+     */
+    private static final class Scope implements AutoCloseable {
+        private final ExecutorCompletionService<Object> completion;
+        private final List<Future<?>> forks = new ArrayList<>();
+
+        Scope(ExecutorService executor) {
+            this.completion = new ExecutorCompletionService<>(executor);
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> Future<T> fork(Callable<T> task) {
+            Future<T> future = (Future<T>) completion.submit((Callable<Object>) task);
+            forks.add(future);
+            return future;
+        }
+
+        void join(long timeoutMs) throws SQLException, InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            for (int i = 0; i < forks.size(); i++) {
+                Future<Object> done = completion.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    logger.warn("仪表盘加载超过 {} ms，已取消", timeoutMs);
+                    throw new SQLException("仪表盘加载超时");
+                }
+                try {
+                    done.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof SQLException) {
+                        throw (SQLException) cause;
+                    }
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw new SQLException(cause);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            for (Future<?> fork : forks) {
+                fork.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.healthsmart.service;
+
+import com.healthsmart.util.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 引擎熔断器
+ * Engine Circuit Breaker
+ *
+ * 统计最近若干次引擎调用的失败率，超过阈值后熔断一段时间，期间直接拒绝调用；
+ * 熔断到期后放行一次试探调用，成功则恢复，失败则重新熔断。
+ */
+class EngineCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(EngineCircuitBreaker.class);
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final boolean enabled = AppConfig.getBoolean("healthsmart.engine.breaker.enabled", true);
+    private final int minCalls = AppConfig.getInt("healthsmart.engine.breaker.min-calls", 5);
+    private final int failureRatePercent = AppConfig.getInt("healthsmart.engine.breaker.failure-rate-percent", 50);
+    private final long openMillis = AppConfig.getLong("healthsmart.engine.breaker.open-ms", 30000);
+
+    // 最近调用结果的环形窗口（true 表示失败）
+    private final boolean[] window = new boolean[Math.max(1, AppConfig.getInt("healthsmart.engine.breaker.window", 20))];
+    private int next;
+    private int recorded;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean trialInFlight;
+    private long openCount;
+    private long rejectedCalls;
+
+    /**
+     * 申请一次调用许可，熔断期间返回 false
+     */
+    synchronized boolean tryAcquire() {
+        if (!enabled || state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.HALF_OPEN && !trialInFlight) {
+            trialInFlight = true;
+            return true;
+        }
+        rejectedCalls++;
+        return false;
+    }
+
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            logger.info("Python引擎试探调用成功，熔断恢复");
+            state = State.CLOSED;
+            resetWindow();
+            return;
+        }
+        record(false);
+    }
+
+    synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && recorded >= minCalls && failures * 100 >= failureRatePercent * recorded) {
+            open();
+        }
+    }
+
+    /**
+     * 距离允许试探调用的剩余时间
+     */
+    synchronized long retryAfterMillis() {
+        return state == State.OPEN ? Math.max(0, openMillis - (System.currentTimeMillis() - openedAt)) : 0;
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * 熔断统计
+     */
+    synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("state", state.name());
+        stats.put("recentCalls", recorded);
+        stats.put("recentFailures", failures);
+        stats.put("openCount", openCount);
+        stats.put("rejectedCalls", rejectedCalls);
+        stats.put("retryAfterMs", retryAfterMillis());
+        return stats;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        trialInFlight = false;
+        openCount++;
+        logger.warn("Python引擎最近 {} 次调用失败 {} 次，熔断 {} ms", recorded, failures, openMillis);
+        resetWindow();
+    }
+
+    private void record(boolean failed) {
+        if (recorded == window.length) {
+            if (window[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        window[next] = failed;
+        if (failed) {
+            failures++;
+        }
+        next = (next + 1) % window.length;
+    }
+
+    private void resetWindow() {
+        next = 0;
+        recorded = 0;
+        failures = 0;
+    }
+}
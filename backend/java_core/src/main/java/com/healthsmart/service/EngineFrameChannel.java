@@ -0,0 +1,118 @@
+package com.healthsmart.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 引擎消息帧通道
+ * Engine Frame Channel
+ *
+ * Java 与 Python 引擎之间按「4 字节大端长度 + UTF-8 JSON」交换消息，
+ * 请求不再经过命令行参数。读取时先校验长度再按长度一次读入复用的直接缓冲区，
+ * 超过上限的响应不会被读取。
+ */
+class EngineFrameChannel {
+
+    private static final int HEADER_BYTES = 4;
+    private static final int INITIAL_BUFFER_BYTES = 64 * 1024;
+
+    private final ReadableByteChannel in;
+    private final WritableByteChannel out;
+    private final OutputStream output;
+    private final int maxFrameBytes;
+    private final ByteBuffer header = ByteBuffer.allocateDirect(HEADER_BYTES);
+    private ByteBuffer buffer;
+
+    EngineFrameChannel(InputStream in, OutputStream out, int maxFrameBytes) {
+        this.in = Channels.newChannel(in);
+        this.out = Channels.newChannel(out);
+        this.output = out;
+        this.maxFrameBytes = maxFrameBytes;
+    }
+
+    /**
+     * 写出一帧（立即刷新，常驻进程不必等待关闭输入）
+     */
+    void write(String json) throws IOException {
+        ByteBuffer payload = StandardCharsets.UTF_8.encode(json);
+        header.clear();
+        header.putInt(payload.remaining()).flip();
+        while (header.hasRemaining()) {
+            out.write(header);
+        }
+        while (payload.hasRemaining()) {
+            out.write(payload);
+        }
+        output.flush();
+    }
+
+    /**
+     * 关闭写入端，通知引擎没有更多请求
+     */
+    void closeOutput() throws IOException {
+        out.close();
+    }
+
+    /**
+     * 读取一帧；输入在帧边界结束时返回 null
+     *
+     * @throws FrameTooLargeException 帧长度超过上限（正文未读取）
+     */
+    String read() throws IOException {
+        header.clear();
+        if (!fill(header, true)) {
+            return null;
+        }
+        int length = header.flip().getInt();
+        if (length < 0 || length > maxFrameBytes) {
+            throw new FrameTooLargeException(Integer.toUnsignedLong(length));
+        }
+
+        ByteBuffer payload = payloadBuffer(length);
+        fill(payload, false);
+        payload.flip();
+        return StandardCharsets.UTF_8.decode(payload).toString();
+    }
+
+    /**
+     * 复用直接缓冲区，不足时按2倍扩容（不超过上限）
+     */
+    private ByteBuffer payloadBuffer(int length) {
+        if (buffer == null || buffer.capacity() < length) {
+            int capacity = buffer == null ? INITIAL_BUFFER_BYTES : buffer.capacity();
+            while (capacity < length) {
+                capacity = capacity > maxFrameBytes / 2 ? maxFrameBytes : capacity * 2;
+            }
+            buffer = ByteBuffer.allocateDirect(capacity);
+        }
+        buffer.clear().limit(length);
+        return buffer;
+    }
+
+    private boolean fill(ByteBuffer target, boolean eofAllowed) throws IOException {
+        while (target.hasRemaining()) {
+            if (in.read(target) < 0) {
+                if (eofAllowed && target.position() == 0) {
+                    return false;
+                }
+                throw new IOException("引擎消息帧不完整");
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 帧长度超过上限
+     */
+    static class FrameTooLargeException extends IOException {
+        FrameTooLargeException(long length) {
+            super("消息帧长度 " + length + " 超过上限");
+        }
+    }
+}
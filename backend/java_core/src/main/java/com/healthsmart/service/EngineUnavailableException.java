@@ -0,0 +1,19 @@
+package com.healthsmart.service;
+
+/**
+ * 智能引擎不可用异常
+ * Engine Unavailable Exception
+ *
+ * 引擎熔断、执行超时、输出超过上限或进程无法启动时抛出，调用方应提示用户稍后重试，
+ * 而不是当作计划内容错误处理。
+ */
+public class EngineUnavailableException extends Exception {
+
+    public EngineUnavailableException(String message) {
+        super(message);
+    }
+
+    public EngineUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,236 @@
+package com.healthsmart.service;
+
+import com.healthsmart.util.AppConfig;
+import com.healthsmart.util.DatabaseConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 依赖健康探测服务
+ * Dependency Health Probe Service
+ *
+ * 后台线程定时探测数据库、表结构版本和Python引擎，并缓存结果。
+ * /api/health/ready 只读取缓存，不会在请求路径上访问数据库或启动Python进程。
+ */
+public class HealthProbeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HealthProbeService.class);
+
+    private static HealthProbeService instance;
+
+    private final long dbIntervalMillis = AppConfig.getLong("healthsmart.health.db-interval-ms", 5000);
+    private final long engineIntervalMillis = AppConfig.getLong("healthsmart.health.engine-interval-ms", 60000);
+    private final boolean engineRequired = AppConfig.getBoolean("healthsmart.health.require-engine", false);
+
+    private final Map<String, ThreadPoolExecutor> executors = new ConcurrentHashMap<>();
+    private final Map<String, Supplier<Map<String, Object>>> metrics = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    private volatile ProbeResult database = ProbeResult.pending();
+    private volatile ProbeResult engine = ProbeResult.pending();
+    private volatile int schemaVersion = -1;
+
+    private HealthProbeService() {
+    }
+
+    /**
+     * 获取单例实例
+     */
+    public static synchronized HealthProbeService getInstance() {
+        if (instance == null) {
+            instance = new HealthProbeService();
+        }
+        return instance;
+    }
+
+    /**
+     * 启动后台探测，首次探测立即在后台执行
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "health-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::probeDatabase, 0, dbIntervalMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::probeEngine, 0, engineIntervalMillis, TimeUnit.MILLISECONDS);
+        logger.info("健康探测已启动 (数据库 {} ms, 引擎 {} ms)", dbIntervalMillis, engineIntervalMillis);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * 注册需要上报队列深度的线程池
+     */
+    public void registerExecutor(String name, ThreadPoolExecutor executor) {
+        executors.put(name, executor);
+    }
+
+    /**
+     * 注册随就绪检查一起上报的计数（如条件请求命中率），读取时调用 supplier 生成快照
+     */
+    public void registerMetrics(String name, Supplier<Map<String, Object>> supplier) {
+        metrics.put(name, supplier);
+    }
+
+    /**
+     * 探测数据库连通性与表结构版本
+     */
+    void probeDatabase() {
+        long start = System.nanoTime();
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT 1")) {
+            rs.next();
+            schemaVersion = DatabaseConnection.getSchemaVersion(conn);
+            database = ProbeResult.up(elapsedMillis(start));
+        } catch (Exception e) {
+            database = ProbeResult.down(elapsedMillis(start), e.getMessage());
+            logger.warn("数据库健康探测失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 探测Python引擎（会启动一次Python进程，因此频率较低）
+     */
+    void probeEngine() {
+        long start = System.nanoTime();
+        boolean healthy = PythonEngineExecutor.getInstance().checkEngineHealth();
+        ProbeResult previous = engine;
+        engine = healthy ? ProbeResult.up(elapsedMillis(start))
+                : ProbeResult.down(elapsedMillis(start), "Python引擎无法连接");
+        if (previous.status != engine.status) {
+            logger.info("Python智能引擎状态: {}", healthy ? "可用" : "不可用");
+        }
+    }
+
+    /**
+     * 存活检查：进程能响应即存活
+     */
+    public Map<String, Object> liveness() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("status", "ok");
+        return result;
+    }
+
+    /**
+     * 就绪检查：只读取缓存的探测结果
+     */
+    public Map<String, Object> readiness() {
+        long now = System.currentTimeMillis();
+        boolean dbReady = database.isFresh(now, dbIntervalMillis) && database.status == Status.UP;
+        boolean schemaReady = schemaVersion >= DatabaseConnection.SCHEMA_VERSION;
+        boolean engineUp = engine.status == Status.UP;
+        boolean ready = dbReady && schemaReady && (engineUp || !engineRequired);
+
+        Map<String, Object> db = database.toMap(now);
+        db.put("pool", DatabaseConnection.getPoolStats());
+
+        Map<String, Object> schema = new LinkedHashMap<>();
+        schema.put("version", schemaVersion);
+        schema.put("expected", DatabaseConnection.SCHEMA_VERSION);
+
+        Map<String, Object> pythonEngine = engine.toMap(now);
+        pythonEngine.put("required", engineRequired);
+        pythonEngine.putAll(PythonEngineExecutor.getInstance().getStatus());
+
+        Map<String, Object> queues = new LinkedHashMap<>();
+        for (Map.Entry<String, ThreadPoolExecutor> entry : executors.entrySet()) {
+            ThreadPoolExecutor executor = entry.getValue();
+            Map<String, Object> queue = new LinkedHashMap<>();
+            queue.put("poolSize", executor.getPoolSize());
+            queue.put("active", executor.getActiveCount());
+            queue.put("queued", executor.getQueue().size());
+            queue.put("completed", executor.getCompletedTaskCount());
+            queues.put(entry.getKey(), queue);
+        }
+
+        Map<String, Object> counters = new LinkedHashMap<>();
+        for (Map.Entry<String, Supplier<Map<String, Object>>> entry : metrics.entrySet()) {
+            counters.put(entry.getKey(), entry.getValue().get());
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("status", !ready ? "unavailable" : engineUp ? "ok" : "degraded");
+        result.put("ready", ready);
+        result.put("database", db);
+        result.put("schema", schema);
+        result.put("engine", pythonEngine);
+        result.put("executors", queues);
+        result.put("metrics", counters);
+        return result;
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    enum Status { PENDING, UP, DOWN }
+
+    /**
+     * 单次探测结果（不可变，整体替换以保证读取一致）
+     */
+    static class ProbeResult {
+        final Status status;
+        final long checkedAt;
+        final long latencyMillis;
+        final String error;
+
+        private ProbeResult(Status status, long latencyMillis, String error) {
+            this.status = status;
+            this.checkedAt = System.currentTimeMillis();
+            this.latencyMillis = latencyMillis;
+            this.error = error;
+        }
+
+        static ProbeResult pending() {
+            return new ProbeResult(Status.PENDING, 0, null);
+        }
+
+        static ProbeResult up(long latencyMillis) {
+            return new ProbeResult(Status.UP, latencyMillis, null);
+        }
+
+        static ProbeResult down(long latencyMillis, String error) {
+            return new ProbeResult(Status.DOWN, latencyMillis, error);
+        }
+
+        /**
+         * 超过三个探测周期未更新视为探测线程停滞
+         */
+        boolean isFresh(long now, long intervalMillis) {
+            return now - checkedAt <= intervalMillis * 3;
+        }
+
+        Map<String, Object> toMap(long now) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("status", status.name().toLowerCase());
+            map.put("latencyMs", latencyMillis);
+            map.put("ageMs", now - checkedAt);
+            if (error != null) {
+                map.put("error", error);
+            }
+            return map;
+        }
+    }
+}
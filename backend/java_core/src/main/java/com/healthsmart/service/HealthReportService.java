@@ -1,5 +1,6 @@
 package com.healthsmart.service;
 
+import com.healthsmart.dao.FieldSet;
 import com.healthsmart.dao.HealthReportDAO;
 import com.healthsmart.model.HealthReport;
 
@@ -30,6 +31,7 @@ public class HealthReportService {
         int reportId = healthReportDAO.insert(report);
         if (reportId > 0) {
             report.setReportId(reportId);
+            DashboardService.invalidate(report.getUserId());
             return report;
         } else {
             throw new RuntimeException("健康报告提交失败");
@@ -50,6 +52,20 @@ public class HealthReportService {
         return healthReportDAO.findByUserId(userId);
     }
     
+    /**
+     * 获取用户的所有健康报告，只读取所选字段
+     */
+    public List<HealthReport> getReportsByUserId(Integer userId, FieldSet fields) throws SQLException {
+        return healthReportDAO.findByUserId(userId, fields);
+    }
+    
+    /**
+     * 获取用户报告列表的版本（用于条件请求，不读取报告内容）
+     */
+    public String getReportsVersion(Integer userId) throws SQLException {
+        return healthReportDAO.findVersionByUserId(userId);
+    }
+    
     /**
      * 获取用户指定月份的健康报告
      */
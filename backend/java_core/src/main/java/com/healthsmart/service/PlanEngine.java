@@ -0,0 +1,83 @@
+package com.healthsmart.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 计划引擎接口
+ * Plan Engine SPI
+ *
+ * PythonEngineExecutor 负责请求构建、缓存、熔断与统计，具体如何执行交给引擎实现：
+ * 每次启动Python进程（process）、常驻Python进程池（worker）或进程内桩实现（stub）。
+ * 实现通过 {@link PlanEngineProvider} 以 ServiceLoader 注册，由 healthsmart.engine.mode 选择。
+ *
+ * 请求与响应均为 api_service.py 的JSON结构：
+ * <ul>
+ *   <li>generatePlan：请求为报告字段（height、weight、report_month 等，可选 start_day/days），
+ *       响应为 {success, data: {analysis: {target_calories, nutrient_targets, activity_level, ...},
+ *       plan: {daily_plans: [{day_number, meal_*, daily_calorie_goal, exercise_*, reminders}]}}, message}</li>
+ *   <li>dailyRecommendation：请求为 {user_id, health_goal, day_number, date}，响应 data 为一天的计划</li>
+ *   <li>analyze：请求为报告字段，响应 data 为健康分析</li>
+ *   <li>health：响应为 {status: "ok"}</li>
+ * </ul>
+ * 引擎执行失败时返回 success 为 false 的响应或抛出异常；超时、无法启动时抛出
+ * {@link EngineUnavailableException}。各实现须通过同一套契约测试。
+ */
+public interface PlanEngine {
+
+    /**
+     * 引擎名称（与 healthsmart.engine.mode 对应）
+     */
+    String getName();
+
+    /**
+     * 引擎版本（规则变化时改变，用于计划缓存失效）
+     */
+    String getVersion();
+
+    /**
+     * 生成计划（整月或 start_day 起的 days 天）
+     */
+    String generatePlan(String requestJson) throws Exception;
+
+    /**
+     * 批量生成计划，每得到一条结果按输入序号回调（回调不会并发执行）；
+     * 单条失败以 success 为 false 的结果回调
+     */
+    void generatePlans(List<String> requests, ResultHandler handler) throws Exception;
+
+    /**
+     * 生成每日推荐
+     */
+    String dailyRecommendation(String requestJson) throws Exception;
+
+    /**
+     * 健康数据分析
+     */
+    String analyze(String requestJson) throws Exception;
+
+    /**
+     * 健康检查
+     */
+    String health() throws Exception;
+
+    /**
+     * 实现自身的运行统计
+     */
+    default Map<String, Object> getStats() {
+        return Map.of();
+    }
+
+    /**
+     * 结束所有正在执行的调用并释放进程（服务停止时调用）
+     */
+    default void close() {
+    }
+
+    /**
+     * 批量结果回调（序号对应输入顺序）
+     */
+    interface ResultHandler {
+        void handle(int index, String result);
+    }
+}
@@ -0,0 +1,50 @@
+package com.healthsmart.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * 计划引擎提供者
+ * Plan Engine Provider
+ *
+ * 通过 META-INF/services/com.healthsmart.service.PlanEngineProvider 注册，
+ * 新的引擎实现只需提供自己的 Provider 并加入类路径即可按名称选用。
+ */
+public interface PlanEngineProvider {
+
+    /**
+     * 引擎名称（healthsmart.engine.mode 的取值）
+     */
+    String getName();
+
+    /**
+     * 创建引擎实例
+     */
+    PlanEngine create();
+
+    /**
+     * 按名称加载引擎
+     *
+     * @throws IllegalArgumentException 没有该名称的引擎
+     */
+    static PlanEngine load(String name) {
+        List<String> names = new ArrayList<>();
+        for (PlanEngineProvider provider : ServiceLoader.load(PlanEngineProvider.class)) {
+            if (provider.getName().equalsIgnoreCase(name)) {
+                return provider.create();
+            }
+            names.add(provider.getName());
+        }
+        throw new IllegalArgumentException("未知的计划引擎: " + name + "，可选: " + names);
+    }
+
+    /**
+     * 已注册的全部引擎提供者
+     */
+    static List<PlanEngineProvider> providers() {
+        List<PlanEngineProvider> providers = new ArrayList<>();
+        ServiceLoader.load(PlanEngineProvider.class).forEach(providers::add);
+        return providers;
+    }
+}
@@ -1,25 +1,40 @@
 package com.healthsmart.service;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.healthsmart.dao.DailyTaskDAO;
+import com.healthsmart.dao.FieldSet;
+import com.healthsmart.dao.HealthReportDAO;
 import com.healthsmart.dao.PersonalizedPlanDAO;
+import com.healthsmart.dao.PlanDayTemplateDAO;
 import com.healthsmart.model.DailyTask;
 import com.healthsmart.model.HealthReport;
 import com.healthsmart.model.PersonalizedPlan;
+import com.healthsmart.util.AppConfig;
+import com.healthsmart.util.DatabaseConnection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntPredicate;
 
 /**
  * 个性化计划生成服务
  * Personalized Plan Generation Service
+ *
+ * 配置 healthsmart.plan.window-days 大于0时启用滚动窗口模式：生成计划时只写入从今天起的
+ * N 天任务，其余天在夜间补齐（PlanWindowRoller）或查询时按需生成。
  */
 public class PlanGenerationService {
     
@@ -27,18 +42,35 @@ public class PlanGenerationService {
     
     private PersonalizedPlanDAO planDAO;
     private DailyTaskDAO dailyTaskDAO;
+    private HealthReportDAO reportDAO;
     private PythonEngineExecutor pythonEngine;
-    private Gson gson;
+
+    // 流式入库时每累积多少天执行一次批量插入
+    private final int insertFlushRows = AppConfig.getInt("healthsmart.plan.insert-flush-rows", 32);
+
+    // 滚动窗口天数，0 表示生成计划时一次写入整月
+    private static final int WINDOW_DAYS = AppConfig.getInt("healthsmart.plan.window-days", 0);
+
+    // 按计划ID分段加锁，避免并发请求重复补齐同一天；只在复查缺失日期和写入时持有，不包括引擎调用
+    private static final Object[] MATERIALIZE_LOCKS = new Object[64];
+    static {
+        for (int i = 0; i < MATERIALIZE_LOCKS.length; i++) {
+            MATERIALIZE_LOCKS[i] = new Object();
+        }
+    }
     
     public PlanGenerationService() {
         this.planDAO = new PersonalizedPlanDAO();
         this.dailyTaskDAO = new DailyTaskDAO();
+        this.reportDAO = new HealthReportDAO();
         this.pythonEngine = PythonEngineExecutor.getInstance();
-        this.gson = new Gson();
+        this.pythonEngine.purgeStalePlanCache();
     }
     
     /**
      * 生成长达30天的月度个性化计划
+     *
+     * @throws EngineUnavailableException 智能引擎熔断、超时或无法启动，稍后可重试
      */
     public PersonalizedPlan generateMonthlyPlan(Integer userId, HealthReport report) throws Exception {
         logger.info("开始生成用户 {} 的月度计划", userId);
@@ -50,128 +82,499 @@ public class PlanGenerationService {
         
         PersonalizedPlan existingPlan = planDAO.findByUserIdAndMonth(userId, report.getReportMonth());
         if (existingPlan != null && existingPlan.getPlanStatus().equals("active")) {
-            logger.warn("用户 {} 在 {} 已存在活跃计划，将重新生成", userId, report.getReportMonth());
+            // 月中提交新报告：保留已完成的天，只重新生成剩余的天
+            logger.info("用户 {} 在 {} 已存在活跃计划，部分重新生成", userId, report.getReportMonth());
+            regenerateRemainingDays(existingPlan, report);
+            return existingPlan;
         }
         
         // 调用Python引擎生成计划
-        String pythonResult = pythonEngine.generateMonthlyPlan(report);
+        String pythonResult;
+        try {
+            pythonResult = isWindowed()
+                    ? pythonEngine.generatePlanDays(report, windowStartDay(report.getReportMonth()), WINDOW_DAYS)
+                    : pythonEngine.generateMonthlyPlan(report);
+        } catch (EngineUnavailableException e) {
+            logger.warn("用户 {} 的计划生成失败，智能引擎不可用: {}", userId, e.getMessage());
+            throw e;
+        }
         logger.debug("Python引擎返回结果: {}", pythonResult);
         
-        // 解析Python返回结果
-        JsonObject result = gson.fromJson(pythonResult, JsonObject.class);
-        
-        if (!result.get("success").getAsBoolean()) {
-            String errorMsg = result.get("message").getAsString();
-            throw new RuntimeException("计划生成失败: " + errorMsg);
+        return savePlan(userId, report, pythonResult);
+    }
+
+    /**
+     * 批量生成月度计划（月初批量生成使用）
+     * 整批只启动一次Python引擎，每收到一份结果立即入库；单个用户失败不影响其他用户
+     *
+     * @return 汇总统计，failures 中为失败用户ID
+     */
+    public Map<String, Object> generateMonthlyPlans(List<HealthReport> reports) throws Exception {
+        List<Integer> failures = Collections.synchronizedList(new ArrayList<>());
+        Map<String, Object> summary = pythonEngine.generateMonthlyPlans(reports, WINDOW_DAYS, (report, result) -> {
+            try {
+                savePlan(report.getUserId(), report, result);
+            } catch (Exception e) {
+                failures.add(report.getUserId());
+                throw e;
+            }
+        });
+        summary.put("failures", failures);
+        return summary;
+    }
+
+    /**
+     * 解析引擎结果并保存计划与每日任务
+     *
+     * 用 JsonReader 逐个读取 daily_plans，每天直接绑定到批量插入语句，
+     * 不构建完整的 JSON 树和任务列表；计划与任务在同一事务中提交。
+     */
+    private PersonalizedPlan savePlan(Integer userId, HealthReport report, String pythonResult) throws Exception {
+        if (report.getReportMonth() == null) {
+            throw new IllegalArgumentException("健康报告月份不能为空");
         }
-        
-        JsonObject planData = result.get("plan").getAsJsonObject();
-        JsonObject analysisData = result.get("analysis").getAsJsonObject();
-        
-        // 创建计划对象
+
         PersonalizedPlan plan = new PersonalizedPlan();
         plan.setUserId(userId);
         plan.setReportId(report.getReportId());
         plan.setPlanMonth(report.getReportMonth());
         plan.setTotalDays(30);
-        
-        // 设置营养目标
-        plan.setCalorieTarget(analysisData.get("target_calories").getAsInt());
-        
-        JsonObject nutrients = analysisData.get("nutrient_targets").getAsJsonObject();
-        plan.setProteinTarget(nutrients.get("protein").getAsDouble());
-        plan.setCarbsTarget(nutrients.get("carbs").getAsDouble());
-        plan.setFatTarget(nutrients.get("fat").getAsDouble());
-        
-        // 设置运动频率
-        String activityLevel = analysisData.get("activity_level").getAsString();
-        int exerciseFreq = getExerciseFrequencyFromActivity(activityLevel);
-        plan.setExerciseSessionsPerWeek(exerciseFreq);
-        
-        // 设置生成方式
-        plan.setGenerationMethod("python_engine");
+        // 设置生成方式（附带引擎版本，规则更新后可区分新旧计划）
+        plan.setGenerationMethod("python_engine@" + pythonEngine.getEngineVersion());
         plan.setPlanStatus("active");
-        
-        // 保存计划到数据库
-        int planId = planDAO.insert(plan);
-        if (planId <= 0) {
-            throw new SQLException("计划保存失败");
-        }
-        plan.setPlanId(planId);
-        
-        // 解每日任务
-        JsonArray dailyPlans = planData.get("daily_plans").getAsJsonArray();
-        List<DailyTask> tasks = new ArrayList<>();
-        
-        LocalDate startDate = LocalDate.parse(report.getReportMonth() + "-01", 
+
+        LocalDate startDate = LocalDate.parse(report.getReportMonth() + "-01",
                 DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-        
-        for (int i = 0; i < dailyPlans.size(); i++) {
-            JsonObject dayPlan = dailyPlans.get(i).getAsJsonObject();
-            
-            DailyTask task = new DailyTask();
-            task.setPlanId(planId);
-            task.setUserId(userId);
-            
-            // 设置日期（第1天对应报告月份的第1天）
-            LocalDate taskDate = startDate.plusDays(i);
-            task.setTaskDate(taskDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
-            
-            // 餐食计划
-            if (dayPlan.has("meal_breakfast") && !dayPlan.get("meal_breakfast").isJsonNull()) {
-                task.setMealBreakfast(dayPlan.get("meal_breakfast").getAsString());
-            }
-            
-            if (dayPlan.has("meal_lunch") && !dayPlan.get("meal_lunch").isJsonNull()) {
-                task.setMealLunch(dayPlan.get("meal_lunch").getAsString());
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // 先写计划行取得ID，目标值读完分析结果后再回填
+                int planId = planDAO.insert(conn, plan);
+                if (planId <= 0) {
+                    throw new SQLException("计划保存失败");
+                }
+                plan.setPlanId(planId);
+
+                PlanResultReader result = ingest(conn, plan, startDate, pythonResult, day -> true);
+                if (!result.hasAnalysis) {
+                    throw new RuntimeException("计划生成失败: 引擎结果缺少健康分析");
+                }
+
+                planDAO.updateTargets(conn, plan);
+                PlanDayTemplateDAO.commit(conn);
+                logger.info("成功保存 {} 个每日任务", result.days);
+            } catch (Exception e) {
+                // 回滚的事务中新建的模板ID只暂存在本连接下，随之丢弃
+                PlanDayTemplateDAO.rollback(conn);
+                throw e;
             }
-            
-            if (dayPlan.has("meal_dinner") && !dayPlan.get("meal_dinner").isJsonNull()) {
-                task.setMealDinner(dayPlan.get("meal_dinner").getAsString());
+        }
+
+        DashboardService.invalidate(userId);
+        logger.info("成功生成用户 {} 的月度计划 (计划ID: {})", userId, plan.getPlanId());
+        return plan;
+    }
+
+    /**
+     * 流式读取引擎结果并写入被接受的天
+     */
+    private PlanResultReader ingest(Connection conn, PersonalizedPlan plan, LocalDate startDate,
+                                    String pythonResult, IntPredicate acceptDay) throws IOException, SQLException {
+        return ingest(plan, startDate, pythonResult, acceptDay, dailyTaskDAO.openBatchWriter(conn, insertFlushRows));
+    }
+
+    private PlanResultReader ingest(PersonalizedPlan plan, LocalDate startDate, String pythonResult,
+                                    IntPredicate acceptDay, DailyTaskDAO.TaskBatchWriter taskWriter)
+            throws IOException, SQLException {
+        PlanResultReader result = new PlanResultReader(plan, startDate, acceptDay);
+        try (JsonReader reader = new JsonReader(new StringReader(pythonResult));
+             DailyTaskDAO.TaskBatchWriter writer = taskWriter) {
+            result.read(reader, writer);
+            writer.flush();
+        }
+        if (!result.success) {
+            throw new RuntimeException("计划生成失败: " + result.message);
+        }
+        return result;
+    }
+
+    /**
+     * 按新报告部分重新生成计划
+     *
+     * 先比较新报告与计划原报告中影响计划的字段，没有变化时不调用引擎；有变化时只为从今天起
+     * 尚未完成的天调用一次引擎，在一个事务中原地替换这些任务的内容并更新计划目标。
+     * 已完成的天及其执行记录保持不变，滚动窗口中尚未生成的天之后按新报告补齐。
+     *
+     * @return 被替换的任务数
+     */
+    public int regenerateRemainingDays(PersonalizedPlan plan, HealthReport report) throws Exception {
+        HealthReport previous = plan.getReportId() != null ? reportDAO.findById(plan.getReportId()) : null;
+        if (previous != null) {
+            // 月度滚动计划引用的是上月报告，按计划月份比较，避免仅因月份不同而重新生成
+            previous.setReportMonth(plan.getPlanMonth());
+            List<String> changed = pythonEngine.diffPlanInputs(previous, report);
+            if (changed.isEmpty()) {
+                logger.info("计划 {} 的新报告与原报告计划输入相同，无需重新生成", plan.getPlanId());
+                return 0;
             }
-            
-            if (dayPlan.has("meal_snacks") && !dayPlan.get("meal_snacks").isJsonNull()) {
-                task.setMealSnacks(dayPlan.get("meal_snacks").getAsString());
+            logger.info("计划 {} 的报告变化字段: {}", plan.getPlanId(), changed);
+        }
+
+        int totalDays = plan.getTotalDays() != null ? plan.getTotalDays() : 30;
+        int from = Math.max(1, dayNumber(plan.getPlanMonth(), LocalDate.now()));
+        if (from > totalDays) {
+            return 0;
+        }
+        LocalDate startDate = LocalDate.parse(plan.getPlanMonth() + "-01");
+        String fromDate = startDate.plusDays(from - 1L).toString();
+        String toDate = startDate.plusDays(totalDays - 1L).toString();
+
+        Set<String> pending = dailyTaskDAO.findOpenTaskDates(plan.getPlanId(), fromDate, toDate);
+        int firstOpen = 0;
+        int lastOpen = 0;
+        for (int day = from; day <= totalDays; day++) {
+            if (pending.contains(startDate.plusDays(day - 1L).toString())) {
+                if (firstOpen == 0) {
+                    firstOpen = day;
+                }
+                lastOpen = day;
             }
-            
-            // 每日卡路里目标
-            if (dayPlan.has("daily_calorie_goal")) {
-                task.setDailyCalorieGoal(dayPlan.get("daily_calorie_goal").getAsInt());
+        }
+        if (firstOpen == 0) {
+            return 0;
+        }
+
+        // 引擎调用不持锁；临时按计划月份生成，结束后恢复调用方报告的月份
+        String reportMonth = report.getReportMonth();
+        report.setReportMonth(plan.getPlanMonth());
+        String pythonResult;
+        try {
+            pythonResult = pythonEngine.generatePlanDays(report, firstOpen, lastOpen - firstOpen + 1);
+        } finally {
+            report.setReportMonth(reportMonth);
+        }
+
+        synchronized (MATERIALIZE_LOCKS[Math.floorMod(plan.getPlanId(), MATERIALIZE_LOCKS.length)]) {
+            // 引擎调用期间完成的任务不再替换
+            Set<String> open = dailyTaskDAO.findOpenTaskDates(plan.getPlanId(), fromDate, toDate);
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                try {
+                    DailyTaskDAO.TaskBatchWriter writer = dailyTaskDAO.openReplaceWriter(conn, insertFlushRows);
+                    PlanResultReader result = ingest(plan, startDate, pythonResult,
+                            day -> open.contains(startDate.plusDays(day - 1L).toString()), writer);
+                    if (!result.hasAnalysis) {
+                        throw new RuntimeException("计划重新生成失败: 引擎结果缺少健康分析");
+                    }
+                    if (report.getReportId() != null) {
+                        plan.setReportId(report.getReportId());
+                    }
+                    plan.setGenerationMethod("python_engine@" + pythonEngine.getEngineVersion());
+                    planDAO.updateTargets(conn, plan);
+                    planDAO.updateSource(conn, plan);
+                    PlanDayTemplateDAO.commit(conn);
+                    DashboardService.invalidate(plan.getUserId());
+                    logger.info("计划 {} 重新生成第 {}-{} 天，替换 {} 个未完成任务",
+                            plan.getPlanId(), firstOpen, lastOpen, writer.count());
+                    return writer.count();
+                } catch (Exception e) {
+                    PlanDayTemplateDAO.rollback(conn);
+                    throw e;
+                }
             }
-            
-            // 运动计划
-            if (dayPlan.has("exercise_type") && !dayPlan.get("exercise_type").isJsonNull()) {
-                task.setExerciseType(dayPlan.get("exercise_type").getAsString());
+        }
+    }
+
+    /**
+     * 补齐计划中第 fromDay 到 toDay 天尚未生成的任务（只对缺失的区间调用一次引擎）
+     *
+     * @return 新写入的任务数
+     */
+    public int materializeDays(PersonalizedPlan plan, int fromDay, int toDay) throws Exception {
+        int from = Math.max(1, fromDay);
+        int to = Math.min(plan.getTotalDays() != null ? plan.getTotalDays() : 30, toDay);
+        if (from > to) {
+            return 0;
+        }
+        LocalDate startDate = LocalDate.parse(plan.getPlanMonth() + "-01");
+        String fromDate = startDate.plusDays(from - 1L).toString();
+        String toDate = startDate.plusDays(to - 1L).toString();
+
+        Set<String> present = dailyTaskDAO.findTaskDates(plan.getPlanId(), fromDate, toDate);
+        int firstMissing = 0;
+        int lastMissing = 0;
+        for (int day = from; day <= to; day++) {
+            if (!present.contains(startDate.plusDays(day - 1L).toString())) {
+                if (firstMissing == 0) {
+                    firstMissing = day;
+                }
+                lastMissing = day;
             }
-            
-            if (dayPlan.has("exercise_description") && !dayPlan.get("exercise_description").isJsonNull()) {
-                task.setExerciseDescription(dayPlan.get("exercise_description").getAsString());
+        }
+        if (firstMissing == 0) {
+            return 0;
+        }
+
+        HealthReport report = reportDAO.findById(plan.getReportId());
+        if (report == null) {
+            throw new IllegalStateException("计划 " + plan.getPlanId() + " 对应的健康报告不存在");
+        }
+        // 引擎调用不持锁；按计划月份生成，日期与计划一致
+        report.setReportMonth(plan.getPlanMonth());
+        String pythonResult = pythonEngine.generatePlanDays(report, firstMissing, lastMissing - firstMissing + 1);
+
+        int lo = firstMissing;
+        int hi = lastMissing;
+        synchronized (MATERIALIZE_LOCKS[Math.floorMod(plan.getPlanId(), MATERIALIZE_LOCKS.length)]) {
+            // 并发请求可能已补齐其中部分日期，只写入仍缺失的天
+            Set<String> existing = dailyTaskDAO.findTaskDates(plan.getPlanId(), fromDate, toDate);
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                try {
+                    PlanResultReader result = ingest(conn, plan, startDate, pythonResult, day -> day >= lo && day <= hi
+                            && !existing.contains(startDate.plusDays(day - 1L).toString()));
+                    PlanDayTemplateDAO.commit(conn);
+                    DashboardService.invalidate(plan.getUserId());
+                    logger.debug("计划 {} 补齐第 {}-{} 天，共 {} 个任务", plan.getPlanId(), lo, hi, result.days);
+                    return result.days;
+                } catch (Exception e) {
+                    PlanDayTemplateDAO.rollback(conn);
+                    throw e;
+                }
             }
-            
-            if (dayPlan.has("exercise_duration")) {
-                task.setExerciseDuration(dayPlan.get("exercise_duration").getAsInt());
+        }
+    }
+
+    /**
+     * 补齐从今天起的滚动窗口（未启用窗口模式或计划已结束时不做任何事）
+     */
+    public int materializeWindow(PersonalizedPlan plan) {
+        if (!isWindowed() || plan == null || !"active".equals(plan.getPlanStatus())) {
+            return 0;
+        }
+        int from = Math.max(1, dayNumber(plan.getPlanMonth(), LocalDate.now()));
+        return materializeQuietly(plan, from, from + WINDOW_DAYS - 1);
+    }
+
+    /**
+     * 是否启用滚动窗口模式
+     */
+    public static boolean isWindowed() {
+        return WINDOW_DAYS > 0;
+    }
+
+    public static int getWindowDays() {
+        return WINDOW_DAYS;
+    }
+
+    /**
+     * 日期在计划月份中是第几天（月份开始前为0或负数）
+     */
+    static int dayNumber(String planMonth, LocalDate date) {
+        LocalDate start = LocalDate.parse(planMonth + "-01");
+        return (int) ChronoUnit.DAYS.between(start, date) + 1;
+    }
+
+    /**
+     * 新计划的窗口起始日：当月计划从今天开始，未来月份从第1天开始
+     */
+    static int windowStartDay(String planMonth) {
+        return Math.max(1, dayNumber(planMonth, LocalDate.now()));
+    }
+
+    /**
+     * 计划结果流式读取器
+     *
+     * 兼容 {success, data: {analysis, plan}, message} 和直接包含 analysis/plan 的两种结构，
+     * 字段顺序不限；每天的任务复用同一个对象写入。
+     */
+    private class PlanResultReader {
+        final PersonalizedPlan plan;
+        final LocalDate startDate;
+        final IntPredicate acceptDay;
+        final DailyTask task = new DailyTask();
+        boolean success = true;
+        String message;
+        boolean hasAnalysis;
+        int days;
+        int read;
+
+        PlanResultReader(PersonalizedPlan plan, LocalDate startDate, IntPredicate acceptDay) {
+            this.plan = plan;
+            this.startDate = startDate;
+            this.acceptDay = acceptDay;
+        }
+
+        void read(JsonReader reader, DailyTaskDAO.TaskBatchWriter writer) throws IOException, SQLException {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "success":
+                        success = reader.nextBoolean();
+                        break;
+                    case "message":
+                        message = reader.nextString();
+                        break;
+                    case "data":
+                        // api_service.py 把 analysis/plan 包在 data 字段中
+                        read(reader, writer);
+                        break;
+                    case "analysis":
+                        readAnalysis(reader);
+                        break;
+                    case "plan":
+                        readPlan(reader, writer);
+                        break;
+                    default:
+                        reader.skipValue();
+                }
             }
-            
-            if (dayPlan.has("exercise_intensity") && !dayPlan.get("exercise_intensity").isJsonNull()) {
-                task.setExerciseIntensity(dayPlan.get("exercise_intensity").getAsString());
+            reader.endObject();
+        }
+
+        private void readAnalysis(JsonReader reader) throws IOException {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "target_calories":
+                        plan.setCalorieTarget((int) reader.nextDouble());
+                        break;
+                    case "nutrient_targets":
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            String nutrient = reader.nextName();
+                            if (reader.peek() == JsonToken.NULL) {
+                                reader.nextNull();
+                            } else if ("protein".equals(nutrient)) {
+                                plan.setProteinTarget(reader.nextDouble());
+                            } else if ("carbs".equals(nutrient)) {
+                                plan.setCarbsTarget(reader.nextDouble());
+                            } else if ("fat".equals(nutrient)) {
+                                plan.setFatTarget(reader.nextDouble());
+                            } else {
+                                reader.skipValue();
+                            }
+                        }
+                        reader.endObject();
+                        break;
+                    case "activity_level":
+                        // 设置运动频率
+                        plan.setExerciseSessionsPerWeek(getExerciseFrequencyFromActivity(reader.nextString()));
+                        break;
+                    default:
+                        reader.skipValue();
+                }
             }
-            
-            // 注意事项和提醒
-            if (dayPlan.has("reminders") && !dayPlan.get("reminders").isJsonNull()) {
-                task.set注意事项(dayPlan.get("reminders").getAsString());
+            reader.endObject();
+            hasAnalysis = true;
+        }
+
+        private void readPlan(JsonReader reader, DailyTaskDAO.TaskBatchWriter writer) throws IOException, SQLException {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("daily_plans".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        int dayNumber = readDay(reader);
+                        if (acceptDay.test(dayNumber)) {
+                            writer.add(task);
+                            days++;
+                        }
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
             }
-            
-            tasks.add(task);
+            reader.endObject();
         }
-        
-        // 批量保存每日任务
-        if (!tasks.isEmpty()) {
-            dailyTaskDAO.batchInsert(tasks);
-            logger.info("成功保存 {} 个每日任务", tasks.size());
+
+        /**
+         * 读取一天的内容到复用的任务对象
+         *
+         * @return 该天在计划中的序号（缺少 day_number 时按出现顺序）
+         */
+        private int readDay(JsonReader reader) throws IOException {
+            int dayNumber = ++read;
+            task.setPlanId(plan.getPlanId());
+            task.setUserId(plan.getUserId());
+            task.setMealBreakfast(null);
+            task.setMealLunch(null);
+            task.setMealDinner(null);
+            task.setMealSnacks(null);
+            task.setDailyCalorieGoal(null);
+            task.setExerciseType(null);
+            task.setExerciseDescription(null);
+            task.setExerciseDuration(null);
+            task.setExerciseIntensity(null);
+            task.set注意事项(null);
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "day_number":
+                        dayNumber = reader.nextInt();
+                        break;
+                    // 餐食计划
+                    case "meal_breakfast":
+                        task.setMealBreakfast(reader.nextString());
+                        break;
+                    case "meal_lunch":
+                        task.setMealLunch(reader.nextString());
+                        break;
+                    case "meal_dinner":
+                        task.setMealDinner(reader.nextString());
+                        break;
+                    case "meal_snacks":
+                        task.setMealSnacks(reader.nextString());
+                        break;
+                    // 每日卡路里目标
+                    case "daily_calorie_goal":
+                        task.setDailyCalorieGoal((int) reader.nextDouble());
+                        break;
+                    // 运动计划
+                    case "exercise_type":
+                        task.setExerciseType(reader.nextString());
+                        break;
+                    case "exercise_description":
+                        task.setExerciseDescription(reader.nextString());
+                        break;
+                    case "exercise_duration":
+                        task.setExerciseDuration((int) reader.nextDouble());
+                        break;
+                    case "exercise_intensity":
+                        task.setExerciseIntensity(reader.nextString());
+                        break;
+                    // 注意事项和提醒
+                    case "reminders":
+                        task.set注意事项(reader.nextString());
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+            // 设置日期（第1天对应计划月份的第1天）
+            task.setTaskDate(startDate.plusDays(dayNumber - 1L).toString());
+            return dayNumber;
         }
-        
-        logger.info("成功生成用户 {} 的月度计划 (计划ID: {})", userId, planId);
-        return plan;
     }
     
     /**
@@ -210,12 +613,47 @@ public class PlanGenerationService {
         return plan;
     }
     
+    /**
+     * 获取用户活跃计划的ID（不读取计划内容）
+     */
+    public Integer getActivePlanId(Integer userId, String month) throws SQLException {
+        return planDAO.findActiveIdByUserIdAndMonth(userId, month);
+    }
+    
     /**
      * 获取计划的所有每日任务
      */
     public List<DailyTask> getPlanTasks(Integer planId) throws SQLException {
+        materializeForRead(planId);
         return dailyTaskDAO.findByPlanId(planId);
     }
+
+    /**
+     * 获取计划的所有每日任务，只读取所选字段（未选择餐食、运动等内容字段时不读取模板）
+     */
+    public List<DailyTask> getPlanTasks(Integer planId, FieldSet fields) throws SQLException {
+        materializeForRead(planId);
+        return dailyTaskDAO.findByPlanId(planId, fields);
+    }
+
+    private void materializeForRead(Integer planId) throws SQLException {
+        if (isWindowed()) {
+            PersonalizedPlan plan = planDAO.findById(planId);
+            if (plan != null && "active".equals(plan.getPlanStatus())) {
+                int today = Math.max(1, dayNumber(plan.getPlanMonth(), LocalDate.now()));
+                materializeQuietly(plan, today, today + WINDOW_DAYS - 1);
+            }
+        }
+    }
+
+    /**
+     * 获取计划任务的版本（用于条件请求，不读取任务内容）；按窗口生成时带上日期，
+     * 跨天后的首次请求走完整查询，补齐新进入窗口的日期
+     */
+    public String getPlanTasksVersion(Integer planId) throws SQLException {
+        String version = dailyTaskDAO.findVersionByPlanId(planId);
+        return isWindowed() ? LocalDate.now() + "." + version : version;
+    }
     
     /**
      * 暂停计划
@@ -242,6 +680,21 @@ public class PlanGenerationService {
      * 根据日期获取任务
      */
     public DailyTask getTaskByDate(Integer planId, String taskDate) throws SQLException {
+        DailyTask task = findTaskByDate(planId, taskDate);
+        if (task == null && isWindowed()) {
+            // 窗口外的日期按需生成（连同其后的窗口一起，减少引擎调用）
+            PersonalizedPlan plan = planDAO.findById(planId);
+            if (plan != null && "active".equals(plan.getPlanStatus())) {
+                int day = dayNumber(plan.getPlanMonth(), LocalDate.parse(taskDate));
+                if (materializeQuietly(plan, day, day + WINDOW_DAYS - 1) > 0) {
+                    task = findTaskByDate(planId, taskDate);
+                }
+            }
+        }
+        return task;
+    }
+
+    private DailyTask findTaskByDate(Integer planId, String taskDate) throws SQLException {
         List<DailyTask> tasks = dailyTaskDAO.findByPlanId(planId);
         for (DailyTask task : tasks) {
             if (task.getTaskDate().equals(taskDate)) {
@@ -250,6 +703,18 @@ public class PlanGenerationService {
         }
         return null;
     }
+
+    /**
+     * 查询路径上的按需补齐：引擎不可用时只记录日志，返回已有数据
+     */
+    private int materializeQuietly(PersonalizedPlan plan, int fromDay, int toDay) {
+        try {
+            return materializeDays(plan, fromDay, toDay);
+        } catch (Exception e) {
+            logger.warn("计划 {} 按需生成第 {}-{} 天失败: {}", plan.getPlanId(), fromDay, toDay, e.getMessage());
+            return 0;
+        }
+    }
     
     /**
      * 标记任务完成
@@ -260,10 +725,14 @@ public class PlanGenerationService {
             return false;
         }
         // 如果完成，设置完成时间为当前时间
-        return dailyTaskDAO.updateCompletion(taskId, completed,
+        boolean updated = dailyTaskDAO.updateCompletion(taskId, completed,
             completed ? task.getDailyCalorieGoal() : null,
             completed ? task.getExerciseDuration() : null,
             completed ? 100.0 : 0.0);
+        if (updated) {
+            DashboardService.invalidate(task.getUserId());
+        }
+        return updated;
     }
     
     /**
@@ -271,6 +740,27 @@ public class PlanGenerationService {
      */
     public DailyTask getTodayTask(Integer userId) throws SQLException {
         String today = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-        return dailyTaskDAO.findByUserIdAndDate(userId, today);
+        DailyTask task = dailyTaskDAO.findByUserIdAndDate(userId, today);
+        if (task == null && isWindowed()) {
+            PersonalizedPlan plan = getActivePlan(userId, today.substring(0, 7));
+            if (plan != null && materializeWindow(plan) > 0) {
+                task = dailyTaskDAO.findByUserIdAndDate(userId, today);
+            }
+        }
+        return task;
+    }
+
+    /**
+     * 获取用户某一天的任务；窗口外的日期按需生成
+     */
+    public DailyTask getTaskByUserAndDate(Integer userId, String taskDate) throws SQLException {
+        DailyTask task = dailyTaskDAO.findByUserIdAndDate(userId, taskDate);
+        if (task == null && isWindowed()) {
+            PersonalizedPlan plan = getActivePlan(userId, taskDate.substring(0, 7));
+            if (plan != null) {
+                task = getTaskByDate(plan.getPlanId(), taskDate);
+            }
+        }
+        return task;
     }
 }
\ No newline at end of file
@@ -0,0 +1,264 @@
+package com.healthsmart.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.healthsmart.util.AppConfig;
+import com.healthsmart.util.DatabaseConnection;
+import com.healthsmart.util.HashUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 计划生成结果缓存（按内容寻址）
+ * Content-Addressed Plan Result Cache
+ *
+ * 以规范化后的请求JSON（去掉 user_id、report_month 等不影响计划内容的字段，
+ * 按键排序）加引擎版本的 SHA-256 作为键。内存 LRU 为一级缓存，
+ * SQLite 表 plan_result_cache 为二级缓存，进程重启后仍可复用。
+ * 引擎版本变化后旧键自然失效，旧版本的行在启动时清理。
+ * SQLite 表有行数与闲置天数上限：启动时和每写入 TRIM_INTERVAL 行后删除超期的行，
+ * 再按最近使用时间淘汰超出行数上限的部分，表大小最多超出上限 TRIM_INTERVAL 行。
+ */
+public class PlanResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlanResultCache.class);
+
+    /** 不参与指纹计算的字段：只影响标识，不影响生成内容 */
+    private static final Set<String> IDENTITY_FIELDS = Set.of("user_id", "report_month");
+    /** 每写入多少行检查一次持久层上限 */
+    private static final int TRIM_INTERVAL = 64;
+
+    private final Gson gson = new Gson();
+    private final String engineVersion;
+    private final boolean persistent;
+    private final Map<String, String> memory;
+    private final int maxPersistentEntries;
+    private final int maxIdleDays;
+    private final AtomicLong persistentWrites = new AtomicLong();
+    private final AtomicLong persistentEvictions = new AtomicLong();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong persistentHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public PlanResultCache(String engineVersion) {
+        this.engineVersion = engineVersion;
+        this.persistent = AppConfig.getBoolean("healthsmart.plan-cache.persistent", true);
+        int maxEntries = AppConfig.getInt("healthsmart.plan-cache.memory-entries", 256);
+        this.maxPersistentEntries = AppConfig.getInt("healthsmart.plan-cache.persistent-entries", 20000);
+        this.maxIdleDays = AppConfig.getInt("healthsmart.plan-cache.persistent-max-idle-days", 90);
+        this.memory = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 计算请求指纹
+     */
+    public String fingerprint(JsonObject request) {
+        StringBuilder canonical = new StringBuilder(engineVersion).append('\n');
+        JsonObject normalized = request.deepCopy();
+        for (String field : IDENTITY_FIELDS) {
+            normalized.remove(field);
+        }
+        appendCanonical(canonical, normalized);
+        return HashUtil.sha256Hex(canonical.toString());
+    }
+
+    /**
+     * 查询缓存，未命中返回 null
+     */
+    public String get(String key) {
+        synchronized (memory) {
+            String payload = memory.get(key);
+            if (payload != null) {
+                memoryHits.incrementAndGet();
+                return payload;
+            }
+        }
+
+        if (persistent) {
+            String sql = "SELECT payload FROM plan_result_cache WHERE cache_key = ? AND engine_version = ?";
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, key);
+                pstmt.setString(2, engineVersion);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        String payload = rs.getString("payload");
+                        synchronized (memory) {
+                            memory.put(key, payload);
+                        }
+                        touch(conn, key);
+                        persistentHits.incrementAndGet();
+                        return payload;
+                    }
+                }
+            } catch (SQLException e) {
+                logger.warn("读取计划缓存失败: {}", e.getMessage());
+            }
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 写入缓存
+     */
+    public void put(String key, String payload) {
+        synchronized (memory) {
+            memory.put(key, payload);
+        }
+        if (!persistent) {
+            return;
+        }
+        String sql = "INSERT OR REPLACE INTO plan_result_cache (cache_key, engine_version, payload) VALUES (?, ?, ?)";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, key);
+            pstmt.setString(2, engineVersion);
+            pstmt.setString(3, payload);
+            pstmt.executeUpdate();
+            if (persistentWrites.incrementAndGet() % TRIM_INTERVAL == 0) {
+                trim(conn);
+            }
+        } catch (SQLException e) {
+            logger.warn("写入计划缓存失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 删除其它引擎版本生成的缓存行，并按行数与闲置天数上限清理（启动时调用）
+     */
+    public int purgeStaleVersions() {
+        if (!persistent) {
+            return 0;
+        }
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                 "DELETE FROM plan_result_cache WHERE engine_version <> ?")) {
+            pstmt.setString(1, engineVersion);
+            int removed = pstmt.executeUpdate();
+            if (removed > 0) {
+                logger.info("已清理 {} 条旧引擎版本的计划缓存", removed);
+            }
+            return removed + trim(conn);
+        } catch (SQLException e) {
+            logger.warn("清理计划缓存失败: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    public String getEngineVersion() {
+        return engineVersion;
+    }
+
+    /**
+     * 缓存命中统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (memory) {
+            stats.put("memoryEntries", memory.size());
+        }
+        stats.put("memoryHits", memoryHits.get());
+        stats.put("persistentHits", persistentHits.get());
+        stats.put("misses", misses.get());
+        stats.put("persistentEvictions", persistentEvictions.get());
+        return stats;
+    }
+
+    /**
+     * 先删除闲置超期的行，再按最近使用时间（未命中过的按写入时间，同一秒内命中过的优先）保留 maxPersistentEntries 行
+     */
+    private int trim(Connection conn) throws SQLException {
+        int removed = 0;
+        if (maxIdleDays > 0) {
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "DELETE FROM plan_result_cache WHERE COALESCE(last_hit_at, created_at) < " +
+                    "datetime('now', 'localtime', ?)")) {
+                pstmt.setString(1, "-" + maxIdleDays + " days");
+                removed += pstmt.executeUpdate();
+            }
+        }
+        if (maxPersistentEntries > 0) {
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "DELETE FROM plan_result_cache WHERE cache_key IN (SELECT cache_key FROM plan_result_cache " +
+                    "ORDER BY COALESCE(last_hit_at, created_at) DESC, hit_count DESC, rowid DESC LIMIT -1 OFFSET ?)")) {
+                pstmt.setInt(1, maxPersistentEntries);
+                removed += pstmt.executeUpdate();
+            }
+        }
+        if (removed > 0) {
+            persistentEvictions.addAndGet(removed);
+            logger.debug("计划缓存持久层淘汰 {} 行", removed);
+        }
+        return removed;
+    }
+
+    private void touch(Connection conn, String key) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "UPDATE plan_result_cache SET hit_count = hit_count + 1, " +
+                "last_hit_at = datetime('now', 'localtime') WHERE cache_key = ?")) {
+            pstmt.setString(1, key);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * 按键排序输出JSON，使字段顺序不同的等价请求得到相同指纹
+     */
+    private void appendCanonical(StringBuilder out, JsonElement element) {
+        if (element == null || element.isJsonNull()) {
+            out.append("null");
+        } else if (element.isJsonObject()) {
+            JsonObject object = element.getAsJsonObject();
+            out.append('{');
+            boolean first = true;
+            for (String name : new TreeSet<>(object.keySet())) {
+                JsonElement value = object.get(name);
+                if (value == null || value.isJsonNull()) {
+                    continue;
+                }
+                if (!first) {
+                    out.append(',');
+                }
+                first = false;
+                out.append(gson.toJson(name)).append(':');
+                appendCanonical(out, value);
+            }
+            out.append('}');
+        } else if (element.isJsonArray()) {
+            JsonArray array = element.getAsJsonArray();
+            out.append('[');
+            for (int i = 0; i < array.size(); i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                appendCanonical(out, array.get(i));
+            }
+            out.append(']');
+        } else if (element.getAsJsonPrimitive().isNumber()) {
+            // 70 与 70.0 视为同一个值
+            out.append(element.getAsBigDecimal().stripTrailingZeros().toPlainString());
+        } else {
+            out.append(gson.toJson(element));
+        }
+    }
+}
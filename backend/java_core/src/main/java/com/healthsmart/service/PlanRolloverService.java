@@ -0,0 +1,391 @@
+package com.healthsmart.service;
+
+import com.healthsmart.dao.HealthReportDAO;
+import com.healthsmart.dao.PersonalizedPlanDAO;
+import com.healthsmart.model.HealthReport;
+import com.healthsmart.util.AppConfig;
+import com.healthsmart.util.DatabaseConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 月度计划滚动生成服务
+ * Monthly Plan Rollover Service
+ *
+ * 月末前几天在后台为所有有活跃计划的用户沿用最新健康报告，提前生成下月计划，
+ * 避免月初所有用户同时同步生成。沿用的报告不复制：新计划直接引用原报告，
+ * 用户的最新报告和报告历史不会出现用户未提交过的记录。并发度与速率可配置；进度和断点记录在
+ * plan_rollover_jobs 表中，进程重启后从断点继续。已有目标月份计划的用户会被跳过，
+ * 因此重复执行是安全的。
+ */
+public class PlanRolloverService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlanRolloverService.class);
+
+    private static PlanRolloverService instance;
+
+    private final boolean enabled = AppConfig.getBoolean("healthsmart.rollover.enabled", true);
+    private final int daysBeforeMonthEnd = AppConfig.getInt("healthsmart.rollover.days-before-month-end", 3);
+    private final int parallelism = Math.max(1, AppConfig.getInt("healthsmart.rollover.parallelism", 2));
+    private final int batchSize = Math.max(1, AppConfig.getInt("healthsmart.rollover.batch-size", 50));
+    private final long checkIntervalMinutes = AppConfig.getLong("healthsmart.rollover.check-interval-minutes", 60);
+    private final RateLimiter rateLimiter =
+            new RateLimiter(AppConfig.getInt("healthsmart.rollover.plans-per-second", 20));
+
+    private final HealthReportDAO reportDAO = new HealthReportDAO();
+    private final PersonalizedPlanDAO planDAO = new PersonalizedPlanDAO();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private PlanGenerationService planService;
+    private ScheduledExecutorService scheduler;
+
+    private PlanRolloverService() {
+    }
+
+    /**
+     * 获取单例实例
+     */
+    public static synchronized PlanRolloverService getInstance() {
+        if (instance == null) {
+            instance = new PlanRolloverService();
+        }
+        return instance;
+    }
+
+    /**
+     * 启动定时检查：进入月末窗口后自动生成下月计划
+     */
+    public synchronized void start() {
+        if (!enabled || scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "plan-rollover");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 首次检查稍后执行，不与启动预热争抢资源
+        scheduler.scheduleWithFixedDelay(this::checkSchedule, 1, checkIntervalMinutes, TimeUnit.MINUTES);
+        logger.info("月度计划滚动生成已启动 (月末前 {} 天, 并发 {}, 每批 {} 人)", daysBeforeMonthEnd, parallelism, batchSize);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * 是否处于月末滚动生成窗口
+     */
+    public boolean isInRolloverWindow(LocalDate date) {
+        return date.getDayOfMonth() > date.lengthOfMonth() - daysBeforeMonthEnd;
+    }
+
+    void checkSchedule() {
+        LocalDate today = LocalDate.now();
+        if (!isInRolloverWindow(today)) {
+            return;
+        }
+        String targetMonth = YearMonth.from(today).plusMonths(1).toString();
+        try {
+            runRollover(targetMonth);
+        } catch (Exception e) {
+            logger.error("{} 月度计划滚动生成失败: {}", targetMonth, e.getMessage());
+        }
+    }
+
+    /**
+     * 为目标月份执行滚动生成（从断点继续；已完成但有失败用户时重新扫描重试）
+     *
+     * @param targetMonth 目标月份 (yyyy-MM)
+     * @return 任务进度
+     */
+    public Map<String, Object> runRollover(String targetMonth) throws Exception {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("已有滚动生成任务正在执行");
+        }
+        try {
+            RolloverJob job = loadJob(targetMonth);
+            if (job == null) {
+                job = createJob(targetMonth);
+            } else if ("completed".equals(job.status)) {
+                if (job.failed == 0) {
+                    return job.toMap();
+                }
+                // 失败用户仍没有目标月份计划，从头扫描一遍即只重试这些用户
+                logger.info("{} 滚动生成重试 {} 个失败用户", targetMonth, job.failed);
+                job.lastUserId = 0;
+                job.processed -= job.failed;
+                job.failed = 0;
+            } else {
+                logger.info("{} 滚动生成从断点继续 (用户ID > {})", targetMonth, job.lastUserId);
+            }
+            job.status = "running";
+            job.message = null;
+            job.total = job.processed + planDAO.countRolloverCandidates(targetMonth);
+            saveJob(job);
+
+            execute(job);
+            return getJobStatus(targetMonth);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * 查询目标月份的任务进度，不存在时返回 null
+     */
+    public Map<String, Object> getJobStatus(String targetMonth) throws SQLException {
+        RolloverJob job = loadJob(targetMonth);
+        return job != null ? job.toMap() : null;
+    }
+
+    private void execute(RolloverJob job) throws Exception {
+        long start = System.currentTimeMillis();
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "plan-rollover-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        int pageSize = batchSize * parallelism;
+        try {
+            while (true) {
+                List<Integer> page = planDAO.findRolloverCandidates(job.targetMonth, job.lastUserId, pageSize);
+                if (page.isEmpty()) {
+                    break;
+                }
+
+                List<Future<int[]>> futures = new ArrayList<>();
+                for (int from = 0; from < page.size(); from += batchSize) {
+                    List<Integer> batch = page.subList(from, Math.min(page.size(), from + batchSize));
+                    futures.add(workers.submit(() -> processBatch(batch, job.targetMonth)));
+                }
+                for (Future<int[]> future : futures) {
+                    int[] result = future.get();
+                    job.succeeded += result[0];
+                    job.failed += result[1];
+                }
+
+                // 整页完成后才推进断点，重启时不会漏掉用户
+                job.processed += page.size();
+                job.lastUserId = page.get(page.size() - 1);
+                saveJob(job);
+                logger.info("{} 滚动生成进度 {}/{} (失败 {})", job.targetMonth, job.processed, job.total, job.failed);
+
+                if (page.size() < pageSize) {
+                    break;
+                }
+            }
+            job.status = "completed";
+            job.finished = true;
+            saveJob(job);
+            logger.info("{} 滚动生成完成: 成功 {}, 失败 {}, 耗时 {} ms", job.targetMonth, job.succeeded, job.failed,
+                    System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            job.status = "failed";
+            job.message = e.getMessage();
+            saveJob(job);
+            throw e;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * 处理一批用户：沿用最新报告，整批一次调用引擎
+     *
+     * @return {成功数, 失败数}
+     */
+    private int[] processBatch(List<Integer> userIds, String targetMonth) throws Exception {
+        List<HealthReport> reports = new ArrayList<>();
+        int failed = 0;
+        for (Integer userId : userIds) {
+            try {
+                HealthReport report = carryForwardReport(userId, targetMonth);
+                if (report != null) {
+                    reports.add(report);
+                } else {
+                    failed++;
+                }
+            } catch (SQLException e) {
+                failed++;
+                logger.warn("用户 {} 的报告沿用失败: {}", userId, e.getMessage());
+            }
+        }
+        if (reports.isEmpty()) {
+            return new int[] {0, failed};
+        }
+
+        rateLimiter.acquire(reports.size());
+        Map<String, Object> summary = getPlanService().generateMonthlyPlans(reports);
+        int batchFailed = ((Number) summary.get("failed")).intValue();
+        return new int[] {reports.size() - batchFailed, failed + batchFailed};
+    }
+
+    /**
+     * 目标月份已有报告则直接使用，否则沿用最新报告：只在内存中改为目标月份，
+     * 报告ID保持不变，生成的计划引用原报告（与部分重新生成按计划月份比较报告的方式一致）
+     */
+    private HealthReport carryForwardReport(Integer userId, String targetMonth) throws SQLException {
+        HealthReport existing = reportDAO.findByUserIdAndMonth(userId, targetMonth);
+        if (existing != null) {
+            return existing;
+        }
+        HealthReport latest = reportDAO.findLatestByUserId(userId);
+        if (latest == null) {
+            logger.warn("用户 {} 没有可沿用的健康报告", userId);
+            return null;
+        }
+        latest.setReportMonth(targetMonth);
+        return latest;
+    }
+
+    private synchronized PlanGenerationService getPlanService() {
+        if (planService == null) {
+            planService = new PlanGenerationService();
+        }
+        return planService;
+    }
+
+    private RolloverJob loadJob(String targetMonth) throws SQLException {
+        String sql = "SELECT * FROM plan_rollover_jobs WHERE target_month = ?";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, targetMonth);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                RolloverJob job = new RolloverJob();
+                job.jobId = rs.getInt("job_id");
+                job.targetMonth = rs.getString("target_month");
+                job.status = rs.getString("status");
+                job.total = rs.getInt("total_users");
+                job.processed = rs.getInt("processed_users");
+                job.succeeded = rs.getInt("succeeded");
+                job.failed = rs.getInt("failed");
+                job.lastUserId = rs.getInt("last_user_id");
+                job.message = rs.getString("message");
+                job.startedAt = rs.getString("started_at");
+                job.updatedAt = rs.getString("updated_at");
+                job.finishedAt = rs.getString("finished_at");
+                return job;
+            }
+        }
+    }
+
+    private RolloverJob createJob(String targetMonth) throws SQLException {
+        String sql = "INSERT INTO plan_rollover_jobs (target_month, status) VALUES (?, 'running')";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, targetMonth);
+            pstmt.executeUpdate();
+        }
+        logger.info("开始 {} 月度计划滚动生成", targetMonth);
+        return loadJob(targetMonth);
+    }
+
+    private void saveJob(RolloverJob job) throws SQLException {
+        String sql = "UPDATE plan_rollover_jobs SET status = ?, total_users = ?, processed_users = ?, " +
+                     "succeeded = ?, failed = ?, last_user_id = ?, message = ?, " +
+                     "updated_at = datetime('now', 'localtime'), " +
+                     "finished_at = CASE WHEN ? THEN datetime('now', 'localtime') ELSE finished_at END " +
+                     "WHERE job_id = ?";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, job.status);
+            pstmt.setInt(2, job.total);
+            pstmt.setInt(3, job.processed);
+            pstmt.setInt(4, job.succeeded);
+            pstmt.setInt(5, job.failed);
+            pstmt.setInt(6, job.lastUserId);
+            pstmt.setString(7, job.message);
+            pstmt.setBoolean(8, job.finished);
+            pstmt.setInt(9, job.jobId);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * 滚动生成任务记录
+     */
+    private static class RolloverJob {
+        int jobId;
+        String targetMonth;
+        String status;
+        int total;
+        int processed;
+        int succeeded;
+        int failed;
+        int lastUserId;
+        String message;
+        String startedAt;
+        String updatedAt;
+        String finishedAt;
+        boolean finished;
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("targetMonth", targetMonth);
+            map.put("status", status);
+            map.put("totalUsers", total);
+            map.put("processedUsers", processed);
+            map.put("succeeded", succeeded);
+            map.put("failed", failed);
+            map.put("lastUserId", lastUserId);
+            map.put("message", message);
+            map.put("startedAt", startedAt);
+            map.put("updatedAt", updatedAt);
+            map.put("finishedAt", finishedAt);
+            return map;
+        }
+    }
+
+    /**
+     * 平滑限速：按计划数预约时间片，超出速率时等待
+     */
+    private static class RateLimiter {
+        private final long intervalNanos;
+        private long nextFreeNanos = System.nanoTime();
+
+        RateLimiter(int permitsPerSecond) {
+            this.intervalNanos = permitsPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / permitsPerSecond : 0;
+        }
+
+        void acquire(int permits) throws InterruptedException {
+            if (intervalNanos == 0) {
+                return;
+            }
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                long startAt = Math.max(now, nextFreeNanos);
+                nextFreeNanos = startAt + permits * intervalNanos;
+                waitNanos = startAt - now;
+            }
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.healthsmart.service;
+
+import com.healthsmart.dao.PersonalizedPlanDAO;
+import com.healthsmart.model.PersonalizedPlan;
+import com.healthsmart.util.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 计划滚动窗口补齐服务
+ * Plan Window Roller
+ *
+ * 滚动窗口模式下（healthsmart.plan.window-days 大于0），每晚为当月活跃计划补齐
+ * 从当天起的 N 天任务。中途放弃的计划在被暂停或到期前每晚只多生成一天。
+ */
+public class PlanWindowRoller {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlanWindowRoller.class);
+
+    private static PlanWindowRoller instance;
+
+    private final int rollHour = AppConfig.getInt("healthsmart.plan.window-roll-hour", 2);
+    private final int pageSize = AppConfig.getInt("healthsmart.plan.window-roll-page-size", 200);
+
+    private final PersonalizedPlanDAO planDAO = new PersonalizedPlanDAO();
+    private PlanGenerationService planService;
+    private ScheduledExecutorService scheduler;
+
+    private PlanWindowRoller() {
+    }
+
+    /**
+     * 获取单例实例
+     */
+    public static synchronized PlanWindowRoller getInstance() {
+        if (instance == null) {
+            instance = new PlanWindowRoller();
+        }
+        return instance;
+    }
+
+    /**
+     * 启动每日定时补齐（未启用滚动窗口时不启动）
+     */
+    public synchronized void start() {
+        if (!PlanGenerationService.isWindowed() || scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "plan-window-roller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = now.toLocalDate().atTime(rollHour, 0);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+        scheduler.scheduleAtFixedRate(this::rollQuietly, Duration.between(now, next).toMinutes(),
+                TimeUnit.DAYS.toMinutes(1), TimeUnit.MINUTES);
+        logger.info("计划滚动窗口补齐已启动 (窗口 {} 天, 每天 {} 点)", PlanGenerationService.getWindowDays(), rollHour);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void rollQuietly() {
+        try {
+            roll(LocalDate.now());
+        } catch (Exception e) {
+            logger.error("计划滚动窗口补齐失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 为 date 所在月份的活跃计划补齐从 date 起的窗口
+     *
+     * @return 统计（plans / tasks / failed）
+     */
+    public Map<String, Object> roll(LocalDate date) throws Exception {
+        String month = YearMonth.from(date).toString();
+        int windowDays = PlanGenerationService.getWindowDays();
+        int from = date.getDayOfMonth();
+        // 计划固定30天，月末几天的窗口会短一些
+        int to = Math.min(30, from + windowDays - 1);
+        int plans = 0;
+        int tasks = 0;
+        int failed = 0;
+
+        if (windowDays > 0 && from <= to) {
+            String fromDate = date.toString();
+            String toDate = date.plusDays(to - from).toString();
+            int afterPlanId = 0;
+            while (true) {
+                List<PersonalizedPlan> page = planDAO.findPlansMissingDays(month, fromDate, toDate,
+                        to - from + 1, afterPlanId, pageSize);
+                for (PersonalizedPlan plan : page) {
+                    try {
+                        tasks += getPlanService().materializeDays(plan, from, to);
+                        plans++;
+                    } catch (EngineUnavailableException e) {
+                        // 引擎不可用时停止本轮，明晚或按需查询时再补
+                        logger.warn("智能引擎不可用，停止本轮补齐: {}", e.getMessage());
+                        failed++;
+                        return summary(plans, tasks, failed);
+                    } catch (Exception e) {
+                        failed++;
+                        logger.warn("计划 {} 补齐失败: {}", plan.getPlanId(), e.getMessage());
+                    }
+                    afterPlanId = plan.getPlanId();
+                }
+                if (page.size() < pageSize) {
+                    break;
+                }
+            }
+        }
+
+        Map<String, Object> summary = summary(plans, tasks, failed);
+        logger.info("计划滚动窗口补齐完成: {}", summary);
+        return summary;
+    }
+
+    private Map<String, Object> summary(int plans, int tasks, int failed) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("plans", plans);
+        summary.put("tasks", tasks);
+        summary.put("failed", failed);
+        return summary;
+    }
+
+    private synchronized PlanGenerationService getPlanService() {
+        if (planService == null) {
+            planService = new PlanGenerationService();
+        }
+        return planService;
+    }
+}
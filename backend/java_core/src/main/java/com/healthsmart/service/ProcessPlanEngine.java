@@ -0,0 +1,379 @@
+package com.healthsmart.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.healthsmart.util.AppConfig;
+import com.healthsmart.util.HashUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Python子进程计划引擎
+ * Process Plan Engine
+ *
+ * 每次调用启动一个 api_service 进程，通过 stdin/stdout 消息帧交换一条请求和响应；
+ * 批量生成启动一次进程以 JSON Lines 流式处理整批报告。每条命令有执行期限，
+ * 超时或输出超过上限时结束整个进程树。
+ *
+ * 引擎是 backend.python_engine 包（模块间相对导入），以 python -m 在项目根目录下启动。
+ * 项目根目录取 healthsmart.engine.root，未配置时从工作目录逐级向上查找，
+ * 因此在 backend/java_core 下运行 mvn 也能找到引擎。
+ */
+public class ProcessPlanEngine implements PlanEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessPlanEngine.class);
+
+    protected static final String PYTHON_EXECUTABLE = "python";
+    protected static final String ENGINE_MODULE = "backend.python_engine.api_service";
+    private static final Path ENGINE_DIR = Path.of("backend", "python_engine");
+
+    protected final Gson gson = new Gson();
+    protected final Path projectRoot;
+
+    // 执行期限与输出上限：超时或输出过大时结束整个进程树
+    private final long defaultTimeoutMillis = AppConfig.getLong("healthsmart.engine.timeout-ms", 30000);
+    private final long batchTimeoutPerPlanMillis = AppConfig.getLong("healthsmart.engine.batch-timeout-per-plan-ms", 2000);
+    protected final int maxOutputChars = AppConfig.getInt("healthsmart.engine.max-output-chars", 4 * 1024 * 1024);
+    protected final Set<Process> liveProcesses = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "python-engine-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong outputLimitExceeded = new AtomicLong();
+    private volatile String version;
+
+    public ProcessPlanEngine() {
+        projectRoot = resolveProjectRoot();
+        logger.info("Python引擎目录: {}", projectRoot.resolve(ENGINE_DIR));
+    }
+
+    /**
+     * 项目根目录：优先取配置，否则从工作目录向上找到包含 backend/python_engine/api_service.py 的目录
+     */
+    static Path resolveProjectRoot() {
+        String configured = AppConfig.getString("healthsmart.engine.root", null);
+        if (configured != null && !configured.isBlank()) {
+            return Path.of(configured).toAbsolutePath().normalize();
+        }
+        Path workingDir = Path.of(System.getProperty("user.dir")).toAbsolutePath();
+        for (Path dir = workingDir; dir != null; dir = dir.getParent()) {
+            if (Files.isRegularFile(dir.resolve(ENGINE_DIR).resolve("api_service.py"))) {
+                return dir;
+            }
+        }
+        return workingDir;
+    }
+
+    /**
+     * 以模块方式启动引擎的进程配置（工作目录为项目根目录，错误输出直接交给本进程）
+     */
+    protected ProcessBuilder engineProcess(String mode) {
+        ProcessBuilder processBuilder = new ProcessBuilder(PYTHON_EXECUTABLE, "-m", ENGINE_MODULE, mode);
+        processBuilder.directory(projectRoot.toFile());
+        processBuilder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        return processBuilder;
+    }
+
+    /**
+     * ServiceLoader 注册入口
+     */
+    public static class Provider implements PlanEngineProvider {
+        @Override
+        public String getName() {
+            return "process";
+        }
+
+        @Override
+        public PlanEngine create() {
+            return new ProcessPlanEngine();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "process";
+    }
+
+    @Override
+    public String generatePlan(String requestJson) throws Exception {
+        return execute("generate_plan", requestJson);
+    }
+
+    @Override
+    public String dailyRecommendation(String requestJson) throws Exception {
+        return execute("daily_recommendation", requestJson);
+    }
+
+    @Override
+    public String analyze(String requestJson) throws Exception {
+        return execute("analyze_health", requestJson);
+    }
+
+    @Override
+    public String health() throws Exception {
+        return execute("health", "{}");
+    }
+
+    /**
+     * 启动Python进程，通过 stdin/stdout 消息帧发送请求并读取响应（按命令类型设置执行期限）
+     */
+    protected String execute(String action, String requestJson) throws Exception {
+        long timeoutMillis = timeoutFor(action, 0);
+        logger.debug("执行命令: {}", action);
+
+        // 请求只经过管道传递，命令行中不含健康数据
+        Process process = startProcess(engineProcess("--framed"));
+        AtomicBoolean timedOut = new AtomicBoolean();
+        ScheduledFuture<?> deadline = scheduleDeadline(process, timeoutMillis, timedOut);
+
+        try {
+            EngineFrameChannel channel = new EngineFrameChannel(
+                    process.getInputStream(), process.getOutputStream(), maxOutputChars);
+            String response;
+            try {
+                channel.write(frame(action, requestJson));
+                channel.closeOutput();
+                response = channel.read();
+            } catch (EngineFrameChannel.FrameTooLargeException e) {
+                throw outputTooLarge(process);
+            } catch (IOException e) {
+                checkTimeout(timedOut, action, timeoutMillis);
+                throw e;
+            }
+
+            // 响应读完后等待退出；仍受执行期限约束
+            int exitCode = process.waitFor();
+            checkTimeout(timedOut, action, timeoutMillis);
+            if (response == null) {
+                throw new RuntimeException("Python引擎未返回结果，退出码: " + exitCode);
+            }
+            return response;
+        } finally {
+            deadline.cancel(false);
+            release(process);
+        }
+    }
+
+    /**
+     * 启动一次Python进程，逐行写入报告并逐行读取结果
+     */
+    @Override
+    public void generatePlans(List<String> requests, ResultHandler handler) throws Exception {
+        String action = "generate_plans_batch";
+        // 标准输出只承载结果行
+        Process process = startProcess(engineProcess(action));
+        // 整批期限随报告数增长
+        long timeoutMillis = timeoutFor(action, requests.size());
+        AtomicBoolean timedOut = new AtomicBoolean();
+        ScheduledFuture<?> deadline = scheduleDeadline(process, timeoutMillis, timedOut);
+
+        // 单独线程写入，避免输入输出管道互相阻塞
+        Thread writer = new Thread(() -> {
+            try (BufferedWriter out = new BufferedWriter(
+                    new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8))) {
+                for (String line : requests) {
+                    out.write(line);
+                    out.newLine();
+                }
+            } catch (IOException e) {
+                logger.warn("写入批量请求中断: {}", e.getMessage());
+            }
+        }, "python-batch-writer");
+        writer.setDaemon(true);
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            writer.start();
+            StringBuilder buffer = new StringBuilder();
+            String line;
+            while ((line = readLine(reader, buffer, process)) != null) {
+                JsonObject item;
+                try {
+                    item = gson.fromJson(line, JsonObject.class);
+                } catch (RuntimeException e) {
+                    logger.debug("跳过非JSON输出: {}", line);
+                    continue;
+                }
+                if (item == null || item.has("done") || !item.has("index")) {
+                    continue;
+                }
+                int index = item.remove("index").getAsInt();
+                item.remove("user_id");
+                handler.handle(index, gson.toJson(item));
+            }
+
+            int exitCode = process.waitFor();
+            writer.join();
+            checkTimeout(timedOut, action, timeoutMillis);
+            if (exitCode != 0) {
+                throw new RuntimeException("Python批量进程退出码: " + exitCode);
+            }
+        } catch (IOException e) {
+            checkTimeout(timedOut, action, timeoutMillis);
+            throw e;
+        } finally {
+            deadline.cancel(false);
+            release(process);
+        }
+    }
+
+    /**
+     * 读取一行输出，单行超过输出上限时结束进程
+     */
+    private String readLine(BufferedReader reader, StringBuilder line, Process process)
+            throws IOException, EngineUnavailableException {
+        line.setLength(0);
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (c == '\n') {
+                return line.toString();
+            }
+            if (c != '\r') {
+                if (line.length() >= maxOutputChars) {
+                    throw outputTooLarge(process);
+                }
+                line.append((char) c);
+            }
+        }
+        return line.length() > 0 ? line.toString() : null;
+    }
+
+    /**
+     * 请求帧 {"action": ..., "data": ...}
+     */
+    protected String frame(String action, String requestJson) {
+        return "{\"action\":" + gson.toJson(action) + ",\"data\":" + requestJson + "}";
+    }
+
+    /**
+     * 命令执行期限：可按命令单独配置，批量命令按报告数累加
+     */
+    protected long timeoutFor(String action, int plans) {
+        long base = AppConfig.getLong("healthsmart.engine.timeout-ms." + action,
+                "health".equals(action) ? Math.min(5000, defaultTimeoutMillis) : defaultTimeoutMillis);
+        return base + plans * batchTimeoutPerPlanMillis;
+    }
+
+    protected Process startProcess(ProcessBuilder processBuilder) throws EngineUnavailableException {
+        try {
+            Process process = processBuilder.start();
+            liveProcesses.add(process);
+            return process;
+        } catch (IOException e) {
+            throw new EngineUnavailableException("智能引擎无法启动: " + e.getMessage(), e);
+        }
+    }
+
+    protected ScheduledFuture<?> scheduleDeadline(Process process, long timeoutMillis, AtomicBoolean timedOut) {
+        return watchdog.schedule(() -> {
+            if (process.isAlive()) {
+                timedOut.set(true);
+                destroyTree(process);
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    protected void checkTimeout(AtomicBoolean timedOut, String action, long timeoutMillis)
+            throws EngineUnavailableException {
+        if (timedOut.get()) {
+            timeouts.incrementAndGet();
+            logger.error("Python引擎执行超时 ({} ms)，已结束进程: {}", timeoutMillis, action);
+            throw new EngineUnavailableException("智能引擎响应超时，请稍后重试");
+        }
+    }
+
+    /**
+     * 输出超限按引擎不可用处理：进程已结束，调用方与超时一样提示稍后重试
+     */
+    protected EngineUnavailableException outputTooLarge(Process process) {
+        outputLimitExceeded.incrementAndGet();
+        destroyTree(process);
+        logger.error("Python引擎输出超过 {} 字符上限，已结束进程", maxOutputChars);
+        return new EngineUnavailableException("智能引擎输出超过 " + maxOutputChars + " 字符上限，请稍后重试");
+    }
+
+    /**
+     * 结束进程及其子进程，并移出运行列表
+     */
+    protected void release(Process process) {
+        liveProcesses.remove(process);
+        if (process.isAlive()) {
+            destroyTree(process);
+        }
+    }
+
+    protected static void destroyTree(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    /**
+     * 结束所有正在运行的Python进程
+     */
+    @Override
+    public void close() {
+        for (Process process : liveProcesses) {
+            destroyTree(process);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("liveProcesses", liveProcesses.size());
+        stats.put("timeouts", timeouts.get());
+        stats.put("outputLimitExceeded", outputLimitExceeded.get());
+        return stats;
+    }
+
+    /**
+     * 引擎版本：Python源码的内容摘要
+     */
+    @Override
+    public String getVersion() {
+        if (version == null) {
+            version = hashSources();
+        }
+        return version;
+    }
+
+    private String hashSources() {
+        Path engineDir = projectRoot.resolve(ENGINE_DIR);
+        try (Stream<Path> files = Files.list(engineDir)) {
+            MessageDigest digest = HashUtil.sha256();
+            List<Path> sources = files.filter(f -> f.getFileName().toString().endsWith(".py")).sorted().toList();
+            for (Path source : sources) {
+                digest.update(source.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+                digest.update(Files.readAllBytes(source));
+            }
+            return "py-" + HashUtil.toHex(digest.digest()).substring(0, 12);
+        } catch (IOException e) {
+            logger.warn("无法读取Python引擎源码计算版本: {}", e.getMessage());
+            return "unknown";
+        }
+    }
+}
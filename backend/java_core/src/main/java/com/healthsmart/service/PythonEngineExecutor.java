@@ -1,21 +1,25 @@
 package com.healthsmart.service;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.healthsmart.model.HealthReport;
+import com.healthsmart.util.AppConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Python引擎执行器
- * 负责与Python智能引擎进行进程间通信，调用计划生成等核心算法
+ * 负责构建引擎请求、计划结果缓存、熔断与调用统计，调用计划生成等核心算法；
+ * 具体执行由 healthsmart.engine.mode 选择的 {@link PlanEngine} 实现完成
  */
 public class PythonEngineExecutor {
     
@@ -24,15 +28,29 @@ public class PythonEngineExecutor {
     private static PythonEngineExecutor instance;
     private final Gson gson = new Gson();
     
-    private static String PYTHON_SCRIPT_PATH;
-    private static final String PYTHON_EXECUTABLE = "python";
+    // 引擎实现: process（每次启动Python进程）、worker（常驻进程池）、stub（桩引擎，用于压测和离线运行）
+    private final PlanEngine engine;
+
+    // 正在执行的调用数与累计调用次数（健康检查与监控使用）
+    private final AtomicInteger activeProcesses = new AtomicInteger();
+    private final AtomicLong totalInvocations = new AtomicLong();
+    private final AtomicLong failedInvocations = new AtomicLong();
+    private final EngineCircuitBreaker breaker = new EngineCircuitBreaker();
+
+    // 引擎版本（规则变化时改变，用于计划缓存失效）与计划结果缓存
+    private final String engineVersion;
+    private final PlanResultCache planCache;
+    private final AtomicBoolean cachePurged = new AtomicBoolean();
     
     private PythonEngineExecutor() {
-        // 初始化Python脚本路径
-        String projectRoot = System.getProperty("user.dir");
-        PYTHON_SCRIPT_PATH = projectRoot + File.separator + "backend" + 
-                            File.separator + "python_engine" + File.separator + "api_service.py";
-        logger.info("Python引擎脚本路径: {}", PYTHON_SCRIPT_PATH);
+        String mode = AppConfig.getString("healthsmart.engine.mode", "process");
+        engine = PlanEngineProvider.load(mode);
+        logger.info("计划引擎实现: {}", engine.getName());
+
+        engineVersion = resolveEngineVersion();
+        logger.info("Python引擎版本: {}", engineVersion);
+        planCache = AppConfig.getBoolean("healthsmart.plan-cache.enabled", true)
+                ? new PlanResultCache(engineVersion) : null;
     }
     
     /**
@@ -46,40 +64,264 @@ public class PythonEngineExecutor {
     }
     
     /**
-     * 执行Python脚本并获取结果
+     * 一次引擎调用
      */
-    private String executePython(String[] command) throws Exception {
-        ProcessBuilder processBuilder = new ProcessBuilder(command);
-        processBuilder.redirectErrorStream(true);
-        
-        logger.debug("执行命令: {}", String.join(" ", command));
-        
-        Process process = processBuilder.start();
-        
-        StringBuilder output = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
+    private interface EngineCall {
+        String call() throws Exception;
+    }
+
+    /**
+     * 执行一条引擎命令并获取结果（熔断与统计）；success 为 false 的响应按执行失败处理
+     *
+     * 只有调用本身失败（异常、超时、引擎不可用、无法解析的输出）才计入熔断；
+     * 引擎正常应答的 success 为 false 多由请求数据引起，按熔断成功记录，
+     * 避免个别用户的错误输入让所有人的调用被熔断。
+     *
+     * @param action 命令名
+     * @throws EngineUnavailableException 引擎熔断、超时、输出超限或无法启动
+     */
+    private String execute(String action, EngineCall call) throws Exception {
+        if (!breaker.tryAcquire()) {
+            throw unavailable();
+        }
+        totalInvocations.incrementAndGet();
+        activeProcesses.incrementAndGet();
+        String result;
+        JsonObject response;
+        try {
+            result = call.call();
+            response = gson.fromJson(result, JsonObject.class);
+            if (response == null) {
+                throw new RuntimeException("Python引擎未返回结果: " + action);
             }
+        } catch (Exception e) {
+            failedInvocations.incrementAndGet();
+            breaker.onFailure();
+            throw e;
+        } finally {
+            activeProcesses.decrementAndGet();
         }
-        
-        int exitCode = process.waitFor();
-        if (exitCode != 0) {
-            logger.error("Python执行失败，退出码: {}, 输出: {}", exitCode, output.toString());
-            throw new RuntimeException("Python引擎执行失败: " + output.toString());
+        breaker.onSuccess();
+        if (response.has("success") && !response.get("success").getAsBoolean()) {
+            failedInvocations.incrementAndGet();
+            logger.error("Python执行失败: {} {}", action, result);
+            throw new RuntimeException("Python引擎执行失败: " + result);
         }
-        
-        return output.toString().trim();
+        return result;
     }
-    
+
     /**
      * 根据健康报告生成长达30天的月度计划
      */
     public String generateMonthlyPlan(HealthReport report) throws Exception {
-        // 构建请求JSON
+        return generatePlanDays(report, 1, 0);
+    }
+
+    /**
+     * 只生成计划中第 startDay 天起的 days 天（滚动窗口模式，days 不大于0时生成整月）
+     */
+    public String generatePlanDays(HealthReport report, int startDay, int days) throws Exception {
+        JsonObject requestJson = buildPlanRequest(report, startDay, days);
+
+        // 相同输入且引擎版本未变时直接复用已生成的计划
+        String cacheKey = null;
+        if (planCache != null) {
+            cacheKey = planCache.fingerprint(requestJson);
+            String cached = planCache.get(cacheKey);
+            if (cached != null) {
+                logger.debug("计划缓存命中: {}", cacheKey);
+                return cached;
+            }
+        }
+
+        // 执行Python命令
+        String json = gson.toJson(requestJson);
+        String result = execute("generate_plan", () -> engine.generatePlan(json));
+        cacheResult(cacheKey, result);
+        
+        return result;
+    }
+
+    /**
+     * 单条计划结果回调（批量生成时每收到一条结果调用一次）
+     */
+    public interface PlanResultListener {
+        void onResult(HealthReport report, String result) throws Exception;
+    }
+
+    /**
+     * 批量生成月度计划：缓存未命中的报告通过一次Python进程以 JSON Lines 流式处理，
+     * 每收到一条结果立即回调。单条失败（引擎报错或回调抛出异常）不影响其余报告，
+     * 进程异常退出时未返回结果的报告以失败结果回调。
+     *
+     * @return 汇总统计（total / cached / generated / failed / elapsedMs）
+     */
+    public Map<String, Object> generateMonthlyPlans(List<HealthReport> reports, PlanResultListener listener)
+            throws Exception {
+        return generateMonthlyPlans(reports, 0, listener);
+    }
+
+    /**
+     * 批量生成月度计划；windowDays 大于0时每份报告只生成从窗口起始日开始的 windowDays 天
+     */
+    public Map<String, Object> generateMonthlyPlans(List<HealthReport> reports, int windowDays,
+                                                    PlanResultListener listener) throws Exception {
+        long start = System.currentTimeMillis();
+        BatchProgress progress = new BatchProgress(listener);
+
+        List<HealthReport> pending = new ArrayList<>();
+        List<String> pendingKeys = new ArrayList<>();
+        List<String> pendingLines = new ArrayList<>();
+        for (HealthReport report : reports) {
+            int startDay = windowDays > 0 ? PlanGenerationService.windowStartDay(report.getReportMonth()) : 1;
+            JsonObject requestJson = buildPlanRequest(report, startDay, windowDays);
+            String cacheKey = planCache != null ? planCache.fingerprint(requestJson) : null;
+            String cached = cacheKey != null ? planCache.get(cacheKey) : null;
+            if (cached != null) {
+                progress.cached++;
+                progress.deliver(report, cached);
+            } else {
+                pending.add(report);
+                pendingKeys.add(cacheKey);
+                pendingLines.add(gson.toJson(requestJson));
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            boolean[] delivered = new boolean[pending.size()];
+            String failureMessage = "Python引擎未返回该报告的结果";
+            PlanEngine.ResultHandler handler = (index, result) -> {
+                if (index < 0 || index >= pending.size() || delivered[index]) {
+                    logger.warn("忽略无法对应的批量结果，序号: {}", index);
+                    return;
+                }
+                delivered[index] = true;
+                progress.generated++;
+                cacheResult(pendingKeys.get(index), result);
+                progress.deliver(pending.get(index), result);
+            };
+            try {
+                executeBatch(pendingLines, handler);
+            } catch (EngineUnavailableException e) {
+                failureMessage = e.getMessage();
+                logger.error("批量计划生成失败: {}", e.getMessage());
+            } catch (Exception e) {
+                logger.error("批量计划生成进程异常: {}", e.getMessage());
+            }
+
+            for (int i = 0; i < pending.size(); i++) {
+                if (!delivered[i]) {
+                    JsonObject failure = new JsonObject();
+                    failure.addProperty("success", false);
+                    failure.addProperty("message", failureMessage);
+                    progress.deliver(pending.get(i), gson.toJson(failure));
+                }
+            }
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("total", reports.size());
+        summary.put("cached", progress.cached);
+        summary.put("generated", progress.generated);
+        summary.put("failed", progress.failed);
+        summary.put("elapsedMs", System.currentTimeMillis() - start);
+        logger.info("批量计划生成完成: {}", summary);
+        return summary;
+    }
+
+    /**
+     * 执行一次批量生成（与单条调用共用熔断与统计）
+     */
+    private void executeBatch(List<String> lines, PlanEngine.ResultHandler handler) throws Exception {
+        if (!breaker.tryAcquire()) {
+            throw unavailable();
+        }
+        totalInvocations.incrementAndGet();
+        activeProcesses.incrementAndGet();
+        try {
+            engine.generatePlans(lines, handler);
+            breaker.onSuccess();
+        } catch (Exception e) {
+            failedInvocations.incrementAndGet();
+            breaker.onFailure();
+            throw e;
+        } finally {
+            activeProcesses.decrementAndGet();
+        }
+    }
+
+    private EngineUnavailableException unavailable() {
+        long seconds = Math.max(1, (breaker.retryAfterMillis() + 999) / 1000);
+        return new EngineUnavailableException("智能引擎暂时不可用，请约 " + seconds + " 秒后重试");
+    }
+
+    /**
+     * 结束所有正在执行的引擎调用（服务停止时调用）
+     */
+    public void cancelAll() {
+        engine.close();
+    }
+
+    /**
+     * 批量生成进度
+     */
+    private class BatchProgress {
+        final PlanResultListener listener;
+        int cached;
+        int generated;
+        int failed;
+
+        BatchProgress(PlanResultListener listener) {
+            this.listener = listener;
+        }
+
+        void deliver(HealthReport report, String result) {
+            boolean itemFailed;
+            try {
+                JsonObject response = gson.fromJson(result, JsonObject.class);
+                itemFailed = response == null || !response.has("success") || !response.get("success").getAsBoolean();
+                listener.onResult(report, result);
+            } catch (Exception e) {
+                itemFailed = true;
+                logger.error("用户 {} 的计划结果处理失败: {}", report.getUserId(), e.getMessage());
+            }
+            if (itemFailed) {
+                failed++;
+            }
+        }
+    }
+
+    /**
+     * 比较两份报告中会影响计划生成的字段
+     *
+     * @return 取值不同的请求字段名（为空表示引擎输入相同）
+     */
+    public List<String> diffPlanInputs(HealthReport previous, HealthReport current) {
+        JsonObject before = buildPlanRequest(previous, 1, 0);
+        JsonObject after = buildPlanRequest(current, 1, 0);
+        List<String> changed = new ArrayList<>();
+        for (String field : after.keySet()) {
+            if (!after.get(field).equals(before.get(field))) {
+                changed.add(field);
+            }
+        }
+        for (String field : before.keySet()) {
+            if (!after.has(field)) {
+                changed.add(field);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * 构建计划生成请求JSON（days 大于0时附带生成窗口，整月请求不含窗口字段，缓存键保持不变）
+     */
+    private JsonObject buildPlanRequest(HealthReport report, int startDay, int days) {
         JsonObject requestJson = new JsonObject();
+        if (days > 0) {
+            requestJson.addProperty("start_day", startDay);
+            requestJson.addProperty("days", days);
+        }
         requestJson.addProperty("user_id", report.getUserId());
         requestJson.addProperty("report_month", report.getReportMonth());
         requestJson.addProperty("height", report.getHeight());
@@ -144,13 +386,47 @@ public class PythonEngineExecutor {
             requestJson.addProperty("energy_level", report.getEnergyLevel());
         }
         
-        // 执行Python命令
-        String jsonInput = gson.toJson(requestJson);
-        String[] command = {PYTHON_EXECUTABLE, PYTHON_SCRIPT_PATH, "generate_plan", jsonInput};
-        
-        String result = executePython(command);
-        
-        return result;
+        return requestJson;
+    }
+
+    private void cacheResult(String cacheKey, String result) {
+        if (cacheKey != null) {
+            String payload = toCachePayload(result);
+            if (payload != null) {
+                planCache.put(cacheKey, payload);
+            }
+        }
+    }
+
+    /**
+     * 去掉结果中的用户与月份标识，只缓存成功的结果
+     */
+    private String toCachePayload(String result) {
+        try {
+            JsonObject response = gson.fromJson(result, JsonObject.class);
+            if (response == null || !response.has("success") || !response.get("success").getAsBoolean()) {
+                return null;
+            }
+            JsonObject data = response.has("data") && response.get("data").isJsonObject()
+                    ? response.getAsJsonObject("data") : response;
+            if (data.has("plan") && data.get("plan").isJsonObject()) {
+                JsonObject plan = data.getAsJsonObject("plan");
+                plan.remove("user_id");
+                plan.remove("plan_month");
+                if (plan.has("daily_plans") && plan.get("daily_plans").isJsonArray()) {
+                    // 任务日期由Java端按报告月份计算
+                    for (JsonElement day : plan.getAsJsonArray("daily_plans")) {
+                        if (day.isJsonObject()) {
+                            day.getAsJsonObject().remove("date");
+                        }
+                    }
+                }
+            }
+            return gson.toJson(response);
+        } catch (RuntimeException e) {
+            logger.warn("计划结果无法缓存: {}", e.getMessage());
+            return null;
+        }
     }
     
     /**
@@ -164,11 +440,8 @@ public class PythonEngineExecutor {
         requestJson.addProperty("day_number", dayNumber);
         requestJson.addProperty("date", date);
         
-        String jsonInput = gson.toJson(requestJson);
-        String[] command = {PYTHON_EXECUTABLE, PYTHON_SCRIPT_PATH, 
-                           "daily_recommendation", jsonInput};
-        
-        String result = executePython(command);
+        String json = gson.toJson(requestJson);
+        String result = execute("daily_recommendation", () -> engine.dailyRecommendation(json));
         
         return result;
     }
@@ -177,24 +450,69 @@ public class PythonEngineExecutor {
      * 健康数据分析
      */
     public String analyzeHealth(HealthReport report) throws Exception {
-        String jsonInput = gson.toJson(report);
-        String[] command = {PYTHON_EXECUTABLE, PYTHON_SCRIPT_PATH, "analyze_health", jsonInput};
-        
-        String result = executePython(command);
+        String json = gson.toJson(report);
+        String result = execute("analyze_health", () -> engine.analyze(json));
         
         return result;
     }
     
+    /**
+     * 引擎运行状态
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("mode", engine.getName());
+        status.put("activeProcesses", activeProcesses.get());
+        status.put("totalInvocations", totalInvocations.get());
+        status.put("failedInvocations", failedInvocations.get());
+        status.putAll(engine.getStats());
+        status.put("breaker", breaker.getStats());
+        status.put("version", engineVersion);
+        if (planCache != null) {
+            status.put("planCache", planCache.getStats());
+        }
+        return status;
+    }
+
+    /**
+     * 引擎版本，记录在计划的 generation_method 中
+     */
+    public String getEngineVersion() {
+        return engineVersion;
+    }
+
+    /**
+     * 清理旧引擎版本和超出上限的计划缓存（数据库初始化之后调用，只执行一次）
+     */
+    public void purgeStalePlanCache() {
+        if (planCache != null && cachePurged.compareAndSet(false, true)) {
+            planCache.purgeStaleVersions();
+        }
+    }
+
+    /**
+     * 确定引擎版本：优先使用配置，否则由引擎实现提供（Python引擎取源码的内容摘要）
+     */
+    private String resolveEngineVersion() {
+        String configured = AppConfig.getString("healthsmart.engine.version", null);
+        if (configured != null && !configured.isBlank()) {
+            return configured;
+        }
+        return engine.getVersion();
+    }
+
     /**
      * 检查Python引擎是否可用
      */
     public boolean checkEngineHealth() {
         try {
-            String[] command = {PYTHON_EXECUTABLE, PYTHON_SCRIPT_PATH, "health"};
-            String result = executePython(command);
+            String result = execute("health", engine::health);
             
             JsonObject response = gson.fromJson(result, JsonObject.class);
             return response.get("status") != null && response.get("status").getAsString().equals("ok");
+        } catch (EngineUnavailableException e) {
+            logger.debug("Python引擎健康检查跳过: {}", e.getMessage());
+            return false;
         } catch (Exception e) {
             logger.error("Python引擎健康检查失败", e);
             return false;
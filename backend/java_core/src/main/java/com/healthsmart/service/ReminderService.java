@@ -33,7 +33,7 @@ public class ReminderService {
                      "reminder_type, title, content) VALUES (?, ?, ?, ?, ?, ?, ?)";
         
         try (Connection conn = com.healthsmart.util.DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setInt(1, userId);
             pstmt.setInt(2, taskId);
@@ -46,11 +46,7 @@ public class ReminderService {
             int affectedRows = pstmt.executeUpdate();
             
             if (affectedRows > 0) {
-                try (ResultSet rs = pstmt.getGeneratedKeys()) {
-                    if (rs.next()) {
-                        return rs.getInt(1);
-                    }
-                }
+                return com.healthsmart.util.DatabaseConnection.lastInsertId(conn);
             }
             return -1;
         }
@@ -0,0 +1,216 @@
+package com.healthsmart.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.healthsmart.util.AppConfig;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * 计划引擎桩实现
+ * Stub Plan Engine
+ *
+ * 不启动Python进程，按输入确定性地返回与 api_service.py 相同结构的JSON，
+ * 并可模拟可配置的引擎延迟（healthsmart.engine.stub-latency-ms）。用于压测与离线环境下的可重复运行。
+ */
+public class StubPlanEngine implements PlanEngine {
+
+    private static final String[] BREAKFASTS = {"燕麦粥、鸡蛋、圣女果", "全麦面包、低脂牛奶、香蕉", "蔬菜沙拉、水煮蛋、无糖豆浆"};
+    private static final String[] LUNCHES = {"鸡胸肉沙拉、全麦面包、蔬菜汤", "糙米饭、清蒸鱼、时令蔬菜", "藜麦沙拉、水煮虾、西兰花"};
+    private static final String[] DINNERS = {"蔬菜汤、清蒸鸡胸肉、小份水果", "蔬菜沙拉、水煮虾、无糖酸奶", "蒸蛋羹、蔬菜、少量水果"};
+    private static final String[] SNACKS = {"苹果", "酸奶小杯", "坚果少量"};
+
+    private final Gson gson = new Gson();
+    private final long latencyMillis;
+
+    public StubPlanEngine(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    /**
+     * ServiceLoader 注册入口
+     */
+    public static class Provider implements PlanEngineProvider {
+        @Override
+        public String getName() {
+            return "stub";
+        }
+
+        @Override
+        public PlanEngine create() {
+            return new StubPlanEngine(AppConfig.getLong("healthsmart.engine.stub-latency-ms", 0));
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "stub";
+    }
+
+    @Override
+    public String getVersion() {
+        return "stub-1";
+    }
+
+    @Override
+    public String generatePlan(String requestJson) throws InterruptedException {
+        return execute("generate_plan", requestJson);
+    }
+
+    @Override
+    public String dailyRecommendation(String requestJson) throws InterruptedException {
+        return execute("daily_recommendation", requestJson);
+    }
+
+    @Override
+    public String analyze(String requestJson) throws InterruptedException {
+        return execute("analyze_health", requestJson);
+    }
+
+    @Override
+    public String health() throws InterruptedException {
+        return execute("health", "{}");
+    }
+
+    /**
+     * 按命令名和请求JSON返回桩响应
+     */
+    String execute(String action, String requestJson) throws InterruptedException {
+        if (latencyMillis > 0) {
+            Thread.sleep(latencyMillis);
+        }
+        JsonObject input = requestJson != null ? gson.fromJson(requestJson, JsonObject.class) : new JsonObject();
+
+        switch (action) {
+            case "health":
+                JsonObject health = new JsonObject();
+                health.addProperty("status", "ok");
+                health.addProperty("message", "Stub engine is running");
+                return gson.toJson(health);
+            case "generate_plan":
+                JsonObject data = new JsonObject();
+                JsonObject analysis = analysis(input);
+                data.add("analysis", analysis);
+                data.add("plan", plan(input, analysis));
+                return gson.toJson(envelope(data, "计划生成成功"));
+            case "analyze_health":
+                return gson.toJson(envelope(analysis(input), "健康分析成功"));
+            case "daily_recommendation":
+                int dayNumber = input.has("day_number") ? input.get("day_number").getAsInt() : 1;
+                String date = input.has("date") ? input.get("date").getAsString() : LocalDate.now().toString();
+                return gson.toJson(envelope(dailyPlan(dayNumber, date, 1800), "每日推荐生成成功"));
+            default:
+                JsonObject error = new JsonObject();
+                error.addProperty("success", false);
+                error.addProperty("message", "Unknown action: " + action);
+                return gson.toJson(error);
+        }
+    }
+
+    /**
+     * 批量生成：整批只计一次模拟延迟（对应一次进程启动），逐条回调结果
+     */
+    @Override
+    public void generatePlans(List<String> requests, ResultHandler handler) throws InterruptedException {
+        if (latencyMillis > 0) {
+            Thread.sleep(latencyMillis);
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            JsonObject input = gson.fromJson(requests.get(i), JsonObject.class);
+            JsonObject data = new JsonObject();
+            JsonObject analysis = analysis(input);
+            data.add("analysis", analysis);
+            data.add("plan", plan(input, analysis));
+            handler.handle(i, gson.toJson(envelope(data, "计划生成成功")));
+        }
+    }
+
+    private JsonObject envelope(JsonObject data, String message) {
+        JsonObject result = new JsonObject();
+        result.addProperty("success", true);
+        result.add("data", data);
+        result.addProperty("message", message);
+        return result;
+    }
+
+    private JsonObject analysis(JsonObject input) {
+        double height = number(input, "height", 170);
+        double weight = number(input, "weight", 70);
+        double bmi = Math.round(weight / Math.pow(height / 100, 2) * 10) / 10.0;
+        int exerciseFrequency = (int) number(input, "exercise_frequency", 2);
+        String activityLevel = exerciseFrequency <= 1 ? "sedentary"
+                : exerciseFrequency <= 3 ? "low_active"
+                : exerciseFrequency <= 5 ? "active" : "very_active";
+        String goal = input.has("health_goal") ? input.get("health_goal").getAsString() : "maintain_weight";
+        double bmr = 10 * weight + 6.25 * height - 5 * 30 - 78;
+        int targetCalories = (int) Math.round(bmr * (1.2 + 0.075 * exerciseFrequency)
+                + ("lose_weight".equals(goal) ? -400 : "gain_muscle".equals(goal) ? 300 : 0));
+
+        JsonObject nutrients = new JsonObject();
+        nutrients.addProperty("protein", Math.round(targetCalories * 0.15 / 4 * 10) / 10.0);
+        nutrients.addProperty("carbs", Math.round(targetCalories * 0.50 / 4 * 10) / 10.0);
+        nutrients.addProperty("fat", Math.round(targetCalories * 0.35 / 9 * 10) / 10.0);
+
+        JsonObject analysis = new JsonObject();
+        analysis.addProperty("bmi", bmi);
+        analysis.addProperty("bmi_category", bmi < 18.5 ? "underweight" : bmi < 24 ? "normal" : bmi < 28 ? "overweight" : "obese");
+        analysis.addProperty("bmr", Math.round(bmr * 100) / 100.0);
+        analysis.addProperty("activity_level", activityLevel);
+        analysis.addProperty("target_calories", targetCalories);
+        analysis.add("nutrient_targets", nutrients);
+        analysis.add("warnings", new JsonArray());
+        analysis.addProperty("health_goal", goal);
+        return analysis;
+    }
+
+    private JsonObject plan(JsonObject input, JsonObject analysis) {
+        int targetCalories = analysis.get("target_calories").getAsInt();
+        String month = input.has("report_month") ? input.get("report_month").getAsString() : "";
+        LocalDate start = month.isEmpty() ? LocalDate.now().withDayOfMonth(1)
+                : LocalDate.parse(month + "-01", DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+
+        // 与引擎一致：可只生成 start_day 起的 days 天
+        int startDay = Math.max(1, (int) number(input, "start_day", 1));
+        int endDay = input.has("days") ? Math.min(30, startDay + (int) number(input, "days", 30) - 1) : 30;
+        JsonArray dailyPlans = new JsonArray();
+        for (int day = startDay; day <= endDay; day++) {
+            dailyPlans.add(dailyPlan(day, start.plusDays(day - 1L).toString(), targetCalories));
+        }
+
+        JsonObject plan = new JsonObject();
+        plan.add("user_id", input.get("user_id"));
+        plan.addProperty("plan_month", month);
+        plan.addProperty("total_days", 30);
+        plan.addProperty("calorie_target", targetCalories);
+        plan.addProperty("exercise_sessions_per_week", 3);
+        plan.add("daily_plans", dailyPlans);
+        return plan;
+    }
+
+    private JsonObject dailyPlan(int dayNumber, String date, int calories) {
+        int i = dayNumber % 3;
+        JsonObject day = new JsonObject();
+        day.addProperty("day_number", dayNumber);
+        day.addProperty("date", date);
+        day.addProperty("meal_breakfast", BREAKFASTS[i]);
+        day.addProperty("meal_lunch", LUNCHES[i]);
+        day.addProperty("meal_dinner", DINNERS[i]);
+        day.addProperty("meal_snacks", SNACKS[i]);
+        day.addProperty("daily_calorie_goal", calories);
+        boolean rest = dayNumber % 7 == 0;
+        day.addProperty("exercise_type", rest ? "柔韧性训练" : "有氧运动");
+        day.addProperty("exercise_description", rest ? "瑜伽拉伸，放松肩颈与腰背" : "快走30分钟，保持中等心率");
+        day.addProperty("exercise_duration", rest ? 20 : 30);
+        day.addProperty("exercise_intensity", rest ? "low" : "medium");
+        day.addProperty("reminders", "记得保持充足的水分摄入，每天至少8杯水");
+        day.addProperty("notes", "");
+        return day;
+    }
+
+    private static double number(JsonObject input, String key, double defaultValue) {
+        return input.has(key) && !input.get(key).isJsonNull() ? input.get(key).getAsDouble() : defaultValue;
+    }
+}
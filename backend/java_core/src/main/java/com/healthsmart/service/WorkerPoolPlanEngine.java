@@ -0,0 +1,231 @@
+package com.healthsmart.service;
+
+import com.google.gson.JsonObject;
+import com.healthsmart.util.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 常驻进程池计划引擎
+ * Worker Pool Plan Engine
+ *
+ * 维护最多 healthsmart.engine.workers 个以 --framed 模式常驻的 api_service 进程，
+ * 请求通过消息帧发给空闲进程，省去每次调用的进程启动与模块导入。超时、输出过大或意外退出的
+ * 进程直接结束，下次调用时重新启动；每个进程处理 worker-max-requests 条请求后轮换。
+ * 批量生成把报告分给各进程并行处理。
+ */
+public class WorkerPoolPlanEngine extends ProcessPlanEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkerPoolPlanEngine.class);
+
+    private final int poolSize = Math.max(1, AppConfig.getInt("healthsmart.engine.workers", 2));
+    private final int maxRequestsPerWorker = AppConfig.getInt("healthsmart.engine.worker-max-requests", 1000);
+
+    // 空闲进程与同时使用中的进程数上限
+    private final BlockingQueue<Worker> idle = new LinkedBlockingQueue<>();
+    private final Semaphore slots = new Semaphore(poolSize);
+    private final AtomicLong workersStarted = new AtomicLong();
+    private final AtomicLong workersRetired = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * 一个常驻引擎进程
+     */
+    private static class Worker {
+        final Process process;
+        final EngineFrameChannel channel;
+        int requests;
+
+        Worker(Process process, EngineFrameChannel channel) {
+            this.process = process;
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * ServiceLoader 注册入口
+     */
+    public static class Provider implements PlanEngineProvider {
+        @Override
+        public String getName() {
+            return "worker";
+        }
+
+        @Override
+        public PlanEngine create() {
+            return new WorkerPoolPlanEngine();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "worker";
+    }
+
+    /**
+     * 取一个空闲进程发送请求帧并读取响应帧；等待空闲进程的时间计入执行期限
+     */
+    @Override
+    protected String execute(String action, String requestJson) throws Exception {
+        long timeoutMillis = timeoutFor(action, 0);
+        long startNanos = System.nanoTime();
+        if (closed) {
+            throw new EngineUnavailableException("智能引擎已停止");
+        }
+        if (!slots.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+            throw new EngineUnavailableException("智能引擎工作进程繁忙，请稍后重试");
+        }
+        Worker worker = null;
+        boolean reusable = false;
+        try {
+            worker = idle.poll();
+            if (worker != null && !worker.process.isAlive()) {
+                retire(worker);
+                worker = null;
+            }
+            if (worker == null) {
+                worker = startWorker();
+            }
+
+            // 进程只得到执行期限的剩余部分，整次调用不超过 timeoutMillis
+            long remainingMillis = timeoutMillis - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            if (remainingMillis <= 0) {
+                reusable = true;
+                throw new EngineUnavailableException("智能引擎工作进程繁忙，请稍后重试");
+            }
+            AtomicBoolean timedOut = new AtomicBoolean();
+            ScheduledFuture<?> deadline = scheduleDeadline(worker.process, remainingMillis, timedOut);
+            try {
+                String response;
+                try {
+                    worker.channel.write(frame(action, requestJson));
+                    response = worker.channel.read();
+                } catch (EngineFrameChannel.FrameTooLargeException e) {
+                    throw outputTooLarge(worker.process);
+                } catch (IOException e) {
+                    checkTimeout(timedOut, action, timeoutMillis);
+                    throw e;
+                }
+                if (response == null) {
+                    checkTimeout(timedOut, action, timeoutMillis);
+                    throw new RuntimeException("Python工作进程意外退出，退出码: " + worker.process.waitFor());
+                }
+                reusable = ++worker.requests < maxRequestsPerWorker;
+                return response;
+            } finally {
+                deadline.cancel(false);
+            }
+        } finally {
+            if (worker != null) {
+                if (reusable && !closed && worker.process.isAlive()) {
+                    idle.offer(worker);
+                } else {
+                    retire(worker);
+                }
+            }
+            slots.release();
+        }
+    }
+
+    /**
+     * 把报告分给各工作进程并行生成，结果按完成顺序串行回调；
+     * 引擎不可用时停止分发剩余报告并抛出
+     */
+    @Override
+    public void generatePlans(List<String> requests, ResultHandler handler) throws Exception {
+        AtomicInteger next = new AtomicInteger();
+        AtomicReference<EngineUnavailableException> unavailable = new AtomicReference<>();
+        Runnable drain = () -> {
+            int index;
+            while (unavailable.get() == null && (index = next.getAndIncrement()) < requests.size()) {
+                String result;
+                try {
+                    result = execute("generate_plan", requests.get(index));
+                } catch (EngineUnavailableException e) {
+                    unavailable.compareAndSet(null, e);
+                    return;
+                } catch (Exception e) {
+                    JsonObject failure = new JsonObject();
+                    failure.addProperty("success", false);
+                    failure.addProperty("message", e.getMessage());
+                    result = gson.toJson(failure);
+                }
+                synchronized (handler) {
+                    handler.handle(index, result);
+                }
+            }
+        };
+
+        int threads = Math.min(poolSize, requests.size());
+        List<Thread> drainers = new ArrayList<>();
+        for (int i = 1; i < threads; i++) {
+            Thread thread = new Thread(drain, "python-worker-batch-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            drainers.add(thread);
+        }
+        drain.run();
+        for (Thread thread : drainers) {
+            thread.join();
+        }
+        if (unavailable.get() != null) {
+            throw unavailable.get();
+        }
+    }
+
+    private Worker startWorker() throws EngineUnavailableException {
+        Process process = startProcess(engineProcess("--framed"));
+        workersStarted.incrementAndGet();
+        logger.debug("启动Python工作进程 pid={}", process.pid());
+        return new Worker(process, new EngineFrameChannel(
+                process.getInputStream(), process.getOutputStream(), maxOutputChars));
+    }
+
+    /**
+     * 关闭输入让进程自行退出，然后结束仍在运行的进程
+     */
+    private void retire(Worker worker) {
+        workersRetired.incrementAndGet();
+        try {
+            worker.channel.closeOutput();
+        } catch (IOException e) {
+            logger.debug("关闭工作进程输入失败: {}", e.getMessage());
+        }
+        release(worker.process);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Worker worker;
+        while ((worker = idle.poll()) != null) {
+            retire(worker);
+        }
+        super.close();
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = super.getStats();
+        stats.put("workers", poolSize);
+        stats.put("idleWorkers", idle.size());
+        stats.put("busyWorkers", poolSize - slots.availablePermits());
+        stats.put("workersStarted", workersStarted.get());
+        stats.put("workersRetired", workersRetired.get());
+        return stats;
+    }
+}
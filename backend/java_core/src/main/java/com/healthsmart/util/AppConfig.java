@@ -0,0 +1,71 @@
+package com.healthsmart.util;
+
+/**
+ * 应用配置读取工具
+ * Application Configuration Helper
+ *
+ * 优先读取JVM系统属性（-Dhealthsmart.xxx），其次读取环境变量（HEALTHSMART_XXX），
+ * 都未设置时使用调用方给出的默认值。
+ */
+public class AppConfig {
+
+    private AppConfig() {
+        // 私有构造函数，防止实例化
+    }
+
+    /**
+     * 读取字符串配置
+     */
+    public static String getString(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null || value.isEmpty()) {
+            value = System.getenv(toEnvName(key));
+        }
+        return value == null || value.isEmpty() ? defaultValue : value.trim();
+    }
+
+    /**
+     * 读取整数配置
+     */
+    public static int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * 读取长整数配置
+     */
+    public static long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * 读取布尔配置
+     */
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    /**
+     * healthsmart.db.url -> HEALTHSMART_DB_URL
+     */
+    private static String toEnvName(String key) {
+        return key.replace('.', '_').replace('-', '_').toUpperCase();
+    }
+}
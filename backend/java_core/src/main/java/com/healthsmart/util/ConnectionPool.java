@@ -0,0 +1,185 @@
+package com.healthsmart.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 数据库连接池
+ * Database Connection Pool
+ *
+ * 借出的连接是代理对象，close() 时归还到池中而不是真正关闭，
+ * 因此 DAO 的 try-with-resources 写法无需改动。
+ */
+public class ConnectionPool {
+
+    private final String url;
+    private final Properties properties;
+    private final int maxSize;
+    private final long waitMillis;
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<Connection> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong borrowed = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, Properties properties, int maxSize, long waitMillis) {
+        this.url = url;
+        this.properties = properties;
+        this.maxSize = maxSize;
+        this.waitMillis = waitMillis;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * 借出连接，池满时最多等待 waitMillis
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("数据库连接池已关闭");
+        }
+        waiting.incrementAndGet();
+        try {
+            if (!permits.tryAcquire(waitMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new SQLException("获取数据库连接超时（连接池大小 " + maxSize + "）");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("获取数据库连接被中断", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+
+        try {
+            Connection physical = idle.pollFirst();
+            if (physical == null || physical.isClosed()) {
+                physical = DriverManager.getConnection(url, properties);
+                open.incrementAndGet();
+                created.incrementAndGet();
+            }
+            borrowed.incrementAndGet();
+            return wrap(physical);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void giveBack(Connection physical) {
+        try {
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (closed) {
+                closePhysical(physical);
+            } else {
+                idle.offerFirst(physical);
+            }
+        } catch (SQLException e) {
+            closePhysical(physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void closePhysical(Connection physical) {
+        try {
+            physical.close();
+        } catch (SQLException ignored) {
+            // 关闭失败不影响归还
+        }
+        open.decrementAndGet();
+    }
+
+    /**
+     * 关闭池中所有空闲连接，已借出的连接归还时关闭
+     */
+    public void close() {
+        closed = true;
+        Connection physical;
+        while ((physical = idle.pollFirst()) != null) {
+            closePhysical(physical);
+        }
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * 连接池状态
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        int idleCount = idle.size();
+        stats.put("maxSize", maxSize);
+        stats.put("open", open.get());
+        stats.put("idle", idleCount);
+        stats.put("active", maxSize - permits.availablePermits());
+        stats.put("waiting", waiting.get());
+        stats.put("borrowedTotal", borrowed.get());
+        stats.put("createdTotal", created.get());
+        stats.put("waitTimeouts", timeouts.get());
+        return stats;
+    }
+
+    private Connection wrap(Connection physical) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new PooledHandler(physical));
+    }
+
+    /**
+     * 代理处理器：拦截 close/isClosed，其余调用透传
+     */
+    private class PooledHandler implements InvocationHandler {
+        private final Connection physical;
+        private boolean released;
+
+        PooledHandler(Connection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        giveBack(physical);
+                    }
+                    return null;
+                case "isClosed":
+                    return released || physical.isClosed();
+                case "unwrap":
+                    return physical.unwrap((Class<?>) args[0]);
+                default:
+                    break;
+            }
+            if (released) {
+                throw new SQLException("连接已归还到连接池");
+            }
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
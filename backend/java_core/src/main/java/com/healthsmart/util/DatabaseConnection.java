@@ -1,17 +1,53 @@
 package com.healthsmart.util;
 
+import com.healthsmart.model.DailyTask;
+
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
 
 /**
  * 数据库连接管理类
  * Database Connection Manager
  */
 public class DatabaseConnection {
-    private static final String DB_URL = "jdbc:sqlite:backend/data/healthsmart.db";
-    private static Connection connection = null;
+    private static final String DEFAULT_DB_URL = "jdbc:sqlite:backend/data/healthsmart.db";
+    private static final int BUSY_TIMEOUT_MS = AppConfig.getInt("healthsmart.db.busy-timeout-ms", 5000);
+    private static final int POOL_SIZE = AppConfig.getInt("healthsmart.db.pool-size", 10);
+    private static final long POOL_WAIT_MS = AppConfig.getLong("healthsmart.db.pool-wait-ms", 5000);
+
+    /** 当前表结构版本，记录在 PRAGMA user_version 中 */
+    public static final int SCHEMA_VERSION = 4;
+
+    private static final String DAILY_TASKS_DDL = """
+            CREATE TABLE IF NOT EXISTS %s (
+                task_id INTEGER PRIMARY KEY AUTOINCREMENT,
+                plan_id INTEGER NOT NULL,
+                user_id INTEGER NOT NULL,
+                task_date TEXT NOT NULL,
+                template_id INTEGER,
+                is_completed INTEGER DEFAULT 0,
+                completion_rate REAL DEFAULT 0.0,
+                actual_calorie_intake INTEGER,
+                actual_exercise_duration INTEGER,
+                completed_at TEXT,
+                created_at TEXT DEFAULT (datetime('now', 'localtime')),
+                updated_at TEXT DEFAULT (datetime('now', 'localtime')),
+                FOREIGN KEY (plan_id) REFERENCES personalized_plans(plan_id) ON DELETE CASCADE,
+                FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE,
+                FOREIGN KEY (template_id) REFERENCES plan_day_templates(template_id)
+            )
+        """;
+
+    private static String dbUrl = AppConfig.getString("healthsmart.db.url", DEFAULT_DB_URL);
+    private static ConnectionPool pool;
 
     private DatabaseConnection() {
         // 私有构造函数，防止实例化
@@ -19,24 +55,95 @@ public class DatabaseConnection {
 
     /**
      * 获取数据库连接
+     * 从连接池借出，调用方关闭即归还（DAO 均使用 try-with-resources）。
+     * 每个请求线程持有独立连接，互不影响。
      */
     public static Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            connection = DriverManager.getConnection(DB_URL);
+        return getPool().borrow();
+    }
+
+    private static synchronized ConnectionPool getPool() {
+        if (pool == null) {
+            Properties props = new Properties();
+            props.setProperty("busy_timeout", String.valueOf(BUSY_TIMEOUT_MS));
+            pool = new ConnectionPool(dbUrl, props, POOL_SIZE, POOL_WAIT_MS);
         }
-        return connection;
+        return pool;
+    }
+
+    /**
+     * 连接池状态
+     */
+    public static Map<String, Object> getPoolStats() {
+        return getPool().getStats();
     }
 
     /**
-     * 关闭数据库连接
+     * 切换数据库地址（测试夹具、压测数据库使用）
      */
-    public static void closeConnection() {
+    public static synchronized void setDatabaseUrl(String url) {
+        closeConnection();
+        dbUrl = url;
+    }
+
+    /**
+     * 获取当前数据库地址
+     */
+    public static String getDatabaseUrl() {
+        return dbUrl;
+    }
+
+    /**
+     * 获取同一连接上最近一次插入的行ID
+     * sqlite-jdbc 3.43 起不再支持 getGeneratedKeys，统一改用 last_insert_rowid()
+     */
+    public static int lastInsertId(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT last_insert_rowid()")) {
+            return rs.next() ? rs.getInt(1) : -1;
+        }
+    }
+
+    /**
+     * 预热连接池：提前建立连接并加载表结构，
+     * 同时读取活跃计划，让常用页进入操作系统缓存
+     */
+    public static void prewarm(int connections) throws SQLException {
+        List<Connection> opened = new ArrayList<>();
         try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
+            for (int i = 0; i < connections; i++) {
+                Connection conn = getConnection();
+                opened.add(conn);
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(
+                         "SELECT COUNT(*) FROM personalized_plans WHERE plan_status = 'active'")) {
+                    rs.next();
+                }
+            }
+        } finally {
+            for (Connection conn : opened) {
+                conn.close();
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 读取库中记录的表结构版本
+     */
+    public static int getSchemaVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * 关闭数据库连接池
+     */
+    public static synchronized void closeConnection() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
         }
     }
 
@@ -44,8 +151,7 @@ public class DatabaseConnection {
      * 初始化数据库表结构
      */
     public static void initializeDatabase() {
-        try {
-            Connection conn = getConnection();
+        try (Connection conn = getConnection()) {
             Statement stmt = conn.createStatement();
 
             // 创建用户表
@@ -120,13 +226,11 @@ public class DatabaseConnection {
                 )
             """);
 
-            // 创建每日任务表
+            // 创建计划日模板表（v3：餐食、运动、注意事项内容按摘要去重，多个任务共用）
             stmt.execute("""
-                CREATE TABLE IF NOT EXISTS daily_tasks (
-                    task_id INTEGER PRIMARY KEY AUTOINCREMENT,
-                    plan_id INTEGER NOT NULL,
-                    user_id INTEGER NOT NULL,
-                    task_date TEXT NOT NULL,
+                CREATE TABLE IF NOT EXISTS plan_day_templates (
+                    template_id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    content_hash TEXT NOT NULL UNIQUE,
                     meal_breakfast TEXT,
                     meal_lunch TEXT,
                     meal_dinner TEXT,
@@ -137,18 +241,14 @@ public class DatabaseConnection {
                     exercise_duration INTEGER,
                     exercise_intensity TEXT CHECK(exercise_intensity IN ('low', 'medium', 'high')),
                     注意事项 TEXT,
-                    is_completed INTEGER DEFAULT 0,
-                    completion_rate REAL DEFAULT 0.0,
-                    actual_calorie_intake INTEGER,
-                    actual_exercise_duration INTEGER,
-                    completed_at TEXT,
-                    created_at TEXT DEFAULT (datetime('now', 'localtime')),
-                    updated_at TEXT DEFAULT (datetime('now', 'localtime')),
-                    FOREIGN KEY (plan_id) REFERENCES personalized_plans(plan_id) ON DELETE CASCADE,
-                    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+                    created_at TEXT DEFAULT (datetime('now', 'localtime'))
                 )
             """);
 
+            // 创建每日任务表（只保存模板ID与完成状态），旧表结构迁移到模板
+            stmt.execute(DAILY_TASKS_DDL.formatted("daily_tasks"));
+            migrateDailyTasksToTemplates(conn);
+
             // 创建提醒通知表
             stmt.execute("""
                 CREATE TABLE IF NOT EXISTS reminders (
@@ -204,13 +304,49 @@ public class DatabaseConnection {
                 )
             """);
 
+            // 创建计划结果缓存表（v2）
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS plan_result_cache (
+                    cache_key TEXT PRIMARY KEY,
+                    engine_version TEXT NOT NULL,
+                    payload TEXT NOT NULL,
+                    created_at TEXT DEFAULT (datetime('now', 'localtime')),
+                    last_hit_at TEXT,
+                    hit_count INTEGER DEFAULT 0
+                )
+            """);
+
+            // 创建月度滚动生成任务表（v4：进度与断点，重启后从断点继续）
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS plan_rollover_jobs (
+                    job_id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    target_month TEXT NOT NULL UNIQUE,
+                    status TEXT CHECK(status IN ('running', 'completed', 'failed')),
+                    total_users INTEGER DEFAULT 0,
+                    processed_users INTEGER DEFAULT 0,
+                    succeeded INTEGER DEFAULT 0,
+                    failed INTEGER DEFAULT 0,
+                    last_user_id INTEGER DEFAULT 0,
+                    message TEXT,
+                    started_at TEXT DEFAULT (datetime('now', 'localtime')),
+                    updated_at TEXT DEFAULT (datetime('now', 'localtime')),
+                    finished_at TEXT
+                )
+            """);
+
             // 创建索引
             stmt.execute("CREATE INDEX IF NOT EXISTS idx_users_username ON users(username)");
             stmt.execute("CREATE INDEX IF NOT EXISTS idx_health_reports_user_id ON health_reports(user_id)");
             stmt.execute("CREATE INDEX IF NOT EXISTS idx_personalized_plans_user_id ON personalized_plans(user_id)");
             stmt.execute("CREATE INDEX IF NOT EXISTS idx_daily_tasks_user_date ON daily_tasks(user_id, task_date)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_daily_tasks_plan_id ON daily_tasks(plan_id)");
             stmt.execute("CREATE INDEX IF NOT EXISTS idx_reminders_user_date ON reminders(user_id, reminder_date)");
 
+            // 记录表结构版本
+            if (getSchemaVersion(conn) < SCHEMA_VERSION) {
+                stmt.execute("PRAGMA user_version = " + SCHEMA_VERSION);
+            }
+
             stmt.close();
             System.out.println("数据库初始化完成");
 
@@ -219,4 +355,119 @@ public class DatabaseConnection {
             throw new RuntimeException("数据库初始化失败: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 把旧版 daily_tasks（每行保存完整餐食/运动文本）迁移为模板引用
+     * 逐行计算内容摘要去重写入 plan_day_templates，任务状态复制到新表后替换旧表，最后 VACUUM 回收空间
+     */
+    private static void migrateDailyTasksToTemplates(Connection conn) throws SQLException {
+        if (!hasColumn(conn, "daily_tasks", "meal_breakfast")) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        int migrated = 0;
+        Map<String, Integer> templateIds = new HashMap<>();
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS daily_tasks_v3");
+            stmt.execute(DAILY_TASKS_DDL.formatted("daily_tasks_v3"));
+
+            try (PreparedStatement insertTemplate = conn.prepareStatement(
+                     "INSERT INTO plan_day_templates (content_hash, meal_breakfast, meal_lunch, meal_dinner, " +
+                     "meal_snacks, daily_calorie_goal, exercise_type, exercise_description, exercise_duration, " +
+                     "exercise_intensity, 注意事项) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+                 PreparedStatement insertTask = conn.prepareStatement(
+                     "INSERT INTO daily_tasks_v3 (task_id, plan_id, user_id, task_date, template_id, is_completed, " +
+                     "completion_rate, actual_calorie_intake, actual_exercise_duration, completed_at, created_at, " +
+                     "updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+                 ResultSet rs = stmt.executeQuery("SELECT * FROM daily_tasks ORDER BY task_id")) {
+
+                while (rs.next()) {
+                    String breakfast = rs.getString("meal_breakfast");
+                    String lunch = rs.getString("meal_lunch");
+                    String dinner = rs.getString("meal_dinner");
+                    String snacks = rs.getString("meal_snacks");
+                    Integer calorieGoal = positiveOrNull(rs.getInt("daily_calorie_goal"));
+                    String exerciseType = rs.getString("exercise_type");
+                    String exerciseDescription = rs.getString("exercise_description");
+                    Integer exerciseDuration = positiveOrNull(rs.getInt("exercise_duration"));
+                    String exerciseIntensity = rs.getString("exercise_intensity");
+                    String notice = rs.getString("注意事项");
+
+                    String hash = DailyTask.templateHash(breakfast, lunch, dinner, snacks, calorieGoal,
+                            exerciseType, exerciseDescription, exerciseDuration, exerciseIntensity, notice);
+                    Integer templateId = templateIds.get(hash);
+                    if (templateId == null) {
+                        insertTemplate.setString(1, hash);
+                        insertTemplate.setString(2, breakfast);
+                        insertTemplate.setString(3, lunch);
+                        insertTemplate.setString(4, dinner);
+                        insertTemplate.setString(5, snacks);
+                        insertTemplate.setObject(6, calorieGoal);
+                        insertTemplate.setString(7, exerciseType);
+                        insertTemplate.setString(8, exerciseDescription);
+                        insertTemplate.setObject(9, exerciseDuration);
+                        insertTemplate.setString(10, exerciseIntensity);
+                        insertTemplate.setString(11, notice);
+                        insertTemplate.executeUpdate();
+                        templateId = lastInsertId(conn);
+                        templateIds.put(hash, templateId);
+                    }
+
+                    insertTask.setInt(1, rs.getInt("task_id"));
+                    insertTask.setInt(2, rs.getInt("plan_id"));
+                    insertTask.setInt(3, rs.getInt("user_id"));
+                    insertTask.setString(4, rs.getString("task_date"));
+                    insertTask.setInt(5, templateId);
+                    insertTask.setObject(6, rs.getObject("is_completed"));
+                    insertTask.setObject(7, rs.getObject("completion_rate"));
+                    insertTask.setObject(8, rs.getObject("actual_calorie_intake"));
+                    insertTask.setObject(9, rs.getObject("actual_exercise_duration"));
+                    insertTask.setString(10, rs.getString("completed_at"));
+                    insertTask.setString(11, rs.getString("created_at"));
+                    insertTask.setString(12, rs.getString("updated_at"));
+                    insertTask.addBatch();
+                    if (++migrated % 10000 == 0) {
+                        insertTask.executeBatch();
+                    }
+                }
+                insertTask.executeBatch();
+            }
+
+            stmt.execute("DROP TABLE daily_tasks");
+            stmt.execute("ALTER TABLE daily_tasks_v3 RENAME TO daily_tasks");
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+
+        if (migrated > 0) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("VACUUM");
+            }
+        }
+        System.out.println("每日任务迁移为计划日模板: " + migrated + " 条任务, " + templateIds.size() +
+                " 个模板, 耗时 " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private static boolean hasColumn(Connection conn, String table, String column) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equals(rs.getString("name"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Integer positiveOrNull(int value) {
+        return value > 0 ? value : null;
+    }
+}
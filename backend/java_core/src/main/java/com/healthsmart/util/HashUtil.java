@@ -0,0 +1,49 @@
+package com.healthsmart.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 哈希工具类
+ * Hash Utilities
+ */
+public class HashUtil {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private HashUtil() {
+        // 私有构造函数，防止实例化
+    }
+
+    /**
+     * 创建 SHA-256 摘要器
+     */
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // 所有 JRE 都必须提供 SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 计算字符串（UTF-8）的 SHA-256 十六进制摘要
+     */
+    public static String sha256Hex(String text) {
+        return toHex(sha256().digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 字节数组转十六进制字符串
+     */
+    public static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
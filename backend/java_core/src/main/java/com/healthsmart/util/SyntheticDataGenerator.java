@@ -0,0 +1,655 @@
+package com.healthsmart.util;
+
+import com.healthsmart.model.DailyTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * 合成数据生成器 - 压测与基准测试夹具构建
+ * Synthetic Data Generator and At-Scale Fixture Builder
+ *
+ * 按给定种子确定性地生成 N 个用户、每人 M 个月的健康报告、计划、每日任务（含真实的
+ * 完成/放弃模式）和提醒，通过批量事务写入 SQLite。生成的夹具文件记录了生成参数，
+ * 参数相同时直接复用，供基准测试与压测反复使用。
+ * 月份范围、“已过去”的判断和最近登录时间都以参考日期为准，不读取系统时钟：参考日期取自
+ * 命令行或 healthsmart.synthetic.reference-date（yyyy-MM-dd，默认当天），并写入 fixture_meta，
+ * 种子与参考日期相同时输出逐行一致。
+ *
+ * 用法: java com.healthsmart.util.SyntheticDataGenerator <db文件> [用户数] [月数] [种子] [参考日期]
+ */
+public class SyntheticDataGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    /** 夹具格式版本，生成逻辑变化时递增，旧夹具会被重建 */
+    public static final String GENERATOR_VERSION = "3";
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private static final String[] BREAKFASTS = {
+        "燕麦粥、鸡蛋、圣女果", "全麦面包、低脂牛奶、香蕉", "蔬菜沙拉、水煮蛋、无糖豆浆",
+        "燕麦粥、鸡蛋、坚果、水果沙拉", "全麦面包、煎蛋、希腊酸奶、蓝莓", "蔬菜煎蛋、全麦吐司、牛奶、牛油果"
+    };
+    private static final String[] LUNCHES = {
+        "鸡胸肉沙拉、全麦面包、蔬菜汤", "糙米饭、清蒸鱼、时令蔬菜", "藜麦沙拉、水煮虾、西兰花",
+        "糙米饭、煎鸡胸肉、混合蔬菜、番茄汤", "意面、虾仁、芦笋、罗勒酱", "红薯、烤鸡腿、彩色蔬菜、蘑菇汤"
+    };
+    private static final String[] DINNERS = {
+        "蔬菜汤、清蒸鸡胸肉、小份水果", "蔬菜沙拉、水煮虾、无糖酸奶", "蒸蛋羹、蔬菜、少量水果",
+        "蔬菜汤、煎鸡腿肉、糙米饭小份、蔬菜", "沙拉、烤鱼、蒸薯类、蔬菜", "清蒸鱼、炒蔬菜、杂粮粥、水果"
+    };
+    private static final String[] SNACKS = {
+        "苹果", "酸奶小杯", "坚果少量", "香蕉", "酸奶中杯、草莓", "坚果、黑巧克力"
+    };
+    // 与上面的餐食选项一一对应的热量，每日热量目标取当天餐食之和（与Python引擎一致）
+    private static final int[] BREAKFAST_CALORIES = {320, 350, 330, 450, 480, 520};
+    private static final int[] LUNCH_CALORIES = {520, 550, 500, 700, 680, 720};
+    private static final int[] DINNER_CALORIES = {380, 350, 300, 480, 450, 420};
+    private static final int[] SNACK_CALORIES = {95, 120, 160, 105, 200, 230};
+    private static final String[][] EXERCISES = {
+        {"有氧运动", "快走30分钟，保持心率在最大心率的60%-70%", "low"},
+        {"有氧运动", "慢跑或椭圆机，中等强度持续运动", "medium"},
+        {"力量训练", "深蹲、俯卧撑、平板支撑循环训练", "medium"},
+        {"力量训练", "哑铃全身训练，每组12次共4组", "high"},
+        {"柔韧性训练", "瑜伽拉伸，重点放松肩颈与腰背", "low"},
+        {"有氧运动", "间歇跑：快跑1分钟、慢走2分钟交替", "high"}
+    };
+    private static final String[] NOTICES = {
+        "记得保持充足的水分摄入，每天至少8杯水",
+        "运动前充分热身，运动后进行拉伸",
+        "您的睡眠时间偏少，建议今晚提前30分钟入睡",
+        "检测到近期压力较大，建议适当进行放松活动"
+    };
+    private static final String[] GOALS = {"lose_weight", "maintain_weight", "gain_muscle", "general_health"};
+    private static final String[] PREFERENCES = {"均衡饮食", "素食", "低碳水", "高蛋白", "清淡"};
+
+    /**
+     * 生成参数
+     */
+    public static class Options {
+        private int users = 1000;
+        private int months = 3;
+        private long seed = 42L;
+        private int batchSize = 10000;
+        private LocalDate referenceDate = defaultReferenceDate();
+
+        public int getUsers() { return users; }
+        public Options setUsers(int users) { this.users = users; return this; }
+        public int getMonths() { return months; }
+        public Options setMonths(int months) { this.months = months; return this; }
+        public long getSeed() { return seed; }
+        public Options setSeed(long seed) { this.seed = seed; return this; }
+        public int getBatchSize() { return batchSize; }
+        public Options setBatchSize(int batchSize) { this.batchSize = batchSize; return this; }
+        public LocalDate getReferenceDate() { return referenceDate; }
+        public Options setReferenceDate(LocalDate referenceDate) { this.referenceDate = referenceDate; return this; }
+
+        Map<String, String> toMeta() {
+            Map<String, String> meta = new LinkedHashMap<>();
+            meta.put("generator_version", GENERATOR_VERSION);
+            meta.put("users", String.valueOf(users));
+            meta.put("months", String.valueOf(months));
+            meta.put("seed", String.valueOf(seed));
+            meta.put("reference_date", referenceDate.format(DATE));
+            return meta;
+        }
+
+        private static LocalDate defaultReferenceDate() {
+            String configured = AppConfig.getString("healthsmart.synthetic.reference-date", "");
+            return configured.isBlank() ? LocalDate.now() : LocalDate.parse(configured.trim(), DATE);
+        }
+    }
+
+    /**
+     * 生成结果统计
+     */
+    public static class Summary {
+        private long users;
+        private long reports;
+        private long plans;
+        private long tasks;
+        private long templates;
+        private long reminders;
+        private long elapsedMillis;
+        private boolean reused;
+
+        public long getUsers() { return users; }
+        public long getReports() { return reports; }
+        public long getPlans() { return plans; }
+        public long getTasks() { return tasks; }
+        public long getTemplates() { return templates; }
+        public long getReminders() { return reminders; }
+        public long getElapsedMillis() { return elapsedMillis; }
+        public boolean isReused() { return reused; }
+
+        public long getTotalRows() {
+            return users + reports + plans + tasks + templates + reminders;
+        }
+
+        public double getRowsPerSecond() {
+            return elapsedMillis > 0 ? getTotalRows() * 1000.0 / elapsedMillis : 0;
+        }
+
+        @Override
+        public String toString() {
+            if (reused) {
+                return "复用已有夹具";
+            }
+            return String.format("用户 %d, 报告 %d, 计划 %d, 任务 %d, 模板 %d, 提醒 %d, 共 %d 行, 耗时 %d ms (%.0f 行/秒)",
+                    users, reports, plans, tasks, templates, reminders, getTotalRows(), elapsedMillis, getRowsPerSecond());
+        }
+    }
+
+    private final Options options;
+
+    public SyntheticDataGenerator(Options options) {
+        this.options = options;
+    }
+
+    /**
+     * 构建（或复用）夹具文件，并把 DatabaseConnection 指向该文件
+     */
+    public static Summary buildFixture(Path dbFile, Options options) throws SQLException, IOException {
+        String url = "jdbc:sqlite:" + dbFile.toAbsolutePath();
+        if (Files.exists(dbFile) && metaMatches(url, options.toMeta())) {
+            DatabaseConnection.setDatabaseUrl(url);
+            logger.info("夹具 {} 参数一致，直接复用", dbFile);
+            Summary summary = new Summary();
+            summary.reused = true;
+            return summary;
+        }
+
+        Files.deleteIfExists(dbFile);
+        if (dbFile.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(dbFile.toAbsolutePath().getParent());
+        }
+        DatabaseConnection.setDatabaseUrl(url);
+        DatabaseConnection.initializeDatabase();
+        DatabaseConnection.closeConnection();
+
+        try (Connection conn = DriverManager.getConnection(url)) {
+            // 新文件先去掉二级索引，写完后一次性重建，比逐行维护索引快得多
+            List<String> indexes = dropSecondaryIndexes(conn);
+            Summary summary = new SyntheticDataGenerator(options).generate(conn);
+            try (Statement stmt = conn.createStatement()) {
+                for (String sql : indexes) {
+                    stmt.execute(sql);
+                }
+                stmt.execute("ANALYZE");
+            }
+            writeMeta(conn, options.toMeta());
+            return summary;
+        }
+    }
+
+    /**
+     * 在给定连接上生成数据（表结构需已存在）
+     */
+    public Summary generate(Connection conn) throws SQLException {
+        long start = System.currentTimeMillis();
+        Summary summary = new Summary();
+
+        try (Statement stmt = conn.createStatement()) {
+            // 夹具构建只追求写入吞吐，崩溃时直接重建即可
+            stmt.execute("PRAGMA synchronous = OFF");
+            stmt.execute("PRAGMA journal_mode = MEMORY");
+            stmt.execute("PRAGMA locking_mode = EXCLUSIVE");
+            stmt.execute("PRAGMA temp_store = MEMORY");
+            stmt.execute("PRAGMA cache_size = -65536");
+        }
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+
+        int userIdBase = maxId(conn, "users", "user_id");
+        int reportIdBase = maxId(conn, "health_reports", "report_id");
+        int planIdBase = maxId(conn, "personalized_plans", "plan_id");
+        int taskIdBase = maxId(conn, "daily_tasks", "task_id");
+
+        try (PreparedStatement userStmt = conn.prepareStatement(
+                 "INSERT INTO users (user_id, username, password, email, nickname, gender, birth_date, " +
+                 "created_at, updated_at, last_login, is_active) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement reportStmt = conn.prepareStatement(
+                 "INSERT INTO health_reports (report_id, user_id, report_month, height, weight, bmi, " +
+                 "body_fat_rate, muscle_mass, systolic_pressure, diastolic_pressure, sleep_hours_avg, " +
+                 "sleep_quality, smoking, drinking, exercise_frequency, dietary_preferences, health_goal, " +
+                 "target_weight, stress_level, energy_level, submitted_at) " +
+                 "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement planStmt = conn.prepareStatement(
+                 "INSERT INTO personalized_plans (plan_id, user_id, report_id, plan_month, total_days, " +
+                 "plan_type, calorie_target, protein_target, carbs_target, fat_target, " +
+                 "exercise_sessions_per_week, generation_method, plan_status, created_at) " +
+                 "VALUES (?, ?, ?, ?, 30, 'monthly', ?, ?, ?, ?, ?, 'synthetic', ?, ?)");
+             PreparedStatement templateStmt = conn.prepareStatement(
+                 "INSERT INTO plan_day_templates (template_id, content_hash, meal_breakfast, meal_lunch, " +
+                 "meal_dinner, meal_snacks, daily_calorie_goal, exercise_type, exercise_description, " +
+                 "exercise_duration, exercise_intensity, 注意事项, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement taskStmt = conn.prepareStatement(
+                 "INSERT INTO daily_tasks (task_id, plan_id, user_id, task_date, template_id, is_completed, " +
+                 "completion_rate, actual_calorie_intake, actual_exercise_duration, completed_at, created_at, " +
+                 "updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement reminderStmt = conn.prepareStatement(
+                 "INSERT INTO reminders (user_id, task_id, reminder_date, reminder_time, reminder_type, " +
+                 "title, content, is_read, sent_at, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+
+            BatchCounter batch = new BatchCounter(conn, options.batchSize,
+                    userStmt, reportStmt, planStmt, templateStmt, taskStmt, reminderStmt);
+            Map<String, Integer> templateIds = loadTemplateIds(conn);
+            int templateSeq = maxId(conn, "plan_day_templates", "template_id");
+            LocalDate today = options.referenceDate;
+            YearMonth endMonth = YearMonth.from(today);
+            int planSeq = planIdBase;
+            int taskSeq = taskIdBase;
+            int reportSeq = reportIdBase;
+
+            for (int u = 1; u <= options.users; u++) {
+                int userId = userIdBase + u;
+                // 每个用户独立派生随机源，保证与生成顺序和批大小无关
+                SplittableRandom rnd = new SplittableRandom(options.seed * 1_000_003L + u);
+                UserProfile profile = new UserProfile(rnd);
+                YearMonth firstMonth = endMonth.minusMonths(options.months - 1L);
+                LocalDateTime registeredAt = firstMonth.atDay(1).atTime(8, 0).minusDays(rnd.nextInt(1, 20));
+
+                userStmt.setInt(1, userId);
+                userStmt.setString(2, "user_" + options.seed + "_" + u);
+                userStmt.setString(3, "pwd" + u);
+                userStmt.setString(4, "user" + u + "@example.com");
+                userStmt.setString(5, "用户" + u);
+                userStmt.setString(6, profile.gender);
+                userStmt.setString(7, String.format("%d-%02d-%02d", 1965 + rnd.nextInt(40), 1 + rnd.nextInt(12), 1 + rnd.nextInt(28)));
+                userStmt.setString(8, registeredAt.format(DATE_TIME));
+                userStmt.setString(9, registeredAt.format(DATE_TIME));
+                userStmt.setString(10, today.atTime(7 + rnd.nextInt(3), rnd.nextInt(60)).format(DATE_TIME));
+                userStmt.setInt(11, 1);
+                userStmt.addBatch();
+                summary.users++;
+                batch.added();
+
+                for (int m = 0; m < options.months; m++) {
+                    YearMonth month = firstMonth.plusMonths(m);
+                    boolean lastMonth = m == options.months - 1;
+                    profile.drift(rnd);
+
+                    int reportId = ++reportSeq;
+                    LocalDateTime submittedAt = month.atDay(1).atTime(7, 30).minusDays(rnd.nextInt(0, 3));
+                    reportStmt.setInt(1, reportId);
+                    reportStmt.setInt(2, userId);
+                    reportStmt.setString(3, month.format(MONTH));
+                    reportStmt.setDouble(4, profile.height);
+                    reportStmt.setDouble(5, profile.weight);
+                    reportStmt.setDouble(6, profile.bmi());
+                    reportStmt.setDouble(7, profile.bodyFat);
+                    reportStmt.setDouble(8, round1(profile.weight * 0.42));
+                    reportStmt.setInt(9, 105 + rnd.nextInt(40));
+                    reportStmt.setInt(10, 65 + rnd.nextInt(25));
+                    reportStmt.setDouble(11, round1(5.5 + rnd.nextDouble() * 3));
+                    reportStmt.setInt(12, 3 + rnd.nextInt(8));
+                    reportStmt.setInt(13, profile.smoking ? 1 : 0);
+                    reportStmt.setInt(14, rnd.nextInt(5) == 0 ? 1 : 0);
+                    reportStmt.setInt(15, profile.exerciseFrequency);
+                    reportStmt.setString(16, profile.preference);
+                    reportStmt.setString(17, profile.goal);
+                    reportStmt.setDouble(18, profile.targetWeight);
+                    reportStmt.setInt(19, 1 + rnd.nextInt(10));
+                    reportStmt.setInt(20, 1 + rnd.nextInt(10));
+                    reportStmt.setString(21, submittedAt.format(DATE_TIME));
+                    reportStmt.addBatch();
+                    summary.reports++;
+                    batch.added();
+
+                    int planId = ++planSeq;
+                    int calorieTarget = profile.calorieTarget();
+                    planStmt.setInt(1, planId);
+                    planStmt.setInt(2, userId);
+                    planStmt.setInt(3, reportId);
+                    planStmt.setString(4, month.format(MONTH));
+                    planStmt.setInt(5, calorieTarget);
+                    planStmt.setDouble(6, round1(calorieTarget * 0.15 / 4));
+                    planStmt.setDouble(7, round1(calorieTarget * 0.50 / 4));
+                    planStmt.setDouble(8, round1(calorieTarget * 0.35 / 9));
+                    planStmt.setInt(9, Math.max(3, Math.min(5, profile.exerciseFrequency)));
+                    planStmt.setString(10, lastMonth ? "active" : "completed");
+                    planStmt.setString(11, submittedAt.plusMinutes(1).format(DATE_TIME));
+                    planStmt.addBatch();
+                    summary.plans++;
+                    batch.added();
+
+                    // 完成模式：个人基础依从性 + 随天数衰减 + 周末下滑，部分用户中途放弃
+                    int abandonDay = rnd.nextDouble() < profile.abandonRisk ? 5 + rnd.nextInt(20) : Integer.MAX_VALUE;
+                    LocalDate firstDay = month.atDay(1);
+                    String createdAt = submittedAt.plusMinutes(1).format(DATE_TIME);
+                    for (int day = 0; day < 30; day++) {
+                        LocalDate date = firstDay.plusDays(day);
+                        String dateText = date.format(DATE);
+                        int taskId = ++taskSeq;
+                        boolean past = !date.isAfter(today);
+                        double p = profile.adherence * (1 - 0.012 * day);
+                        if (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                            p *= 0.8;
+                        }
+                        // 无论是否计入完成都抽取同样数量的随机数，后续内容不随参考日期移动
+                        boolean completed = rnd.nextDouble() < p && past && day < abandonDay;
+                        // 内容选择方式与Python引擎一致：按热量档位随机选餐，每3天加餐，每7天休息，隔天提示
+                        int level = profile.calorieLevel(calorieTarget);
+                        int breakfast = level + rnd.nextInt(3);
+                        int lunch = level + rnd.nextInt(3);
+                        int dinner = rnd.nextInt(3);
+                        int snack = (day + 1) % 3 == 0 ? level + rnd.nextInt(3) : -1;
+                        String[] exercise = (day + 1) % 7 == 6 ? null : EXERCISES[rnd.nextInt(EXERCISES.length)];
+                        int duration = exercise != null ? profile.exerciseDuration : 0;
+                        int dayCalories = BREAKFAST_CALORIES[breakfast] + LUNCH_CALORIES[lunch] + DINNER_CALORIES[dinner]
+                                + (snack >= 0 ? SNACK_CALORIES[snack] : 0);
+                        String notice = day % 2 == 1 ? profile.notice : null;
+
+                        String hash = DailyTask.templateHash(BREAKFASTS[breakfast], LUNCHES[lunch], DINNERS[dinner],
+                                snack >= 0 ? SNACKS[snack] : null, dayCalories,
+                                exercise != null ? exercise[0] : null, exercise != null ? exercise[1] : null,
+                                duration, exercise != null ? exercise[2] : null, notice);
+                        Integer templateId = templateIds.get(hash);
+                        if (templateId == null) {
+                            templateId = ++templateSeq;
+                            templateIds.put(hash, templateId);
+                            templateStmt.setInt(1, templateId);
+                            templateStmt.setString(2, hash);
+                            templateStmt.setString(3, BREAKFASTS[breakfast]);
+                            templateStmt.setString(4, LUNCHES[lunch]);
+                            templateStmt.setString(5, DINNERS[dinner]);
+                            templateStmt.setString(6, snack >= 0 ? SNACKS[snack] : null);
+                            templateStmt.setInt(7, dayCalories);
+                            templateStmt.setString(8, exercise != null ? exercise[0] : null);
+                            templateStmt.setString(9, exercise != null ? exercise[1] : null);
+                            templateStmt.setObject(10, exercise != null ? duration : null);
+                            templateStmt.setString(11, exercise != null ? exercise[2] : null);
+                            templateStmt.setString(12, notice);
+                            // 不使用列默认的当前时间，输出只由种子和参考日期决定
+                            templateStmt.setString(13, createdAt);
+                            templateStmt.addBatch();
+                            summary.templates++;
+                            batch.added();
+                        }
+
+                        taskStmt.setInt(1, taskId);
+                        taskStmt.setInt(2, planId);
+                        taskStmt.setInt(3, userId);
+                        taskStmt.setString(4, dateText);
+                        taskStmt.setInt(5, templateId);
+                        taskStmt.setInt(6, completed ? 1 : 0);
+                        int completedHour = 19 + rnd.nextInt(4);
+                        int completedMinute = rnd.nextInt(60);
+                        double intakeFactor = 0.85 + rnd.nextDouble() * 0.3;
+                        double exerciseFactor = 0.7 + rnd.nextDouble() * 0.5;
+                        if (completed) {
+                            // 逐行格式化时间戳代价很高，直接拼接字符串
+                            String completedAt = dateText + " " + completedHour + ":" + twoDigits(completedMinute) + ":00";
+                            taskStmt.setDouble(7, 100.0);
+                            taskStmt.setInt(8, (int) (dayCalories * intakeFactor));
+                            taskStmt.setInt(9, (int) (duration * exerciseFactor));
+                            taskStmt.setString(10, completedAt);
+                            taskStmt.setString(11, createdAt);
+                            taskStmt.setString(12, completedAt);
+                        } else {
+                            taskStmt.setDouble(7, 0.0);
+                            taskStmt.setInt(8, 0);
+                            taskStmt.setInt(9, 0);
+                            taskStmt.setString(10, null);
+                            taskStmt.setString(11, createdAt);
+                            taskStmt.setString(12, createdAt);
+                        }
+                        taskStmt.addBatch();
+                        summary.tasks++;
+                        batch.added();
+
+                        // 每天一条餐食提醒和一条运动提醒
+                        summary.reminders += addReminder(reminderStmt, userId, taskId, dateText, "12:00", "meal",
+                                "午餐提醒", "午餐时间到了，记得营养均衡", past, createdAt);
+                        summary.reminders += addReminder(reminderStmt, userId, taskId, dateText, "18:00", "exercise",
+                                "运动提醒", exercise != null ? exercise[1] : "今天是休息日，适当散步放松", past, createdAt);
+                        batch.added();
+                        batch.added();
+                    }
+                }
+            }
+            batch.flush();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+
+        summary.elapsedMillis = System.currentTimeMillis() - start;
+        logger.info("合成数据生成完成: {}", summary);
+        return summary;
+    }
+
+    private int addReminder(PreparedStatement stmt, int userId, int taskId, String date, String time, String type,
+                            String title, String content, boolean past, String createdAt) throws SQLException {
+        stmt.setInt(1, userId);
+        stmt.setInt(2, taskId);
+        stmt.setString(3, date);
+        stmt.setString(4, time);
+        stmt.setString(5, type);
+        stmt.setString(6, title);
+        stmt.setString(7, content);
+        stmt.setInt(8, past ? 1 : 0);
+        stmt.setString(9, past ? date + " " + time + ":00" : null);
+        stmt.setString(10, createdAt);
+        stmt.addBatch();
+        return 1;
+    }
+
+    private static int maxId(Connection conn, String table, String column) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(" + column + "), 0) FROM " + table)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static Map<String, Integer> loadTemplateIds(Connection conn) throws SQLException {
+        Map<String, Integer> ids = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT content_hash, template_id FROM plan_day_templates")) {
+            while (rs.next()) {
+                ids.put(rs.getString(1), rs.getInt(2));
+            }
+        }
+        return ids;
+    }
+
+    private static List<String> dropSecondaryIndexes(Connection conn) throws SQLException {
+        List<String> names = new ArrayList<>();
+        List<String> definitions = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT name, sql FROM sqlite_master WHERE type = 'index' AND sql IS NOT NULL")) {
+            while (rs.next()) {
+                names.add(rs.getString(1));
+                definitions.add(rs.getString(2));
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            for (String name : names) {
+                stmt.execute("DROP INDEX " + name);
+            }
+        }
+        return definitions;
+    }
+
+    private static boolean metaMatches(String url, Map<String, String> expected) {
+        try (Connection conn = DriverManager.getConnection(url);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT meta_key, meta_value FROM fixture_meta")) {
+            Map<String, String> actual = new LinkedHashMap<>();
+            while (rs.next()) {
+                actual.put(rs.getString(1), rs.getString(2));
+            }
+            return actual.equals(expected);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static void writeMeta(Connection conn, Map<String, String> meta) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS fixture_meta (meta_key TEXT PRIMARY KEY, meta_value TEXT)");
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT OR REPLACE INTO fixture_meta (meta_key, meta_value) VALUES (?, ?)")) {
+            for (Map.Entry<String, String> entry : meta.entrySet()) {
+                pstmt.setString(1, entry.getKey());
+                pstmt.setString(2, entry.getValue());
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    private static String twoDigits(int value) {
+        return value < 10 ? "0" + value : String.valueOf(value);
+    }
+
+    private static double round1(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    /**
+     * 单个用户的身体画像，逐月小幅漂移
+     */
+    private static class UserProfile {
+        final String gender;
+        final double height;
+        double weight;
+        double bodyFat;
+        final boolean smoking;
+        final int exerciseFrequency;
+        final String goal;
+        final String preference;
+        final double targetWeight;
+        final double adherence;
+        final double abandonRisk;
+        final int exerciseDuration;
+        final String notice;
+
+        UserProfile(SplittableRandom rnd) {
+            boolean male = rnd.nextBoolean();
+            gender = male ? "male" : "female";
+            height = round1((male ? 172 : 160) + gaussian(rnd) * 7);
+            double bmi = 23 + gaussian(rnd) * 3.5;
+            weight = round1(Math.max(40, Math.min(150, bmi * height * height / 10000)));
+            bodyFat = round1((male ? 18 : 26) + gaussian(rnd) * 5);
+            smoking = rnd.nextInt(6) == 0;
+            exerciseFrequency = rnd.nextInt(0, 7);
+            goal = bmi > 25 ? "lose_weight" : GOALS[rnd.nextInt(GOALS.length)];
+            preference = PREFERENCES[rnd.nextInt(PREFERENCES.length)];
+            targetWeight = round1("lose_weight".equals(goal) ? weight * 0.92 : weight);
+            adherence = 0.35 + rnd.nextDouble() * 0.6;
+            abandonRisk = 0.2 + rnd.nextDouble() * 0.4;
+            exerciseDuration = 30 + 10 * rnd.nextInt(4);
+            notice = NOTICES[rnd.nextInt(NOTICES.length)];
+        }
+
+        /** 热量等级 0/1/2，决定可选的早午餐档位 */
+        int calorieLevel(int calorieTarget) {
+            return calorieTarget < 1800 ? 0 : calorieTarget < 2400 ? 1 : 2;
+        }
+
+        void drift(SplittableRandom rnd) {
+            double trend = "lose_weight".equals(goal) ? -0.8 : 0;
+            weight = round1(weight + trend * adherence + gaussian(rnd) * 0.6);
+            bodyFat = round1(bodyFat + trend * 0.3 + gaussian(rnd) * 0.3);
+        }
+
+        double bmi() {
+            return round1(weight / ((height / 100) * (height / 100)));
+        }
+
+        int calorieTarget() {
+            double bmr = 10 * weight + 6.25 * height - 5 * 30 + ("male".equals(gender) ? 5 : -161);
+            double target = bmr * (1.2 + 0.075 * exerciseFrequency);
+            if ("lose_weight".equals(goal)) {
+                target -= 400;
+            } else if ("gain_muscle".equals(goal)) {
+                target += 300;
+            }
+            return (int) Math.max(1200, Math.round(target / 10) * 10);
+        }
+
+        private static double gaussian(SplittableRandom rnd) {
+            // Box-Muller，SplittableRandom 不提供 nextGaussian
+            double u1 = 1.0 - rnd.nextDouble();
+            double u2 = rnd.nextDouble();
+            return Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+        }
+    }
+
+    /**
+     * 跨多个语句统一计数，达到批大小后执行批次并提交事务
+     */
+    private static class BatchCounter {
+        private final Connection conn;
+        private final int batchSize;
+        private final PreparedStatement[] statements;
+        private int pending;
+
+        BatchCounter(Connection conn, int batchSize, PreparedStatement... statements) {
+            this.conn = conn;
+            this.batchSize = batchSize;
+            this.statements = statements;
+        }
+
+        void added() throws SQLException {
+            if (++pending >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() throws SQLException {
+            // 按外键依赖顺序执行：用户 -> 报告 -> 计划 -> 模板 -> 任务 -> 提醒
+            for (PreparedStatement stmt : statements) {
+                stmt.executeBatch();
+            }
+            conn.commit();
+            pending = 0;
+        }
+    }
+
+    /**
+     * 命令行入口
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("用法: SyntheticDataGenerator <db文件> [用户数] [月数] [种子] [参考日期yyyy-MM-dd]");
+            return;
+        }
+        Options options = new Options();
+        if (args.length > 1) options.setUsers(Integer.parseInt(args[1]));
+        if (args.length > 2) options.setMonths(Integer.parseInt(args[2]));
+        if (args.length > 3) options.setSeed(Long.parseLong(args[3]));
+        if (args.length > 4) options.setReferenceDate(LocalDate.parse(args[4], DATE));
+
+        Summary summary = buildFixture(Path.of(args[0]), options);
+        System.out.println("[合成数据] " + args[0] + ": " + summary);
+    }
+}
@@ -0,0 +1,380 @@
+package com.healthsmart.web;
+
+import com.healthsmart.util.AppConfig;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * 响应压缩过滤器
+ * Negotiated gzip/deflate Response Compression
+ *
+ * 按 Accept-Encoding 协商 gzip（优先）或 deflate，处理器无需改动：过滤器包装交换对象，
+ * 在处理器调用 sendResponseHeaders 时决定是否压缩。声明长度不小于 healthsmart.compression.min-bytes
+ * 的 JSON/文本响应改为分块传输，正文边写边压缩，不在内存中另存一份压缩结果；更小的响应、
+ * 已带 Content-Encoding 的响应以及 HEAD、204、304 原样发送。Deflater 按工作线程复用，每次使用前 reset。
+ * 压缩后的强 ETag 加上 -gzip/-deflate 后缀以区分表示，ConditionalGet 比较时忽略该后缀。
+ * 每个路由的压缩次数、未达阈值次数和压缩前后字节数由 stats() 给出。
+ */
+public final class CompressionFilter extends Filter {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final String[] ENCODED_TAG_SUFFIXES = {"-gzip\"", "-deflate\""};
+
+    private final int minBytes;
+    private final Function<HttpExchange, String> routeKey;
+    private final ThreadLocal<Deflater> gzipDeflater;
+    private final ThreadLocal<Deflater> zlibDeflater;
+    private final Map<String, RouteStats> routes = new ConcurrentHashMap<>();
+
+    /**
+     * @param minBytes 压缩的最小响应长度（字节）
+     * @param level    压缩级别 1-9
+     * @param routeKey 统计用的路由名（如路由模板），不能识别时返回 null 以上下文路径代替
+     */
+    public CompressionFilter(int minBytes, int level, Function<HttpExchange, String> routeKey) {
+        this.minBytes = minBytes;
+        this.routeKey = routeKey;
+        // gzip 自行写头尾，Deflater 输出裸 deflate 流；deflate 编码即 zlib 格式
+        this.gzipDeflater = ThreadLocal.withInitial(() -> new Deflater(level, true));
+        this.zlibDeflater = ThreadLocal.withInitial(() -> new Deflater(level, false));
+    }
+
+    /**
+     * 按配置创建：healthsmart.compression.min-bytes（默认1024，小于一个数据包的响应压缩收益很小）、
+     * healthsmart.compression.level（默认6）
+     */
+    public static CompressionFilter fromConfig(Function<HttpExchange, String> routeKey) {
+        return new CompressionFilter(AppConfig.getInt("healthsmart.compression.min-bytes", 1024),
+                AppConfig.getInt("healthsmart.compression.level", 6), routeKey);
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        String encoding = negotiate(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+        if (encoding == null || "HEAD".equals(exchange.getRequestMethod())) {
+            chain.doFilter(exchange);
+            return;
+        }
+        CompressingExchange compressing = new CompressingExchange(exchange, encoding);
+        try {
+            chain.doFilter(compressing);
+        } finally {
+            compressing.finishQuietly();
+        }
+    }
+
+    /**
+     * 按 Accept-Encoding 选择编码，gzip 优先；q=0 视为拒绝
+     */
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        boolean gzip = false;
+        boolean deflate = false;
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.trim().split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            boolean refused = false;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        refused = Double.parseDouble(param.substring(2)) <= 0;
+                    } catch (NumberFormatException e) {
+                        refused = true;
+                    }
+                }
+            }
+            if (refused) {
+                continue;
+            }
+            if ("gzip".equals(coding) || "*".equals(coding)) {
+                gzip = true;
+            } else if ("deflate".equals(coding)) {
+                deflate = true;
+            }
+        }
+        return gzip ? "gzip" : deflate ? "deflate" : null;
+    }
+
+    /**
+     * 去掉压缩表示的 ETag 后缀（"v-gzip" -> "v"），不是压缩表示时原样返回
+     */
+    static String baseTag(String etag) {
+        for (String suffix : ENCODED_TAG_SUFFIXES) {
+            if (etag.endsWith(suffix) && etag.length() > suffix.length() + 1) {
+                return etag.substring(0, etag.length() - suffix.length()) + "\"";
+            }
+        }
+        return etag;
+    }
+
+    /**
+     * 各路由压缩统计快照：ratio 为压缩后字节数占压缩前的比例
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new TreeMap<>();
+        routes.forEach((route, stats) -> {
+            long original = stats.originalBytes.sum();
+            long compressed = stats.compressedBytes.sum();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("compressed", stats.compressed.sum());
+            map.put("belowThreshold", stats.belowThreshold.sum());
+            map.put("originalBytes", original);
+            map.put("compressedBytes", compressed);
+            map.put("ratio", original > 0 ? (double) compressed / original : 0.0);
+            result.put(route, map);
+        });
+        return result;
+    }
+
+    @Override
+    public String description() {
+        return "negotiated gzip/deflate response compression";
+    }
+
+    private RouteStats statsFor(HttpExchange exchange) {
+        String route = routeKey != null ? routeKey.apply(exchange) : null;
+        if (route == null) {
+            route = exchange.getHttpContext().getPath();
+        }
+        return routes.computeIfAbsent(route, key -> new RouteStats());
+    }
+
+    /**
+     * 在已有的 Vary 值后追加一项；其他过滤器放入的值列表可能不可修改，合并后整体写回
+     */
+    static void addVary(Headers headers, String value) {
+        List<String> vary = new ArrayList<>();
+        List<String> existing = headers.get("Vary");
+        if (existing != null) {
+            vary.addAll(existing);
+        }
+        if (!vary.contains(value)) {
+            vary.add(value);
+        }
+        headers.put("Vary", vary);
+    }
+
+    private static boolean isCompressible(String contentType) {
+        return contentType != null && (contentType.startsWith("application/json") || contentType.startsWith("text/"));
+    }
+
+    private static final class RouteStats {
+        final LongAdder compressed = new LongAdder();
+        final LongAdder belowThreshold = new LongAdder();
+        final LongAdder originalBytes = new LongAdder();
+        final LongAdder compressedBytes = new LongAdder();
+    }
+
+    /**
+     * 流式压缩：gzip 时在压缩数据前后写入 RFC 1952 头尾，关闭时记录压缩前后的字节数
+     */
+    private static final class CompressingStream extends DeflaterOutputStream {
+        private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+        private final CRC32 crc;
+        private final RouteStats stats;
+        private boolean finished;
+
+        CompressingStream(OutputStream out, Deflater deflater, boolean gzip, RouteStats stats) throws IOException {
+            super(out, deflater, BUFFER_SIZE);
+            this.crc = gzip ? new CRC32() : null;
+            this.stats = stats;
+            if (gzip) {
+                out.write(GZIP_HEADER);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (crc != null) {
+                crc.update(b, off, len);
+            }
+            super.write(b, off, len);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            super.finish();
+            long overhead = 0;
+            if (crc != null) {
+                writeIntLE((int) crc.getValue());
+                writeIntLE((int) def.getBytesRead());
+                overhead = GZIP_HEADER.length + 8;
+            }
+            stats.compressed.increment();
+            stats.originalBytes.add(def.getBytesRead());
+            stats.compressedBytes.add(def.getBytesWritten() + overhead);
+        }
+
+        private void writeIntLE(int value) throws IOException {
+            out.write(value);
+            out.write(value >>> 8);
+            out.write(value >>> 16);
+            out.write(value >>> 24);
+        }
+    }
+
+    /**
+     * 包装交换对象：拦截 sendResponseHeaders 与 getResponseBody，其余调用转发给原对象
+     */
+    private final class CompressingExchange extends HttpExchange {
+        private final HttpExchange delegate;
+        private final String encoding;
+        private CompressingStream body;
+
+        CompressingExchange(HttpExchange delegate, String encoding) {
+            this.delegate = delegate;
+            this.encoding = encoding;
+        }
+
+        @Override
+        public void sendResponseHeaders(int rCode, long responseLength) throws IOException {
+            Headers headers = delegate.getResponseHeaders();
+            if (responseLength < 0 || rCode == 204 || rCode == 304 || headers.containsKey("Content-Encoding")
+                    || !isCompressible(headers.getFirst("Content-Type"))) {
+                delegate.sendResponseHeaders(rCode, responseLength);
+                return;
+            }
+            RouteStats stats = statsFor(delegate);
+            // 长度 0 表示处理器自己分块输出、长度未知，同样压缩
+            if (responseLength > 0 && responseLength < minBytes) {
+                stats.belowThreshold.increment();
+                delegate.sendResponseHeaders(rCode, responseLength);
+                return;
+            }
+            headers.set("Content-Encoding", encoding);
+            addVary(headers, "Accept-Encoding");
+            String etag = headers.getFirst("ETag");
+            if (etag != null && etag.endsWith("\"") && !etag.startsWith("W/")) {
+                headers.set("ETag", etag.substring(0, etag.length() - 1) + "-" + encoding + "\"");
+            }
+            delegate.sendResponseHeaders(rCode, 0);
+            boolean gzip = "gzip".equals(encoding);
+            Deflater deflater = (gzip ? gzipDeflater : zlibDeflater).get();
+            deflater.reset();
+            body = new CompressingStream(delegate.getResponseBody(), deflater, gzip, stats);
+        }
+
+        @Override
+        public OutputStream getResponseBody() {
+            return body != null ? body : delegate.getResponseBody();
+        }
+
+        /**
+         * 处理器未关闭正文流就结束交换时补写压缩尾部
+         */
+        @Override
+        public void close() {
+            finishQuietly();
+            delegate.close();
+        }
+
+        void finishQuietly() {
+            if (body != null) {
+                try {
+                    body.close();
+                } catch (IOException e) {
+                    // 连接已断开，交换随之结束
+                }
+            }
+        }
+
+        @Override
+        public Headers getRequestHeaders() {
+            return delegate.getRequestHeaders();
+        }
+
+        @Override
+        public Headers getResponseHeaders() {
+            return delegate.getResponseHeaders();
+        }
+
+        @Override
+        public URI getRequestURI() {
+            return delegate.getRequestURI();
+        }
+
+        @Override
+        public String getRequestMethod() {
+            return delegate.getRequestMethod();
+        }
+
+        @Override
+        public HttpContext getHttpContext() {
+            return delegate.getHttpContext();
+        }
+
+        @Override
+        public InputStream getRequestBody() {
+            return delegate.getRequestBody();
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return delegate.getRemoteAddress();
+        }
+
+        @Override
+        public int getResponseCode() {
+            return delegate.getResponseCode();
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return delegate.getLocalAddress();
+        }
+
+        @Override
+        public String getProtocol() {
+            return delegate.getProtocol();
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            return delegate.getAttribute(name);
+        }
+
+        @Override
+        public void setAttribute(String name, Object value) {
+            delegate.setAttribute(name, value);
+        }
+
+        @Override
+        public void setStreams(InputStream i, OutputStream o) {
+            delegate.setStreams(i, o);
+        }
+
+        @Override
+        public HttpPrincipal getPrincipal() {
+            return delegate.getPrincipal();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.healthsmart.web;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * API 条件请求
+ * Conditional GET for API Resources
+ *
+ * 支持条件请求的端点先用一次聚合查询取得资源版本（任务数、最后更新时间、报告数等），作为强 ETag 返回；
+ * 请求的 If-None-Match 与当前版本相同时直接以304应答，不执行完整查询和序列化。
+ * 版本须在完整查询之前取得：两者之间发生写入时 ETag 比正文旧，下次请求只会多一次完整响应，不会误命中。
+ * 带 ETag 的请求数、携带 If-None-Match 的请求数和304次数在 /api/health/ready 的 metrics 中上报。
+ */
+public final class ConditionalGet {
+
+    private final LongAdder tagged = new LongAdder();
+    private final LongAdder conditional = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+
+    /**
+     * 由资源版本生成强 ETag；版本只含数字、字母和 - . 等可直接放入引号内的字符
+     */
+    public static String strongTag(String kind, String version) {
+        return "\"" + kind + "." + version + "\"";
+    }
+
+    /**
+     * If-None-Match 使用弱比较：忽略 W/ 前缀和压缩表示的编码后缀，* 匹配任意当前表示
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String value = tag.trim();
+            if ("*".equals(value)) {
+                return true;
+            }
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(etag) || CompressionFilter.baseTag(value).equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 记录一次带 ETag 的请求，返回是否应以304应答
+     */
+    public boolean evaluate(String ifNoneMatch, String etag) {
+        tagged.increment();
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        conditional.increment();
+        if (matches(ifNoneMatch, etag)) {
+            notModified.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 计数快照：hitRate 为304次数占带 ETag 请求数的比例
+     */
+    public Map<String, Object> stats() {
+        long requests = tagged.sum();
+        long hits = notModified.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requests", requests);
+        stats.put("conditional", conditional.sum());
+        stats.put("notModified", hits);
+        stats.put("hitRate", requests > 0 ? (double) hits / requests : 0.0);
+        return stats;
+    }
+}
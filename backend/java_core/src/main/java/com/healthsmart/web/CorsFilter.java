@@ -0,0 +1,135 @@
+package com.healthsmart.web;
+
+import com.healthsmart.util.AppConfig;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 跨域过滤器
+ * CORS Filter with Preflight Fast Path
+ *
+ * 预检请求（OPTIONS）在过滤器中直接以204应答，不进入启动门控、路由和处理器；
+ * 响应头的值在构造时生成，应答时复制一份放入响应头（后续过滤器可在其上追加）。
+ * Access-Control-Max-Age 让浏览器在有效期内复用预检结果，同一地址的后续请求不再发送预检。
+ * 来源按 healthsmart.cors.allowed-origins（逗号分隔，默认 * 表示任意来源）校验：
+ * 列表中的来源原样回写并带 Vary: Origin，不在列表中的预检返回403，
+ * 普通请求照常处理但不带跨域头（浏览器拒绝页面读取响应）。
+ */
+public final class CorsFilter extends Filter {
+
+    private static final String ANY_ORIGIN = "*";
+
+    private final Set<String> allowedOrigins;
+    private final boolean anyOrigin;
+    private final List<String> allowMethods;
+    private final List<String> allowHeaders;
+    private final List<String> maxAge;
+
+    /**
+     * @param allowedOrigins 允许的来源，包含 * 时允许任意来源
+     * @param allowMethods   允许的方法（如 "GET, POST, OPTIONS"）
+     * @param maxAgeSeconds  浏览器缓存预检结果的秒数
+     */
+    public CorsFilter(Set<String> allowedOrigins, String allowMethods, int maxAgeSeconds) {
+        this.allowedOrigins = Set.copyOf(allowedOrigins);
+        this.anyOrigin = allowedOrigins.contains(ANY_ORIGIN);
+        this.allowMethods = List.of(allowMethods);
+        this.allowHeaders = List.of("Content-Type");
+        this.maxAge = List.of(Integer.toString(maxAgeSeconds));
+    }
+
+    /**
+     * 按配置创建：healthsmart.cors.allowed-origins（默认 *）、healthsmart.cors.max-age-seconds（默认7200，
+     * 即 Chromium 接受的上限）
+     */
+    public static CorsFilter fromConfig(String allowMethods) {
+        Set<String> origins = Arrays.stream(AppConfig.getString("healthsmart.cors.allowed-origins", ANY_ORIGIN)
+                        .split(","))
+                .map(String::trim)
+                .filter(origin -> !origin.isEmpty())
+                .collect(Collectors.toSet());
+        return new CorsFilter(origins, allowMethods, AppConfig.getInt("healthsmart.cors.max-age-seconds", 7200));
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        String origin = exchange.getRequestHeaders().getFirst("Origin");
+        List<String> allowOrigin = allowOrigin(origin);
+        Headers headers = exchange.getResponseHeaders();
+
+        if (!"OPTIONS".equals(exchange.getRequestMethod())) {
+            if (allowOrigin != null) {
+                headers.put("Access-Control-Allow-Origin", allowOrigin);
+                if (!anyOrigin) {
+                    headers.put("Vary", varyOrigin());
+                }
+            }
+            chain.doFilter(exchange);
+            return;
+        }
+
+        try (exchange) {
+            // 无正文的响应会直接结束交换；请求体未读到结尾时连接不能复用
+            exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+            headers.put("Allow", copy(allowMethods));
+            if (!anyOrigin) {
+                headers.put("Vary", varyOrigin());
+            }
+            if (origin != null && allowOrigin == null) {
+                exchange.sendResponseHeaders(403, -1);
+                return;
+            }
+            if (allowOrigin != null) {
+                headers.put("Access-Control-Allow-Origin", allowOrigin);
+                headers.put("Access-Control-Allow-Methods", copy(allowMethods));
+                headers.put("Access-Control-Allow-Headers", copy(allowHeaders));
+                headers.put("Access-Control-Max-Age", copy(maxAge));
+            }
+            exchange.sendResponseHeaders(204, -1);
+        }
+    }
+
+    /**
+     * 应回写的 Access-Control-Allow-Origin；无 Origin 头或来源不在允许列表中时返回 null
+     */
+    private List<String> allowOrigin(String origin) {
+        if (origin == null) {
+            return anyOrigin ? copy(ANY_ORIGIN) : null;
+        }
+        if (anyOrigin) {
+            return copy(ANY_ORIGIN);
+        }
+        return allowedOrigins.contains(origin) ? copy(origin) : null;
+    }
+
+    private static List<String> varyOrigin() {
+        return copy("Origin");
+    }
+
+    /**
+     * 放入响应头的值列表须可修改：后续过滤器（如 CompressionFilter）可能在同一头上追加值
+     */
+    private static List<String> copy(String value) {
+        List<String> values = new ArrayList<>(1);
+        values.add(value);
+        return values;
+    }
+
+    private static List<String> copy(List<String> values) {
+        return new ArrayList<>(values);
+    }
+
+    @Override
+    public String description() {
+        return "CORS preflight fast path";
+    }
+}
@@ -0,0 +1,396 @@
+package com.healthsmart.web;
+
+import com.healthsmart.util.HashUtil;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 静态资源处理器
+ * In-memory Static Asset Handler
+ *
+ * 启动时把 Web 目录（index.html、css、js）一次性读入内存：计算内容摘要作为强 ETag，
+ * 为文本资源预先生成 gzip 变体（目录中存在不旧于源文件的 .br 预压缩文件时一并加载），
+ * 并为非 HTML 资源生成带摘要的指纹路径（css/app.css -> css/app.1a2b3c4d.css），
+ * HTML 中引用这些资源的地址改写为指纹路径。指纹路径返回一年的 immutable 缓存，
+ * 原始路径和 HTML 返回 no-cache，由 If-None-Match 协商得到304。
+ * 超过 healthsmart.web.inline-max-bytes 的非 HTML 文件不驻留内存，按需用 FileChannel.transferTo 输出。
+ * 资源内容是启动时的快照，修改前端文件后需重启服务。
+ */
+public final class StaticAssetHandler implements HttpHandler {
+
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE = "no-cache";
+    private static final Map<String, String> CONTENT_TYPES = Map.ofEntries(
+            Map.entry("html", "text/html; charset=UTF-8"),
+            Map.entry("css", "text/css; charset=UTF-8"),
+            Map.entry("js", "application/javascript; charset=UTF-8"),
+            Map.entry("json", "application/json; charset=UTF-8"),
+            Map.entry("svg", "image/svg+xml"),
+            Map.entry("txt", "text/plain; charset=UTF-8"),
+            Map.entry("png", "image/png"),
+            Map.entry("jpg", "image/jpeg"),
+            Map.entry("jpeg", "image/jpeg"),
+            Map.entry("gif", "image/gif"),
+            Map.entry("ico", "image/x-icon"),
+            Map.entry("woff2", "font/woff2"));
+
+    private final Map<String, Route> routes;
+    private final Map<String, String> fingerprints;
+
+    private StaticAssetHandler(Map<String, Route> routes, Map<String, String> fingerprints) {
+        this.routes = routes;
+        this.fingerprints = fingerprints;
+    }
+
+    /**
+     * 加载目录下的全部资源
+     *
+     * @param root           Web 根目录
+     * @param inlineMaxBytes 超过该大小的文件不读入内存
+     */
+    public static StaticAssetHandler load(Path root, long inlineMaxBytes) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(Files::isRegularFile)
+                    .filter(p -> contentType(p.getFileName().toString()) != null)
+                    .sorted()
+                    .toList();
+        }
+
+        // 先处理非 HTML 资源得到指纹路径，再改写 HTML 中的引用
+        Map<String, Asset> assets = new HashMap<>();
+        Map<String, String> fingerprints = new HashMap<>();
+        List<Path> pages = new ArrayList<>();
+        for (Path file : files) {
+            String path = relativePath(root, file);
+            if (path.endsWith(".html")) {
+                pages.add(file);
+                continue;
+            }
+            Asset asset = Files.size(file) > inlineMaxBytes
+                    ? Asset.onDisk(file, contentType(path))
+                    : Asset.inMemory(file, Files.readAllBytes(file), contentType(path));
+            assets.put(path, asset);
+            fingerprints.put(path, fingerprint(path, asset.hash));
+        }
+        for (Path file : pages) {
+            String html = Files.readString(file, StandardCharsets.UTF_8);
+            for (Map.Entry<String, String> entry : fingerprints.entrySet()) {
+                html = html.replace("\"" + entry.getKey() + "\"", "\"" + entry.getValue() + "\"");
+            }
+            String path = relativePath(root, file);
+            assets.put(path, Asset.inMemory(file, html.getBytes(StandardCharsets.UTF_8), contentType(path)));
+        }
+
+        Map<String, Route> routes = new HashMap<>();
+        for (Map.Entry<String, Asset> entry : assets.entrySet()) {
+            String path = entry.getKey();
+            routes.put("/" + path, new Route(entry.getValue(), REVALIDATE));
+            String fingerprinted = fingerprints.get(path);
+            if (fingerprinted != null) {
+                routes.put("/" + fingerprinted, new Route(entry.getValue(), IMMUTABLE));
+            }
+        }
+        Route index = routes.get("/index.html");
+        if (index != null) {
+            routes.put("/", index);
+        }
+        return new StaticAssetHandler(routes, Collections.unmodifiableMap(fingerprints));
+    }
+
+    /**
+     * 资源的指纹路径（不带前导斜杠），未知资源返回 null
+     */
+    public String fingerprintedPath(String path) {
+        return fingerprints.get(path);
+    }
+
+    /**
+     * 已加载资源的统计：文件数、驻留内存的原始字节数、gzip 字节数、brotli 字节数
+     */
+    public long[] stats() {
+        long[] stats = new long[4];
+        routes.values().stream().map(r -> r.asset).distinct().forEach(asset -> {
+            stats[0]++;
+            stats[1] += asset.identity != null ? asset.identity.length : 0;
+            stats[2] += asset.gzip != null ? asset.gzip.length : 0;
+            stats[3] += asset.brotli != null ? asset.brotli.length : 0;
+        });
+        return stats;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            // 304、HEAD 等无正文的响应会直接结束交换；请求体未读到结尾时连接不能复用
+            exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+            String method = exchange.getRequestMethod();
+            boolean head = "HEAD".equals(method);
+            Headers responseHeaders = exchange.getResponseHeaders();
+            if (!head && !"GET".equals(method)) {
+                responseHeaders.set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            Route route = routes.get(exchange.getRequestURI().getPath());
+            if (route == null) {
+                byte[] body = "Not Found".getBytes(StandardCharsets.UTF_8);
+                responseHeaders.set("Content-Type", "text/plain; charset=UTF-8");
+                exchange.sendResponseHeaders(404, head ? -1 : body.length);
+                if (!head) {
+                    exchange.getResponseBody().write(body);
+                }
+                return;
+            }
+
+            Asset asset = route.asset;
+            Headers requestHeaders = exchange.getRequestHeaders();
+            String encoding = asset.compressible()
+                    ? negotiate(requestHeaders.getFirst("Accept-Encoding"), asset) : null;
+            responseHeaders.set("Content-Type", asset.contentType);
+            responseHeaders.set("Cache-Control", route.cacheControl);
+            responseHeaders.set("ETag", asset.etag(encoding));
+            if (asset.compressible()) {
+                responseHeaders.set("Vary", "Accept-Encoding");
+            }
+            if (asset.matches(requestHeaders.getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+
+            byte[] body = "br".equals(encoding) ? asset.brotli
+                    : "gzip".equals(encoding) ? asset.gzip : asset.identity;
+            if (encoding != null) {
+                responseHeaders.set("Content-Encoding", encoding);
+            }
+            long length = body != null ? body.length : asset.length;
+            if (head) {
+                // HEAD 不发送正文，长度由 Content-Length 单独给出
+                responseHeaders.set("Content-Length", Long.toString(length));
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, length);
+            OutputStream out = exchange.getResponseBody();
+            if (body != null) {
+                out.write(body);
+            } else {
+                transfer(asset.file, length, out);
+            }
+        }
+    }
+
+    /**
+     * 大文件直接从文件通道写出，不在堆上缓存整个文件
+     */
+    private static void transfer(Path file, long length, OutputStream out) throws IOException {
+        WritableByteChannel target = Channels.newChannel(out);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = 0;
+            while (position < length) {
+                long sent = channel.transferTo(position, length - position, target);
+                if (sent <= 0) {
+                    throw new IOException("静态资源在输出过程中被截断: " + file);
+                }
+                position += sent;
+            }
+        }
+    }
+
+    /**
+     * 按 Accept-Encoding 选择编码，br 优先；q=0 视为拒绝
+     */
+    static String negotiate(String acceptEncoding, Asset asset) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        boolean br = false;
+        boolean gzip = false;
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.trim().split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            boolean refused = false;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        refused = Double.parseDouble(param.substring(2)) <= 0;
+                    } catch (NumberFormatException e) {
+                        refused = true;
+                    }
+                }
+            }
+            if (refused) {
+                continue;
+            }
+            if ("br".equals(coding)) {
+                br = true;
+            } else if ("gzip".equals(coding) || "*".equals(coding)) {
+                gzip = true;
+            }
+        }
+        if (br && asset.brotli != null) {
+            return "br";
+        }
+        return gzip && asset.gzip != null ? "gzip" : null;
+    }
+
+    private static String fingerprint(String path, String hash) {
+        int slash = path.lastIndexOf('/');
+        int dot = path.lastIndexOf('.');
+        if (dot <= slash + 1) {
+            return path + "." + hash.substring(0, 8);
+        }
+        return path.substring(0, dot) + "." + hash.substring(0, 8) + path.substring(dot);
+    }
+
+    private static String relativePath(Path root, Path file) {
+        return root.relativize(file).toString().replace('\\', '/');
+    }
+
+    private static String contentType(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? null : CONTENT_TYPES.get(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private static final class Route {
+        final Asset asset;
+        final String cacheControl;
+
+        Route(Asset asset, String cacheControl) {
+            this.asset = asset;
+            this.cacheControl = cacheControl;
+        }
+    }
+
+    /**
+     * 单个资源：原始内容（或磁盘文件）及其预压缩变体
+     */
+    static final class Asset {
+        final Path file;
+        final String contentType;
+        final String hash;
+        final long length;
+        final byte[] identity;
+        final byte[] gzip;
+        final byte[] brotli;
+
+        private Asset(Path file, String contentType, String hash, long length,
+                      byte[] identity, byte[] gzip, byte[] brotli) {
+            this.file = file;
+            this.contentType = contentType;
+            this.hash = hash;
+            this.length = length;
+            this.identity = identity;
+            this.gzip = gzip;
+            this.brotli = brotli;
+        }
+
+        static Asset inMemory(Path file, byte[] content, String contentType) throws IOException {
+            String hash = HashUtil.toHex(HashUtil.sha256().digest(content)).substring(0, 32);
+            byte[] gzip = null;
+            byte[] brotli = null;
+            if (isCompressible(contentType)) {
+                gzip = gzip(content);
+                // 只保留确实更小的变体
+                if (gzip.length >= content.length) {
+                    gzip = null;
+                }
+                Path br = file.resolveSibling(file.getFileName() + ".br");
+                if (Files.isRegularFile(br)
+                        && Files.getLastModifiedTime(br).compareTo(Files.getLastModifiedTime(file)) >= 0) {
+                    brotli = Files.readAllBytes(br);
+                }
+            }
+            return new Asset(file, contentType, hash, content.length, content, gzip, brotli);
+        }
+
+        static Asset onDisk(Path file, String contentType) throws IOException {
+            MessageDigest digest = HashUtil.sha256();
+            byte[] buffer = new byte[64 * 1024];
+            try (InputStream in = Files.newInputStream(file)) {
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            String hash = HashUtil.toHex(digest.digest()).substring(0, 32);
+            return new Asset(file, contentType, hash, Files.size(file), null, null, null);
+        }
+
+        boolean compressible() {
+            return gzip != null || brotli != null;
+        }
+
+        /**
+         * 各编码是不同的表示，强 ETag 需互不相同
+         */
+        String etag(String encoding) {
+            return encoding == null ? "\"" + hash + "\"" : "\"" + hash + "-" + encoding + "\"";
+        }
+
+        /**
+         * If-None-Match 使用弱比较：同一内容的任意编码变体都视为命中
+         */
+        boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String tag : ifNoneMatch.split(",")) {
+                String value = tag.trim();
+                if ("*".equals(value)) {
+                    return true;
+                }
+                if (value.startsWith("W/")) {
+                    value = value.substring(2);
+                }
+                if (value.length() >= hash.length() + 2 && value.charAt(0) == '"'
+                        && value.regionMatches(1, hash, 0, hash.length())
+                        && (value.charAt(hash.length() + 1) == '"' || value.charAt(hash.length() + 1) == '-')) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean isCompressible(String contentType) {
+            return contentType.startsWith("text/") || contentType.startsWith("application/")
+                    || contentType.startsWith("image/svg");
+        }
+
+        private static byte[] gzip(byte[] content) throws IOException {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(content.length / 3 + 64);
+            try (GZIPOutputStream out = new GZIPOutputStream(buffer) {
+                {
+                    def.setLevel(Deflater.BEST_COMPRESSION);
+                }
+            }) {
+                out.write(content);
+            }
+            return buffer.toByteArray();
+        }
+    }
+}
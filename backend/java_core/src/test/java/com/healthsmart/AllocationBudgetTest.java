@@ -0,0 +1,347 @@
+package com.healthsmart;
+
+import com.healthsmart.dao.DailyTaskDAO;
+import com.healthsmart.dao.PersonalizedPlanDAO;
+import com.healthsmart.model.DailyTask;
+import com.healthsmart.model.HealthReport;
+import com.healthsmart.model.PersonalizedPlan;
+import com.healthsmart.model.User;
+import com.healthsmart.service.HealthReportService;
+import com.healthsmart.service.UserService;
+import com.healthsmart.util.DatabaseConnection;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * 每个API路由的内存分配预算回归测试
+ * Allocation-budget regression test per API route
+ *
+ * 在进程内针对夹具数据库逐个驱动 ApiServer 路由，使用
+ * com.sun.management.ThreadMXBean.getThreadAllocatedBytes 统计单次请求的分配字节数，
+ * 超出 src/test/resources/allocation-budgets.properties 中签入的预算即失败并打印差异报告。
+ *
+ * 调整预算：mvn test -Dallocation.budget.update=true，
+ * 会把测量值（含余量）写入 target/allocation-budgets.properties，确认后拷回 src/test/resources。
+ */
+class AllocationBudgetTest {
+
+    private static final String BUDGET_RESOURCE = "/allocation-budgets.properties";
+    private static final int WARMUP_ITERATIONS = 300;
+    private static final int MEASURED_ITERATIONS = 51;
+    private static final double UPDATE_HEADROOM = 1.25;
+
+    private static com.sun.management.ThreadMXBean threadBean;
+    private static Path fixtureDir;
+    private static int userId;
+    private static int reportId;
+    private static int planId;
+    private static int taskId;
+    private static String username;
+
+    @BeforeAll
+    static void setUpFixture() throws Exception {
+        threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        fixtureDir = Files.createTempDirectory("healthsmart-alloc");
+        DatabaseConnection.setDatabaseUrl("jdbc:sqlite:" + fixtureDir.resolve("fixture.db"));
+        DatabaseConnection.initializeDatabase();
+
+        UserService userService = new UserService();
+        username = "alloc_user";
+        User user = userService.register(username, "alloc123", "alloc@healthsmart.com", "预算用户");
+        userId = user.getUserId();
+
+        String month = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM"));
+        HealthReport report = new HealthReport();
+        report.setUserId(userId);
+        report.setReportMonth(month);
+        report.setHeight(175.0);
+        report.setWeight(75.0);
+        report.setSleepHoursAvg(7.0);
+        report.setSleepQuality(7);
+        report.setExerciseFrequency(3);
+        report.setHealthGoal("maintain_weight");
+        report.setStressLevel(5);
+        report.setEnergyLevel(6);
+        reportId = new HealthReportService().submitReport(report).getReportId();
+
+        PersonalizedPlan plan = new PersonalizedPlan();
+        plan.setUserId(userId);
+        plan.setReportId(reportId);
+        plan.setPlanMonth(month);
+        plan.setTotalDays(30);
+        plan.setCalorieTarget(2100);
+        plan.setProteinTarget(90.0);
+        plan.setCarbsTarget(260.0);
+        plan.setFatTarget(70.0);
+        plan.setExerciseSessionsPerWeek(4);
+        plan.setGenerationMethod("fixture");
+        plan.setPlanStatus("active");
+        planId = new PersonalizedPlanDAO().insert(plan);
+
+        LocalDate firstDay = LocalDate.now().withDayOfMonth(1);
+        List<DailyTask> tasks = new ArrayList<>();
+        for (int day = 0; day < 30; day++) {
+            DailyTask task = new DailyTask();
+            task.setPlanId(planId);
+            task.setUserId(userId);
+            task.setTaskDate(firstDay.plusDays(day).format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+            task.setMealBreakfast("燕麦粥配牛奶，全麦面包一片，水煮蛋一个");
+            task.setMealLunch("糙米饭一碗，清炒西兰花，香煎鸡胸肉");
+            task.setMealDinner("杂粮粥，清蒸鲈鱼，凉拌黄瓜");
+            task.setMealSnacks("苹果一个，无糖酸奶一杯");
+            task.setDailyCalorieGoal(2100);
+            task.setExerciseType("有氧运动");
+            task.setExerciseDescription("快走或慢跑，保持心率在最大心率的60%-70%");
+            task.setExerciseDuration(40);
+            task.setExerciseIntensity("medium");
+            task.set注意事项("记得保持充足的水分摄入，每天至少8杯水");
+            tasks.add(task);
+        }
+        DailyTaskDAO taskDAO = new DailyTaskDAO();
+        taskDAO.batchInsert(tasks);
+        taskId = taskDAO.findByPlanId(planId).get(0).getTaskId();
+
+        ApiServer.initServices();
+    }
+
+    @AfterAll
+    static void tearDownFixture() throws IOException {
+        DatabaseConnection.closeConnection();
+        if (fixtureDir != null) {
+            try (var paths = Files.walk(fixtureDir)) {
+                paths.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    /**
+     * 待测路由定义：路由名 -> 处理器、请求路径与请求体
+     */
+    private static List<RouteCase> routes() {
+        String today = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+        List<RouteCase> routes = new ArrayList<>();
+
+        routes.add(new RouteCase("health", new ApiServer.HealthHandler(), "/api/health", i -> ""));
+
+        ApiServer.ApiHandler api = new ApiServer.ApiHandler();
+
+        routes.add(new RouteCase("user.login", api, "/api/user?action=login",
+                i -> "{\"username\":\"" + username + "\",\"password\":\"alloc123\"}"));
+        routes.add(new RouteCase("user.auth", api, "/api/user?action=auth",
+                i -> "{\"username\":\"" + username + "\",\"password\":\"alloc123\"}"));
+        routes.add(new RouteCase("user.register", api, "/api/user?action=register",
+                i -> "{\"username\":\"alloc_reg_" + i + "\",\"password\":\"p\",\"email\":\"r@h.com\",\"nickname\":\"注册\"}"));
+        routes.add(new RouteCase("user.profile", api, "/api/user?action=profile",
+                i -> "{\"userId\":" + userId + "}"));
+        routes.add(new RouteCase("user.update", api, "/api/user?action=update",
+                i -> "{\"userId\":" + userId + ",\"nickname\":\"预算用户\"}"));
+
+        routes.add(new RouteCase("health-report.getLatest", api, "/api/health-report?action=getLatest",
+                i -> "{\"userId\":" + userId + "}"));
+        routes.add(new RouteCase("health-report.list", api, "/api/health-report?action=list",
+                i -> "{\"userId\":" + userId + "}"));
+        routes.add(new RouteCase("health-report.getById", api, "/api/health-report?action=getById",
+                i -> "{\"reportId\":" + reportId + "}"));
+        // REST 列表为 GET，会先查询报告列表版本并返回 ETag
+        routes.add(new RouteCase("rest.health-report.list", api, "GET",
+                "/api/health-report/user/" + userId, i -> ""));
+        // 提交会累积报告行，放在读取类路由之后测量，避免影响 list 的结果规模
+        routes.add(new RouteCase("health-report.submit", api, "/api/health-report?action=submit",
+                i -> "{\"userId\":" + userId + ",\"height\":175,\"weight\":74.5,\"sleepHoursAvg\":7,"
+                        + "\"sleepQuality\":7,\"stressLevel\":5,\"energyLevel\":6,"
+                        + "\"exerciseFrequency\":3,\"healthGoal\":\"maintain_weight\"}"));
+
+        // plan.generate 依赖外部Python引擎进程，不纳入分配预算
+        routes.add(new RouteCase("plan.getToday", api, "/api/plan?action=getToday",
+                i -> "{\"userId\":" + userId + ",\"planId\":" + planId + "}"));
+        routes.add(new RouteCase("plan.getTasks", api, "/api/plan?action=getTasks",
+                i -> "{\"planId\":" + planId + "}"));
+        routes.add(new RouteCase("plan.getByDate", api, "/api/plan?action=getByDate",
+                i -> "{\"planId\":" + planId + ",\"taskDate\":\"" + today + "\"}"));
+        routes.add(new RouteCase("plan.complete", api, "/api/plan?action=complete",
+                i -> "{\"taskId\":" + taskId + ",\"completed\":" + (i % 2 == 0) + "}"));
+
+        routes.add(new RouteCase("analytics.dashboard", api, "/api/analytics?action=dashboard",
+                i -> "{\"userId\":" + userId + "}"));
+        routes.add(new RouteCase("analytics.weekly", api, "/api/analytics?action=weekly",
+                i -> "{\"userId\":" + userId + "}"));
+        routes.add(new RouteCase("analytics.streak", api, "/api/analytics?action=streak",
+                i -> "{\"userId\":" + userId + "}"));
+        routes.add(new RouteCase("analytics.planStats", api, "/api/analytics?action=planStats",
+                i -> "{\"planId\":" + planId + "}"));
+
+        routes.add(new RouteCase("reminder.list", api, "/api/reminder?action=list",
+                i -> "{\"userId\":" + userId + "}"));
+        routes.add(new RouteCase("reminder.create", api, "/api/reminder?action=create",
+                i -> "{\"userId\":" + userId + "}"));
+
+        // api.js 使用的 REST 路径：路径参数与查询参数并入请求体后交给同一组处理方法
+        routes.add(new RouteCase("rest.user.profile", api, "GET", "/api/user/" + userId, i -> ""));
+        routes.add(new RouteCase("rest.plan.daily", api, "GET",
+                "/api/plan/daily?userId=" + userId + "&date=" + today, i -> ""));
+        // 日历视图只取日期与完成状态：投影查询，不读取模板、不解析时间列
+        routes.add(new RouteCase("rest.plan.tasks.calendar", api, "GET",
+                "/api/plan/" + planId + "/tasks?fields=taskDate,isCompleted", i -> ""));
+        // 支持条件请求的路由：GET 时先查询资源版本并返回 ETag
+        routes.add(new RouteCase("rest.analytics.dashboard", api, "GET",
+                "/api/analytics/dashboard?userId=" + userId, i -> ""));
+        routes.add(new RouteCase("rest.task.complete", api, "POST", "/api/task/" + taskId + "/complete",
+                i -> "{\"completed\":" + (i % 2 == 0) + "}"));
+
+        return routes;
+    }
+
+    @Test
+    void routesStayWithinAllocationBudget() throws Exception {
+        Properties budgets = loadBudgets();
+        boolean updateMode = Boolean.getBoolean("allocation.budget.update");
+
+        TreeMap<String, Long> measured = new TreeMap<>();
+        for (RouteCase route : routes()) {
+            measured.put(route.name, measure(route));
+        }
+
+        List<String> violations = new ArrayList<>();
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%n%-26s %12s %12s %9s  %s%n", "route", "budget", "measured", "delta", "status"));
+        for (var entry : measured.entrySet()) {
+            String budgetValue = budgets.getProperty(entry.getKey());
+            long actual = entry.getValue();
+            if (budgetValue == null) {
+                violations.add(entry.getKey());
+                report.append(String.format("%-26s %12s %12d %9s  %s%n", entry.getKey(), "-", actual, "-", "NO BUDGET"));
+                continue;
+            }
+            long budget = Long.parseLong(budgetValue.trim());
+            double delta = budget > 0 ? (actual - budget) * 100.0 / budget : 0;
+            boolean over = actual > budget;
+            if (over) {
+                violations.add(entry.getKey());
+            }
+            report.append(String.format("%-26s %12d %12d %+8.1f%%  %s%n",
+                    entry.getKey(), budget, actual, delta, over ? "OVER BUDGET" : "ok"));
+        }
+        for (String name : budgets.stringPropertyNames()) {
+            if (!measured.containsKey(name)) {
+                report.append(String.format("%-26s %12s %12s %9s  %s%n", name, budgets.getProperty(name), "-", "-", "STALE"));
+            }
+        }
+        System.out.println("[分配预算] 每请求分配字节数 (bytes/request)" + report);
+
+        if (updateMode) {
+            writeUpdatedBudgets(measured);
+            return;
+        }
+        if (!violations.isEmpty()) {
+            fail("以下路由超出分配预算: " + violations + report);
+        }
+    }
+
+    /**
+     * 预热后取多次测量的中位数，降低JIT与GC时机带来的抖动
+     */
+    private long measure(RouteCase route) throws IOException {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            invoke(route, route.prepare(i));
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long[] samples = new long[MEASURED_ITERATIONS];
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            FakeHttpExchange exchange = route.prepare(WARMUP_ITERATIONS + i);
+            long before = threadBean.getThreadAllocatedBytes(threadId);
+            route.handler.handle(exchange);
+            long after = threadBean.getThreadAllocatedBytes(threadId);
+            samples[i] = after - before;
+            assertEquals(200, exchange.getResponseCode(), route.name + " 响应状态异常");
+        }
+        Arrays.sort(samples);
+        return samples[MEASURED_ITERATIONS / 2];
+    }
+
+    private void invoke(RouteCase route, FakeHttpExchange exchange) throws IOException {
+        route.handler.handle(exchange);
+        String response = exchange.getResponseText();
+        if (response.contains("\"success\":false")) {
+            fail(route.name + " 在夹具数据库上执行失败: " + response);
+        }
+    }
+
+    private Properties loadBudgets() throws IOException {
+        Properties budgets = new Properties();
+        try (InputStream in = AllocationBudgetTest.class.getResourceAsStream(BUDGET_RESOURCE)) {
+            assertNotNull(in, "缺少分配预算文件 " + BUDGET_RESOURCE);
+            budgets.load(in);
+        }
+        return budgets;
+    }
+
+    private void writeUpdatedBudgets(TreeMap<String, Long> measured) throws IOException {
+        Path target = Path.of("target", "allocation-budgets.properties");
+        Files.createDirectories(target.getParent());
+        StringBuilder content = new StringBuilder();
+        content.append("# 每个API路由单次请求允许分配的字节数（测量中位数 x ").append(UPDATE_HEADROOM).append("，按KB取整）\n");
+        content.append("# Allocation budget in bytes per request, generated by AllocationBudgetTest\n");
+        for (var entry : measured.entrySet()) {
+            long budget = (long) Math.ceil(entry.getValue() * UPDATE_HEADROOM / 1024.0) * 1024;
+            content.append(entry.getKey()).append('=').append(budget).append('\n');
+        }
+        try (OutputStream out = Files.newOutputStream(target)) {
+            out.write(content.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        }
+        System.out.println("[分配预算] 新预算已写入 " + target.toAbsolutePath());
+    }
+
+    /**
+     * 单个路由的测量用例
+     */
+    private static class RouteCase {
+        final String name;
+        final HttpHandler handler;
+        final String method;
+        final String path;
+        final IntFunction<String> body;
+
+        RouteCase(String name, HttpHandler handler, String path, IntFunction<String> body) {
+            this(name, handler, "POST", path, body);
+        }
+
+        RouteCase(String name, HttpHandler handler, String method, String path, IntFunction<String> body) {
+            this.name = name;
+            this.handler = handler;
+            this.method = method;
+            this.path = path;
+            this.body = body;
+        }
+
+        /**
+         * 请求体与exchange在计量窗口之外构造，只统计处理器本身的分配
+         */
+        FakeHttpExchange prepare(int iteration) {
+            return new FakeHttpExchange(method, path, body.apply(iteration));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.healthsmart;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * API 分发处理器请求错误测试
+ * API handler bad request handling
+ *
+ * 请求体不是JSON对象或路由参数类型不符时返回400和 {success:false, message}，不进入处理方法，
+ * 也不会因异常逃出处理器而断开连接。
+ */
+class ApiHandlerTest {
+
+    @Test
+    void malformedBodyIsBadRequest() throws IOException {
+        assertBadRequest(send("PUT", "/api/user/7", "{\"nickname\": "));
+        assertBadRequest(send("PUT", "/api/user/7", "[\"nickname\"]"));
+    }
+
+    @Test
+    void nonIntegerQueryParamIsBadRequest() throws IOException {
+        assertBadRequest(send("GET", "/api/plan/daily?userId=abc&date=2026-03-01", ""));
+    }
+
+    @Test
+    void unknownActionOnRestPathIsNotFound() throws IOException {
+        // 拼错的操作名不能落到 POST /api/health-report 的提交处理
+        FakeHttpExchange exchange = send("POST", "/api/health-report?action=typo", "{\"userId\": 1}");
+        assertEquals(404, exchange.getResponseCode());
+        JsonObject body = JsonParser.parseString(exchange.getResponseText()).getAsJsonObject();
+        assertEquals("未知的操作类型: typo", body.get("message").getAsString());
+    }
+
+    @Test
+    void malformedBatchItemBodyIsBadRequest() {
+        Map<String, Object> result = ApiServer.BatchItem.parse(JsonParser.parseString(
+                "{\"id\": 1, \"route\": \"/user/7\", \"method\": \"PUT\", \"body\": \"{\\\"nickname\\\": \"}")).run();
+        assertEquals(400, result.get("status"));
+    }
+
+    private static FakeHttpExchange send(String method, String pathAndQuery, String body) throws IOException {
+        FakeHttpExchange exchange = new FakeHttpExchange(method, pathAndQuery, body);
+        new ApiServer.ApiHandler().handle(exchange);
+        return exchange;
+    }
+
+    private static void assertBadRequest(FakeHttpExchange exchange) {
+        assertEquals(400, exchange.getResponseCode());
+        JsonObject body = JsonParser.parseString(exchange.getResponseText()).getAsJsonObject();
+        assertFalse(body.get("success").getAsBoolean());
+        assertTrue(body.get("message").getAsString().startsWith("请求参数错误"), body.toString());
+    }
+}
@@ -0,0 +1,57 @@
+package com.healthsmart;
+
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 批量子请求分类测试
+ * Batch Item Read-Only Classification
+ *
+ * 只读子请求会与相邻子请求并发执行且不清空批次上下文，分类只看命中的路由，不看声明的 method。
+ */
+class BatchItemTest {
+
+    @Test
+    void writeActionLabelledGetIsNotReadOnly() {
+        assertFalse(readOnly("{\"route\": \"/plan\", \"action\": \"complete\", \"method\": \"GET\", \"body\": {\"taskId\": 1}}"));
+        assertFalse(readOnly("{\"route\": \"/plan?action=complete&taskId=1\", \"method\": \"GET\"}"));
+        assertFalse(readOnly("{\"route\": \"/user\", \"action\": \"update\", \"method\": \"get\"}"));
+    }
+
+    @Test
+    void readActionsAndGetRoutesAreReadOnly() {
+        assertTrue(readOnly("{\"route\": \"/plan\", \"action\": \"getTasks\", \"body\": {\"planId\": 1}}"));
+        assertTrue(readOnly("{\"route\": \"/analytics\", \"action\": \"dashboard\", \"method\": \"POST\"}"));
+        assertTrue(readOnly("{\"route\": \"/plan/1/tasks?fields=taskDate\"}"));
+        assertFalse(readOnly("{\"route\": \"/task/1/complete\", \"method\": \"POST\"}"));
+    }
+
+    @Test
+    void unmatchedRoutesDoNotReachHandlers() {
+        // 未命中的子请求只返回404/405，不访问任何服务
+        assertTrue(readOnly("{\"route\": \"/task/1/complete\", \"method\": \"GET\"}"));
+        assertTrue(readOnly("{\"route\": \"/nowhere\"}"));
+    }
+
+    @Test
+    void nonStringMembersAreInvalidItems() {
+        for (String json : new String[]{
+                "{\"id\": 1, \"route\": {}}",
+                "{\"id\": 2, \"route\": \"/plan\", \"action\": [\"complete\"]}",
+                "{\"id\": 3, \"route\": \"/plan/1/tasks\", \"method\": {\"name\": \"GET\"}}"}) {
+            Map<String, Object> result = ApiServer.BatchItem.parse(JsonParser.parseString(json)).run();
+            assertEquals(400, result.get("status"), json);
+            assertTrue(String.valueOf(result.get("body")).contains("必须是字符串"), json);
+        }
+    }
+
+    private static boolean readOnly(String json) {
+        return ApiServer.BatchItem.parse(JsonParser.parseString(json)).readOnly;
+    }
+}
@@ -0,0 +1,138 @@
+package com.healthsmart;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 进程内HttpExchange替身
+ * In-process HttpExchange used to drive ApiServer handlers without a socket
+ */
+class FakeHttpExchange extends HttpExchange {
+
+    private final String method;
+    private final URI uri;
+    private final Headers requestHeaders = new Headers();
+    private final Headers responseHeaders = new Headers();
+    private final Map<String, Object> attributes = new HashMap<>();
+    private InputStream requestBody;
+    private OutputStream responseBody;
+    private final ByteArrayOutputStream captured;
+    private int responseCode = -1;
+
+    FakeHttpExchange(String method, String pathAndQuery, String body) {
+        this.method = method;
+        this.uri = URI.create(pathAndQuery);
+        this.requestBody = new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+        this.captured = new ByteArrayOutputStream(4096);
+        this.responseBody = captured;
+    }
+
+    String getResponseText() {
+        return captured.toString(StandardCharsets.UTF_8);
+    }
+
+    byte[] getResponseBytes() {
+        return captured.toByteArray();
+    }
+
+    @Override
+    public Headers getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    @Override
+    public Headers getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    @Override
+    public URI getRequestURI() {
+        return uri;
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return method;
+    }
+
+    @Override
+    public HttpContext getHttpContext() {
+        return null;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public InputStream getRequestBody() {
+        return requestBody;
+    }
+
+    @Override
+    public OutputStream getResponseBody() {
+        return responseBody;
+    }
+
+    @Override
+    public void sendResponseHeaders(int rCode, long responseLength) {
+        this.responseCode = rCode;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return InetSocketAddress.createUnresolved("127.0.0.1", 0);
+    }
+
+    @Override
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return InetSocketAddress.createUnresolved("127.0.0.1", ApiServer.PORT);
+    }
+
+    @Override
+    public String getProtocol() {
+        return "HTTP/1.1";
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        attributes.put(name, value);
+    }
+
+    @Override
+    public void setStreams(InputStream i, OutputStream o) {
+        if (i != null) {
+            this.requestBody = i;
+        }
+        if (o != null) {
+            this.responseBody = o;
+        }
+    }
+
+    @Override
+    public HttpPrincipal getPrincipal() {
+        return null;
+    }
+}
@@ -0,0 +1,36 @@
+package com.healthsmart;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 就绪检查测试
+ * Readiness endpoint during startup
+ *
+ * 就绪检查不经过启动门控：markReady() 之前返回自己的503和依赖详情，而不是门控的通用提示。
+ */
+class ReadinessHandlerTest {
+
+    @Test
+    void reportsDetailsBeforeStartupCompletes() throws IOException {
+        assertFalse(ApiServer.isReady());
+        FakeHttpExchange exchange = new FakeHttpExchange("GET", "/api/health/ready", "");
+        new ApiServer.ReadinessHandler().handle(exchange);
+
+        assertEquals(503, exchange.getResponseCode());
+        assertEquals("1", exchange.getResponseHeaders().getFirst("Retry-After"));
+        JsonObject body = JsonParser.parseString(exchange.getResponseText()).getAsJsonObject();
+        assertEquals("starting", body.get("status").getAsString());
+        assertFalse(body.get("ready").getAsBoolean());
+        assertFalse(body.get("started").getAsBoolean());
+        assertTrue(body.has("database"), body.toString());
+        assertTrue(body.has("engine"), body.toString());
+    }
+}
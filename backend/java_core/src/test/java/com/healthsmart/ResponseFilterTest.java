@@ -0,0 +1,74 @@
+package com.healthsmart;
+
+import com.healthsmart.web.CompressionFilter;
+import com.healthsmart.web.CorsFilter;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 跨域与压缩过滤器组合测试
+ * CORS + compression filter chain
+ *
+ * 按 ApiServer 的顺序（CorsFilter 在前，CompressionFilter 在后）驱动过滤器链，
+ * 配置来源白名单时两个过滤器都会写 Vary 头。
+ */
+class ResponseFilterTest {
+
+    private static final String ORIGIN = "https://app.healthsmart.example";
+
+    @Test
+    void compressesResponseForAllowedOrigin() throws IOException {
+        String json = "{\"data\":\"" + "燕麦粥配牛奶".repeat(200) + "\"}";
+        byte[] payload = json.getBytes(StandardCharsets.UTF_8);
+        HttpHandler handler = exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+            exchange.getResponseHeaders().set("ETag", "\"tasks.1\"");
+            exchange.sendResponseHeaders(200, payload.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(payload);
+            }
+        };
+        Filter cors = new CorsFilter(Set.of(ORIGIN), "GET, POST, OPTIONS", 600);
+        Filter compression = new CompressionFilter(1024, 6, exchange -> "test");
+
+        FakeHttpExchange exchange = new FakeHttpExchange("GET", "/api/plan/1/tasks", "");
+        exchange.getRequestHeaders().set("Origin", ORIGIN);
+        exchange.getRequestHeaders().set("Accept-Encoding", "gzip, deflate");
+        new Filter.Chain(List.of(cors, compression), handler).doFilter(exchange);
+
+        assertEquals(200, exchange.getResponseCode());
+        assertEquals(ORIGIN, exchange.getResponseHeaders().getFirst("Access-Control-Allow-Origin"));
+        assertEquals(List.of("Origin", "Accept-Encoding"), exchange.getResponseHeaders().get("Vary"));
+        assertEquals("gzip", exchange.getResponseHeaders().getFirst("Content-Encoding"));
+        assertEquals("\"tasks.1-gzip\"", exchange.getResponseHeaders().getFirst("ETag"));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(exchange.getResponseBytes()))) {
+            assertEquals(json, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void preflightHeadersStayMutable() throws IOException {
+        Filter cors = new CorsFilter(Set.of(ORIGIN), "GET, POST, OPTIONS", 600);
+        FakeHttpExchange exchange = new FakeHttpExchange("OPTIONS", "/api/plan/1/tasks", "");
+        exchange.getRequestHeaders().set("Origin", ORIGIN);
+        new Filter.Chain(List.of(cors), exchange1 -> { }).doFilter(exchange);
+
+        assertEquals(204, exchange.getResponseCode());
+        for (String name : List.of("Vary", "Allow", "Access-Control-Allow-Origin", "Access-Control-Max-Age")) {
+            exchange.getResponseHeaders().add(name, "x");
+            assertTrue(exchange.getResponseHeaders().get(name).contains("x"), name);
+        }
+    }
+}
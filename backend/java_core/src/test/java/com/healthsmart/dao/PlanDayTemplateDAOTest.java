@@ -0,0 +1,111 @@
+package com.healthsmart.dao;
+
+import com.healthsmart.model.DailyTask;
+import com.healthsmart.util.DatabaseConnection;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 计划日模板缓存测试
+ * Plan Day Template cache publication
+ *
+ * 事务中新建的模板只有提交后才进入共享缓存；回滚只丢弃本事务的模板，已缓存的其他模板保留。
+ */
+class PlanDayTemplateDAOTest {
+
+    private static Path fixtureDir;
+    private final PlanDayTemplateDAO dao = new PlanDayTemplateDAO();
+
+    @BeforeAll
+    static void setUpFixture() throws Exception {
+        fixtureDir = Files.createTempDirectory("healthsmart-templates");
+        DatabaseConnection.setDatabaseUrl("jdbc:sqlite:" + fixtureDir.resolve("fixture.db"));
+        DatabaseConnection.initializeDatabase();
+    }
+
+    @AfterAll
+    static void cleanup() throws Exception {
+        DatabaseConnection.closeConnection();
+        try (var paths = Files.walk(fixtureDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void rollbackKeepsOtherTemplatesAndCommitPublishes() throws Exception {
+        int committed;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            committed = dao.resolveId(conn, task("燕麦粥、鸡蛋"));
+        }
+        int cachedBefore = PlanDayTemplateDAO.cachedCount();
+
+        int rolledBack;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            rolledBack = dao.resolveId(conn, task("全麦面包、牛奶"));
+            // 同一事务内再次解析命中暂存的ID
+            assertEquals(rolledBack, dao.resolveId(conn, task("全麦面包、牛奶")));
+            assertEquals(cachedBefore, PlanDayTemplateDAO.cachedCount());
+            PlanDayTemplateDAO.rollback(conn);
+            conn.setAutoCommit(true);
+        }
+        assertEquals(cachedBefore, PlanDayTemplateDAO.cachedCount());
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            assertEquals(committed, dao.resolveId(conn, task("燕麦粥、鸡蛋")));
+            conn.setAutoCommit(false);
+            int id = dao.resolveId(conn, task("全麦面包、牛奶"));
+            PlanDayTemplateDAO.commit(conn);
+            conn.setAutoCommit(true);
+            assertEquals(cachedBefore + 1, PlanDayTemplateDAO.cachedCount());
+
+            DailyTask stored = new DailyTask();
+            stored.setTemplateId(id);
+            dao.hydrate(conn, List.of(stored));
+            assertEquals("全麦面包、牛奶", stored.getMealBreakfast());
+        }
+        assertNotEquals(committed, rolledBack);
+    }
+
+    @Test
+    void hydrateInsideTransactionDoesNotCacheUncommittedRows() throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            DailyTask task = new DailyTask();
+            task.setTemplateId(dao.resolveId(conn, task("蔬菜沙拉、水煮蛋")));
+            int cachedBefore = PlanDayTemplateDAO.cachedCount();
+            DailyTask read = new DailyTask();
+            read.setTemplateId(task.getTemplateId());
+            dao.hydrate(conn, List.of(read));
+            assertEquals("蔬菜沙拉、水煮蛋", read.getMealBreakfast());
+            assertEquals(cachedBefore, PlanDayTemplateDAO.cachedCount());
+            PlanDayTemplateDAO.rollback(conn);
+            conn.setAutoCommit(true);
+
+            DailyTask after = new DailyTask();
+            after.setTemplateId(task.getTemplateId());
+            dao.hydrate(conn, List.of(after));
+            assertNull(after.getMealBreakfast());
+        }
+    }
+
+    private static DailyTask task(String breakfast) {
+        DailyTask task = new DailyTask();
+        task.setMealBreakfast(breakfast);
+        task.setMealLunch("糙米饭、清蒸鱼");
+        task.setDailyCalorieGoal(1800);
+        task.setExerciseType("有氧运动");
+        return task;
+    }
+}
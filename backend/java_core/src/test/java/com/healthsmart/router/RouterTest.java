@@ -0,0 +1,174 @@
+package com.healthsmart.router;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 预编译路由表测试
+ * Router matching tests
+ */
+class RouterTest {
+
+    private final Router<String> router = Router.<String>builder()
+            .action("/api/user", "login", "legacy.login")
+            .action("/api/user", "profile", "legacy.profile")
+            .post("/api/user/login", "rest.login")
+            .get("/api/user/{userId:int}", "rest.profile")
+            .put("/api/user/{userId:int}", "rest.update")
+            .post("/api/group/join", "rest.join")
+            .get("/api/group/{name}/avatar", "rest.avatar")
+            .post("/api/health-report", "rest.submit")
+            .action("/api/health-report", "list", "legacy.list")
+            .get("/api/plan/daily?{userId:int}&{date}", "rest.daily")
+            .post("/api/task/{taskId:int}/complete", "rest.complete")
+            .build();
+
+    private final RouteMatch<String> match = new RouteMatch<>();
+
+    @Test
+    void dispatchesLegacyActions() {
+        assertTrue(router.match("POST", "/api/user", "action=login", match));
+        assertEquals("legacy.login", match.target());
+        assertTrue(match.isAction());
+        assertTrue(router.match("GET", "/api/user/", "x=1&action=profile", match));
+        assertEquals("legacy.profile", match.target());
+
+        assertFalse(router.match("POST", "/api/user", "action=drop", match));
+        assertTrue(match.isUnknownAction());
+        assertEquals("drop", match.queryParam("action"));
+    }
+
+    @Test
+    void actionTakesPriorityOverRestRouteOnSamePath() {
+        assertTrue(router.match("POST", "/api/health-report", null, match));
+        assertEquals("rest.submit", match.target());
+        assertTrue(router.match("POST", "/api/health-report", "action=list", match));
+        assertEquals("legacy.list", match.target());
+    }
+
+    @Test
+    void unknownActionDoesNotFallThroughToRestRoute() {
+        assertFalse(router.match("POST", "/api/health-report", "action=typo", match));
+        assertTrue(match.isUnknownAction());
+        assertTrue(match.isRestPath());
+        assertFalse(router.match("POST", "/api/health-report", "action=", match));
+        assertTrue(match.isUnknownAction());
+        // 纯旧式路径仍是未知操作，但不是 REST 路径
+        assertFalse(router.match("POST", "/api/user", "action=typo", match));
+        assertTrue(match.isUnknownAction());
+        assertFalse(match.isRestPath());
+        // 没有操作表的路径忽略 action 参数
+        assertTrue(router.match("POST", "/api/user/login", "action=typo", match));
+        assertEquals("rest.login", match.target());
+    }
+
+    @Test
+    void extractsTypedPathParams() {
+        assertTrue(router.match("GET", "/api/user/42", null, match));
+        assertEquals("rest.profile", match.target());
+        assertEquals(1, match.pathParamCount());
+        assertEquals("userId", match.pathParamName(0));
+        assertEquals(42, match.pathInt("userId"));
+
+        assertTrue(router.match("POST", "/api/task/7/complete", null, match));
+        assertEquals(7, match.pathInt(0));
+    }
+
+    @Test
+    void prefersStaticSegmentAndBacktracksToParam() {
+        assertTrue(router.match("POST", "/api/user/login", null, match));
+        assertEquals("rest.login", match.target());
+        // join 静态段下没有 avatar，回溯到 {name}
+        assertTrue(router.match("GET", "/api/group/join/avatar", null, match));
+        assertEquals("rest.avatar", match.target());
+        assertEquals("join", match.pathParam("name"));
+    }
+
+    @Test
+    void rejectsNonIntegerAndOverflowingIds() {
+        assertFalse(router.match("GET", "/api/user/abc", null, match));
+        assertFalse(router.match("GET", "/api/user/99999999999", null, match));
+        assertFalse(router.match("GET", "/api/user/-1", null, match));
+    }
+
+    @Test
+    void distinguishesMethodNotAllowedFromNotFound() {
+        assertFalse(router.match("DELETE", "/api/user/5", null, match));
+        assertTrue(match.isMethodNotAllowed());
+        assertFalse(router.match("GET", "/api/nothing", null, match));
+        assertFalse(match.isMethodNotAllowed());
+        assertFalse(match.isUnknownAction());
+    }
+
+    @Test
+    void readsDeclaredQueryParams() {
+        assertTrue(router.match("GET", "/api/plan/daily", "userId=3&date=2026-10-19", match));
+        assertEquals(2, match.queryParamCount());
+        assertTrue(match.isIntQueryParam(0));
+        assertEquals(3, match.queryInt("userId", -1));
+        assertEquals("2026-10-19", match.queryParam("date"));
+        assertNull(match.queryParam("missing"));
+        assertEquals(-1, match.queryInt("missing", -1));
+
+        router.match("GET", "/api/plan/daily", "userId=x", match);
+        assertThrows(NumberFormatException.class, () -> match.queryInt("userId", -1));
+    }
+
+    @Test
+    void mergeRejectsMalformedBodiesAndParams() {
+        assertTrue(router.match("PUT", "/api/user/7", null, match));
+        assertEquals("{\"nickname\":\"a\",\"userId\":7}", JsonBodyParams.merge("{\"nickname\":\"a\"}", match));
+        assertThrows(IllegalArgumentException.class, () -> JsonBodyParams.merge("{\"nickname\":", match));
+        assertThrows(IllegalArgumentException.class, () -> JsonBodyParams.merge("[1, 2]", match));
+
+        assertTrue(router.match("GET", "/api/plan/daily", "userId=abc&date=2026-03-01", match));
+        assertThrows(IllegalArgumentException.class, () -> JsonBodyParams.merge("", match));
+    }
+
+    @Test
+    void rejectsConflictingRegistrations() {
+        assertThrows(IllegalArgumentException.class, () -> Router.<String>builder()
+                .get("/a/{id:int}", "x").get("/a/{id:int}", "y"));
+        assertThrows(IllegalArgumentException.class, () -> Router.<String>builder()
+                .get("/a/{id:int}", "x").put("/a/{name}", "y"));
+        assertThrows(IllegalArgumentException.class, () -> Router.<String>builder()
+                .get("/a/{id:long}", "x"));
+    }
+
+    @Test
+    void matchingDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        String[] paths = {"/api/user/42", "/api/task/7/complete", "/api/user", "/api/group/join/avatar"};
+        String[] methods = {"GET", "POST", "POST", "GET"};
+        String[] queries = {null, null, "action=login", null};
+        long sum = 0;
+        for (int i = 0; i < 20000; i++) {
+            int k = i & 3;
+            if (router.match(methods[k], paths[k], queries[k], match)) {
+                sum += match.pathParamCount() > 0 && match.isIntPathParam(0) ? match.pathInt(0) : 1;
+            }
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 10000; i++) {
+            int k = i & 3;
+            if (router.match(methods[k], paths[k], queries[k], match)) {
+                sum += match.pathParamCount() > 0 && match.isIntPathParam(0) ? match.pathInt(0) : 1;
+            }
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+        assertTrue(sum > 0);
+        // 允许计量本身的少量噪声，远小于每次匹配分配一个对象（10000 次 x 16 字节）
+        assertTrue(allocated < 4096, "匹配分配了 " + allocated + " 字节");
+    }
+}
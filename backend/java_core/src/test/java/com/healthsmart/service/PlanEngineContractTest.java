@@ -0,0 +1,224 @@
+package com.healthsmart.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 计划引擎契约测试
+ * Plan Engine contract tests
+ *
+ * 对 ServiceLoader 注册的每个 PlanEngine 实现运行同一组检查，新增实现会自动纳入。
+ * 需要Python的实现只在找不到 Python 解释器时跳过；有解释器而引擎无法通过健康检查时测试失败。
+ */
+class PlanEngineContractTest {
+
+    private static final Gson gson = new Gson();
+
+    static Stream<String> engines() {
+        return PlanEngineProvider.providers().stream().map(PlanEngineProvider::getName);
+    }
+
+    /**
+     * 创建引擎并做健康检查；仅在没有 Python 解释器时跳过该实现的测试
+     */
+    private static PlanEngine open(String name) {
+        PlanEngine engine = PlanEngineProvider.load(name);
+        String health;
+        try {
+            health = engine.health();
+        } catch (Exception e) {
+            engine.close();
+            assumeTrue(pythonAvailable(), name + " 引擎需要 Python 解释器: " + e.getMessage());
+            return fail(name + " 引擎不可用: " + e.getMessage(), e);
+        }
+        JsonObject status = gson.fromJson(health, JsonObject.class);
+        if (status == null || !status.has("status") || !"ok".equals(status.get("status").getAsString())) {
+            engine.close();
+            fail(name + " 引擎健康检查未通过: " + health);
+        }
+        return engine;
+    }
+
+    /**
+     * 能否启动引擎使用的 Python 解释器
+     */
+    private static boolean pythonAvailable() {
+        try {
+            Process process = new ProcessBuilder(ProcessPlanEngine.PYTHON_EXECUTABLE, "--version")
+                    .redirectErrorStream(true).start();
+            process.getInputStream().readAllBytes();
+            return process.waitFor() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static JsonObject report(int userId, double weight) {
+        JsonObject report = new JsonObject();
+        report.addProperty("user_id", userId);
+        report.addProperty("report_month", "2026-03");
+        report.addProperty("height", 172.0);
+        report.addProperty("weight", weight);
+        report.addProperty("smoking", false);
+        report.addProperty("drinking", false);
+        report.addProperty("exercise_frequency", 3);
+        report.addProperty("health_goal", "lose_weight");
+        report.addProperty("target_weight", weight - 5);
+        return report;
+    }
+
+    private static JsonObject data(String response) {
+        JsonObject result = gson.fromJson(response, JsonObject.class);
+        assertTrue(result.get("success").getAsBoolean(), response);
+        return result.getAsJsonObject("data");
+    }
+
+    private static void assertPlan(JsonObject data, int firstDay, int days) {
+        JsonObject analysis = data.getAsJsonObject("analysis");
+        assertTrue(analysis.get("target_calories").getAsDouble() > 0);
+        JsonObject nutrients = analysis.getAsJsonObject("nutrient_targets");
+        for (String nutrient : new String[]{"protein", "carbs", "fat"}) {
+            assertTrue(nutrients.get(nutrient).getAsDouble() > 0, nutrient);
+        }
+        assertTrue(analysis.has("activity_level"));
+
+        JsonArray dailyPlans = data.getAsJsonObject("plan").getAsJsonArray("daily_plans");
+        assertEquals(days, dailyPlans.size());
+        for (int i = 0; i < days; i++) {
+            JsonObject day = dailyPlans.get(i).getAsJsonObject();
+            assertEquals(firstDay + i, day.get("day_number").getAsInt());
+            for (String field : new String[]{"meal_breakfast", "meal_lunch", "meal_dinner"}) {
+                assertTrue(day.has(field) && !day.get(field).getAsString().isEmpty(), field);
+            }
+            assertTrue(day.get("daily_calorie_goal").getAsDouble() > 0);
+            // 休息日没有运动：exercise_type 为 null 且时长为0
+            JsonElement exercise = day.get("exercise_type");
+            if (exercise == null || exercise.isJsonNull()) {
+                assertEquals(0, day.get("exercise_duration").getAsDouble());
+            } else {
+                assertTrue(!exercise.getAsString().isEmpty() && day.get("exercise_duration").getAsDouble() >= 0);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("engines")
+    void generatesFullMonth(String name) throws Exception {
+        PlanEngine engine = open(name);
+        try {
+            assertPlan(data(engine.generatePlan(gson.toJson(report(1, 80)))), 1, 30);
+        } finally {
+            engine.close();
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("engines")
+    void generatesRequestedWindow(String name) throws Exception {
+        PlanEngine engine = open(name);
+        try {
+            JsonObject request = report(1, 80);
+            request.addProperty("start_day", 10);
+            request.addProperty("days", 5);
+            assertPlan(data(engine.generatePlan(gson.toJson(request))), 10, 5);
+        } finally {
+            engine.close();
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("engines")
+    void batchDeliversEveryIndexOnce(String name) throws Exception {
+        PlanEngine engine = open(name);
+        try {
+            List<String> requests = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                requests.add(gson.toJson(report(i + 1, 60 + i * 10)));
+            }
+            Map<Integer, String> results = new TreeMap<>();
+            engine.generatePlans(requests, (index, result) -> assertEquals(null, results.put(index, result)));
+            assertEquals(List.of(0, 1, 2, 3), new ArrayList<>(results.keySet()));
+            for (String result : results.values()) {
+                assertPlan(data(result), 1, 30);
+            }
+        } finally {
+            engine.close();
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("engines")
+    void analyzesReport(String name) throws Exception {
+        PlanEngine engine = open(name);
+        try {
+            JsonObject analysis = data(engine.analyze(gson.toJson(report(1, 80))));
+            assertTrue(analysis.get("target_calories").getAsDouble() > 0);
+            assertTrue(analysis.has("bmi"));
+        } finally {
+            engine.close();
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("engines")
+    void recommendsRequestedDay(String name) throws Exception {
+        PlanEngine engine = open(name);
+        try {
+            JsonObject request = new JsonObject();
+            request.addProperty("user_id", 1);
+            request.addProperty("health_goal", "maintain_weight");
+            request.addProperty("day_number", 12);
+            request.addProperty("date", "2026-03-12");
+            JsonObject day = data(engine.dailyRecommendation(gson.toJson(request)));
+            assertEquals(12, day.get("day_number").getAsInt());
+            assertTrue(day.has("meal_breakfast"));
+        } finally {
+            engine.close();
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("engines")
+    void reportsNameAndVersion(String name) {
+        PlanEngine engine = open(name);
+        try {
+            assertEquals(name, engine.getName());
+            assertTrue(engine.getVersion() != null && !engine.getVersion().isBlank());
+        } finally {
+            engine.close();
+        }
+    }
+
+    @Test
+    void registersBuiltInEngines() {
+        assertEquals(List.of("process", "worker", "stub"), engines().toList());
+    }
+
+    @Test
+    void stubIsDeterministic() throws Exception {
+        PlanEngine first = new StubPlanEngine(0);
+        PlanEngine second = new StubPlanEngine(0);
+        String request = gson.toJson(report(7, 91));
+        assertEquals(first.generatePlan(request), second.generatePlan(request));
+    }
+}
@@ -0,0 +1,97 @@
+package com.healthsmart.service;
+
+import com.healthsmart.util.DatabaseConnection;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 计划结果缓存持久层上限测试
+ * Plan Result Cache persistent tier bounds
+ *
+ * 写入超过行数上限后按最近使用时间淘汰，最近命中过的行保留；闲置超期的行在启动清理时删除。
+ */
+class PlanResultCacheTest {
+
+    private static Path fixtureDir;
+
+    @BeforeAll
+    static void setUpFixture() throws Exception {
+        fixtureDir = Files.createTempDirectory("healthsmart-plan-cache");
+        DatabaseConnection.setDatabaseUrl("jdbc:sqlite:" + fixtureDir.resolve("fixture.db"));
+        DatabaseConnection.initializeDatabase();
+        System.setProperty("healthsmart.plan-cache.persistent-entries", "10");
+        System.setProperty("healthsmart.plan-cache.memory-entries", "1");
+    }
+
+    @AfterAll
+    static void cleanup() throws Exception {
+        System.clearProperty("healthsmart.plan-cache.persistent-entries");
+        System.clearProperty("healthsmart.plan-cache.memory-entries");
+        DatabaseConnection.closeConnection();
+        try (var paths = Files.walk(fixtureDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void persistentTierStaysWithinRowLimit() throws Exception {
+        PlanResultCache cache = new PlanResultCache("bounded");
+        execute("DELETE FROM plan_result_cache");
+        cache.put("key-0", "{\"day\":0}");
+        // key-0 写入最早，只因最近命中过而保留
+        execute("UPDATE plan_result_cache SET created_at = datetime('now', 'localtime', '-1 hour')");
+        cache.put("key-1", "{\"day\":1}");
+        cache.put("key-2", "{\"day\":2}");
+        assertNotNull(cache.get("key-0"));
+        for (int i = 3; i < 128; i++) {
+            cache.put("key-" + i, "{\"day\":" + i + "}");
+        }
+
+        assertEquals(10, count("SELECT COUNT(*) FROM plan_result_cache"));
+        assertEquals(1, count("SELECT COUNT(*) FROM plan_result_cache WHERE cache_key = 'key-0'"));
+        assertEquals(0, count("SELECT COUNT(*) FROM plan_result_cache WHERE cache_key = 'key-1'"));
+        assertEquals(118L, cache.getStats().get("persistentEvictions"));
+    }
+
+    @Test
+    void idleRowsArePurgedAtStartup() throws Exception {
+        PlanResultCache cache = new PlanResultCache("idle");
+        execute("DELETE FROM plan_result_cache");
+        cache.put("fresh", "{}");
+        cache.put("idle", "{}");
+        execute("UPDATE plan_result_cache SET created_at = datetime('now', 'localtime', '-400 days') "
+                + "WHERE cache_key = 'idle'");
+
+        assertEquals(1, cache.purgeStaleVersions());
+        assertNull(new PlanResultCache("idle").get("idle"));
+        assertEquals(1, count("SELECT COUNT(*) FROM plan_result_cache"));
+    }
+
+    private static void execute(String sql) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    private static int count(String sql) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
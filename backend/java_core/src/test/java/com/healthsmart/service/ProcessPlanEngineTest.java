@@ -0,0 +1,72 @@
+package com.healthsmart.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 子进程引擎输出上限测试
+ * Process Plan Engine output limit
+ *
+ * 用持续输出的 shell 进程代替 api_service.py，检查单条调用（消息帧）和批量调用（逐行读取）
+ * 超过输出上限时都以 EngineUnavailableException 结束并计数。
+ */
+class ProcessPlanEngineTest {
+
+    private static final String MAX_OUTPUT = "healthsmart.engine.max-output-chars";
+
+    @BeforeEach
+    void limitOutput() {
+        assumeTrue(new File("/bin/sh").canExecute(), "需要 /bin/sh");
+        System.setProperty(MAX_OUTPUT, "1024");
+    }
+
+    @AfterEach
+    void restore() {
+        System.clearProperty(MAX_OUTPUT);
+    }
+
+    @Test
+    void oversizedFrameIsEngineUnavailable() {
+        // "y\n" 的前4字节被当作帧长度读出，远超上限
+        ProcessPlanEngine engine = new ShellEngine("yes");
+        EngineUnavailableException e = assertThrows(EngineUnavailableException.class, engine::health);
+        assertTrue(e.getMessage().contains("1024"), e.getMessage());
+        assertEquals(1L, engine.getStats().get("outputLimitExceeded"));
+        assertEquals(0, engine.getStats().get("liveProcesses"));
+    }
+
+    @Test
+    void oversizedBatchLineIsEngineUnavailable() {
+        ProcessPlanEngine engine = new ShellEngine("while :; do printf 0123456789abcdef; done");
+        assertThrows(EngineUnavailableException.class,
+                () -> engine.generatePlans(List.of("{}"), (index, result) -> { }));
+        assertEquals(1L, engine.getStats().get("outputLimitExceeded"));
+        assertEquals(0, engine.getStats().get("liveProcesses"));
+    }
+
+    /**
+     * 以给定 shell 命令代替 Python 脚本
+     */
+    private static final class ShellEngine extends ProcessPlanEngine {
+        private final String script;
+
+        ShellEngine(String script) {
+            this.script = script;
+        }
+
+        @Override
+        protected Process startProcess(ProcessBuilder processBuilder) throws EngineUnavailableException {
+            processBuilder.command("/bin/sh", "-c", script);
+            return super.startProcess(processBuilder);
+        }
+    }
+}
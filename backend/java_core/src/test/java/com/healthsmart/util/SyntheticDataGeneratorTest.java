@@ -0,0 +1,104 @@
+package com.healthsmart.util;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * 合成数据可重复性测试
+ * Synthetic Data Reproducibility
+ *
+ * 种子与参考日期相同时，两次生成的夹具逐行一致；参考日期只影响完成状态，不改变计划内容。
+ */
+class SyntheticDataGeneratorTest {
+
+    private static final String[] TABLES = {
+        "users", "health_reports", "personalized_plans", "plan_day_templates", "daily_tasks", "reminders"
+    };
+
+    private static Path fixtureDir;
+
+    @BeforeAll
+    static void createDir() throws IOException {
+        fixtureDir = Files.createTempDirectory("healthsmart-synthetic");
+    }
+
+    @AfterAll
+    static void cleanup() throws IOException {
+        DatabaseConnection.closeConnection();
+        try (var paths = Files.walk(fixtureDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void sameSeedAndReferenceDateGiveIdenticalRows() throws Exception {
+        LocalDate referenceDate = LocalDate.of(2026, 3, 14);
+        Path first = build("first.db", referenceDate);
+        // 跨过秒边界：任何取自系统时钟的列都会使两次结果不同
+        Thread.sleep(1100);
+        Path second = build("second.db", referenceDate);
+
+        for (String table : TABLES) {
+            assertEquals(dump(first, "SELECT * FROM " + table + " ORDER BY rowid"),
+                    dump(second, "SELECT * FROM " + table + " ORDER BY rowid"), table);
+        }
+        assertEquals(List.of("2026-03-14"),
+                dump(first, "SELECT meta_value FROM fixture_meta WHERE meta_key = 'reference_date'"));
+    }
+
+    @Test
+    void referenceDateOnlyMovesCompletionState() throws Exception {
+        // 同一月份内移动参考日期：完成与否随之变化，每天选用的模板不变
+        Path early = build("early.db", LocalDate.of(2026, 3, 5));
+        Path late = build("late.db", LocalDate.of(2026, 3, 25));
+
+        String templates = "SELECT task_date, template_id FROM daily_tasks ORDER BY task_id";
+        assertEquals(dump(early, templates), dump(late, templates));
+        String completed = "SELECT COUNT(*) FROM daily_tasks WHERE is_completed = 1";
+        assertNotEquals(dump(early, completed), dump(late, completed));
+    }
+
+    private static Path build(String name, LocalDate referenceDate) throws SQLException, IOException {
+        Path dbFile = fixtureDir.resolve(name);
+        SyntheticDataGenerator.Options options = new SyntheticDataGenerator.Options()
+                .setUsers(8).setMonths(2).setSeed(7L).setReferenceDate(referenceDate);
+        SyntheticDataGenerator.buildFixture(dbFile, options);
+        DatabaseConnection.closeConnection();
+        return dbFile;
+    }
+
+    private static List<String> dump(Path dbFile, String sql) throws SQLException {
+        List<String> rows = new ArrayList<>();
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dbFile);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            ResultSetMetaData meta = rs.getMetaData();
+            while (rs.next()) {
+                List<String> row = new ArrayList<>();
+                for (int i = 1; i <= meta.getColumnCount(); i++) {
+                    row.add(rs.getString(i));
+                }
+                rows.add(String.join("|", row));
+            }
+        }
+        return rows;
+    }
+}
@@ -5,12 +5,13 @@ API Service for HealthSmart System
 该模块提供Python引擎的对外API接口，支持：
 - 命令行交互模式
 - JSON数据输入/输出
-- 与Java进程通信
+- 与Java进程通信（长度前缀消息帧，见 serve_framed）
 """
 
 import sys
 import json
 import io
+import struct
 from typing import Dict, Any
 from .health_engine import HealthEngineService
 
@@ -45,6 +46,86 @@ class EngineAPI:
                 'message': f'生成计划失败: {str(e)}'
             }
     
+    def generate_plans_batch(self, input_stream, output_stream) -> Dict:
+        """
+        批量生成计划（JSON Lines 协议）
+        
+        每行读入一份健康报告，每生成一份计划立即输出一行结果：
+        {"index": 序号, "user_id": ..., "success": ..., "data": ..., "message": ...}
+        序号为非空输入行的顺序（从0开始）。单条失败只影响该条结果，
+        全部处理完后输出一行汇总 {"done": true, "total": ..., "failed": ...}
+        
+        参数:
+            input_stream: 健康报告输入流（每行一个JSON）
+            output_stream: 结果输出流
+        
+        返回:
+            汇总字典
+        """
+        total = 0
+        failed = 0
+        for line in input_stream:
+            line = line.strip()
+            if not line:
+                continue
+            index = total
+            total += 1
+            try:
+                report_data = json.loads(line)
+            except json.JSONDecodeError as e:
+                report_data = {}
+                result = {
+                    'success': False,
+                    'data': None,
+                    'message': f'Invalid JSON data: {str(e)}'
+                }
+            else:
+                if isinstance(report_data, dict):
+                    result = self.generate_plan(report_data)
+                else:
+                    # 数组、数字等非对象行只作为该条的错误结果，不中断整批
+                    result = {
+                        'success': False,
+                        'data': None,
+                        'message': f'Invalid report data: expected a JSON object, got {type(report_data).__name__}'
+                    }
+                    report_data = {}
+            
+            if not result.get('success'):
+                failed += 1
+            item = {'index': index, 'user_id': report_data.get('user_id')}
+            item.update(result)
+            output_stream.write(json.dumps(item, ensure_ascii=False) + '\n')
+            # 逐条刷新，Java端收到即可入库
+            output_stream.flush()
+        
+        summary = {'done': True, 'total': total, 'failed': failed}
+        output_stream.write(json.dumps(summary) + '\n')
+        output_stream.flush()
+        return summary
+    
+    def dispatch(self, action: str, data: Dict) -> Dict:
+        """
+        按动作名调用对应方法
+        
+        参数:
+            action: 动作名
+            data: 请求数据
+        
+        返回:
+            结果字典
+        """
+        if action == 'health':
+            return {'status': 'ok', 'message': 'Engine is running'}
+        if action == 'generate_plan':
+            return self.generate_plan(data)
+        if action == 'daily_recommendation':
+            return self.generate_daily_recommendation(
+                data.get('user_data', {}), data.get('day_number', 1), data.get('date', ''))
+        if action == 'analyze_health':
+            return self.analyze_health(data)
+        return {'success': False, 'message': f'Unknown action: {action}'}
+    
     def generate_daily_recommendation(self, user_data: Dict, day_number: int, date_str: str) -> Dict:
         """
         生成每日推荐
@@ -130,6 +211,55 @@ def output_json(data: Dict):
     print(json.dumps(data, ensure_ascii=False, indent=2))
 
 
+def read_frame(stream):
+    """
+    读取一个消息帧：4字节大端长度 + UTF-8 JSON
+    
+    返回:
+        解析后的字典；输入结束时返回 None
+    """
+    header = stream.read(4)
+    if not header:
+        return None
+    if len(header) < 4:
+        raise EOFError('消息帧长度不完整')
+    (length,) = struct.unpack('>I', header)
+    payload = bytearray()
+    while len(payload) < length:
+        chunk = stream.read(length - len(payload))
+        if not chunk:
+            raise EOFError('消息帧内容不完整')
+        payload.extend(chunk)
+    return json.loads(payload.decode('utf-8'))
+
+
+def write_frame(stream, data: Dict):
+    """写出一个消息帧并刷新"""
+    payload = json.dumps(data, ensure_ascii=False).encode('utf-8')
+    stream.write(struct.pack('>I', len(payload)))
+    stream.write(payload)
+    stream.flush()
+
+
+def serve_framed(api: EngineAPI, input_stream, output_stream):
+    """
+    消息帧模式：每个请求帧 {"action": ..., "data": {...}} 返回一个响应帧，直到输入结束
+    
+    请求数据不经过命令行参数，不受参数长度限制，也不会出现在进程列表中。
+    引擎代码中的 print 输出被转到 stderr，避免破坏帧格式。
+    """
+    sys.stdout = sys.stderr
+    while True:
+        request = read_frame(input_stream)
+        if request is None:
+            break
+        try:
+            result = api.dispatch(request.get('action', ''), request.get('data') or {})
+        except Exception as e:
+            result = {'success': False, 'data': None, 'message': f'引擎内部错误: {str(e)}'}
+        write_frame(output_stream, result)
+
+
 def main():
     """命令行入口"""
     if len(sys.argv) < 2:
@@ -137,14 +267,16 @@ def main():
         help_info = {
             'name': 'HealthSmart Python Engine',
             'version': '1.0.0',
-            'usage': 'python api_service.py <action> <json_data>',
+            'usage': 'python -m backend.python_engine.api_service <action> <json_data> | --framed',
             'actions': {
-                'generate_plan': '根据健康报告生成月度计划',
+                '--framed': '消息帧模式（stdin/stdout，4字节大端长度 + UTF-8 JSON），Java端使用',
+                'generate_plan': '根据健康报告生成月度计划（可选 start_day/days 只生成其中几天）',
+                'generate_plans_batch': '批量生成月度计划（stdin每行一份报告，stdout每行一个结果）',
                 'daily_recommendation': '生成每日推荐',
                 'analyze_health': '分析健康数据',
                 'health': '检查引擎健康状态'
             },
-            'example': 'python api_service.py generate_plan \'{"user_id":1,"height":175,"weight":70}\''
+            'example': 'python -m backend.python_engine.api_service generate_plan \'{"user_id":1,"height":175,"weight":70}\''
         }
         output_json(help_info)
         sys.exit(0)
@@ -152,6 +284,10 @@ def main():
     action = sys.argv[1]
     api = EngineAPI()
     
+    if action == '--framed':
+        serve_framed(api, sys.stdin.buffer, sys.stdout.buffer)
+        sys.exit(0)
+    
     if action == 'health':
         output_json({
             'status': 'ok',
@@ -159,6 +295,13 @@ def main():
         })
         sys.exit(0)
     
+    if action == 'generate_plans_batch':
+        # 一次启动处理整批报告，输入输出统一使用UTF-8
+        input_stream = io.TextIOWrapper(sys.stdin.buffer, encoding='utf-8')
+        output_stream = io.TextIOWrapper(sys.stdout.buffer, encoding='utf-8', line_buffering=True)
+        api.generate_plans_batch(input_stream, output_stream)
+        sys.exit(0)
+    
     # 从stdin或命令行读取JSON数据
     if len(sys.argv) >= 3:
         # 从命令行参数读取
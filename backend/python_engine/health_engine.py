@@ -18,8 +18,7 @@ from .models import (
     ExercisePlan, DailyPlan, MonthlyPlan, ExerciseIntensity
 )
 from .rules_engine import (
-    NutritionRuleBase, ExerciseRuleBase, HealthSafetyRules,
-    get_nutrients_for_meal
+    NutritionRuleBase, ExerciseRuleBase, HealthSafetyRules
 )
 
 
@@ -517,7 +516,8 @@ class HealthPlanningEngine:
             'notes': notes
         }
     
-    def generate_monthly_plan(self, report: HealthReport, plan_month: str, total_days: int = 30) -> MonthlyPlan:
+    def generate_monthly_plan(self, report: HealthReport, plan_month: str, total_days: int = 30,
+                              start_day: int = 1, days: Optional[int] = None) -> MonthlyPlan:
         """
         生成长达30天的月度计划
         
@@ -525,6 +525,8 @@ class HealthPlanningEngine:
             report: 健康报告
             plan_month: 计划月份 (格式: '2024-01')
             total_days: 总天数
+            start_day: 从第几天开始生成（滚动窗口模式）
+            days: 生成天数，None 表示到月末
         
         返回:
             月度计划对象
@@ -546,7 +548,8 @@ class HealthPlanningEngine:
         daily_plans = []
         start_date = datetime.strptime(plan_month + '-01', '%Y-%m-%d')
         
-        for day_num in range(1, total_days + 1):
+        end_day = total_days if days is None else min(total_days, start_day + days - 1)
+        for day_num in range(max(1, start_day), end_day + 1):
             current_date = start_date + timedelta(days=day_num - 1)
             date_str = current_date.strftime('%Y-%m-%d')
             
@@ -644,11 +647,13 @@ class HealthEngineService:
             additional_notes=report_data.get('additional_notes')
         )
         
-        # 生成月度计划
+        # 生成月度计划（可只生成 start_day 起的 days 天）
         month_plan = self.engine.generate_monthly_plan(
             report=report,
             plan_month=report_data.get('report_month', ''),
-            total_days=30
+            total_days=30,
+            start_day=int(report_data.get('start_day') or 1),
+            days=report_data.get('days')
         )
         
         # 转换为字典（包含分析和计划数据）
@@ -684,14 +689,11 @@ class HealthEngineService:
             stress_level=user_health_data.get('stress_level')
         )
         
-        # 快速生成单日计划
+        # 快速生成单日计划（营养目标按报告分析得出）
+        analysis = self.engine.analyze_health_report(report)
         daily_plan = self.engine.generate_daily_plan(
             report=report,
-            nutrition_target=self.engine.generate_nutrition_target(
-                {'nutrient_targets': {
-                    'protein': 80, 'carbs': 200, 'fat': 60, 'fiber': 25
-                }}
-            ),
+            nutrition_target=self.engine.generate_nutrition_target(analysis),
             day_number=day_number,
             date_str=date_str,
             health_goal=report.health_goal or 'maintain_weight'
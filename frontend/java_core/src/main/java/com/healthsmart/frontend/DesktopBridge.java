@@ -0,0 +1,94 @@
+package com.healthsmart.frontend;
+
+import com.google.gson.Gson;
+import com.healthsmart.frontend.server.ApiRoutes;
+import com.healthsmart.util.AppConfig;
+import javafx.application.Platform;
+import javafx.scene.web.WebEngine;
+import netscape.javascript.JSObject;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 桌面端进程内API桥
+ * In-process WebView API Bridge
+ *
+ * 页面加载完成后以 window.healthSmartBridge 暴露给 WebView，api.js 检测到后不再发起HTTP请求：
+ * 请求经与 ApiServer 相同的 ApiRoutes 路由表分发到控制器，在后台线程执行（不阻塞FX线程），
+ * 完成后回到FX线程调用 window.__healthSmartBridgeSettle(id, status, json) 兑现页面中的 Promise。
+ * 桌面应用因此不需要打开任何端口。
+ */
+public class DesktopBridge {
+
+    private static final Gson gson = new Gson();
+
+    private final WebEngine webEngine;
+    private final ExecutorService executor;
+
+    public DesktopBridge(WebEngine webEngine) {
+        this.webEngine = webEngine;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(AppConfig.getInt("healthsmart.bridge.threads", 4), r -> {
+            Thread thread = new Thread(r, "desktop-bridge-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 挂到当前页面的 window 上并通知页面（每次页面加载完成后在FX线程调用）
+     */
+    public void install() {
+        JSObject window = (JSObject) webEngine.executeScript("window");
+        window.setMember("healthSmartBridge", this);
+        webEngine.executeScript("window.dispatchEvent(new Event('healthsmart-bridge-ready'))");
+    }
+
+    /**
+     * 由页面脚本在FX线程调用，立即返回；结果通过 __healthSmartBridgeSettle 回调
+     *
+     * @param id     页面侧的请求序号
+     * @param method HTTP方法
+     * @param path   api.js 中的相对路径（如 /plan/daily?userId=1），可带查询串
+     * @param body   JSON请求体，无请求体时为空串
+     */
+    public void call(String id, String method, String path, String body) {
+        try {
+            executor.execute(() -> {
+                ApiRoutes.Response response = dispatch(method, path, body);
+                Platform.runLater(() -> settle(id, response.getStatus(), response.getBody()));
+            });
+        } catch (RejectedExecutionException e) {
+            settle(id, 503, gson.toJson(Map.of("success", false, "message", "应用正在关闭")));
+        }
+    }
+
+    private static ApiRoutes.Response dispatch(String method, String path, String body) {
+        int q = path.indexOf('?');
+        String rawPath = "/api" + (q >= 0 ? path.substring(0, q) : path);
+        String rawQuery = q >= 0 ? path.substring(q + 1) : null;
+        try {
+            return ApiRoutes.dispatch(method, rawPath, rawQuery, body == null ? "" : body);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            return new ApiRoutes.Response(500, gson.toJson(
+                    Map.of("success", false, "message", "处理请求时发生错误: " + e.getMessage())));
+        }
+    }
+
+    private void settle(String id, int status, String json) {
+        JSObject window = (JSObject) webEngine.executeScript("window");
+        window.call("__healthSmartBridgeSettle", id, status, json);
+    }
+
+    /**
+     * 停止后台线程（应用关闭时）
+     */
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -1,6 +1,7 @@
 package com.healthsmart.frontend;
 
 import javafx.application.Application;
+import javafx.concurrent.Worker;
 import javafx.scene.Scene;
 import javafx.scene.web.WebEngine;
 import javafx.scene.web.WebView;
@@ -19,6 +20,17 @@ public class HealthSmartApp extends Application {
     private static final int WINDOW_WIDTH = 1200;
     private static final int WINDOW_HEIGHT = 800;
 
+    // 页面只持有桥对象的弱引用，这里保持强引用
+    private DesktopBridge bridge;
+
+    /**
+     * 在启动线程上初始化服务容器（不占用FX线程），页面通过进程内桥直接调用控制器
+     */
+    @Override
+    public void init() {
+        ServiceContainer.start();
+    }
+
     @Override
     public void start(Stage primaryStage) {
         try {
@@ -34,6 +46,15 @@ public class HealthSmartApp extends Application {
             // 创建 WebView 来渲染 HTML 内容
             WebView webView = new WebView();
             WebEngine webEngine = webView.getEngine();
+
+            // 每次页面加载完成后挂上进程内API桥，api.js 检测到后不再走 HTTP
+            bridge = new DesktopBridge(webEngine);
+            ServiceContainer.get().addShutdownHook("页面API桥", bridge::close);
+            webEngine.getLoadWorker().stateProperty().addListener((observable, oldState, newState) -> {
+                if (newState == Worker.State.SUCCEEDED) {
+                    bridge.install();
+                }
+            });
             
             // 加载 HTML 文件
             String htmlPath = getHtmlFilePath();
@@ -136,10 +157,11 @@ public class HealthSmartApp extends Application {
     }
 
     /**
-     * 清理资源
+     * 清理资源：关闭服务容器（执行其关闭钩子），再确保连接池已关闭
      */
     private void cleanupResources() {
         try {
+            ServiceContainer.shutdown();
             com.healthsmart.util.DatabaseConnection.closeConnection();
             System.out.println("数据库连接已关闭");
         } catch (Exception e) {
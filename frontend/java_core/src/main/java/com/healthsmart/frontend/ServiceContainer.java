@@ -0,0 +1,190 @@
+package com.healthsmart.frontend;
+
+import com.healthsmart.frontend.controller.AnalyticsController;
+import com.healthsmart.frontend.controller.HealthReportController;
+import com.healthsmart.frontend.controller.PlanController;
+import com.healthsmart.frontend.controller.UserController;
+import com.healthsmart.service.AnalyticsService;
+import com.healthsmart.service.DashboardService;
+import com.healthsmart.service.HealthReportService;
+import com.healthsmart.service.PlanGenerationService;
+import com.healthsmart.service.PythonEngineExecutor;
+import com.healthsmart.service.UserService;
+import com.healthsmart.util.AppConfig;
+import com.healthsmart.util.DatabaseConnection;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 前端服务容器
+ * Frontend Service Container
+ *
+ * 启动时一次性初始化数据库、创建并预热全部服务，再注入各控制器，避免并发的首个请求各自创建服务，
+ * 也不让首个请求承担初始化耗时。关闭时按注册的逆序执行关闭钩子（先停止接收请求，再结束引擎进程，
+ * 最后关闭连接池）；容器同时注册JVM关闭钩子，进程被终止时同样会执行。
+ */
+public final class ServiceContainer {
+
+    private static ServiceContainer instance;
+
+    private final UserService userService;
+    private final HealthReportService healthReportService;
+    private final PlanGenerationService planService;
+    private final AnalyticsService analyticsService;
+    private final DashboardService dashboardService;
+
+    private final Deque<ShutdownHook> shutdownHooks = new ArrayDeque<>();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final Thread jvmHook = new Thread(this::close, "service-container-shutdown");
+
+    /**
+     * 启动容器（重复调用返回同一实例）
+     */
+    public static synchronized ServiceContainer start() {
+        if (instance == null) {
+            instance = new ServiceContainer();
+        }
+        return instance;
+    }
+
+    /**
+     * 当前容器
+     *
+     * @throws IllegalStateException 容器尚未启动
+     */
+    public static synchronized ServiceContainer get() {
+        if (instance == null) {
+            throw new IllegalStateException("服务容器尚未启动");
+        }
+        return instance;
+    }
+
+    /**
+     * 关闭容器并执行全部关闭钩子（未启动时无操作）
+     */
+    public static void shutdown() {
+        ServiceContainer container;
+        synchronized (ServiceContainer.class) {
+            container = instance;
+            instance = null;
+        }
+        if (container != null) {
+            container.close();
+        }
+    }
+
+    private ServiceContainer() {
+        long begin = System.nanoTime();
+
+        DatabaseConnection.initializeDatabase();
+        try {
+            DatabaseConnection.prewarm(AppConfig.getInt("healthsmart.startup.prewarm-connections", 4));
+        } catch (SQLException e) {
+            throw new IllegalStateException("数据库连接池预热失败: " + e.getMessage(), e);
+        }
+        addShutdownHook("数据库连接池", DatabaseConnection::closeConnection);
+
+        userService = new UserService();
+        healthReportService = new HealthReportService();
+        planService = new PlanGenerationService();
+        analyticsService = new AnalyticsService();
+        dashboardService = DashboardService.getInstance();
+        addShutdownHook("仪表盘服务", dashboardService::shutdown);
+
+        // 引擎实例与版本摘要在此确定；健康检查需启动Python进程，放到后台执行
+        PythonEngineExecutor engine = PythonEngineExecutor.getInstance();
+        engine.getEngineVersion();
+        addShutdownHook("智能引擎", engine::cancelAll);
+        Thread engineWarmup = new Thread(() -> {
+            if (!engine.checkEngineHealth()) {
+                System.out.println("[服务容器] Python智能引擎暂不可用，计划生成将在引擎恢复后可用");
+            }
+        }, "engine-warmup");
+        engineWarmup.setDaemon(true);
+        engineWarmup.start();
+
+        UserController.init(userService);
+        HealthReportController.init(healthReportService);
+        PlanController.init(planService, healthReportService);
+        AnalyticsController.init(analyticsService, dashboardService);
+
+        Runtime.getRuntime().addShutdownHook(jvmHook);
+        System.out.println("[服务容器] 服务初始化完成，耗时 " + (System.nanoTime() - begin) / 1_000_000 + " ms");
+    }
+
+    public UserService getUserService() {
+        return userService;
+    }
+
+    public HealthReportService getHealthReportService() {
+        return healthReportService;
+    }
+
+    public PlanGenerationService getPlanService() {
+        return planService;
+    }
+
+    public AnalyticsService getAnalyticsService() {
+        return analyticsService;
+    }
+
+    public DashboardService getDashboardService() {
+        return dashboardService;
+    }
+
+    /**
+     * 注册关闭钩子，关闭时按注册的逆序执行
+     */
+    public synchronized void addShutdownHook(String name, Runnable action) {
+        if (closed.get()) {
+            throw new IllegalStateException("服务容器已关闭");
+        }
+        shutdownHooks.push(new ShutdownHook(name, action));
+    }
+
+    /**
+     * 先撤下控制器中的服务，再逐个执行关闭钩子；单个钩子失败不影响其余钩子
+     */
+    private void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(jvmHook);
+        } catch (IllegalStateException e) {
+            // JVM 正在关闭，本方法即由关闭钩子调用
+        }
+
+        UserController.init(null);
+        HealthReportController.init(null);
+        PlanController.init(null, null);
+        AnalyticsController.init(null, null);
+
+        ShutdownHook hook;
+        while ((hook = pollHook()) != null) {
+            try {
+                hook.action.run();
+                System.out.println("[服务容器] 已关闭: " + hook.name);
+            } catch (RuntimeException e) {
+                System.err.println("[服务容器] 关闭 " + hook.name + " 时出错: " + e.getMessage());
+            }
+        }
+    }
+
+    private synchronized ShutdownHook pollHook() {
+        return shutdownHooks.poll();
+    }
+
+    private static class ShutdownHook {
+        final String name;
+        final Runnable action;
+
+        ShutdownHook(String name, Runnable action) {
+            this.name = name;
+            this.action = action;
+        }
+    }
+}
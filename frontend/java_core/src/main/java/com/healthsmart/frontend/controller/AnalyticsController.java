@@ -2,6 +2,7 @@ package com.healthsmart.frontend.controller;
 
 import com.google.gson.Gson;
 import com.healthsmart.service.AnalyticsService;
+import com.healthsmart.service.DashboardService;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -13,11 +14,20 @@ import java.util.Map;
 public class AnalyticsController {
     
     private static final Gson gson = new Gson();
-    private static AnalyticsService analyticsService;
+    private static volatile AnalyticsService analyticsService;
+    private static volatile DashboardService dashboardService;
+    
+    /**
+     * 注入服务（由 ServiceContainer 在启动时调用，关闭时传入 null）
+     */
+    public static void init(AnalyticsService analyticsService, DashboardService dashboardService) {
+        AnalyticsController.analyticsService = analyticsService;
+        AnalyticsController.dashboardService = dashboardService;
+    }
     
     public static String handleRequest(String action, String body) {
-        if (analyticsService == null) {
-            analyticsService = new AnalyticsService();
+        if (analyticsService == null || dashboardService == null) {
+            return gson.toJson(Map.of("success", false, "message", "服务尚未初始化"));
         }
         
         Map<String, Object> response = new HashMap<>();
@@ -58,22 +68,8 @@ public class AnalyticsController {
         try {
             Integer userId = ((Number) data.get("userId")).intValue();
             
-            Map<String, Object> dashboard = new HashMap<>();
-            
-            // 获取今日数据
-            var todayTask = analyticsService.getTodayTask(userId);
-            if (todayTask != null) {
-                dashboard.put("todayCompleted", todayTask.isCompleted());
-                dashboard.put("todayTasks", todayTask);
-            }
-            
-            // 获取周统计
-            var weeklyStats = analyticsService.getWeeklyStatisticsByUserId(userId);
-            dashboard.put("weeklyStats", weeklyStats);
-            
-            // 获取连续打卡天数
-            var streakStats = analyticsService.getStreakStatistics(userId);
-            dashboard.put("streakStats", streakStats);
+            // 今日任务、周统计、连续打卡并发加载，结果按用户缓存
+            Map<String, Object> dashboard = dashboardService.getDashboard(userId);
             
             response.put("success", true);
             response.put("data", dashboard);
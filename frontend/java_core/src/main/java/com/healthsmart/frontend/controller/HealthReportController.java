@@ -16,11 +16,18 @@ import java.util.Map;
 public class HealthReportController {
     
     private static final Gson gson = new Gson();
-    private static HealthReportService healthReportService;
+    private static volatile HealthReportService healthReportService;
+    
+    /**
+     * 注入服务（由 ServiceContainer 在启动时调用，关闭时传入 null）
+     */
+    public static void init(HealthReportService healthReportService) {
+        HealthReportController.healthReportService = healthReportService;
+    }
     
     public static String handleRequest(String action, String body) {
         if (healthReportService == null) {
-            healthReportService = new HealthReportService();
+            return gson.toJson(Map.of("success", false, "message", "服务尚未初始化"));
         }
         
         Map<String, Object> response = new HashMap<>();
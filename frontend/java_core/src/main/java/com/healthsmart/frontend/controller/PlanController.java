@@ -19,15 +19,20 @@ import java.util.Map;
 public class PlanController {
     
     private static final Gson gson = new Gson();
-    private static PlanGenerationService planService;
-    private static HealthReportService reportService;
+    private static volatile PlanGenerationService planService;
+    private static volatile HealthReportService reportService;
+    
+    /**
+     * 注入服务（由 ServiceContainer 在启动时调用，关闭时传入 null）
+     */
+    public static void init(PlanGenerationService planService, HealthReportService reportService) {
+        PlanController.planService = planService;
+        PlanController.reportService = reportService;
+    }
     
     public static String handleRequest(String action, String body) {
-        if (planService == null) {
-            planService = new PlanGenerationService();
-        }
-        if (reportService == null) {
-            reportService = new HealthReportService();
+        if (planService == null || reportService == null) {
+            return gson.toJson(Map.of("success", false, "message", "服务尚未初始化"));
         }
         
         Map<String, Object> response = new HashMap<>();
@@ -52,6 +57,9 @@ public class PlanController {
                 case "getTodayPlan":
                     response = handleGetTodayPlan(body);
                     break;
+                case "getDaily":
+                    response = handleGetDaily(body);
+                    break;
                 default:
                     response.put("success", false);
                     response.put("message", "未知的操作类型");
@@ -202,6 +210,33 @@ public class PlanController {
         return response;
     }
     
+    private static Map<String, Object> handleGetDaily(String body) {
+        Map<String, Object> data = gson.fromJson(body, Map.class);
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            Integer userId = ((Number) data.get("userId")).intValue();
+            String date = (String) data.get("date");
+            
+            DailyTask task = date != null && !date.isEmpty()
+                ? planService.getTaskByUserAndDate(userId, date)
+                : planService.getTodayTask(userId);
+            
+            response.put("success", true);
+            if (task != null) {
+                response.put("data", dailyTaskToMap(task));
+            } else {
+                response.put("data", null);
+                response.put("message", "当日暂无计划");
+            }
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+        }
+        
+        return response;
+    }
+    
     private static Map<String, Object> planToMap(PersonalizedPlan plan) {
         Map<String, Object> map = new HashMap<>();
         if (plan == null) return map;
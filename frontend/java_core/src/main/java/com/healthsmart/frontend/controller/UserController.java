@@ -14,11 +14,18 @@ import java.util.Map;
 public class UserController {
     
     private static final Gson gson = new Gson();
-    private static UserService userService;
+    private static volatile UserService userService;
+    
+    /**
+     * 注入服务（由 ServiceContainer 在启动时调用，关闭时传入 null）
+     */
+    public static void init(UserService userService) {
+        UserController.userService = userService;
+    }
     
     public static String handleRequest(String action, String body) {
         if (userService == null) {
-            userService = new UserService();
+            return gson.toJson(Map.of("success", false, "message", "服务尚未初始化"));
         }
         
         Map<String, Object> response = new HashMap<>();
@@ -37,6 +44,9 @@ public class UserController {
                 case "update":
                     response = handleUpdateProfile(body);
                     break;
+                case "auth":
+                    response = handleAuth(body);
+                    break;
                 default:
                     response.put("success", false);
                     response.put("message", "未知的操作类型");
@@ -49,6 +59,48 @@ public class UserController {
         return gson.toJson(response);
     }
     
+    /**
+     * 统一认证：已有用户校验密码登录，新用户自动注册
+     */
+    private static Map<String, Object> handleAuth(String body) {
+        Map<String, Object> data = gson.fromJson(body, Map.class);
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            String username = (String) data.get("username");
+            String password = (String) data.get("password");
+            boolean isNewUser = userService.getUserByUsername(username) == null;
+            
+            User user;
+            if (isNewUser) {
+                user = userService.register(username, password, (String) data.get("email"), (String) data.get("nickname"));
+            } else {
+                try {
+                    user = userService.login(username, password);
+                } catch (Exception e) {
+                    response.put("success", false);
+                    response.put("message", "密码错误");
+                    return response;
+                }
+            }
+            
+            response.put("success", true);
+            Map<String, Object> userData = new HashMap<>();
+            userData.put("userId", user.getUserId());
+            userData.put("username", user.getUsername());
+            userData.put("nickname", user.getNickname());
+            userData.put("email", user.getEmail());
+            userData.put("isNewUser", isNewUser);
+            userData.put("message", isNewUser ? "新用户注册成功，欢迎使用健康智护！" : "登录成功，欢迎回来！");
+            response.put("data", userData);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+        }
+        
+        return response;
+    }
+    
     private Map<String, Object> handleLogin(String body) {
         Map<String, Object> data = gson.fromJson(body, Map.class);
         Map<String, Object> response = new HashMap<>();
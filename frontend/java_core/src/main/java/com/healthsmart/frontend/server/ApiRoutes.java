@@ -0,0 +1,119 @@
+package com.healthsmart.frontend.server;
+
+import com.google.gson.Gson;
+import com.healthsmart.frontend.controller.AnalyticsController;
+import com.healthsmart.frontend.controller.HealthReportController;
+import com.healthsmart.frontend.controller.PlanController;
+import com.healthsmart.frontend.controller.UserController;
+import com.healthsmart.router.JsonBodyParams;
+import com.healthsmart.router.RouteMatch;
+import com.healthsmart.router.Router;
+
+import java.util.Map;
+
+/**
+ * 前端API路由表
+ * Frontend API Routes
+ *
+ * 旧式 ?action= 操作与 web/js/api.js 使用的 REST 路径都转到控制器的对应操作。
+ * HTTP 服务器（ApiServer）与桌面端进程内桥（DesktopBridge）共用同一分发入口。
+ */
+public final class ApiRoutes {
+
+    private static final Gson gson = new Gson();
+
+    /**
+     * 控制器调用：接收请求体（REST 路由的路径参数与声明的查询参数已并入）并返回JSON
+     */
+    @FunctionalInterface
+    interface Endpoint {
+        String handle(String body);
+    }
+
+    /**
+     * 分发结果
+     */
+    public static final class Response {
+        private final int status;
+        private final String body;
+
+        public Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public String getBody() {
+            return body;
+        }
+    }
+
+    private static final Router<Endpoint> ROUTES = buildRoutes();
+
+    // 每个工作线程复用一个匹配结果，匹配过程不分配对象
+    private static final ThreadLocal<RouteMatch<Endpoint>> MATCH = ThreadLocal.withInitial(RouteMatch::new);
+
+    private ApiRoutes() {
+    }
+
+    private static Router<Endpoint> buildRoutes() {
+        Router.Builder<Endpoint> routes = Router.builder();
+        for (String action : new String[]{"login", "register", "auth", "profile", "update"}) {
+            routes.action("/api/user", action, body -> UserController.handleRequest(action, body));
+        }
+        for (String action : new String[]{"submit", "getLatest", "list", "getById"}) {
+            routes.action("/api/health-report", action, body -> HealthReportController.handleRequest(action, body));
+        }
+        for (String action : new String[]{"generate", "getPlan", "getDailyTasks", "getTaskByDate",
+                "completeTask", "getTodayPlan", "getDaily"}) {
+            routes.action("/api/plan", action, body -> PlanController.handleRequest(action, body));
+        }
+        for (String action : new String[]{"dashboard", "planStats", "weeklyStats", "nutritionTrend", "streakStats"}) {
+            routes.action("/api/analytics", action, body -> AnalyticsController.handleRequest(action, body));
+        }
+        return routes
+                .post("/api/user/auth", body -> UserController.handleRequest("auth", body))
+                .post("/api/user/login", body -> UserController.handleRequest("login", body))
+                .post("/api/user/register", body -> UserController.handleRequest("register", body))
+                .get("/api/user/{userId:int}", body -> UserController.handleRequest("profile", body))
+                .put("/api/user/{userId:int}", body -> UserController.handleRequest("update", body))
+                .post("/api/health-report", body -> HealthReportController.handleRequest("submit", body))
+                .get("/api/health-report/user/{userId:int}", body -> HealthReportController.handleRequest("list", body))
+                .post("/api/plan/generate", body -> PlanController.handleRequest("generate", body))
+                .get("/api/plan/daily?{userId:int}&{date}", body -> PlanController.handleRequest("getDaily", body))
+                .post("/api/task/{taskId:int}/complete", body -> PlanController.handleRequest("completeTask", body))
+                .get("/api/analytics/dashboard?{userId:int}", body -> AnalyticsController.handleRequest("dashboard", body))
+                .get("/api/analytics/statistics?{userId:int}&{period}",
+                        body -> AnalyticsController.handleRequest("weeklyStats", body))
+                .build();
+    }
+
+    /**
+     * 分发一次请求
+     *
+     * @param rawPath  未解码的路径（含 /api 前缀）
+     * @param rawQuery 未解码的查询串，可为 null
+     */
+    public static Response dispatch(String method, String rawPath, String rawQuery, String body) {
+        RouteMatch<Endpoint> match = MATCH.get();
+        if (ROUTES.match(method, rawPath, rawQuery, match)) {
+            String params;
+            try {
+                params = JsonBodyParams.merge(body, match);
+            } catch (IllegalArgumentException e) {
+                return new Response(400, gson.toJson(Map.of("success", false, "message", "请求参数错误: " + e.getMessage())));
+            }
+            return new Response(200, match.target().handle(params));
+        }
+        if (match.isUnknownAction()) {
+            return new Response(match.isRestPath() ? 404 : 200, gson.toJson(Map.of("success", false, "message", "未知的操作类型")));
+        }
+        if (match.isMethodNotAllowed()) {
+            return new Response(405, gson.toJson(Map.of("success", false, "message", "不支持的请求方法: " + method)));
+        }
+        return new Response(404, gson.toJson(Map.of("success", false, "message", "未找到接口: " + rawPath)));
+    }
+}
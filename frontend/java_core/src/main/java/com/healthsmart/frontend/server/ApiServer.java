@@ -1,19 +1,21 @@
 package com.healthsmart.frontend.server;
 
 import com.google.gson.Gson;
+import com.sun.net.httpserver.Filter;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
-import com.healthsmart.frontend.controller.AnalyticsController;
-import com.healthsmart.frontend.controller.HealthReportController;
-import com.healthsmart.frontend.controller.PlanController;
-import com.healthsmart.frontend.controller.UserController;
+import com.healthsmart.frontend.ServiceContainer;
+import com.healthsmart.web.CompressionFilter;
+import com.healthsmart.web.CorsFilter;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.net.URI;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executors;
 
@@ -32,21 +34,31 @@ public class ApiServer {
     }
     
     public static void start() throws IOException {
+        // 服务在接收请求前全部创建并注入控制器
+        ServiceContainer container = ServiceContainer.start();
         server = HttpServer.create(new InetSocketAddress(PORT), 0);
         
-        // API 路由
-        server.createContext("/api/user", new UserHandler());
-        server.createContext("/api/health-report", new HealthReportHandler());
-        server.createContext("/api/plan", new PlanHandler());
-        server.createContext("/api/analytics", new AnalyticsHandler());
+        // 预检请求由跨域过滤器直接应答，不进入处理器
+        Filter cors = CorsFilter.fromConfig("GET, POST, PUT, OPTIONS");
+        // 按 Accept-Encoding 压缩较大的响应（压缩率按上下文路径统计）
+        Filter compression = CompressionFilter.fromConfig(null);
+        
+        // API 路由（旧式 ?action= 与 REST 路径均由 ApiRoutes 预编译路由表分发）
+        ApiHandler api = new ApiHandler();
+        server.createContext("/api/", api).getFilters().addAll(List.of(cors, compression));
+        // 上下文按字符串前缀匹配，/api/health-report 需单独注册以免落入 /api/health
+        server.createContext("/api/health-report", api).getFilters().addAll(List.of(cors, compression));
         
         // 健康检查
         server.createContext("/api/health", exchange -> {
             sendJsonResponse(exchange, 200, Map.of("status", "ok", "message", "服务器运行正常"));
-        });
+        }).getFilters().add(cors);
         
         server.setExecutor(Executors.newFixedThreadPool(10));
         server.start();
+        // 最后注册，关闭时最先执行：停止接收请求后再释放服务依赖的资源
+        HttpServer started = server;
+        container.addShutdownHook("API 服务器", () -> started.stop(0));
         
         System.out.println("========================================");
         System.out.println("   API 服务器已启动");
@@ -54,66 +66,39 @@ public class ApiServer {
         System.out.println("========================================");
     }
     
+    /**
+     * 停止服务器并关闭服务容器
+     */
     public static void stop() {
         if (server != null) {
-            server.stop(0);
+            ServiceContainer.shutdown();
+            server = null;
             System.out.println("API 服务器已停止");
         }
     }
     
     /**
-     * 用户API处理器
-     */
-    static class UserHandler implements HttpHandler {
-        @Override
-        public void handle(HttpExchange exchange) throws IOException {
-            String body = readRequestBody(exchange);
-            String action = getAction(exchange.getRequestURI().getQuery());
-            
-            String response = UserController.handleRequest(action, body);
-            sendJsonResponse(exchange, 200, response);
-        }
-    }
-    
-    /**
-     * 健康报告API处理器
-     */
-    static class HealthReportHandler implements HttpHandler {
-        @Override
-        public void handle(HttpExchange exchange) throws IOException {
-            String body = readRequestBody(exchange);
-            String action = getAction(exchange.getRequestURI().getQuery());
-            
-            String response = HealthReportController.handleRequest(action, body);
-            sendJsonResponse(exchange, 200, response);
-        }
-    }
-    
-    /**
-     * 计划API处理器
-     */
-    static class PlanHandler implements HttpHandler {
-        @Override
-        public void handle(HttpExchange exchange) throws IOException {
-            String body = readRequestBody(exchange);
-            String action = getAction(exchange.getRequestURI().getQuery());
-            
-            String response = PlanController.handleRequest(action, body);
-            sendJsonResponse(exchange, 200, response);
-        }
-    }
-    
-    /**
-     * 数据分析API处理器
+     * API 分发处理器
      */
-    static class AnalyticsHandler implements HttpHandler {
+    static class ApiHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
+            URI uri = exchange.getRequestURI();
             String body = readRequestBody(exchange);
-            String action = getAction(exchange.getRequestURI().getQuery());
-            
-            String response = AnalyticsController.handleRequest(action, body);
-            sendJsonResponse(exchange, 200, response);
+
+            ApiRoutes.Response response;
+            try {
+                response = ApiRoutes.dispatch(exchange.getRequestMethod(), uri.getRawPath(), uri.getRawQuery(), body);
+            } catch (RuntimeException e) {
+                // 处理方法未捕获的异常也要返回JSON，否则连接直接断开
+                e.printStackTrace();
+                Map<String, Object> error = new HashMap<>();
+                error.put("success", false);
+                error.put("message", e.getMessage());
+                sendJsonResponse(exchange, 500, error);
+                return;
+            }
+            sendJsonResponse(exchange, response.getStatus(), response.getBody());
         }
     }
     
@@ -125,32 +110,12 @@ public class ApiServer {
         return new String(inputStream.readAllBytes(), "UTF-8");
     }
     
-    /**
-     * 解析请求参数中的action
-     */
-    private static String getAction(String query) {
-        if (query == null || query.isEmpty()) {
-            return "";
-        }
-        String[] params = query.split("&");
-        for (String param : params) {
-            String[] keyValue = param.split("=");
-            if (keyValue.length == 2 && keyValue[0].equals("action")) {
-                return keyValue[1];
-            }
-        }
-        // 尝试从body中获取action
-        return "";
-    }
-    
     /**
      * 发送JSON响应
      */
     private static void sendJsonResponse(HttpExchange exchange, int statusCode, String json) throws IOException {
+        // 跨域响应头由 CorsFilter 设置
         exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
-        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
-        exchange.getResponseHeaders().set("Access-Control-Allow-Methods", "GET, POST, OPTIONS");
-        exchange.getResponseHeaders().set("Access-Control-Allow-Headers", "Content-Type");
         
         byte[] responseBytes = json.getBytes("UTF-8");
         exchange.sendResponseHeaders(statusCode, responseBytes.length);
@@ -9,6 +9,72 @@
 const API_BASE = 'http://localhost:8080/api';
 const USE_MOCK_DATA = false; // 设为true使用模拟数据，false使用真实后端API
 
+/**
+ * 桌面端进程内API桥
+ * 在 JavaFX WebView 中运行时，HealthSmartApp 会挂上 window.healthSmartBridge，
+ * 请求直接分发到Java控制器，不经过HTTP回环；普通浏览器中仍使用 fetch
+ */
+const DesktopBridge = {
+    pending: new Map(),
+    nextId: 1,
+    ready: null,
+
+    /**
+     * 等待桥就绪；非桌面环境或超时（2秒）时返回 null
+     */
+    whenReady() {
+        if (window.healthSmartBridge) {
+            return Promise.resolve(window.healthSmartBridge);
+        }
+        if (!navigator.userAgent.includes('JavaFX')) {
+            return Promise.resolve(null);
+        }
+        if (!this.ready) {
+            this.ready = new Promise((resolve) => {
+                const timer = setTimeout(() => resolve(window.healthSmartBridge || null), 2000);
+                window.addEventListener('healthsmart-bridge-ready', () => {
+                    clearTimeout(timer);
+                    resolve(window.healthSmartBridge);
+                }, { once: true });
+            });
+        }
+        return this.ready;
+    },
+
+    /**
+     * 经桥发送请求，返回与 fetch 相同用法的响应对象（status / ok / json()）
+     */
+    call(bridge, method, path, body) {
+        const id = String(this.nextId++);
+        return new Promise((resolve) => {
+            this.pending.set(id, resolve);
+            bridge.call(id, method, path, body || '');
+        });
+    }
+};
+
+// 由 DesktopBridge.java 在FX线程回调
+window.__healthSmartBridgeSettle = (id, status, json) => {
+    const resolve = DesktopBridge.pending.get(id);
+    if (resolve) {
+        DesktopBridge.pending.delete(id);
+        resolve({ status, ok: status >= 200 && status < 300, json: async () => JSON.parse(json) });
+    }
+};
+
+/**
+ * 发送API请求：桌面端走进程内桥，浏览器中走 HTTP
+ * @param {string} path 相对 API_BASE 的路径，可带查询串
+ * @param {object} options 与 fetch 相同的 method / headers / body
+ */
+async function apiFetch(path, options = {}) {
+    const bridge = await DesktopBridge.whenReady();
+    if (bridge) {
+        return DesktopBridge.call(bridge, options.method || 'GET', path, options.body);
+    }
+    return fetch(`${API_BASE}${path}`, options);
+}
+
 /**
  * API客户端类
  */
@@ -23,7 +89,7 @@ const HealthSmartAPI = {
         }
         
         try {
-            const response = await fetch(`${API_BASE}/user/auth`, {
+            const response = await apiFetch(`/user/auth`, {
                 method: 'POST',
                 headers: {
                     'Content-Type': 'application/json'
@@ -46,7 +112,7 @@ const HealthSmartAPI = {
         }
         
         try {
-            const response = await fetch(`${API_BASE}/user/login`, {
+            const response = await apiFetch(`/user/login`, {
                 method: 'POST',
                 headers: {
                     'Content-Type': 'application/json'
@@ -69,7 +135,7 @@ const HealthSmartAPI = {
         }
         
         try {
-            const response = await fetch(`${API_BASE}/user/register`, {
+            const response = await apiFetch(`/user/register`, {
                 method: 'POST',
                 headers: {
                     'Content-Type': 'application/json'
@@ -92,7 +158,7 @@ const HealthSmartAPI = {
         }
         
         try {
-            const response = await fetch(`${API_BASE}/user/${userId}`);
+            const response = await apiFetch(`/user/${userId}`);
             return await response.json();
         } catch (error) {
             console.error('获取用户信息失败:', error);
@@ -109,7 +175,7 @@ const HealthSmartAPI = {
         }
         
         try {
-            const response = await fetch(`${API_BASE}/user/${userData.userId}`, {
+            const response = await apiFetch(`/user/${userData.userId}`, {
                 method: 'PUT',
                 headers: {
                     'Content-Type': 'application/json'
@@ -132,7 +198,7 @@ const HealthSmartAPI = {
         }
         
         try {
-            const response = await fetch(`${API_BASE}/health-report`, {
+            const response = await apiFetch(`/health-report`, {
                 method: 'POST',
                 headers: {
                     'Content-Type': 'application/json'
@@ -155,7 +221,7 @@ const HealthSmartAPI = {
         }
         
         try {
-            const response = await fetch(`${API_BASE}/health-report/user/${userId}`);
+            const response = await apiFetch(`/health-report/user/${userId}`);
             return await response.json();
         } catch (error) {
             console.error('获取报告失败:', error);
@@ -172,7 +238,7 @@ const HealthSmartAPI = {
         }
         
         try {
-            const response = await fetch(`${API_BASE}/plan/generate`, {
+            const response = await apiFetch(`/plan/generate`, {
                 method: 'POST',
                 headers: {
                     'Content-Type': 'application/json'
@@ -195,7 +261,7 @@ const HealthSmartAPI = {
         }
         
         try {
-            const response = await fetch(`${API_BASE}/plan/daily?userId=${userId}&date=${date}`);
+            const response = await apiFetch(`/plan/daily?userId=${userId}&date=${date}`);
             return await response.json();
         } catch (error) {
             console.error('获取每日计划失败:', error);
@@ -212,7 +278,7 @@ const HealthSmartAPI = {
         }
         
         try {
-            const response = await fetch(`${API_BASE}/analytics/dashboard?userId=${userId}`);
+            const response = await apiFetch(`/analytics/dashboard?userId=${userId}`);
             return await response.json();
         } catch (error) {
             console.error('获取仪表盘数据失败:', error);
@@ -229,7 +295,7 @@ const HealthSmartAPI = {
         }
         
         try {
-            const response = await fetch(`${API_BASE}/analytics/statistics?userId=${userId}&period=${period}`);
+            const response = await apiFetch(`/analytics/statistics?userId=${userId}&period=${period}`);
             return await response.json();
         } catch (error) {
             console.error('获取统计数据失败:', error);
@@ -246,7 +312,7 @@ const HealthSmartAPI = {
         }
         
         try {
-            const response = await fetch(`${API_BASE}/reminders?userId=${userId}&filter=${filter}`);
+            const response = await apiFetch(`/reminders?userId=${userId}&filter=${filter}`);
             return await response.json();
         } catch (error) {
             console.error('获取提醒失败:', error);
@@ -263,7 +329,7 @@ const HealthSmartAPI = {
         }
         
         try {
-            const response = await fetch(`${API_BASE}/task/${taskId}/complete`, {
+            const response = await apiFetch(`/task/${taskId}/complete`, {
                 method: 'POST',
                 headers: {
                     'Content-Type': 'application/json'